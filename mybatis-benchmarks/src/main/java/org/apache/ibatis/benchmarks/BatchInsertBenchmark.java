@@ -0,0 +1,82 @@
+/*
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.ibatis.executor.BatchResult;
+import org.apache.ibatis.session.ExecutorType;
+import org.apache.ibatis.session.SqlSession;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Batched inserts: {@code BatchExecutor.doUpdate} followed by a flush. Every invocation is rolled back
+ * so the table size stays constant across iterations.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class BatchInsertBenchmark {
+
+  @Param({ "100" })
+  public int batchSize;
+
+  private SqlSession session;
+  private ItemMapper mapper;
+  private Item[] items;
+
+  @Setup(Level.Iteration)
+  public void setUp(BenchmarkDatabase database) {
+    session = database.getSqlSessionFactory().openSession(ExecutorType.BATCH);
+    mapper = session.getMapper(ItemMapper.class);
+    items = new Item[batchSize];
+    for (int i = 0; i < batchSize; i++) {
+      items[i] = BenchmarkDatabase.newItem(database.rows + i);
+    }
+  }
+
+  @TearDown(Level.Iteration)
+  public void tearDown() {
+    session.close();
+  }
+
+  @Benchmark
+  public List<BatchResult> insertBatch() {
+    for (Item item : items) {
+      mapper.insert(item);
+    }
+    List<BatchResult> results = session.flushStatements();
+    session.rollback(true);
+    return results;
+  }
+
+}
@@ -0,0 +1,86 @@
+/*
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.benchmarks;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Date;
+
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.jdbc.ScriptRunner;
+import org.apache.ibatis.session.ExecutorType;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Shared benchmark state: an in-memory HSQLDB database holding {@link #rows} items and the
+ * {@link SqlSessionFactory} built on top of it.
+ */
+@State(Scope.Benchmark)
+public class BenchmarkDatabase {
+
+  static final String CONFIG = "org/apache/ibatis/benchmarks/mybatis-config.xml";
+  static final String DDL = "org/apache/ibatis/benchmarks/CreateDB.sql";
+
+  @Param({ "100" })
+  public int rows;
+
+  private SqlSessionFactory sqlSessionFactory;
+
+  @Setup
+  public void setUp() throws IOException, SQLException {
+    try (Reader reader = Resources.getResourceAsReader(CONFIG)) {
+      sqlSessionFactory = new SqlSessionFactoryBuilder().build(reader);
+    }
+    try (SqlSession session = sqlSessionFactory.openSession(ExecutorType.BATCH)) {
+      Connection conn = session.getConnection();
+      ScriptRunner runner = new ScriptRunner(conn);
+      runner.setLogWriter(null);
+      try (Reader reader = Resources.getResourceAsReader(DDL)) {
+        runner.runScript(reader);
+      }
+      ItemMapper mapper = session.getMapper(ItemMapper.class);
+      for (int i = 0; i < rows; i++) {
+        mapper.insert(newItem(i));
+      }
+      session.commit();
+    }
+  }
+
+  public SqlSessionFactory getSqlSessionFactory() {
+    return sqlSessionFactory;
+  }
+
+  static Item newItem(int id) {
+    Item item = new Item();
+    item.setId(id);
+    item.setName("item-" + id);
+    item.setDescription("Description of benchmark item number " + id);
+    item.setPrice(BigDecimal.valueOf(id, 2));
+    item.setQuantity(id % 50);
+    item.setCreatedAt(new Date());
+    item.setActive(id % 2 == 0);
+    return item;
+  }
+}
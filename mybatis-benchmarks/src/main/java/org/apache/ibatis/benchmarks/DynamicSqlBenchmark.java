@@ -0,0 +1,76 @@
+/*
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Dynamic SQL generation: {@code DynamicSqlSource.getBoundSql} with {@code <if>}, {@code <where>} and
+ * {@code <foreach>} nodes, without touching the database.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class DynamicSqlBenchmark {
+
+  @Param({ "0", "10", "1000" })
+  public int ids;
+
+  private MappedStatement search;
+  private ItemQuery query;
+
+  @Setup
+  public void setUp(BenchmarkDatabase database) {
+    search = database.getSqlSessionFactory().getConfiguration()
+        .getMappedStatement("org.apache.ibatis.benchmarks.ItemMapper.search");
+    query = new ItemQuery();
+    query.setName("item-%");
+    query.setMinQuantity(10);
+    query.setActive(Boolean.TRUE);
+    if (ids > 0) {
+      List<Integer> list = new ArrayList<>(ids);
+      for (int i = 0; i < ids; i++) {
+        list.add(i);
+      }
+      query.setIds(list);
+    }
+  }
+
+  @Benchmark
+  public BoundSql getBoundSql() {
+    return search.getBoundSql(query);
+  }
+
+}
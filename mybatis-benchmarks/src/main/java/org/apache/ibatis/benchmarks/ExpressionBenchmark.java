@@ -0,0 +1,86 @@
+/*
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.benchmarks;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.ibatis.scripting.xmltags.DynamicContext;
+import org.apache.ibatis.scripting.xmltags.IfSqlNode;
+import org.apache.ibatis.scripting.xmltags.SqlNode;
+import org.apache.ibatis.scripting.xmltags.StaticTextSqlNode;
+import org.apache.ibatis.session.Configuration;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Test expressions of {@code <if>} nodes: the common forms evaluated by OGNL (an {@link IfSqlNode} built without a
+ * {@link Configuration}) or by the compiled simple expressions of the configuration's evaluator.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ExpressionBenchmark {
+
+  private static final String[] TESTS = { "name != null and name != ''", "minQuantity != null", "active != null",
+      "ids != null and ids.size() > 0" };
+
+  @Param({ "ognl", "simple" })
+  public String evaluator;
+
+  private Configuration configuration;
+  private SqlNode[] nodes;
+  private ItemQuery query;
+
+  @Setup
+  public void setUp() {
+    configuration = new Configuration();
+    nodes = new SqlNode[TESTS.length];
+    for (int i = 0; i < TESTS.length; i++) {
+      SqlNode contents = new StaticTextSqlNode("and x = ?");
+      nodes[i] = "simple".equals(evaluator) ? new IfSqlNode(configuration, contents, TESTS[i])
+          : new IfSqlNode(contents, TESTS[i]);
+    }
+    query = new ItemQuery();
+    query.setName("item-%");
+    query.setMinQuantity(10);
+    query.setActive(Boolean.TRUE);
+    query.setIds(new ArrayList<>(Arrays.asList(1, 2, 3)));
+  }
+
+  @Benchmark
+  public String applyIfNodes() {
+    DynamicContext context = new DynamicContext(configuration, query);
+    for (SqlNode node : nodes) {
+      node.apply(context);
+    }
+    return context.getSql();
+  }
+
+}
@@ -0,0 +1,90 @@
+/*
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.benchmarks;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.ibatis.reflection.DefaultReflectorFactory;
+import org.apache.ibatis.reflection.LambdaReflectorFactory;
+import org.apache.ibatis.reflection.Reflector;
+import org.apache.ibatis.reflection.ReflectorFactory;
+import org.apache.ibatis.reflection.invoker.Invoker;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Property access: the getter and setter {@link Invoker}s of {@link Reflector}, built by
+ * {@link DefaultReflectorFactory} ({@code Method.invoke}) or {@link LambdaReflectorFactory} (LambdaMetafactory).
+ * Every invocation writes and reads back all properties of an {@link Item}, the work the result handler does per row.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ReflectorBenchmark {
+
+  private static final String[] PROPERTIES = { "id", "name", "description", "price", "quantity", "active" };
+
+  @Param({ "reflection", "lambda" })
+  public String invokers;
+
+  private Invoker[] setters;
+  private Invoker[] getters;
+  private Object[][] values;
+  private Item item;
+
+  @Setup
+  public void setUp() {
+    ReflectorFactory reflectorFactory = "lambda".equals(invokers) ? new LambdaReflectorFactory()
+        : new DefaultReflectorFactory();
+    Reflector reflector = reflectorFactory.findForClass(Item.class);
+    setters = new Invoker[PROPERTIES.length];
+    getters = new Invoker[PROPERTIES.length];
+    for (int i = 0; i < PROPERTIES.length; i++) {
+      setters[i] = reflector.getSetInvoker(PROPERTIES[i]);
+      getters[i] = reflector.getGetInvoker(PROPERTIES[i]);
+    }
+    values = new Object[][] { { 1 }, { "item-1" }, { "description of item-1" }, { new BigDecimal("9.99") }, { 10 },
+        { Boolean.TRUE } };
+    item = new Item();
+  }
+
+  @Benchmark
+  public Item setAndGet() throws Exception {
+    for (int i = 0; i < setters.length; i++) {
+      setters[i].invoke(item, values[i]);
+    }
+    for (int i = 0; i < getters.length; i++) {
+      if (getters[i].invoke(item, null) == null) {
+        throw new IllegalStateException(PROPERTIES[i]);
+      }
+    }
+    return item;
+  }
+
+}
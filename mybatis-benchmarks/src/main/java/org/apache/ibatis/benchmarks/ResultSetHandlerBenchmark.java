@@ -0,0 +1,86 @@
+/*
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.benchmarks;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.executor.resultset.ResultSetHandler;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.ExecutorType;
+import org.apache.ibatis.session.RowBounds;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.transaction.jdbc.JdbcTransaction;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Result mapping: {@code DefaultResultSetHandler.handleResultSets} over a prepared statement that is
+ * re-executed on every invocation, bypassing the executor and the local cache.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ResultSetHandlerBenchmark {
+
+  private SqlSession session;
+  private PreparedStatement statement;
+  private ResultSetHandler resultSetHandler;
+
+  @Setup(Level.Iteration)
+  public void setUp(BenchmarkDatabase database) throws SQLException {
+    Configuration configuration = database.getSqlSessionFactory().getConfiguration();
+    MappedStatement ms = configuration.getMappedStatement("org.apache.ibatis.benchmarks.ItemMapper.selectAll");
+    session = database.getSqlSessionFactory().openSession();
+    Connection connection = session.getConnection();
+    Executor executor = configuration.newExecutor(new JdbcTransaction(connection), ExecutorType.SIMPLE);
+    BoundSql boundSql = ms.getBoundSql(null);
+    statement = connection.prepareStatement(boundSql.getSql());
+    resultSetHandler = configuration.newResultSetHandler(executor, ms, RowBounds.DEFAULT, null, null, boundSql);
+  }
+
+  @TearDown(Level.Iteration)
+  public void tearDown() throws SQLException {
+    statement.close();
+    session.close();
+  }
+
+  @Benchmark
+  public List<Object> handleResultSets() throws SQLException {
+    statement.execute();
+    return resultSetHandler.handleResultSets(statement);
+  }
+
+}
@@ -0,0 +1,80 @@
+/*
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.ibatis.session.SqlSession;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * End-to-end select path: {@code DefaultSqlSession.selectList} and {@code MapperProxy.invoke}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SelectBenchmark {
+
+  private SqlSession session;
+  private ItemMapper mapper;
+
+  @Setup(Level.Iteration)
+  public void openSession(BenchmarkDatabase database) {
+    session = database.getSqlSessionFactory().openSession();
+    mapper = session.getMapper(ItemMapper.class);
+  }
+
+  @TearDown(Level.Iteration)
+  public void closeSession() {
+    session.close();
+  }
+
+  @Benchmark
+  public List<Item> selectList() {
+    return session.selectList("org.apache.ibatis.benchmarks.ItemMapper.selectAll");
+  }
+
+  @Benchmark
+  public Item selectOne() {
+    return session.selectOne("org.apache.ibatis.benchmarks.ItemMapper.selectById", 1);
+  }
+
+  @Benchmark
+  public List<Item> mapperSelectList() {
+    return mapper.selectAll();
+  }
+
+  @Benchmark
+  public Item mapperSelectOne() {
+    return mapper.selectById(1);
+  }
+
+}
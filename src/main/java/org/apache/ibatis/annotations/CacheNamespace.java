@@ -92,6 +92,48 @@ public @interface CacheNamespace {
    */
   boolean blocking() default false;
 
+  /**
+   * Returns the time to live of each entry in milliseconds. 0 keeps entries until they are evicted or flushed.
+   *
+   * @return the time to live of each entry
+   * @since 3.5.9
+   */
+  long timeToLive() default 0;
+
+  /**
+   * Returns the largest fraction, between 0 and 1, by which the time to live of an entry is randomly shortened.
+   *
+   * @return the time to live jitter
+   * @since 3.5.9
+   */
+  double timeToLiveJitter() default 0;
+
+  /**
+   * Returns the fraction, between 0 and 1, of the time to live after which a hit reloads the entry in the
+   * background. 0 disables refresh ahead.
+   *
+   * @return the refresh ahead fraction
+   * @since 3.5.9
+   */
+  double refreshAhead() default 0;
+
+  /**
+   * Returns whether concurrent misses of the same key share one query. Supersedes {@link #blocking()}.
+   *
+   * @return {@code true} if misses share one query; {@code false} if otherwise
+   * @since 3.5.9
+   */
+  boolean singleFlight() default false;
+
+  /**
+   * Returns the milliseconds a miss waits for the query of another one before running its own. 0 waits as long as
+   * the query takes.
+   *
+   * @return the single flight timeout
+   * @since 3.5.9
+   */
+  long singleFlightTimeout() default 0;
+
   /**
    * Returns property values for a implementation object.
    *
@@ -0,0 +1,59 @@
+/*
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.annotations;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * The annotation that makes a mapper method returning a {@link org.apache.ibatis.cursor.Cursor} scan its statement
+ * with keyset pagination. See {@link org.apache.ibatis.cursor.KeysetCursor}.
+ *
+ * <p>
+ * <b>How to use:</b>
+ *
+ * <pre>
+ * public interface UserMapper {
+ *   &#064;Keyset(key = "id", pageSize = 1000)
+ *   &#064;Select({"&lt;script&gt;SELECT id, name FROM users",
+ *       "&lt;if test='lastKey != null'&gt;WHERE id &amp;gt; #{lastKey}&lt;/if&gt;",
+ *       "ORDER BY id&lt;/script&gt;"})
+ *   Cursor&lt;User&gt; scanUsers();
+ * }
+ * </pre>
+ * @since 3.5.9
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface Keyset {
+  /**
+   * Returns the property of the result objects holding the key.
+   *
+   * @return the property name, or an empty string if the result objects are the keys
+   */
+  String key() default "";
+
+  /**
+   * Returns the number of rows read per page.
+   *
+   * @return the page size
+   */
+  int pageSize() default 1000;
+}
@@ -63,4 +63,22 @@ public @interface One {
    */
   FetchType fetchType() default FetchType.DEFAULT;
 
+  /**
+   * Returns the maximum number of parent keys passed to one execution of the nested statement. When positive, the
+   * nested statement receives a list of keys as {@code list} and must return the rows of all of them.
+   *
+   * @return the batch size. Zero or less executes the nested statement once per row
+   * @since 3.5.9
+   */
+  int batchSize() default 0;
+
+  /**
+   * Returns the property of the nested statement results that holds the key of their parent. Required when
+   * {@link #batchSize()} is positive.
+   *
+   * @return the property name
+   * @since 3.5.9
+   */
+  String batchKey() default "";
+
 }
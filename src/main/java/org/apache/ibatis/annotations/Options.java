@@ -138,6 +138,37 @@ public @interface Options {
    */
   String resultSets() default "";
 
+  /**
+   * Returns whether result objects are built in parallel on the fork-join pool.
+   * <p>
+   * Only applies to selects whose result map has no constructor, discriminator, nested or nested-query mappings and
+   * whose results are collected into a list.
+   * </p>
+   *
+   * @return {@code true} if the rows are mapped in parallel; {@code false} if otherwise
+   * @since 3.5.9
+   */
+  boolean parallelMapping() default false;
+
+  /**
+   * Returns the name of the collection or array parameter that is split into chunks of {@link #chunkSize()} elements.
+   * <p>
+   * The statement is executed once per chunk; select results are concatenated and update counts are summed.
+   * </p>
+   *
+   * @return the parameter name
+   * @since 3.5.9
+   */
+  String chunkParameter() default "";
+
+  /**
+   * Returns the maximum number of elements of {@link #chunkParameter()} passed to a single execution.
+   *
+   * @return the chunk size. Zero or less disables chunking
+   * @since 3.5.9
+   */
+  int chunkSize() default 0;
+
   /**
    * @return A database id that correspond this options
    * @since 3.5.5
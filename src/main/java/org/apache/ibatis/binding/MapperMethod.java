@@ -23,8 +23,10 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 import org.apache.ibatis.annotations.Flush;
+import org.apache.ibatis.annotations.Keyset;
 import org.apache.ibatis.annotations.MapKey;
 import org.apache.ibatis.cursor.Cursor;
 import org.apache.ibatis.mapping.MappedStatement;
@@ -33,6 +35,7 @@ import org.apache.ibatis.mapping.StatementType;
 import org.apache.ibatis.reflection.MetaObject;
 import org.apache.ibatis.reflection.ParamNameResolver;
 import org.apache.ibatis.reflection.TypeParameterResolver;
+import org.apache.ibatis.session.AsyncSqlSessions;
 import org.apache.ibatis.session.Configuration;
 import org.apache.ibatis.session.ResultHandler;
 import org.apache.ibatis.session.RowBounds;
@@ -63,6 +66,15 @@ public class MapperMethod {
     }
 
     public Object execute(SqlSession sqlSession, Object[] args) {
+        if (method.returnsFuture()) {
+            // 异步执行：在 async executor 上使用独立的 SqlSession，增删改执行完成后提交
+            boolean commit = command.getType() != SqlCommandType.SELECT && command.getType() != SqlCommandType.FLUSH;
+            return AsyncSqlSessions.supplyAsync(sqlSession, commit, session -> doExecute(session, args));
+        }
+        return doExecute(sqlSession, args);
+    }
+
+    private Object doExecute(SqlSession sqlSession, Object[] args) {
         Object result;
         // 根据 sql 语句的类型调用 SqlSession 相应的方法
         switch (command.getType()) {
@@ -212,7 +224,11 @@ public class MapperMethod {
     private <T> Cursor<T> executeForCursor(SqlSession sqlSession, Object[] args) {
         Cursor<T> result;
         Object param = method.convertArgsToSqlCommandParam(args);
-        if (method.hasRowBounds()) {
+        if (method.getKeyset() != null) {
+            // 键集分页，每一页使用独立的 SqlSession 查询
+            Keyset keyset = method.getKeyset();
+            result = sqlSession.selectKeyset(command.getName(), param, keyset.key().isEmpty() ? null : keyset.key(), keyset.pageSize());
+        } else if (method.hasRowBounds()) {
             RowBounds rowBounds = method.extractRowBounds(args);
             result = sqlSession.selectCursor(command.getName(), param, rowBounds);
         } else {
@@ -377,6 +393,10 @@ public class MapperMethod {
          * 返回类型是否为 Optional
          */
         private final boolean returnsOptional;
+        /**
+         * 返回类型是否为 CompletableFuture，此时 returnType 等字段描述的是 future 的结果类型
+         */
+        private final boolean returnsFuture;
         /**
          * 返回类型
          */
@@ -386,6 +406,10 @@ public class MapperMethod {
          * 如果返回值类型是map，则该字段记录了作为key的列名
          */
         private final String mapKey;
+        /**
+         * 方法上的 @Keyset 注解，返回 Cursor 时按键集分页查询
+         */
+        private final Keyset keyset;
         /**
          * 用来标记该方法参数列表中 ResultHandle r类型参数的位置
          */
@@ -402,13 +426,22 @@ public class MapperMethod {
         public MethodSignature(Configuration configuration, Class<?> mapperInterface, Method method) {
             // 解析方法的返回值类型
             Type resolvedReturnType = TypeParameterResolver.resolveReturnType(method, mapperInterface);
+            this.returnsFuture = CompletableFuture.class.equals(method.getReturnType());
+            if (this.returnsFuture) {
+                // CompletableFuture<T> 按 T 解析，CompletableFuture<Void> 视为 void
+                resolvedReturnType = resolvedReturnType instanceof ParameterizedType
+                        ? ((ParameterizedType) resolvedReturnType).getActualTypeArguments()[0] : Object.class;
+                if (Void.class.equals(resolvedReturnType)) {
+                    resolvedReturnType = void.class;
+                }
+            }
             if (resolvedReturnType instanceof Class<?>) {
                 this.returnType = (Class<?>) resolvedReturnType;
             } else if (resolvedReturnType instanceof ParameterizedType) {
                 // 获取该参数化类型的实际类型
                 this.returnType = (Class<?>) ((ParameterizedType) resolvedReturnType).getRawType();
             } else {
-                this.returnType = method.getReturnType();
+                this.returnType = this.returnsFuture ? Object.class : method.getReturnType();
             }
             // 是否为无返回结果
             this.returnsVoid = void.class.equals(this.returnType);
@@ -416,12 +449,22 @@ public class MapperMethod {
             this.returnsMany = configuration.getObjectFactory().isCollection(this.returnType) || this.returnType.isArray();
             // 返回类型是否为游标类型
             this.returnsCursor = Cursor.class.equals(this.returnType);
+            if (this.returnsFuture && this.returnsCursor) {
+                // Cursor 依赖打开的 SqlSession，而异步执行的 SqlSession 在完成后即关闭
+                throw new BindingException("Mapper method '" + mapperInterface.getName() + "." + method.getName()
+                        + "' cannot return a Cursor asynchronously.");
+            }
             // 返回结果是否则 Optional 类型
             this.returnsOptional = Optional.class.equals(this.returnType);
             // 若 MethodSignature 对应方法的返回值是 Map 且制定了 @MapKey 注解，则使用getMapKey方法处理
             // 解析方法上面的 @MapKey 注解
-            this.mapKey = getMapKey(method);
+            this.mapKey = getMapKey(method, this.returnsFuture ? this.returnType : method.getReturnType());
             this.returnsMap = this.mapKey != null;
+            this.keyset = method.getAnnotation(Keyset.class);
+            if (this.keyset != null && !this.returnsCursor) {
+                throw new BindingException("Mapper method '" + mapperInterface.getName() + "." + method.getName()
+                        + "' is annotated with @Keyset but does not return a Cursor.");
+            }
             // 方法参数类型为 RowBounds 的位置
             this.rowBoundsIndex = getUniqueParamIndex(method, RowBounds.class);
             // 方法参数类型为 ResultHandler 的位置
@@ -491,6 +534,17 @@ public class MapperMethod {
             return returnsOptional;
         }
 
+        /**
+         * return whether return type is {@code java.util.concurrent.CompletableFuture}.
+         * In that case the other return type properties describe the type the future completes with.
+         *
+         * @return return {@code true}, if return type is {@code java.util.concurrent.CompletableFuture}
+         * @since 3.5.9
+         */
+        public boolean returnsFuture() {
+            return returnsFuture;
+        }
+
         private Integer getUniqueParamIndex(Method method, Class<?> paramType) {
             Integer index = null;
             final Class<?>[] argTypes = method.getParameterTypes();
@@ -512,9 +566,13 @@ public class MapperMethod {
             return mapKey;
         }
 
-        private String getMapKey(Method method) {
+        public Keyset getKeyset() {
+            return keyset;
+        }
+
+        private String getMapKey(Method method, Class<?> returnType) {
             String mapKey = null;
-            if (Map.class.isAssignableFrom(method.getReturnType())) {
+            if (Map.class.isAssignableFrom(returnType)) {
                 // 如果返回类型是map类型，查看该method是否有MapKey注解，如果有，则将这个注解的值作为map的key
                 final MapKey mapKeyAnnotation = method.getAnnotation(MapKey.class);
                 if (mapKeyAnnotation != null) {
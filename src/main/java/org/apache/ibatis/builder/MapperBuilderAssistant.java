@@ -151,6 +151,27 @@ public class MapperBuilderAssistant extends BaseBuilder {
                              boolean readWrite,
                              boolean blocking,
                              Properties props) {
+        return useNewCache(typeClass, evictionClass, flushInterval, size, readWrite, blocking, null, null, null, false, null, props);
+    }
+
+    /**
+     * 创建 Cache 对象，每个缓存项可以单独过期（timeToLive），并在过期前异步刷新（refreshAhead），
+     * 同一个 key 同时未命中时只查询一次数据库（singleFlight）
+     *
+     * @since 3.5.9
+     */
+    public Cache useNewCache(Class<? extends Cache> typeClass,
+                             Class<? extends Cache> evictionClass,
+                             Long flushInterval,
+                             Integer size,
+                             boolean readWrite,
+                             boolean blocking,
+                             Long timeToLive,
+                             Double timeToLiveJitter,
+                             Double refreshAhead,
+                             boolean singleFlight,
+                             Long singleFlightTimeout,
+                             Properties props) {
         // 1. 创建 Cache 对象
         // 缓存实例默认为 PerpetualCache 类型，Cache 装饰器默认为 LruCache
         Cache cache = new CacheBuilder(currentNamespace)
@@ -160,6 +181,11 @@ public class MapperBuilderAssistant extends BaseBuilder {
                 .size(size)
                 .readWrite(readWrite)
                 .blocking(blocking)
+                .timeToLive(timeToLive)
+                .timeToLiveJitter(timeToLiveJitter)
+                .refreshAhead(refreshAhead)
+                .singleFlight(singleFlight)
+                .singleFlightTimeout(singleFlightTimeout)
                 .properties(props)
                 .build();
         // 2. 添加到 configuration 的 caches 中
@@ -298,7 +324,10 @@ public class MapperBuilderAssistant extends BaseBuilder {
                                               String keyColumn,
                                               String databaseId,
                                               LanguageDriver lang,
-                                              String resultSets) {
+                                              String resultSets,
+                                              boolean parallelMapping,
+                                              String chunkParameter,
+                                              int chunkSize) {
 
         // 1. 如果的指向的 Cache 未解析，抛出异常
         if (unresolvedCacheRef) {
@@ -322,6 +351,9 @@ public class MapperBuilderAssistant extends BaseBuilder {
                 .databaseId(databaseId)
                 .lang(lang)
                 .resultOrdered(resultOrdered)
+                .parallelMapping(parallelMapping)
+                .chunkParameter(chunkParameter)
+                .chunkSize(chunkSize)
                 .resultSets(resultSets)
                 .resultMaps(getStatementResultMaps(resultMap, resultType, id))
                 .resultSetType(resultSetType)
@@ -342,6 +374,81 @@ public class MapperBuilderAssistant extends BaseBuilder {
         return statement;
     }
 
+    /**
+     * Backward compatibility signature 'addMappedStatement'.
+     *
+     * @param id              the id
+     * @param sqlSource       the sql source
+     * @param statementType   the statement type
+     * @param sqlCommandType  the sql command type
+     * @param fetchSize       the fetch size
+     * @param timeout         the timeout
+     * @param parameterMap    the parameter map
+     * @param parameterType   the parameter type
+     * @param resultMap       the result map
+     * @param resultType      the result type
+     * @param resultSetType   the result set type
+     * @param flushCache      the flush cache
+     * @param useCache        the use cache
+     * @param resultOrdered   the result ordered
+     * @param keyGenerator    the key generator
+     * @param keyProperty     the key property
+     * @param keyColumn       the key column
+     * @param databaseId      the database id
+     * @param lang            the lang
+     * @param resultSets      the result sets
+     * @param parallelMapping the parallel mapping
+     * @return the mapped statement
+     */
+    public MappedStatement addMappedStatement(String id, SqlSource sqlSource, StatementType statementType,
+                                              SqlCommandType sqlCommandType, Integer fetchSize, Integer timeout, String parameterMap, Class<?> parameterType,
+                                              String resultMap, Class<?> resultType, ResultSetType resultSetType, boolean flushCache, boolean useCache,
+                                              boolean resultOrdered, KeyGenerator keyGenerator, String keyProperty, String keyColumn, String databaseId,
+                                              LanguageDriver lang, String resultSets, boolean parallelMapping) {
+        return addMappedStatement(
+                id, sqlSource, statementType, sqlCommandType, fetchSize, timeout,
+                parameterMap, parameterType, resultMap, resultType, resultSetType,
+                flushCache, useCache, resultOrdered, keyGenerator, keyProperty,
+                keyColumn, databaseId, lang, resultSets, parallelMapping, null, 0);
+    }
+
+    /**
+     * Backward compatibility signature 'addMappedStatement'.
+     *
+     * @param id             the id
+     * @param sqlSource      the sql source
+     * @param statementType  the statement type
+     * @param sqlCommandType the sql command type
+     * @param fetchSize      the fetch size
+     * @param timeout        the timeout
+     * @param parameterMap   the parameter map
+     * @param parameterType  the parameter type
+     * @param resultMap      the result map
+     * @param resultType     the result type
+     * @param resultSetType  the result set type
+     * @param flushCache     the flush cache
+     * @param useCache       the use cache
+     * @param resultOrdered  the result ordered
+     * @param keyGenerator   the key generator
+     * @param keyProperty    the key property
+     * @param keyColumn      the key column
+     * @param databaseId     the database id
+     * @param lang           the lang
+     * @param resultSets     the result sets
+     * @return the mapped statement
+     */
+    public MappedStatement addMappedStatement(String id, SqlSource sqlSource, StatementType statementType,
+                                              SqlCommandType sqlCommandType, Integer fetchSize, Integer timeout, String parameterMap, Class<?> parameterType,
+                                              String resultMap, Class<?> resultType, ResultSetType resultSetType, boolean flushCache, boolean useCache,
+                                              boolean resultOrdered, KeyGenerator keyGenerator, String keyProperty, String keyColumn, String databaseId,
+                                              LanguageDriver lang, String resultSets) {
+        return addMappedStatement(
+                id, sqlSource, statementType, sqlCommandType, fetchSize, timeout,
+                parameterMap, parameterType, resultMap, resultType, resultSetType,
+                flushCache, useCache, resultOrdered, keyGenerator, keyProperty,
+                keyColumn, databaseId, lang, resultSets, false);
+    }
+
     /**
      * Backward compatibility signature 'addMappedStatement'.
      *
@@ -447,7 +554,9 @@ public class MapperBuilderAssistant extends BaseBuilder {
                                             List<ResultFlag> flags,
                                             String resultSet,
                                             String foreignColumn,
-                                            boolean lazy) {
+                                            boolean lazy,
+                                            int batchSize,
+                                            String batchKey) {
         // 1. 解析对应的 Java Type
         Class<?> javaTypeClass = resolveResultJavaType(resultType, property, javaType);
         // 解析对应的 TypeHandler ，一般不会设置
@@ -473,9 +582,39 @@ public class MapperBuilderAssistant extends BaseBuilder {
                 .columnPrefix(columnPrefix)
                 .foreignColumn(foreignColumn)
                 .lazy(lazy)
+                .batchSize(batchSize)
+                .batchKey(batchKey)
                 .build();
     }
 
+    /**
+     * Backward compatibility signature 'buildResultMapping'.
+     *
+     * @param resultType      the result type
+     * @param property        the property
+     * @param column          the column
+     * @param javaType        the java type
+     * @param jdbcType        the jdbc type
+     * @param nestedSelect    the nested select
+     * @param nestedResultMap the nested result map
+     * @param notNullColumn   the not null column
+     * @param columnPrefix    the column prefix
+     * @param typeHandler     the type handler
+     * @param flags           the flags
+     * @param resultSet       the result set
+     * @param foreignColumn   the foreign column
+     * @param lazy            the lazy
+     * @return the result mapping
+     */
+    public ResultMapping buildResultMapping(Class<?> resultType, String property, String column, Class<?> javaType,
+                                            JdbcType jdbcType, String nestedSelect, String nestedResultMap, String notNullColumn, String columnPrefix,
+                                            Class<? extends TypeHandler<?>> typeHandler, List<ResultFlag> flags, String resultSet, String foreignColumn,
+                                            boolean lazy) {
+        return buildResultMapping(
+                resultType, property, column, javaType, jdbcType, nestedSelect,
+                nestedResultMap, notNullColumn, columnPrefix, typeHandler, flags, resultSet, foreignColumn, lazy, 0, null);
+    }
+
     /**
      * Backward compatibility signature 'buildResultMapping'.
      *
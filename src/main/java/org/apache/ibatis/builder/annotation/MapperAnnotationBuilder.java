@@ -27,12 +27,12 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -162,18 +162,7 @@ public class MapperAnnotationBuilder {
     }
 
     private void parsePendingMethods() {
-        Collection<MethodResolver> incompleteMethods = configuration.getIncompleteMethods();
-        synchronized (incompleteMethods) {
-            Iterator<MethodResolver> iter = incompleteMethods.iterator();
-            while (iter.hasNext()) {
-                try {
-                    iter.next().resolve();
-                    iter.remove();
-                } catch (IncompleteElementException e) {
-                    // This method is still missing a resource
-                }
-            }
-        }
+        configuration.parsePendingMethods(false);
     }
 
     // 加载解析 XML 配置文件
@@ -209,7 +198,10 @@ public class MapperAnnotationBuilder {
             Integer size = cacheDomain.size() == 0 ? null : cacheDomain.size();
             Long flushInterval = cacheDomain.flushInterval() == 0 ? null : cacheDomain.flushInterval();
             Properties props = convertToProperties(cacheDomain.properties());
-            assistant.useNewCache(cacheDomain.implementation(), cacheDomain.eviction(), flushInterval, size, cacheDomain.readWrite(), cacheDomain.blocking(), props);
+            Long timeToLive = cacheDomain.timeToLive() == 0 ? null : cacheDomain.timeToLive();
+            Long singleFlightTimeout = cacheDomain.singleFlightTimeout() == 0 ? null : cacheDomain.singleFlightTimeout();
+            assistant.useNewCache(cacheDomain.implementation(), cacheDomain.eviction(), flushInterval, size, cacheDomain.readWrite(), cacheDomain.blocking(),
+                timeToLive, cacheDomain.timeToLiveJitter(), cacheDomain.refreshAhead(), cacheDomain.singleFlight(), singleFlightTimeout, props);
         }
     }
 
@@ -400,7 +392,10 @@ public class MapperAnnotationBuilder {
                 statementAnnotation.getDatabaseId(),
                 languageDriver,
                 // ResultSets
-                options != null ? nullOrEmpty(options.resultSets()) : null);
+                options != null ? nullOrEmpty(options.resultSets()) : null,
+                options != null && options.parallelMapping(),
+                options != null ? nullOrEmpty(options.chunkParameter()) : null,
+                options != null ? options.chunkSize() : 0);
         });
     }
 
@@ -432,6 +427,16 @@ public class MapperAnnotationBuilder {
     private Class<?> getReturnType(Method method) {
         Class<?> returnType = method.getReturnType();
         Type resolvedReturnType = TypeParameterResolver.resolveReturnType(method, type);
+        if (CompletableFuture.class.equals(returnType)) {
+            // 异步方法按 future 的结果类型解析
+            resolvedReturnType = resolvedReturnType instanceof ParameterizedType
+                    ? ((ParameterizedType) resolvedReturnType).getActualTypeArguments()[0] : Object.class;
+            if (Void.class.equals(resolvedReturnType)) {
+                resolvedReturnType = void.class;
+            }
+            returnType = resolvedReturnType instanceof ParameterizedType
+                    ? (Class<?>) ((ParameterizedType) resolvedReturnType).getRawType() : Object.class;
+        }
         if (resolvedReturnType instanceof Class) {
             returnType = (Class<?>) resolvedReturnType;
             if (returnType.isArray()) {
@@ -510,7 +515,9 @@ public class MapperAnnotationBuilder {
                 flags,
                 null,
                 null,
-                isLazy(result));
+                isLazy(result),
+                batchSize(result),
+                batchKey(result));
             resultMappings.add(resultMapping);
         }
     }
@@ -562,6 +569,14 @@ public class MapperAnnotationBuilder {
         return isLazy;
     }
 
+    private int batchSize(Result result) {
+        return result.one().select().length() > 0 ? result.one().batchSize() : result.many().batchSize();
+    }
+
+    private String batchKey(Result result) {
+        return nullOrEmpty(result.one().select().length() > 0 ? result.one().batchKey() : result.many().batchKey());
+    }
+
     private boolean hasNestedSelect(Result result) {
         if (result.one().select().length() > 0 && result.many().select().length() > 0) {
             throw new BuilderException("Cannot use both @One and @Many annotations in the same @Result");
@@ -26,6 +26,7 @@ import org.apache.ibatis.builder.BuilderException;
 import org.apache.ibatis.datasource.DataSourceFactory;
 import org.apache.ibatis.executor.ErrorContext;
 import org.apache.ibatis.executor.loader.ProxyFactory;
+import org.apache.ibatis.executor.pagination.PaginationDialect;
 import org.apache.ibatis.io.Resources;
 import org.apache.ibatis.io.VFS;
 import org.apache.ibatis.logging.Log;
@@ -426,6 +427,10 @@ public class XMLConfigBuilder extends BaseBuilder {
         configuration.setShrinkWhitespacesInSql(booleanValueOf(props.getProperty("shrinkWhitespacesInSql"), false));
         configuration.setDefaultSqlProviderType(resolveClass(props.getProperty("defaultSqlProviderType")));
         configuration.setNullableOnForEach(booleanValueOf(props.getProperty("nullableOnForEach"), false));
+        configuration.setCompiledRowMappingEnabled(booleanValueOf(props.getProperty("compiledRowMappingEnabled"), false));
+        configuration.setSqlShapeCacheSize(integerValueOf(props.getProperty("sqlShapeCacheSize"), 0));
+        // 分页方言，由数据库完成 RowBounds 分页
+        configuration.setPaginationDialect((PaginationDialect) createInstance(props.getProperty("paginationDialect")));
     }
 
     /**
@@ -19,10 +19,8 @@ import java.io.InputStream;
 import java.io.Reader;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
@@ -199,48 +197,15 @@ public class XMLMapperBuilder extends BaseBuilder {
     }
 
     private void parsePendingResultMaps() {
-        Collection<ResultMapResolver> incompleteResultMaps = configuration.getIncompleteResultMaps();
-        synchronized (incompleteResultMaps) {
-            Iterator<ResultMapResolver> iter = incompleteResultMaps.iterator();
-            while (iter.hasNext()) {
-                try {
-                    iter.next().resolve();
-                    iter.remove();
-                } catch (IncompleteElementException e) {
-                    // ResultMap is still missing a resource...
-                }
-            }
-        }
+        configuration.parsePendingResultMaps(false);
     }
 
     private void parsePendingCacheRefs() {
-        Collection<CacheRefResolver> incompleteCacheRefs = configuration.getIncompleteCacheRefs();
-        synchronized (incompleteCacheRefs) {
-            Iterator<CacheRefResolver> iter = incompleteCacheRefs.iterator();
-            while (iter.hasNext()) {
-                try {
-                    iter.next().resolveCacheRef();
-                    iter.remove();
-                } catch (IncompleteElementException e) {
-                    // Cache ref is still missing a resource...
-                }
-            }
-        }
+        configuration.parsePendingCacheRefs(false);
     }
 
     private void parsePendingStatements() {
-        Collection<XMLStatementBuilder> incompleteStatements = configuration.getIncompleteStatements();
-        synchronized (incompleteStatements) {
-            Iterator<XMLStatementBuilder> iter = incompleteStatements.iterator();
-            while (iter.hasNext()) {
-                try {
-                    iter.next().parseStatementNode();
-                    iter.remove();
-                } catch (IncompleteElementException e) {
-                    // Statement is still missing a resource...
-                }
-            }
-        }
+        configuration.parsePendingStatements(false);
     }
 
     /**
@@ -286,10 +251,18 @@ public class XMLMapperBuilder extends BaseBuilder {
             Integer size = context.getIntAttribute("size");
             boolean readWrite = !context.getBooleanAttribute("readOnly", false);
             boolean blocking = context.getBooleanAttribute("blocking", false);
+            // 获得每个缓存项的过期时间、过期时间的随机抖动比例、提前刷新的比例
+            Long timeToLive = context.getLongAttribute("timeToLive");
+            Double timeToLiveJitter = context.getDoubleAttribute("timeToLiveJitter");
+            Double refreshAhead = context.getDoubleAttribute("refreshAhead");
+            // 获得是否合并同一个 key 的并发查询，以及等待其他查询的超时时间
+            boolean singleFlight = context.getBooleanAttribute("singleFlight", false);
+            Long singleFlightTimeout = context.getLongAttribute("singleFlightTimeout");
             // 4. 获得 Properties 属性
             Properties props = context.getChildrenAsProperties();
             // 5. 创建 Cache 对象
-            builderAssistant.useNewCache(typeClass, evictionClass, flushInterval, size, readWrite, blocking, props);
+            builderAssistant.useNewCache(typeClass, evictionClass, flushInterval, size, readWrite, blocking,
+                    timeToLive, timeToLiveJitter, refreshAhead, singleFlight, singleFlightTimeout, props);
         }
     }
 
@@ -543,6 +516,9 @@ public class XMLMapperBuilder extends BaseBuilder {
         String resultSet = context.getStringAttribute("resultSet");
         String foreignColumn = context.getStringAttribute("foreignColumn");
         boolean lazy = "lazy".equals(context.getStringAttribute("fetchType", configuration.isLazyLoadingEnabled() ? "lazy" : "eager"));
+        // 批量执行嵌套查询：每一批的最大键数，以及子对象中保存父对象键值的属性
+        int batchSize = context.getIntAttribute("batchSize", 0);
+        String batchKey = context.getStringAttribute("batchKey");
         // javaType 属性
         Class<?> javaTypeClass = resolveClass(javaType);
         // typeHandler 属性
@@ -550,7 +526,8 @@ public class XMLMapperBuilder extends BaseBuilder {
         // jdbcType 属性
         JdbcType jdbcTypeEnum = resolveJdbcType(jdbcType);
         // 又去调 builderAssistant.buildResultMapping，通过上面的属性构建一个 ResultMapping 对象
-        return builderAssistant.buildResultMapping(resultType, property, column, javaTypeClass, jdbcTypeEnum, nestedSelect, nestedResultMap, notNullColumn, columnPrefix, typeHandlerClass, flags, resultSet, foreignColumn, lazy);
+        return builderAssistant.buildResultMapping(resultType, property, column, javaTypeClass, jdbcTypeEnum, nestedSelect, nestedResultMap, notNullColumn, columnPrefix, typeHandlerClass, flags, resultSet, foreignColumn, lazy,
+                batchSize, batchKey);
     }
 
     /**
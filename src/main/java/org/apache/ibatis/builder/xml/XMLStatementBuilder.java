@@ -102,6 +102,11 @@ public class XMLStatementBuilder extends BaseBuilder {
         // 仅针对嵌套结果 select 语句适用：如果为 true，就是假设包含了嵌套结果集或是分组了，这样的话当返回一个主结果行的时候，就不会发生有对前面结果集的引用的情况。
         // 这就使得在获取嵌套的结果集的时候不至于导致内存不够用。默认值：false。
         boolean resultOrdered = context.getBooleanAttribute("resultOrdered", false);
+        // 是否并行映射结果对象，仅对简单 ResultMap 生效
+        boolean parallelMapping = context.getBooleanAttribute("parallelMapping", false);
+        // 分批执行的集合参数名称，以及每一批的元素个数
+        String chunkParameter = context.getStringAttribute("chunkParameter");
+        int chunkSize = context.getIntAttribute("chunkSize", 0);
 
         // Include Fragments before parsing
         // 解析之前先解析 <include> SQL 片段
@@ -175,7 +180,8 @@ public class XMLStatementBuilder extends BaseBuilder {
         builderAssistant.addMappedStatement(id, sqlSource, statementType, sqlCommandType,
                 fetchSize, timeout, parameterMap, parameterTypeClass, resultMap, resultTypeClass,
                 resultSetTypeEnum, flushCache, useCache, resultOrdered,
-                keyGenerator, keyProperty, keyColumn, databaseId, langDriver, resultSets);
+                keyGenerator, keyProperty, keyColumn, databaseId, langDriver, resultSets, parallelMapping,
+                chunkParameter, chunkSize);
     }
 
     private void processSelectKeyNodes(String id, Class<?> parameterTypeClass, LanguageDriver langDriver) {
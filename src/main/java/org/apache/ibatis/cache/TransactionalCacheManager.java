@@ -34,6 +34,15 @@ public class TransactionalCacheManager {
         getTransactionalCache(cache).clear();
     }
 
+    /**
+     * 当前事务是否清空过该缓存
+     *
+     * @since 3.5.9
+     */
+    public boolean isCleared(Cache cache) {
+        return getTransactionalCache(cache).isClearOnCommit();
+    }
+
     public Object getObject(Cache cache, CacheKey key) {
         return getTransactionalCache(cache).getObject(key);
     }
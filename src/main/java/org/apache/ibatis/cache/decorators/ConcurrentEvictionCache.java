@@ -0,0 +1,286 @@
+/*
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache.decorators;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.apache.ibatis.cache.Cache;
+import org.apache.ibatis.cache.ConcurrentCache;
+
+/**
+ * Base class of the bounded caches that can be read without locking.
+ * <p>
+ * Entries are kept in a {@link ConcurrentHashMap} owned by this decorator, the decorated cache only provides the id.
+ * Reads are recorded in a small lossy buffer and replayed against the eviction policy by whichever thread holds the
+ * eviction lock next, so a hit never waits for another thread. Writes are rare for a second level cache and are
+ * applied under the lock.
+ * @since 3.5.9
+ */
+abstract class ConcurrentEvictionCache implements ConcurrentCache {
+
+  private static final int READ_BUFFER_SIZE = 128;
+  private static final int READ_BUFFER_MASK = READ_BUFFER_SIZE - 1;
+  private static final int READ_DRAIN_THRESHOLD = READ_BUFFER_SIZE / 4;
+
+  private final Cache delegate;
+  private final ConcurrentHashMap<Object, Node> data = new ConcurrentHashMap<>();
+  private final ReentrantLock evictionLock = new ReentrantLock();
+  private final AtomicReferenceArray<Object> readBuffer = new AtomicReferenceArray<>(READ_BUFFER_SIZE);
+  private final AtomicLong readBufferWrites = new AtomicLong();
+  private volatile long readBufferReads;
+  private int maximumSize;
+
+  ConcurrentEvictionCache(Cache delegate) {
+    this.delegate = delegate;
+  }
+
+  @Override
+  public String getId() {
+    return delegate.getId();
+  }
+
+  @Override
+  public int getSize() {
+    return data.size();
+  }
+
+  public void setSize(int size) {
+    if (size <= 0) {
+      throw new IllegalArgumentException("Cache size must be greater than zero but was " + size);
+    }
+    evictionLock.lock();
+    try {
+      maximumSize = size;
+      resize(size);
+      evict(null);
+    } finally {
+      evictionLock.unlock();
+    }
+  }
+
+  @Override
+  public void putObject(Object key, Object value) {
+    evictionLock.lock();
+    try {
+      drainReadBuffer();
+      Node node = data.get(key);
+      if (node == null) {
+        node = new Node(key, value);
+        data.put(key, node);
+        evict(onAdd(node));
+      } else {
+        node.value = value;
+        onAccess(key, node);
+      }
+    } finally {
+      evictionLock.unlock();
+    }
+  }
+
+  @Override
+  public Object getObject(Object key) {
+    Node node = data.get(key);
+    recordRead(key);
+    return node == null ? null : node.value;
+  }
+
+  @Override
+  public Object removeObject(Object key) {
+    evictionLock.lock();
+    try {
+      Node node = data.remove(key);
+      if (node == null) {
+        return null;
+      }
+      onRemove(node);
+      return node.value;
+    } finally {
+      evictionLock.unlock();
+    }
+  }
+
+  @Override
+  public void clear() {
+    evictionLock.lock();
+    try {
+      drainReadBuffer();
+      data.clear();
+      resize(maximumSize);
+    } finally {
+      evictionLock.unlock();
+    }
+  }
+
+  @Override
+  public int hashCode() {
+    return delegate.hashCode();
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    return delegate.equals(obj);
+  }
+
+  /**
+   * Resets the policy for the given capacity and links every entry of {@link #nodes()} again.
+   */
+  abstract void resize(int maximumSize);
+
+  /**
+   * Links a new entry into the policy.
+   *
+   * @return the entry to weigh against the eviction victim, or {@code null} if every entry is an equal candidate
+   */
+  abstract Node onAdd(Node node);
+
+  /**
+   * Records an access to {@code key}. {@code node} is {@code null} on a miss.
+   */
+  abstract void onAccess(Object key, Node node);
+
+  /**
+   * Unlinks an entry that was removed from the map.
+   */
+  abstract void onRemove(Node node);
+
+  /**
+   * Chooses the entry to evict.
+   *
+   * @param candidate
+   *          the entry returned by {@link #onAdd(Node)}, may be {@code null}
+   */
+  abstract Node selectVictim(Node candidate);
+
+  Iterable<Node> nodes() {
+    return data.values();
+  }
+
+  private void evict(Node candidate) {
+    while (data.size() > maximumSize) {
+      Node victim = selectVictim(candidate);
+      if (victim == null) {
+        return;
+      }
+      if (victim == candidate) {
+        candidate = null;
+      }
+      data.remove(victim.key, victim);
+      onRemove(victim);
+    }
+  }
+
+  private void recordRead(Object key) {
+    long writes = readBufferWrites.get();
+    long pending = writes - readBufferReads;
+    if (pending < READ_BUFFER_SIZE && readBufferWrites.compareAndSet(writes, writes + 1)) {
+      readBuffer.lazySet((int) (writes & READ_BUFFER_MASK), key);
+      pending++;
+    }
+    if (pending >= READ_DRAIN_THRESHOLD && evictionLock.tryLock()) {
+      try {
+        drainReadBuffer();
+      } finally {
+        evictionLock.unlock();
+      }
+    }
+  }
+
+  private void drainReadBuffer() {
+    long reads = readBufferReads;
+    long writes = readBufferWrites.get();
+    for (; reads < writes; reads++) {
+      int index = (int) (reads & READ_BUFFER_MASK);
+      Object key = readBuffer.get(index);
+      if (key == null) {
+        // the writer has claimed the slot but not published it yet
+        break;
+      }
+      readBuffer.lazySet(index, null);
+      onAccess(key, data.get(key));
+    }
+    readBufferReads = reads;
+  }
+
+  /**
+   * A cache entry. The links are only read and written while holding the eviction lock.
+   */
+  static final class Node {
+    final Object key;
+    volatile Object value;
+    Node prev;
+    Node next;
+    int queue;
+
+    Node(Object key, Object value) {
+      this.key = key;
+      this.value = value;
+    }
+  }
+
+  /**
+   * An intrusive access ordered queue of nodes.
+   */
+  static final class AccessQueue {
+    Node head;
+    Node tail;
+    int size;
+
+    void add(Node node) {
+      node.prev = tail;
+      node.next = null;
+      if (tail == null) {
+        head = node;
+      } else {
+        tail.next = node;
+      }
+      tail = node;
+      size++;
+    }
+
+    void remove(Node node) {
+      if (node.prev == null) {
+        head = node.next;
+      } else {
+        node.prev.next = node.next;
+      }
+      if (node.next == null) {
+        tail = node.prev;
+      } else {
+        node.next.prev = node.prev;
+      }
+      node.prev = null;
+      node.next = null;
+      size--;
+    }
+
+    void moveToTail(Node node) {
+      if (node != tail) {
+        remove(node);
+        add(node);
+      }
+    }
+
+    void clear() {
+      head = null;
+      tail = null;
+      size = 0;
+    }
+  }
+
+}
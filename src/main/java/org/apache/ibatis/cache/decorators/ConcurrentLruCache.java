@@ -0,0 +1,67 @@
+/*
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache.decorators;
+
+import org.apache.ibatis.cache.Cache;
+
+/**
+ * Lru (least recently used) cache decorator that is safe for concurrent use.
+ * <p>
+ * Unlike {@link LruCache}, hits do not take a lock. The recency order is maintained from sampled reads, so it is an
+ * approximation under heavy concurrency.
+ * @since 3.5.9
+ */
+public class ConcurrentLruCache extends ConcurrentEvictionCache {
+
+  private final AccessQueue queue = new AccessQueue();
+
+  public ConcurrentLruCache(Cache delegate) {
+    super(delegate);
+    setSize(1024);
+  }
+
+  @Override
+  void resize(int maximumSize) {
+    queue.clear();
+    for (Node node : nodes()) {
+      queue.add(node);
+    }
+  }
+
+  @Override
+  Node onAdd(Node node) {
+    queue.add(node);
+    return null;
+  }
+
+  @Override
+  void onAccess(Object key, Node node) {
+    if (node != null) {
+      queue.moveToTail(node);
+    }
+  }
+
+  @Override
+  void onRemove(Node node) {
+    queue.remove(node);
+  }
+
+  @Override
+  Node selectVictim(Node candidate) {
+    return queue.head;
+  }
+
+}
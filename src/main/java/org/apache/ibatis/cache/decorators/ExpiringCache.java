@@ -0,0 +1,252 @@
+/*
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache.decorators;
+
+import java.io.Serializable;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.apache.ibatis.cache.Cache;
+import org.apache.ibatis.logging.Log;
+import org.apache.ibatis.logging.LogFactory;
+
+/**
+ * Expires each entry on its own once its time to live has elapsed.
+ * <p>
+ * Unlike {@link ScheduledCache}, which drops the whole cache at once, every entry gets its own deadline. A jitter
+ * shortens each time to live by a random fraction so entries loaded together do not expire together.
+ * <p>
+ * With refresh ahead enabled, a hit on an entry that has used up the given fraction of its time to live marks it as
+ * due, and {@link #refreshIfDue(Object, Callable, Executor)} reloads it in the background while callers keep getting
+ * the current value. The {@link org.apache.ibatis.executor.CachingExecutor} does so by re-running the statement that
+ * produced the entry on the {@link org.apache.ibatis.session.Configuration#getAsyncExecutor() async executor} of the
+ * configuration.
+ * @since 3.5.9
+ */
+public class ExpiringCache implements Cache {
+
+  private static final Log log = LogFactory.getLog(ExpiringCache.class);
+
+  private final Cache delegate;
+  private final Cache storage;
+  private final ConcurrentHashMap<Object, Boolean> refreshes = new ConcurrentHashMap<>();
+  private final Lock generationLock = new ReentrantLock();
+  private long generation;
+  private long timeToLive;
+  private double jitter;
+  private double refreshAhead;
+
+  public ExpiringCache(Cache delegate) {
+    this(delegate, delegate);
+  }
+
+  /**
+   * @param delegate
+   *          the decorated cache
+   * @param storage
+   *          the cache below any {@link BlockingCache} of the chain, used to drop expired entries and to store
+   *          refreshed ones without touching the locks of the blocking cache
+   */
+  public ExpiringCache(Cache delegate, Cache storage) {
+    this.delegate = delegate;
+    this.storage = storage;
+    this.timeToLive = TimeUnit.HOURS.toMillis(1);
+  }
+
+  public void setTimeToLive(long timeToLive) {
+    this.timeToLive = timeToLive;
+  }
+
+  /**
+   * @param jitter
+   *          the largest fraction, between 0 and 1, by which a time to live is randomly shortened
+   */
+  public void setJitter(double jitter) {
+    this.jitter = jitter;
+  }
+
+  /**
+   * @param refreshAhead
+   *          the fraction, between 0 and 1, of the time to live after which a hit makes the entry due for refresh.
+   *          0 disables refresh ahead.
+   */
+  public void setRefreshAhead(double refreshAhead) {
+    this.refreshAhead = refreshAhead;
+  }
+
+  @Override
+  public String getId() {
+    return delegate.getId();
+  }
+
+  @Override
+  public int getSize() {
+    return delegate.getSize();
+  }
+
+  @Override
+  public void putObject(Object key, Object value) {
+    refreshes.remove(key, Boolean.FALSE);
+    delegate.putObject(key, newEntry(value));
+  }
+
+  @Override
+  public Object getObject(Object key) {
+    Entry entry = (Entry) delegate.getObject(key);
+    if (entry == null) {
+      return null;
+    }
+    long now = System.currentTimeMillis();
+    if (now >= entry.expiresAt) {
+      storage.removeObject(key);
+      refreshes.remove(key, Boolean.FALSE);
+      // asks again so that a blocking cache takes the lock of the key for the caller that will reload it
+      entry = storage == delegate ? null : (Entry) delegate.getObject(key);
+      return entry == null ? null : entry.value;
+    }
+    if (refreshAhead > 0 && now >= entry.refreshAt) {
+      refreshes.putIfAbsent(key, Boolean.FALSE);
+    }
+    return entry.value;
+  }
+
+  @Override
+  public Object removeObject(Object key) {
+    return delegate.removeObject(key);
+  }
+
+  @Override
+  public void clear() {
+    generationLock.lock();
+    try {
+      generation++;
+      refreshes.clear();
+      delegate.clear();
+    } finally {
+      generationLock.unlock();
+    }
+  }
+
+  /**
+   * Tells whether the last hit found the entry due for refresh and no reload of it is running.
+   *
+   * @param key
+   *          the key that was just read
+   * @return true if {@link #refreshIfDue(Object, Callable, Executor)} would start a reload
+   */
+  public boolean isDue(Object key) {
+    return Boolean.FALSE.equals(refreshes.get(key));
+  }
+
+  /**
+   * Reloads the entry in the background if the last hit found it due for refresh. Only one reload per key runs at a
+   * time, and its result is dropped if the cache was cleared meanwhile.
+   *
+   * @param key
+   *          the key that was just read
+   * @param loader
+   *          loads the current value of the key
+   * @param executor
+   *          runs the reload
+   */
+  public void refreshIfDue(Object key, Callable<?> loader, Executor executor) {
+    if (!refreshes.replace(key, Boolean.FALSE, Boolean.TRUE)) {
+      return;
+    }
+    final long expectedGeneration;
+    generationLock.lock();
+    try {
+      expectedGeneration = generation;
+    } finally {
+      generationLock.unlock();
+    }
+    try {
+      executor.execute(() -> refresh(key, loader, expectedGeneration));
+    } catch (RejectedExecutionException e) {
+      refreshes.remove(key);
+    }
+  }
+
+  @Override
+  public int hashCode() {
+    return delegate.hashCode();
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    return delegate.equals(obj);
+  }
+
+  private void refresh(Object key, Callable<?> loader, long expectedGeneration) {
+    try {
+      Object value = loader.call();
+      generationLock.lock();
+      try {
+        if (generation == expectedGeneration) {
+          storage.putObject(key, newEntry(value));
+        }
+      } finally {
+        generationLock.unlock();
+      }
+    } catch (Exception e) {
+      log.warn("Could not refresh the entry " + key + " of cache " + getId() + ". Cause: " + e);
+    } finally {
+      refreshes.remove(key);
+    }
+  }
+
+  private Entry newEntry(Object value) {
+    long now = System.currentTimeMillis();
+    long ttl = timeToLive;
+    if (jitter > 0) {
+      ttl -= (long) (ttl * jitter * ThreadLocalRandom.current().nextDouble());
+    }
+    return new Entry(value, now + ttl, now + (long) (ttl * refreshAhead));
+  }
+
+  /**
+   * A value with its deadlines. A {@link SerializedCache} below copies only the value, so the entry never reaches the
+   * serializer.
+   */
+  static final class Entry implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final Object value;
+    private final long expiresAt;
+    private final long refreshAt;
+
+    Entry(Object value, long expiresAt, long refreshAt) {
+      this.value = value;
+      this.expiresAt = expiresAt;
+      this.refreshAt = refreshAt;
+    }
+
+    Object getValue() {
+      return value;
+    }
+
+    Entry withValue(Object value) {
+      return new Entry(value, expiresAt, refreshAt);
+    }
+  }
+
+}
@@ -15,31 +15,83 @@
  */
 package org.apache.ibatis.cache.decorators;
 
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
 import java.io.ObjectStreamClass;
-import java.io.Serializable;
 
 import org.apache.ibatis.cache.Cache;
 import org.apache.ibatis.cache.CacheException;
+import org.apache.ibatis.cache.serializer.CacheSerializer;
+import org.apache.ibatis.cache.serializer.CacheSerializers;
+import org.apache.ibatis.cache.serializer.JavaCacheSerializer;
+import org.apache.ibatis.cache.serializer.ReflectiveCopier;
 import org.apache.ibatis.io.Resources;
-import org.apache.ibatis.io.SerialFilterChecker;
 
 /**
+ * Stores a copy of each value and returns a new copy on every hit, so callers never share cached instances.
+ * <p>
+ * Values are copied by the {@link CacheSerializer} set with {@link #setSerializer(String)}, Java serialization by
+ * default. With the {@code reflect} copy strategy they are deep copied in memory by a {@link ReflectiveCopier}
+ * instead. Both are configured by the {@code serializer} and {@code copyStrategy} properties of {@code <cache>}.
+ * <p>
+ * The entries of an {@link ExpiringCache} above are unwrapped: only their values are copied, their deadlines are kept
+ * as they are.
+ *
  * @author Clinton Begin
  */
 public class SerializedCache implements Cache {
 
   private final Cache delegate;
+  private CacheSerializer serializer = new JavaCacheSerializer();
+  private ReflectiveCopier copier;
 
   public SerializedCache(Cache delegate) {
     this.delegate = delegate;
   }
 
+  /**
+   * @param serializer
+   *          {@code java}, {@code fast} or the class name of a {@link CacheSerializer}
+   * @since 3.5.9
+   * @see CacheSerializers#resolve(String)
+   */
+  public void setSerializer(String serializer) {
+    this.serializer = CacheSerializers.resolve(serializer);
+  }
+
+  /**
+   * @param copyStrategy
+   *          {@code serialize} (the default) to store serialized values, or {@code reflect} to store deep copies
+   *          made through the bean properties
+   * @since 3.5.9
+   */
+  public void setCopyStrategy(String copyStrategy) {
+    if ("serialize".equalsIgnoreCase(copyStrategy)) {
+      copier = null;
+    } else if ("reflect".equalsIgnoreCase(copyStrategy)) {
+      copier = new ReflectiveCopier();
+    } else {
+      throw new CacheException("Unknown copy strategy '" + copyStrategy + "', expected serialize or reflect");
+    }
+  }
+
+  /**
+   * @return the serializer that copies the values unless a copier is set
+   * @since 3.5.9
+   */
+  public CacheSerializer getSerializer() {
+    return serializer;
+  }
+
+  /**
+   * @return the copier of the {@code reflect} copy strategy, or {@code null}
+   * @since 3.5.9
+   */
+  public ReflectiveCopier getCopier() {
+    return copier;
+  }
+
   @Override
   public String getId() {
     return delegate.getId();
@@ -52,17 +104,33 @@ public class SerializedCache implements Cache {
 
   @Override
   public void putObject(Object key, Object object) {
-    if (object == null || object instanceof Serializable) {
-      delegate.putObject(key, serialize((Serializable) object));
+    if (object instanceof ExpiringCache.Entry) {
+      ExpiringCache.Entry entry = (ExpiringCache.Entry) object;
+      delegate.putObject(key, entry.withValue(copyIn(entry.getValue())));
     } else {
-      throw new CacheException("SharedCache failed to make a copy of a non-serializable object: " + object);
+      delegate.putObject(key, copyIn(object));
     }
   }
 
   @Override
   public Object getObject(Object key) {
     Object object = delegate.getObject(key);
-    return object == null ? null : deserialize((byte[]) object);
+    if (object == null) {
+      return null;
+    }
+    if (object instanceof ExpiringCache.Entry) {
+      ExpiringCache.Entry entry = (ExpiringCache.Entry) object;
+      return entry.withValue(copyOut(entry.getValue()));
+    }
+    return copyOut(object);
+  }
+
+  private Object copyIn(Object object) {
+    return copier != null ? copier.copy(object) : serializer.serialize(object);
+  }
+
+  private Object copyOut(Object object) {
+    return copier != null ? copier.copy(object) : serializer.deserialize((byte[]) object);
   }
 
   @Override
@@ -85,29 +153,6 @@ public class SerializedCache implements Cache {
     return delegate.equals(obj);
   }
 
-  private byte[] serialize(Serializable value) {
-    try (ByteArrayOutputStream bos = new ByteArrayOutputStream();
-        ObjectOutputStream oos = new ObjectOutputStream(bos)) {
-      oos.writeObject(value);
-      oos.flush();
-      return bos.toByteArray();
-    } catch (Exception e) {
-      throw new CacheException("Error serializing object.  Cause: " + e, e);
-    }
-  }
-
-  private Serializable deserialize(byte[] value) {
-    SerialFilterChecker.check();
-    Serializable result;
-    try (ByteArrayInputStream bis = new ByteArrayInputStream(value);
-        ObjectInputStream ois = new CustomObjectInputStream(bis)) {
-      result = (Serializable) ois.readObject();
-    } catch (Exception e) {
-      throw new CacheException("Error deserializing object.  Cause: " + e, e);
-    }
-    return result;
-  }
-
   public static class CustomObjectInputStream extends ObjectInputStream {
 
     public CustomObjectInputStream(InputStream in) throws IOException {
@@ -0,0 +1,240 @@
+/*
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache.decorators;
+
+import java.sql.SQLException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.apache.ibatis.cache.Cache;
+import org.apache.ibatis.cache.CacheException;
+import org.apache.ibatis.cache.serializer.CacheSerializer;
+import org.apache.ibatis.cache.serializer.ReflectiveCopier;
+import org.apache.ibatis.logging.Log;
+import org.apache.ibatis.logging.LogFactory;
+
+/**
+ * Coalesces concurrent loads of the same key into one.
+ * <p>
+ * The first caller that misses a key runs the load, callers that miss the same key meanwhile wait for it and receive
+ * its result directly instead of reading the cache again. Unlike {@link BlockingCache} the result does not have to be
+ * committed to the cache first, and no lock outlives the load: if the load fails or a waiter times out, the waiters
+ * simply load the key themselves. When the cache is read/write every waiter gets its own copy of the result, made by
+ * the same {@link CacheSerializer} or {@link ReflectiveCopier} as the {@link SerializedCache} below.
+ * <p>
+ * As with {@link BlockingCache}, two loads that each wait for a key the other one is loading (e.g. through nested
+ * selects) would wait for each other, so set a timeout when statements of the namespace nest.
+ * <p>
+ * The {@link org.apache.ibatis.executor.CachingExecutor} uses {@link #load(Object, Loader)} on a miss, unless the
+ * session has flushed the cache in its current transaction and may therefore see its own uncommitted changes.
+ * @since 3.5.9
+ */
+public class SingleFlightCache implements Cache {
+
+  private static final Log log = LogFactory.getLog(SingleFlightCache.class);
+
+  private static final Object NO_RESULT = new Object();
+
+  private final Cache delegate;
+  private final ConcurrentHashMap<Object, Flight> flights = new ConcurrentHashMap<>();
+  private long timeout;
+  private CacheSerializer serializer;
+  private ReflectiveCopier copier;
+
+  public SingleFlightCache(Cache delegate) {
+    this.delegate = delegate;
+  }
+
+  /**
+   * @param timeout
+   *          the milliseconds a caller waits for the load of another one before loading the key itself, 0 waits as
+   *          long as the load takes
+   */
+  public void setTimeout(long timeout) {
+    this.timeout = timeout;
+  }
+
+  public long getTimeout() {
+    return timeout;
+  }
+
+  /**
+   * @param serializer
+   *          the serializer that gives each waiter its own copy of the result, {@code null} to hand the loaded instance
+   *          to every waiter
+   */
+  public void setSerializer(CacheSerializer serializer) {
+    this.serializer = serializer;
+  }
+
+  /**
+   * @param copier
+   *          the copier that gives each waiter its own copy of the result, used instead of the serializer if set
+   */
+  public void setCopier(ReflectiveCopier copier) {
+    this.copier = copier;
+  }
+
+  /**
+   * Returns the decorated cache.
+   */
+  public Cache getDelegate() {
+    return delegate;
+  }
+
+  @Override
+  public String getId() {
+    return delegate.getId();
+  }
+
+  @Override
+  public int getSize() {
+    return delegate.getSize();
+  }
+
+  @Override
+  public void putObject(Object key, Object value) {
+    delegate.putObject(key, value);
+  }
+
+  @Override
+  public Object getObject(Object key) {
+    return delegate.getObject(key);
+  }
+
+  @Override
+  public Object removeObject(Object key) {
+    return delegate.removeObject(key);
+  }
+
+  @Override
+  public void clear() {
+    delegate.clear();
+  }
+
+  /**
+   * Loads the value of a key that was missed, sharing the load with the callers that miss the same key at the same
+   * time. The value is not put into the cache.
+   *
+   * @param key
+   *          the missed key
+   * @param loader
+   *          loads the value
+   * @return the loaded value
+   * @throws SQLException
+   *           if this caller ran the load and it failed
+   */
+  @SuppressWarnings("unchecked")
+  public <T> T load(Object key, Loader<T> loader) throws SQLException {
+    Flight flight = new Flight();
+    Flight inFlight = flights.putIfAbsent(key, flight);
+    if (inFlight == null) {
+      return lead(key, flight, loader);
+    }
+    if (inFlight.leader == Thread.currentThread()) {
+      // a nested select of the load itself, waiting would never end
+      return loader.load();
+    }
+    Object shared = await(key, inFlight);
+    if (shared == NO_RESULT) {
+      return loader.load();
+    }
+    return (T) copyOut(shared);
+  }
+
+  @Override
+  public int hashCode() {
+    return delegate.hashCode();
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    return delegate.equals(obj);
+  }
+
+  private <T> T lead(Object key, Flight flight, Loader<T> loader) throws SQLException {
+    try {
+      T value = loader.load();
+      flight.complete(share(key, value));
+      return value;
+    } finally {
+      // wakes up the waiters when the load failed, they will load the key on their own
+      flight.complete(NO_RESULT);
+      flights.remove(key, flight);
+    }
+  }
+
+  private Object await(Object key, CompletableFuture<Object> flight) {
+    try {
+      return timeout > 0 ? flight.get(timeout, TimeUnit.MILLISECONDS) : flight.get();
+    } catch (TimeoutException e) {
+      if (log.isDebugEnabled()) {
+        log.debug("Gave up waiting " + timeout + " ms for the load of key " + key + " at the cache " + getId());
+      }
+      return NO_RESULT;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new CacheException("Got interrupted while waiting for the load of key " + key, e);
+    } catch (ExecutionException e) {
+      return NO_RESULT;
+    }
+  }
+
+  /**
+   * Takes a snapshot of the loaded value before the leader hands it to its caller, the waiters copy the snapshot.
+   */
+  private Object share(Object key, Object value) {
+    try {
+      if (copier != null) {
+        return copier.copy(value);
+      }
+      return serializer != null ? serializer.serialize(value) : value;
+    } catch (RuntimeException e) {
+      // the waiters cannot get a copy, let them load their own
+      if (log.isDebugEnabled()) {
+        log.debug("Could not copy the value of key " + key + " at the cache " + getId() + " for the waiters.  Cause: "
+            + e);
+      }
+      return NO_RESULT;
+    }
+  }
+
+  private Object copyOut(Object shared) {
+    if (copier != null) {
+      return copier.copy(shared);
+    }
+    return serializer != null ? serializer.deserialize((byte[]) shared) : shared;
+  }
+
+  private static final class Flight extends CompletableFuture<Object> {
+    private final Thread leader = Thread.currentThread();
+  }
+
+  /**
+   * Loads the value of a missed key.
+   *
+   * @param <T>
+   *          the type of the value
+   */
+  @FunctionalInterface
+  public interface Loader<T> {
+    T load() throws SQLException;
+  }
+
+}
@@ -0,0 +1,201 @@
+/*
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache.decorators;
+
+import org.apache.ibatis.cache.Cache;
+
+/**
+ * W-TinyLFU cache decorator that is safe for concurrent use.
+ * <p>
+ * New entries enter a small LRU window (1% of the capacity). Entries leaving the window compete with the least
+ * recently used entry of the main space and are only admitted when they have been requested more often, according to
+ * a count-min sketch of the recent access frequencies. The main space is a segmented LRU: entries hit while on
+ * probation are promoted to the protected segment (80% of the main space). This keeps one-off queries, such as a
+ * report scanning many keys, from flushing the frequently used entries.
+ * @since 3.5.9
+ */
+public class TinyLfuCache extends ConcurrentEvictionCache {
+
+  private static final int WINDOW = 0;
+  private static final int PROBATION = 1;
+  private static final int PROTECTED = 2;
+
+  private final AccessQueue window = new AccessQueue();
+  private final AccessQueue probation = new AccessQueue();
+  private final AccessQueue protectedQueue = new AccessQueue();
+  private FrequencySketch sketch;
+  private int maximumWindowSize;
+  private int maximumProtectedSize;
+
+  public TinyLfuCache(Cache delegate) {
+    super(delegate);
+    setSize(1024);
+  }
+
+  @Override
+  void resize(int maximumSize) {
+    maximumWindowSize = Math.max(1, maximumSize / 100);
+    maximumProtectedSize = (int) ((maximumSize - maximumWindowSize) * 0.8);
+    sketch = new FrequencySketch(maximumSize);
+    window.clear();
+    probation.clear();
+    protectedQueue.clear();
+    for (Node node : nodes()) {
+      node.queue = PROBATION;
+      probation.add(node);
+    }
+  }
+
+  @Override
+  Node onAdd(Node node) {
+    sketch.increment(node.key);
+    node.queue = WINDOW;
+    window.add(node);
+    if (window.size <= maximumWindowSize) {
+      return null;
+    }
+    Node candidate = window.head;
+    window.remove(candidate);
+    candidate.queue = PROBATION;
+    probation.add(candidate);
+    return candidate;
+  }
+
+  @Override
+  void onAccess(Object key, Node node) {
+    sketch.increment(key);
+    if (node == null) {
+      return;
+    }
+    if (node.queue == WINDOW) {
+      window.moveToTail(node);
+    } else if (node.queue == PROBATION) {
+      probation.remove(node);
+      node.queue = PROTECTED;
+      protectedQueue.add(node);
+      if (protectedQueue.size > maximumProtectedSize) {
+        Node demoted = protectedQueue.head;
+        protectedQueue.remove(demoted);
+        demoted.queue = PROBATION;
+        probation.add(demoted);
+      }
+    } else {
+      protectedQueue.moveToTail(node);
+    }
+  }
+
+  @Override
+  void onRemove(Node node) {
+    queueOf(node).remove(node);
+  }
+
+  @Override
+  Node selectVictim(Node candidate) {
+    Node victim = probation.head;
+    if (victim == null) {
+      victim = protectedQueue.head != null ? protectedQueue.head : window.head;
+    }
+    if (candidate == null || victim == candidate) {
+      return victim;
+    }
+    // admit the candidate only if it is requested more often than the entry it would replace
+    return sketch.frequency(candidate.key) > sketch.frequency(victim.key) ? victim : candidate;
+  }
+
+  private AccessQueue queueOf(Node node) {
+    if (node.queue == WINDOW) {
+      return window;
+    }
+    return node.queue == PROBATION ? probation : protectedQueue;
+  }
+
+  /**
+   * A count-min sketch of 4-bit counters. All counters are halved once the number of increments reaches ten times
+   * the capacity, so the frequencies follow the recent workload.
+   */
+  static final class FrequencySketch {
+
+    private static final long[] SEEDS = { 0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL,
+        0xcbf29ce484222325L };
+    private static final long RESET_MASK = 0x7777777777777777L;
+
+    private final long[] table;
+    private final int tableMask;
+    private final int sampleSize;
+    private int additions;
+
+    FrequencySketch(int maximumSize) {
+      int length = Integer.highestOneBit(Math.max(2, Math.min(maximumSize, 1 << 30)) - 1) << 1;
+      this.table = new long[length];
+      this.tableMask = length - 1;
+      this.sampleSize = (int) Math.min(10L * maximumSize, Integer.MAX_VALUE);
+    }
+
+    int frequency(Object key) {
+      int hash = spread(key.hashCode());
+      int start = (hash & 3) << 2;
+      int frequency = Integer.MAX_VALUE;
+      for (int i = 0; i < 4; i++) {
+        int index = indexOf(hash, i);
+        int count = (int) ((table[index] >>> ((start + i) << 2)) & 0xfL);
+        frequency = Math.min(frequency, count);
+      }
+      return frequency;
+    }
+
+    void increment(Object key) {
+      int hash = spread(key.hashCode());
+      int start = (hash & 3) << 2;
+      boolean added = false;
+      for (int i = 0; i < 4; i++) {
+        added |= incrementAt(indexOf(hash, i), start + i);
+      }
+      if (added && ++additions == sampleSize) {
+        reset();
+      }
+    }
+
+    private boolean incrementAt(int index, int counter) {
+      int offset = counter << 2;
+      long mask = 0xfL << offset;
+      if ((table[index] & mask) != mask) {
+        table[index] += 1L << offset;
+        return true;
+      }
+      return false;
+    }
+
+    private void reset() {
+      for (int i = 0; i < table.length; i++) {
+        table[i] = (table[i] >>> 1) & RESET_MASK;
+      }
+      additions >>>= 1;
+    }
+
+    private int indexOf(int hash, int i) {
+      long h = (hash + SEEDS[i]) * SEEDS[i];
+      h += h >>> 32;
+      return ((int) h) & tableMask;
+    }
+
+    private static int spread(int x) {
+      x = ((x >>> 16) ^ x) * 0x45d9f3b;
+      x = ((x >>> 16) ^ x) * 0x45d9f3b;
+      return (x >>> 16) ^ x;
+    }
+  }
+
+}
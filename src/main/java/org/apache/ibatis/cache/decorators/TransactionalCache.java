@@ -121,6 +121,15 @@ public class TransactionalCache implements Cache {
         entriesToAddOnCommit.clear();
     }
 
+    /**
+     * 本事务中是否清空过缓存，若是，则本事务可能读到自己未提交的修改
+     *
+     * @since 3.5.9
+     */
+    public boolean isClearOnCommit() {
+        return clearOnCommit;
+    }
+
     public void commit() {
         // 1. 如果 clearOnCommit 为 true ，则清空 delegate 缓存
         if (clearOnCommit) {
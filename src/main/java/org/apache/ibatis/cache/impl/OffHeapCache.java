@@ -0,0 +1,303 @@
+/*
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache.impl;
+
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.apache.ibatis.cache.Cache;
+import org.apache.ibatis.cache.CacheException;
+import org.apache.ibatis.cache.serializer.CacheSerializer;
+import org.apache.ibatis.cache.serializer.CacheSerializers;
+import org.apache.ibatis.cache.serializer.JavaCacheSerializer;
+import org.apache.ibatis.logging.Log;
+import org.apache.ibatis.logging.LogFactory;
+
+/**
+ * Cache that keeps its values serialized in direct memory, out of reach of the garbage collector.
+ * <p>
+ * The memory is allocated on demand in slabs of direct {@link ByteBuffer}s that are divided into fixed size blocks.
+ * A value occupies as many blocks as its serialized form needs. Only the keys and the block numbers of each value stay
+ * on the heap. Once the capacity is used up, the least recently used values are evicted until the new one fits.
+ * <p>
+ * Values are written with Java serialization unless the {@code serializer} property names another
+ * {@link CacheSerializer}, and every read returns a new copy. The cache is safe for concurrent use.
+ *
+ * <pre>
+ * &lt;cache type="OFF_HEAP"&gt;
+ *   &lt;property name="capacity" value="4294967296"/&gt;
+ * &lt;/cache&gt;
+ * </pre>
+ * @since 3.5.9
+ */
+public class OffHeapCache implements Cache {
+
+  private static final Log log = LogFactory.getLog(OffHeapCache.class);
+
+  private static final int SLAB_SIZE = 64 * 1024 * 1024;
+
+  private final String id;
+  private final ReentrantLock lock = new ReentrantLock();
+  private final Map<Object, Region> index = new LinkedHashMap<>(16, .75F, true);
+  private final List<ByteBuffer> slabs = new ArrayList<>();
+  private long capacity = 64L * 1024 * 1024;
+  private int blockSize = 4096;
+  private CacheSerializer serializer = new JavaCacheSerializer();
+  private int maxBlocks;
+  private int blocksPerSlab;
+  private int allocatedBlocks;
+  private int[] freeBlocks = new int[16];
+  private int freeCount;
+
+  public OffHeapCache(String id) {
+    this.id = id;
+    reset();
+  }
+
+  /**
+   * @param capacity
+   *          the bytes of direct memory the cache may use. Defaults to 64 MiB.
+   */
+  public void setCapacity(long capacity) {
+    if (capacity <= 0) {
+      throw new IllegalArgumentException("Capacity must be greater than zero but was " + capacity);
+    }
+    lock.lock();
+    try {
+      this.capacity = capacity;
+      reset();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  public long getCapacity() {
+    return capacity;
+  }
+
+  /**
+   * @param blockSize
+   *          the bytes of each block. Values are stored in whole blocks. Defaults to 4 KiB.
+   */
+  public void setBlockSize(int blockSize) {
+    if (blockSize <= 0) {
+      throw new IllegalArgumentException("Block size must be greater than zero but was " + blockSize);
+    }
+    lock.lock();
+    try {
+      this.blockSize = blockSize;
+      reset();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  public int getBlockSize() {
+    return blockSize;
+  }
+
+  /**
+   * @param serializer
+   *          {@code java}, {@code fast} or the class name of a {@link CacheSerializer}
+   * @see CacheSerializers#resolve(String)
+   */
+  public void setSerializer(String serializer) {
+    this.serializer = CacheSerializers.resolve(serializer);
+  }
+
+  @Override
+  public String getId() {
+    return id;
+  }
+
+  @Override
+  public int getSize() {
+    lock.lock();
+    try {
+      return index.size();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public void putObject(Object key, Object value) {
+    byte[] bytes = serializer.serialize(value);
+    int needed = (bytes.length + blockSize - 1) / blockSize;
+    lock.lock();
+    try {
+      remove(key);
+      if (needed > maxBlocks) {
+        if (log.isDebugEnabled()) {
+          log.debug("Value of " + bytes.length + " bytes exceeds the capacity of cache " + id + ", not cached");
+        }
+        return;
+      }
+      Iterator<Region> eldest = index.values().iterator();
+      while (freeCount + maxBlocks - allocatedBlocks < needed) {
+        release(eldest.next());
+        eldest.remove();
+      }
+      int[] blocks = new int[needed];
+      for (int i = 0; i < needed; i++) {
+        blocks[i] = takeBlock();
+        int offset = i * blockSize;
+        slice(blocks[i]).put(bytes, offset, Math.min(blockSize, bytes.length - offset));
+      }
+      index.put(key, new Region(blocks, bytes.length));
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public Object getObject(Object key) {
+    byte[] bytes;
+    lock.lock();
+    try {
+      Region region = index.get(key);
+      if (region == null) {
+        return null;
+      }
+      bytes = new byte[region.length];
+      for (int i = 0; i < region.blocks.length; i++) {
+        int offset = i * blockSize;
+        slice(region.blocks[i]).get(bytes, offset, Math.min(blockSize, bytes.length - offset));
+      }
+    } finally {
+      lock.unlock();
+    }
+    return serializer.deserialize(bytes);
+  }
+
+  /**
+   * Removes the value without reading it back from direct memory.
+   *
+   * @return always {@code null}
+   */
+  @Override
+  public Object removeObject(Object key) {
+    lock.lock();
+    try {
+      remove(key);
+      return null;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public void clear() {
+    lock.lock();
+    try {
+      index.clear();
+      // the slabs are kept and their blocks handed out again from the first one
+      allocatedBlocks = 0;
+      freeCount = 0;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (getId() == null) {
+      throw new CacheException("Cache instances require an ID.");
+    }
+    if (this == o) {
+      return true;
+    }
+    if (!(o instanceof Cache)) {
+      return false;
+    }
+
+    Cache otherCache = (Cache) o;
+    return getId().equals(otherCache.getId());
+  }
+
+  @Override
+  public int hashCode() {
+    if (getId() == null) {
+      throw new CacheException("Cache instances require an ID.");
+    }
+    return getId().hashCode();
+  }
+
+  private void reset() {
+    index.clear();
+    slabs.clear();
+    maxBlocks = (int) Math.min(capacity / blockSize, Integer.MAX_VALUE);
+    blocksPerSlab = Math.max(1, SLAB_SIZE / blockSize);
+    allocatedBlocks = 0;
+    freeCount = 0;
+  }
+
+  private void remove(Object key) {
+    Region region = index.remove(key);
+    if (region != null) {
+      release(region);
+    }
+  }
+
+  private void release(Region region) {
+    if (freeCount + region.blocks.length > freeBlocks.length) {
+      freeBlocks = Arrays.copyOf(freeBlocks, Math.max(freeBlocks.length * 2, freeCount + region.blocks.length));
+    }
+    for (int block : region.blocks) {
+      freeBlocks[freeCount++] = block;
+    }
+  }
+
+  private int takeBlock() {
+    if (freeCount > 0) {
+      return freeBlocks[--freeCount];
+    }
+    int block = allocatedBlocks++;
+    int slab = block / blocksPerSlab;
+    if (slab == slabs.size()) {
+      int blocks = Math.min(blocksPerSlab, maxBlocks - slab * blocksPerSlab);
+      slabs.add(ByteBuffer.allocateDirect(blocks * blockSize));
+    }
+    return block;
+  }
+
+  private ByteBuffer slice(int block) {
+    ByteBuffer buffer = slabs.get(block / blocksPerSlab).duplicate();
+    ((Buffer) buffer).position((block % blocksPerSlab) * blockSize);
+    return buffer;
+  }
+
+  /**
+   * The blocks holding a value, in order, and its length in bytes.
+   */
+  private static final class Region {
+    private final int[] blocks;
+    private final int length;
+
+    Region(int[] blocks, int length) {
+      this.blocks = blocks;
+      this.length = length;
+    }
+  }
+
+}
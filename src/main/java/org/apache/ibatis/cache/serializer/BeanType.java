@@ -0,0 +1,172 @@
+/*
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache.serializer;
+
+import java.io.Serializable;
+import java.lang.reflect.Constructor;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.UUID;
+
+import org.apache.ibatis.cache.CacheException;
+import org.apache.ibatis.reflection.invoker.Invoker;
+
+/**
+ * The properties of a bean that can be both read and written, with the accessors generated for them, and the
+ * classification of the other values both {@link FastCacheSerializer} and {@link ReflectiveCopier} share. The bean
+ * types are looked up through {@link BeanTypes}.
+ */
+final class BeanType {
+
+  private static final Map<String, Class<?>> REBUILDABLE_TYPES = new HashMap<>();
+
+  static {
+    for (Class<?> type : Arrays.asList(ArrayList.class, LinkedList.class, HashSet.class, LinkedHashSet.class,
+        TreeSet.class, HashMap.class, LinkedHashMap.class, TreeMap.class)) {
+      REBUILDABLE_TYPES.put(type.getName(), type);
+    }
+  }
+
+  private final Class<?> type;
+  private final Constructor<?> constructor;
+  private final Invoker[] getters;
+  private final Invoker[] setters;
+
+  BeanType(Class<?> type, Constructor<?> constructor, Invoker[] getters, Invoker[] setters) {
+    this.type = type;
+    this.constructor = constructor;
+    this.getters = getters;
+    this.setters = setters;
+  }
+
+  Class<?> getType() {
+    return type;
+  }
+
+  int getPropertyCount() {
+    return getters.length;
+  }
+
+  Object newInstance() {
+    try {
+      return constructor.newInstance();
+    } catch (Exception e) {
+      throw new CacheException("Could not instantiate " + type.getName() + ".  Cause: " + e, e);
+    }
+  }
+
+  Object get(Object bean, int property) {
+    try {
+      return getters[property].invoke(bean, null);
+    } catch (Exception e) {
+      throw new CacheException("Could not read a property of " + type.getName() + ".  Cause: " + e, e);
+    }
+  }
+
+  void set(Object bean, int property, Object value) {
+    try {
+      setters[property].invoke(bean, new Object[] { value });
+    } catch (Exception e) {
+      throw new CacheException("Could not write a property of " + type.getName() + ".  Cause: " + e, e);
+    }
+  }
+
+  static boolean isJdkType(Class<?> type) {
+    return isJdkType(type.getName());
+  }
+
+  static boolean isJdkType(String name) {
+    return name.startsWith("java.") || name.startsWith("javax.") || name.startsWith("sun.")
+        || name.startsWith("jdk.");
+  }
+
+  /**
+   * Whether the instances of the class never change, so a copy may share them.
+   */
+  static boolean isImmutable(Class<?> type) {
+    return type == String.class || type == Integer.class || type == Long.class || type == Short.class
+        || type == Byte.class || type == Double.class || type == Float.class || type == Boolean.class
+        || type == Character.class || type == BigDecimal.class || type == BigInteger.class || type == UUID.class
+        || type.isEnum() || (type.getName().startsWith("java.time.") && Serializable.class.isAssignableFrom(type));
+  }
+
+  /**
+   * Whether the collection or map is rebuilt exactly by adding its elements to a new instance of its class: one of
+   * the standard mutable classes, sorted by natural order if sorted. Anything else, such as unmodifiable views,
+   * {@code EnumSet}, sorted collections with a comparator or subclasses with state of their own, is not.
+   */
+  static boolean isRebuildable(Object value) {
+    if (!REBUILDABLE_TYPES.containsKey(value.getClass().getName())) {
+      return false;
+    }
+    if (value instanceof SortedSet) {
+      return ((SortedSet<?>) value).comparator() == null;
+    }
+    if (value instanceof SortedMap) {
+      return ((SortedMap<?, ?>) value).comparator() == null;
+    }
+    return true;
+  }
+
+  /**
+   * @return the class of the given name if it is one of the collection or map classes that are rebuilt, or
+   *         {@code null}
+   */
+  static Class<?> rebuildableType(String name) {
+    return REBUILDABLE_TYPES.get(name);
+  }
+
+  /**
+   * Creates an empty collection of a class {@link #isRebuildable(Object) rebuilt} element by element.
+   */
+  @SuppressWarnings("unchecked")
+  static Collection<Object> newCollection(Class<?> type) {
+    return (Collection<Object>) newRebuildable(type);
+  }
+
+  /**
+   * Creates an empty map of a class {@link #isRebuildable(Object) rebuilt} entry by entry.
+   */
+  @SuppressWarnings("unchecked")
+  static Map<Object, Object> newMap(Class<?> type) {
+    return (Map<Object, Object>) newRebuildable(type);
+  }
+
+  private static Object newRebuildable(Class<?> type) {
+    if (REBUILDABLE_TYPES.get(type.getName()) != type) {
+      throw new CacheException("Cannot rebuild " + type.getName() + ", it is not a standard collection or map");
+    }
+    try {
+      return type.getConstructor().newInstance();
+    } catch (Exception e) {
+      throw new CacheException("Could not instantiate " + type.getName() + ".  Cause: " + e, e);
+    }
+  }
+
+}
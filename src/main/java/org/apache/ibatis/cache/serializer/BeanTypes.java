@@ -0,0 +1,86 @@
+/*
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache.serializer;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.ibatis.executor.loader.WriteReplaceInterface;
+import org.apache.ibatis.reflection.LambdaReflectorFactory;
+import org.apache.ibatis.reflection.Reflector;
+import org.apache.ibatis.reflection.ReflectorFactory;
+import org.apache.ibatis.reflection.invoker.Invoker;
+
+/**
+ * The {@link BeanType bean types} of the classes a {@link FastCacheSerializer} or {@link ReflectiveCopier} has met.
+ * <p>
+ * Each serializer and copier owns its own instance, so the classes and their generated accessors are released with
+ * the cache that uses them instead of being held for the lifetime of the application.
+ */
+final class BeanTypes {
+
+  private static final BeanType NOT_A_BEAN = new BeanType(null, null, new Invoker[0], new Invoker[0]);
+
+  private final ReflectorFactory reflectorFactory = new LambdaReflectorFactory();
+  private final Map<Class<?>, BeanType> beanTypes = new ConcurrentHashMap<>();
+
+  /**
+   * @return the bean type of the class, or {@code null} if it is a JDK class, a collection, a map, a lazy loading proxy
+   *         or has no default constructor
+   */
+  BeanType forClass(Class<?> type) {
+    BeanType beanType = beanTypes.computeIfAbsent(type, this::create);
+    return beanType == NOT_A_BEAN ? null : beanType;
+  }
+
+  private BeanType create(Class<?> type) {
+    if (BeanType.isJdkType(type) || WriteReplaceInterface.class.isAssignableFrom(type) || type.isInterface()
+        || Modifier.isAbstract(type.getModifiers()) || Collection.class.isAssignableFrom(type)
+        || Map.class.isAssignableFrom(type)) {
+      return NOT_A_BEAN;
+    }
+    Reflector reflector = reflectorFactory.findForClass(type);
+    if (!reflector.hasDefaultConstructor()) {
+      return NOT_A_BEAN;
+    }
+    Constructor<?> constructor = reflector.getDefaultConstructor();
+    if (!Modifier.isPublic(constructor.getModifiers()) || !Modifier.isPublic(type.getModifiers())) {
+      if (!Reflector.canControlMemberAccessible()) {
+        return NOT_A_BEAN;
+      }
+      try {
+        constructor.setAccessible(true);
+      } catch (RuntimeException e) {
+        return NOT_A_BEAN;
+      }
+    }
+    List<Invoker> getters = new ArrayList<>();
+    List<Invoker> setters = new ArrayList<>();
+    for (String property : reflector.getGetablePropertyNames()) {
+      if (reflector.hasSetter(property)) {
+        getters.add(reflector.getGetInvoker(property));
+        setters.add(reflector.getSetInvoker(property));
+      }
+    }
+    return new BeanType(type, constructor, getters.toArray(new Invoker[0]), setters.toArray(new Invoker[0]));
+  }
+
+}
@@ -0,0 +1,46 @@
+/*
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache.serializer;
+
+/**
+ * SPI for turning cached values into bytes and back.
+ * <p>
+ * Implementations must be safe for concurrent use and have a public no-argument constructor. Every call of
+ * {@link #deserialize(byte[])} must return a new instance, independent of the ones returned before.
+ * @since 3.5.9
+ * @see CacheSerializers#resolve(String)
+ */
+public interface CacheSerializer {
+
+  /**
+   * @param value
+   *          the value to store, may be {@code null}
+   * @return the serialized value
+   * @throws org.apache.ibatis.cache.CacheException
+   *           if the value cannot be serialized
+   */
+  byte[] serialize(Object value);
+
+  /**
+   * @param bytes
+   *          bytes returned by {@link #serialize(Object)}
+   * @return a new copy of the value
+   * @throws org.apache.ibatis.cache.CacheException
+   *           if the bytes cannot be read back
+   */
+  Object deserialize(byte[] bytes);
+
+}
@@ -0,0 +1,50 @@
+/*
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache.serializer;
+
+import org.apache.ibatis.cache.CacheException;
+import org.apache.ibatis.io.Resources;
+
+/**
+ * Resolves the serializer named by a cache property.
+ * @since 3.5.9
+ */
+public final class CacheSerializers {
+
+  /**
+   * @param name
+   *          {@code java} for {@link JavaCacheSerializer}, {@code fast} for {@link FastCacheSerializer}, or the fully
+   *          qualified name of a {@link CacheSerializer} implementation
+   * @return a new serializer
+   */
+  public static CacheSerializer resolve(String name) {
+    if ("java".equalsIgnoreCase(name)) {
+      return new JavaCacheSerializer();
+    }
+    if ("fast".equalsIgnoreCase(name)) {
+      return new FastCacheSerializer();
+    }
+    try {
+      return (CacheSerializer) Resources.classForName(name).getDeclaredConstructor().newInstance();
+    } catch (Exception e) {
+      throw new CacheException("Could not instantiate cache serializer '" + name + "'.  Cause: " + e, e);
+    }
+  }
+
+  private CacheSerializers() {
+  }
+
+}
@@ -0,0 +1,418 @@
+/*
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache.serializer;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.Serializable;
+import java.lang.reflect.Array;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.ibatis.cache.CacheException;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.io.SerialFilterChecker;
+
+/**
+ * Serializes result objects without {@link java.io.ObjectOutputStream}.
+ * <p>
+ * Beans are written property by property through the accessors the
+ * {@link org.apache.ibatis.reflection.LambdaReflectorFactory} generates for the properties that can be read and
+ * written, so they do not have to be {@link Serializable}. Strings, boxed primitives, big numbers, dates, enums,
+ * arrays, collections and maps have compact encodings of their own, every class name is written once per value and
+ * shared or cyclic references are preserved. Other JDK types and lazy loading proxies fall back to Java serialization.
+ * <p>
+ * Only the standard mutable collections and maps, sorted by natural order if sorted, are written element by element.
+ * Any other collection or map, such as {@code Collections.unmodifiableList}, an {@code EnumSet} or a {@code TreeMap}
+ * with a comparator, falls back to Java serialization so that it is read back with its own class.
+ * <p>
+ * When reading, collections and maps must be of one of those standard classes and beans of non JDK classes, the class
+ * names are checked before loading any class. As with {@link JavaCacheSerializer}, define a JEP-290 serial filter for
+ * the values that fall back to Java serialization.
+ * @since 3.5.9
+ */
+public class FastCacheSerializer implements CacheSerializer {
+
+  private static final byte NULL = 0;
+  private static final byte REFERENCE = 1;
+  private static final byte STRING = 2;
+  private static final byte INTEGER = 3;
+  private static final byte LONG = 4;
+  private static final byte SHORT = 5;
+  private static final byte BYTE = 6;
+  private static final byte DOUBLE = 7;
+  private static final byte FLOAT = 8;
+  private static final byte BOOLEAN = 9;
+  private static final byte CHARACTER = 10;
+  private static final byte BIG_DECIMAL = 11;
+  private static final byte BIG_INTEGER = 12;
+  private static final byte DATE = 13;
+  private static final byte SQL_DATE = 14;
+  private static final byte SQL_TIME = 15;
+  private static final byte TIMESTAMP = 16;
+  private static final byte ENUM = 17;
+  private static final byte BYTES = 18;
+  private static final byte ARRAY = 19;
+  private static final byte COLLECTION = 20;
+  private static final byte MAP = 21;
+  private static final byte BEAN = 22;
+  private static final byte JAVA = 23;
+
+  private final JavaCacheSerializer javaSerializer = new JavaCacheSerializer();
+  private final BeanTypes beanTypes = new BeanTypes();
+
+  @Override
+  public byte[] serialize(Object value) {
+    try (ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bos)) {
+      new Writer(out).write(value);
+      out.flush();
+      return bos.toByteArray();
+    } catch (IOException e) {
+      throw new CacheException("Error serializing object.  Cause: " + e, e);
+    }
+  }
+
+  @Override
+  public Object deserialize(byte[] bytes) {
+    SerialFilterChecker.check();
+    try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes))) {
+      return new Reader(in).read();
+    } catch (IOException | ClassNotFoundException e) {
+      throw new CacheException("Error deserializing object.  Cause: " + e, e);
+    }
+  }
+
+  private final class Writer {
+    private final DataOutputStream out;
+    private final Map<Object, Integer> references = new IdentityHashMap<>();
+    private final Map<Class<?>, Integer> classes = new HashMap<>();
+
+    Writer(DataOutputStream out) {
+      this.out = out;
+    }
+
+    void write(Object value) throws IOException {
+      if (value == null) {
+        out.writeByte(NULL);
+        return;
+      }
+      Class<?> type = value.getClass();
+      if (type == String.class) {
+        out.writeByte(STRING);
+        writeString((String) value);
+      } else if (type == Integer.class) {
+        out.writeByte(INTEGER);
+        out.writeInt((Integer) value);
+      } else if (type == Long.class) {
+        out.writeByte(LONG);
+        out.writeLong((Long) value);
+      } else if (type == Short.class) {
+        out.writeByte(SHORT);
+        out.writeShort((Short) value);
+      } else if (type == Byte.class) {
+        out.writeByte(BYTE);
+        out.writeByte((Byte) value);
+      } else if (type == Double.class) {
+        out.writeByte(DOUBLE);
+        out.writeDouble((Double) value);
+      } else if (type == Float.class) {
+        out.writeByte(FLOAT);
+        out.writeFloat((Float) value);
+      } else if (type == Boolean.class) {
+        out.writeByte(BOOLEAN);
+        out.writeBoolean((Boolean) value);
+      } else if (type == Character.class) {
+        out.writeByte(CHARACTER);
+        out.writeChar((Character) value);
+      } else if (type == BigDecimal.class) {
+        BigDecimal decimal = (BigDecimal) value;
+        out.writeByte(BIG_DECIMAL);
+        writeBytes(decimal.unscaledValue().toByteArray());
+        out.writeInt(decimal.scale());
+      } else if (type == BigInteger.class) {
+        out.writeByte(BIG_INTEGER);
+        writeBytes(((BigInteger) value).toByteArray());
+      } else if (type == Date.class) {
+        out.writeByte(DATE);
+        out.writeLong(((Date) value).getTime());
+      } else if (type == java.sql.Date.class) {
+        out.writeByte(SQL_DATE);
+        out.writeLong(((Date) value).getTime());
+      } else if (type == Time.class) {
+        out.writeByte(SQL_TIME);
+        out.writeLong(((Date) value).getTime());
+      } else if (type == Timestamp.class) {
+        Timestamp timestamp = (Timestamp) value;
+        out.writeByte(TIMESTAMP);
+        out.writeLong(timestamp.getTime());
+        out.writeInt(timestamp.getNanos());
+      } else if (value instanceof Enum) {
+        out.writeByte(ENUM);
+        writeClass(((Enum<?>) value).getDeclaringClass());
+        writeString(((Enum<?>) value).name());
+      } else if (type == byte[].class) {
+        out.writeByte(BYTES);
+        writeBytes((byte[]) value);
+      } else {
+        writeReferenceType(value, type);
+      }
+    }
+
+    private void writeReferenceType(Object value, Class<?> type) throws IOException {
+      Integer reference = references.get(value);
+      if (reference != null) {
+        out.writeByte(REFERENCE);
+        out.writeInt(reference);
+        return;
+      }
+      BeanType beanType;
+      if (type.isArray()) {
+        references.put(value, references.size());
+        int length = Array.getLength(value);
+        out.writeByte(ARRAY);
+        writeClass(type.getComponentType());
+        out.writeInt(length);
+        for (int i = 0; i < length; i++) {
+          write(Array.get(value, i));
+        }
+      } else if (value instanceof Collection && BeanType.isRebuildable(value)) {
+        references.put(value, references.size());
+        Collection<?> collection = (Collection<?>) value;
+        out.writeByte(COLLECTION);
+        writeClass(type);
+        out.writeInt(collection.size());
+        for (Object element : collection) {
+          write(element);
+        }
+      } else if (value instanceof Map && BeanType.isRebuildable(value)) {
+        references.put(value, references.size());
+        Map<?, ?> map = (Map<?, ?>) value;
+        out.writeByte(MAP);
+        writeClass(type);
+        out.writeInt(map.size());
+        for (Map.Entry<?, ?> entry : map.entrySet()) {
+          write(entry.getKey());
+          write(entry.getValue());
+        }
+      } else if ((beanType = beanTypes.forClass(type)) != null) {
+        references.put(value, references.size());
+        out.writeByte(BEAN);
+        writeClass(type);
+        for (int i = 0; i < beanType.getPropertyCount(); i++) {
+          write(beanType.get(value, i));
+        }
+      } else if (value instanceof Serializable) {
+        out.writeByte(JAVA);
+        writeBytes(javaSerializer.serialize(value));
+      } else {
+        throw new CacheException("Cannot serialize " + type.getName()
+            + ", it is neither a bean with a default constructor nor serializable");
+      }
+    }
+
+    private void writeClass(Class<?> type) throws IOException {
+      Integer index = classes.get(type);
+      if (index != null) {
+        out.writeInt(index);
+      } else {
+        classes.put(type, classes.size());
+        out.writeInt(-1);
+        writeString(type.getName());
+      }
+    }
+
+    private void writeString(String value) throws IOException {
+      writeBytes(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private void writeBytes(byte[] value) throws IOException {
+      out.writeInt(value.length);
+      out.write(value);
+    }
+  }
+
+  private final class Reader {
+    private final DataInputStream in;
+    private final List<Object> references = new ArrayList<>();
+    private final List<Class<?>> classes = new ArrayList<>();
+
+    Reader(DataInputStream in) {
+      this.in = in;
+    }
+
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    Object read() throws IOException, ClassNotFoundException {
+      byte tag = in.readByte();
+      switch (tag) {
+        case NULL:
+          return null;
+        case REFERENCE:
+          return references.get(in.readInt());
+        case STRING:
+          return readString();
+        case INTEGER:
+          return in.readInt();
+        case LONG:
+          return in.readLong();
+        case SHORT:
+          return in.readShort();
+        case BYTE:
+          return in.readByte();
+        case DOUBLE:
+          return in.readDouble();
+        case FLOAT:
+          return in.readFloat();
+        case BOOLEAN:
+          return in.readBoolean();
+        case CHARACTER:
+          return in.readChar();
+        case BIG_DECIMAL:
+          return new BigDecimal(new BigInteger(readBytes()), in.readInt());
+        case BIG_INTEGER:
+          return new BigInteger(readBytes());
+        case DATE:
+          return new Date(in.readLong());
+        case SQL_DATE:
+          return new java.sql.Date(in.readLong());
+        case SQL_TIME:
+          return new Time(in.readLong());
+        case TIMESTAMP:
+          Timestamp timestamp = new Timestamp(in.readLong());
+          timestamp.setNanos(in.readInt());
+          return timestamp;
+        case ENUM:
+          return Enum.valueOf((Class<Enum>) readClass(tag), readString());
+        case BYTES:
+          return readBytes();
+        case ARRAY:
+          Object array = Array.newInstance(readClass(tag), in.readInt());
+          references.add(array);
+          for (int i = 0; i < Array.getLength(array); i++) {
+            Array.set(array, i, read());
+          }
+          return array;
+        case COLLECTION:
+          Collection<Object> collection = BeanType.newCollection(readClass(tag));
+          references.add(collection);
+          for (int size = in.readInt(); size > 0; size--) {
+            collection.add(read());
+          }
+          return collection;
+        case MAP:
+          Map<Object, Object> map = BeanType.newMap(readClass(tag));
+          references.add(map);
+          for (int size = in.readInt(); size > 0; size--) {
+            map.put(read(), read());
+          }
+          return map;
+        case BEAN:
+          BeanType beanType = beanTypes.forClass(readClass(tag));
+          Object bean = beanType.newInstance();
+          references.add(bean);
+          for (int i = 0; i < beanType.getPropertyCount(); i++) {
+            beanType.set(bean, i, read());
+          }
+          return bean;
+        case JAVA:
+          return javaSerializer.deserialize(readBytes());
+        default:
+          throw new CacheException("Unknown type tag " + tag + " in serialized cache value");
+      }
+    }
+
+    /**
+     * Reads the class of a value of the given tag. Collections and maps are only resolved among the classes
+     * {@link BeanType#isRebuildable(Object) rebuilt} by the writer and beans never are JDK classes, so a tampered value
+     * cannot make the reader load or instantiate other classes.
+     */
+    private Class<?> readClass(byte tag) throws IOException, ClassNotFoundException {
+      int index = in.readInt();
+      Class<?> type;
+      if (index >= 0) {
+        type = classes.get(index);
+      } else {
+        String name = readString();
+        if (tag == COLLECTION || tag == MAP) {
+          type = BeanType.rebuildableType(name);
+        } else if (tag == BEAN && BeanType.isJdkType(name)) {
+          type = null;
+        } else {
+          type = primitiveType(name);
+          if (type == null) {
+            type = Resources.classForName(name);
+          }
+        }
+        if (type == null) {
+          throw new CacheException("Unexpected class " + name + " in serialized cache value");
+        }
+        classes.add(type);
+      }
+      if ((tag == COLLECTION || tag == MAP) && BeanType.rebuildableType(type.getName()) != type
+          || tag == ENUM && !type.isEnum() || tag == BEAN && beanTypes.forClass(type) == null) {
+        throw new CacheException("Unexpected class " + type.getName() + " in serialized cache value");
+      }
+      return type;
+    }
+
+    private String readString() throws IOException {
+      return new String(readBytes(), StandardCharsets.UTF_8);
+    }
+
+    private byte[] readBytes() throws IOException {
+      byte[] bytes = new byte[in.readInt()];
+      in.readFully(bytes);
+      return bytes;
+    }
+  }
+
+  private static Class<?> primitiveType(String name) {
+    switch (name) {
+      case "int":
+        return int.class;
+      case "long":
+        return long.class;
+      case "short":
+        return short.class;
+      case "byte":
+        return byte.class;
+      case "double":
+        return double.class;
+      case "float":
+        return float.class;
+      case "boolean":
+        return boolean.class;
+      case "char":
+        return char.class;
+      default:
+        return null;
+    }
+  }
+
+}
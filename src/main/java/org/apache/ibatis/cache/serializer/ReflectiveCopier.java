@@ -0,0 +1,110 @@
+/*
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache.serializer;
+
+import java.io.Serializable;
+import java.lang.reflect.Array;
+import java.util.Collection;
+import java.util.Date;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+import org.apache.ibatis.cache.CacheException;
+
+/**
+ * Deep copies result objects in memory, without going through bytes.
+ * <p>
+ * Beans are copied property by property through the same generated accessors as {@link FastCacheSerializer}, and
+ * arrays, the standard mutable collections and maps (sorted by natural order if sorted) element by element.
+ * Immutable values such as strings, numbers, enums and {@code java.time} values are shared, dates are cloned, shared or
+ * cyclic references are preserved. Other JDK types, including the collections and maps that a new instance of their
+ * class would not reproduce exactly (unmodifiable views, {@code EnumSet}, comparators...), and lazy loading proxies are
+ * copied with Java serialization.
+ * @since 3.5.9
+ */
+public class ReflectiveCopier {
+
+  private final JavaCacheSerializer javaSerializer = new JavaCacheSerializer();
+  private final BeanTypes beanTypes = new BeanTypes();
+
+  /**
+   * @param value
+   *          the value to copy, may be {@code null}
+   * @return a deep copy of the value
+   * @throws CacheException
+   *           if the value contains an object that can neither be copied as a bean nor serialized
+   */
+  public Object copy(Object value) {
+    return copy(value, new IdentityHashMap<>());
+  }
+
+  private Object copy(Object value, Map<Object, Object> copies) {
+    if (value == null) {
+      return null;
+    }
+    Class<?> type = value.getClass();
+    if (BeanType.isImmutable(type) || value instanceof Enum) {
+      return value;
+    }
+    Object copy = copies.get(value);
+    if (copy != null) {
+      return copy;
+    }
+    BeanType beanType;
+    if (value instanceof Date) {
+      copy = ((Date) value).clone();
+    } else if (type.isArray()) {
+      int length = Array.getLength(value);
+      copy = Array.newInstance(type.getComponentType(), length);
+      copies.put(value, copy);
+      if (type.getComponentType().isPrimitive()) {
+        System.arraycopy(value, 0, copy, 0, length);
+      } else {
+        for (int i = 0; i < length; i++) {
+          Array.set(copy, i, copy(Array.get(value, i), copies));
+        }
+      }
+    } else if (value instanceof Collection && BeanType.isRebuildable(value)) {
+      Collection<Object> collection = BeanType.newCollection(type);
+      copies.put(value, collection);
+      for (Object element : (Collection<?>) value) {
+        collection.add(copy(element, copies));
+      }
+      copy = collection;
+    } else if (value instanceof Map && BeanType.isRebuildable(value)) {
+      Map<Object, Object> map = BeanType.newMap(type);
+      copies.put(value, map);
+      for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+        map.put(copy(entry.getKey(), copies), copy(entry.getValue(), copies));
+      }
+      copy = map;
+    } else if ((beanType = beanTypes.forClass(type)) != null) {
+      copy = beanType.newInstance();
+      copies.put(value, copy);
+      for (int i = 0; i < beanType.getPropertyCount(); i++) {
+        beanType.set(copy, i, copy(beanType.get(value, i), copies));
+      }
+    } else if (value instanceof Serializable) {
+      copy = javaSerializer.deserialize(javaSerializer.serialize(value));
+    } else {
+      throw new CacheException("Cannot copy " + type.getName()
+          + ", it is neither a bean with a default constructor nor serializable");
+    }
+    copies.put(value, copy);
+    return copy;
+  }
+
+}
@@ -0,0 +1,357 @@
+/*
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cursor;
+
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Iterator;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.ibatis.logging.Log;
+import org.apache.ibatis.logging.LogFactory;
+
+/**
+ * Publishes the items of a {@link Cursor} with backpressure: a row is read from the result set only when the subscriber
+ * has requested it, so a subscriber that writes to a slow consumer (e.g. an HTTP response) holds at most one row in
+ * memory.
+ * <p>
+ * Rows are read and delivered on the given {@link Executor}, never concurrently. After {@code batchSize} rows the
+ * delivery is handed back to the executor so that one subscription cannot monopolize a thread; using the statement
+ * {@code fetchSize} as batch size makes every pass consume one JDBC round trip. The cursor is closed on completion,
+ * error and cancellation. The session the cursor belongs to must stay open until then; closing it is the caller's
+ * responsibility.
+ * <p>
+ * The {@link Subscriber} and {@link Subscription} contracts are those of {@code java.util.concurrent.Flow}, which
+ * cannot be referenced here because MyBatis runs on Java 8. On Java 9 or later {@link #asFlowPublisher()} returns a
+ * real {@code Flow.Publisher}.
+ *
+ * @param <T>
+ *          the item type
+ * @since 3.5.9
+ */
+public class CursorPublisher<T> {
+
+  public static final int DEFAULT_BATCH_SIZE = 256;
+
+  private static final Log log = LogFactory.getLog(CursorPublisher.class);
+
+  private final Cursor<T> cursor;
+  private final Executor executor;
+  private final int batchSize;
+  private final AtomicBoolean subscribed = new AtomicBoolean();
+
+  public CursorPublisher(Cursor<T> cursor, Executor executor) {
+    this(cursor, executor, DEFAULT_BATCH_SIZE);
+  }
+
+  public CursorPublisher(Cursor<T> cursor, Executor executor, int batchSize) {
+    if (batchSize <= 0) {
+      throw new IllegalArgumentException("batchSize must be positive but was " + batchSize);
+    }
+    this.cursor = cursor;
+    this.executor = executor;
+    this.batchSize = batchSize;
+  }
+
+  /**
+   * Subscribes to the cursor. A cursor can be read only once, so any further subscriber is signalled an
+   * {@link IllegalStateException}.
+   *
+   * @param subscriber
+   *          the subscriber
+   */
+  public void subscribe(Subscriber<? super T> subscriber) {
+    if (subscriber == null) {
+      throw new NullPointerException("subscriber");
+    }
+    if (!subscribed.compareAndSet(false, true)) {
+      subscriber.onSubscribe(new Subscription() {
+        @Override
+        public void request(long n) {
+          // nothing to deliver
+        }
+
+        @Override
+        public void cancel() {
+          // nothing to cancel
+        }
+      });
+      subscriber.onError(new IllegalStateException("A CursorPublisher allows only one subscriber."));
+      return;
+    }
+    CursorSubscription subscription = new CursorSubscription(subscriber);
+    try {
+      subscriber.onSubscribe(subscription);
+    } finally {
+      subscription.start();
+    }
+  }
+
+  /**
+   * Adapts this publisher to {@code java.util.concurrent.Flow.Publisher}.
+   *
+   * @param <P>
+   *          {@code Flow.Publisher<T>}
+   * @return a {@code Flow.Publisher} delegating to this publisher
+   * @throws UnsupportedOperationException
+   *           if the runtime is older than Java 9
+   */
+  @SuppressWarnings("unchecked")
+  public <P> P asFlowPublisher() {
+    ClassLoader classLoader = CursorPublisher.class.getClassLoader();
+    try {
+      Class<?> publisherType = Class.forName("java.util.concurrent.Flow$Publisher");
+      Class<?> subscriberType = Class.forName("java.util.concurrent.Flow$Subscriber");
+      Class<?> subscriptionType = Class.forName("java.util.concurrent.Flow$Subscription");
+      Method onSubscribe = subscriberType.getMethod("onSubscribe", subscriptionType);
+      Method onNext = subscriberType.getMethod("onNext", Object.class);
+      Method onError = subscriberType.getMethod("onError", Throwable.class);
+      Method onComplete = subscriberType.getMethod("onComplete");
+      return (P) Proxy.newProxyInstance(classLoader, new Class<?>[] { publisherType }, (proxy, method, args) -> {
+        if (!"subscribe".equals(method.getName())) {
+          return invokeObjectMethod(proxy, method, args);
+        }
+        Object flowSubscriber = args[0];
+        subscribe(new Subscriber<T>() {
+          @Override
+          public void onSubscribe(Subscription subscription) {
+            Object flowSubscription = Proxy.newProxyInstance(classLoader, new Class<?>[] { subscriptionType },
+                (p, m, a) -> {
+                  if ("request".equals(m.getName())) {
+                    subscription.request((Long) a[0]);
+                    return null;
+                  } else if ("cancel".equals(m.getName())) {
+                    subscription.cancel();
+                    return null;
+                  }
+                  return invokeObjectMethod(p, m, a);
+                });
+            invoke(onSubscribe, flowSubscriber, flowSubscription);
+          }
+
+          @Override
+          public void onNext(T item) {
+            invoke(onNext, flowSubscriber, item);
+          }
+
+          @Override
+          public void onError(Throwable throwable) {
+            invoke(onError, flowSubscriber, throwable);
+          }
+
+          @Override
+          public void onComplete() {
+            invoke(onComplete, flowSubscriber);
+          }
+        });
+        return null;
+      });
+    } catch (ReflectiveOperationException e) {
+      throw new UnsupportedOperationException("java.util.concurrent.Flow requires Java 9 or later.", e);
+    }
+  }
+
+  private static Object invokeObjectMethod(Object proxy, Method method, Object[] args) {
+    switch (method.getName()) {
+      case "equals":
+        return proxy == args[0];
+      case "hashCode":
+        return System.identityHashCode(proxy);
+      case "toString":
+        return proxy.getClass().getName() + "@" + Integer.toHexString(System.identityHashCode(proxy));
+      default:
+        throw new UnsupportedOperationException(method.getName());
+    }
+  }
+
+  private static void invoke(Method method, Object target, Object... args) {
+    try {
+      method.invoke(target, args);
+    } catch (InvocationTargetException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      } else if (cause instanceof Error) {
+        throw (Error) cause;
+      }
+      throw new IllegalStateException(cause);
+    } catch (IllegalAccessException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  /**
+   * Mirror of {@code java.util.concurrent.Flow.Subscriber}.
+   *
+   * @param <T>
+   *          the item type
+   */
+  public interface Subscriber<T> {
+
+    void onSubscribe(Subscription subscription);
+
+    void onNext(T item);
+
+    void onError(Throwable throwable);
+
+    void onComplete();
+  }
+
+  /**
+   * Mirror of {@code java.util.concurrent.Flow.Subscription}.
+   */
+  public interface Subscription {
+
+    void request(long n);
+
+    void cancel();
+  }
+
+  private class CursorSubscription implements Subscription {
+
+    private final Subscriber<? super T> subscriber;
+    private final AtomicLong requested = new AtomicLong();
+    // starts at one so that requests made from onSubscribe are only drained once onSubscribe has returned
+    private final AtomicInteger wip = new AtomicInteger(1);
+    private volatile boolean cancelled;
+    private volatile Throwable invalidRequest;
+    private Iterator<T> iterator;
+    private boolean done;
+
+    CursorSubscription(Subscriber<? super T> subscriber) {
+      this.subscriber = subscriber;
+    }
+
+    @Override
+    public void request(long n) {
+      if (n <= 0) {
+        invalidRequest = new IllegalArgumentException("Requested " + n + " items, the demand must be positive.");
+      } else {
+        requested.getAndUpdate(current -> current + n < 0 ? Long.MAX_VALUE : current + n);
+      }
+      schedule();
+    }
+
+    @Override
+    public void cancel() {
+      cancelled = true;
+      schedule();
+    }
+
+    private void schedule() {
+      if (wip.getAndIncrement() == 0) {
+        executor.execute(this::drain);
+      }
+    }
+
+    /**
+     * Called once onSubscribe has returned, drains the demand signalled so far.
+     */
+    void start() {
+      if (wip.decrementAndGet() != 0) {
+        executor.execute(this::drain);
+      }
+    }
+
+    /**
+     * Runs on the executor. The wip counter guarantees a single drain at a time, which therefore owns the cursor.
+     */
+    private void drain() {
+      int missed = 1;
+      int emitted = 0;
+      while (true) {
+        if (done) {
+          return;
+        }
+        long demand = requested.get();
+        long delivered = 0;
+        while (delivered != demand) {
+          if (cancelled || invalidRequest != null) {
+            break;
+          }
+          if (emitted == batchSize) {
+            // let other tasks use this thread, the rest of the demand is served by a new drain
+            consume(demand, delivered);
+            executor.execute(this::drain);
+            return;
+          }
+          T item;
+          try {
+            if (iterator == null) {
+              iterator = cursor.iterator();
+            }
+            if (!iterator.hasNext()) {
+              terminate();
+              subscriber.onComplete();
+              return;
+            }
+            item = iterator.next();
+          } catch (RuntimeException e) {
+            terminate();
+            subscriber.onError(e);
+            return;
+          }
+          try {
+            subscriber.onNext(item);
+          } catch (RuntimeException e) {
+            // a subscriber must not throw, treat it as a cancellation
+            log.warn("Subscriber " + subscriber + " threw from onNext, cancelling the subscription: " + e);
+            terminate();
+            return;
+          }
+          delivered++;
+          emitted++;
+        }
+        if (cancelled) {
+          terminate();
+          return;
+        }
+        if (invalidRequest != null) {
+          terminate();
+          subscriber.onError(invalidRequest);
+          return;
+        }
+        consume(demand, delivered);
+        missed = wip.addAndGet(-missed);
+        if (missed == 0) {
+          return;
+        }
+      }
+    }
+
+    private void consume(long demand, long delivered) {
+      if (demand != Long.MAX_VALUE) {
+        requested.addAndGet(-delivered);
+      }
+    }
+
+    private void terminate() {
+      done = true;
+      try {
+        cursor.close();
+      } catch (IOException e) {
+        // ignore
+      }
+    }
+
+  }
+
+}
@@ -0,0 +1,231 @@
+/*
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cursor;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+import org.apache.ibatis.binding.MapperMethod.ParamMap;
+import org.apache.ibatis.executor.ExecutorException;
+import org.apache.ibatis.executor.pagination.Dialects;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.ParameterMapping;
+import org.apache.ibatis.reflection.ParamNameResolver;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.RowBounds;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+
+/**
+ * A {@link Cursor} that scans a statement page by page using keyset (seek) pagination.
+ * <p>
+ * Every page is read by a session opened by the given {@link SqlSessionFactory} and closed before the page is
+ * iterated, so a scan holds neither a connection nor a transaction between pages. The statement receives a map holding {@value #LAST_KEY}, the key of the
+ * last row of the previous page ({@code null} for the first page), and {@value #PAGE_SIZE}. A map parameter is merged
+ * into it; any other parameter is available as {@value #PARAMETER}. The statement must return the rows ordered by the
+ * key and only those after {@code lastKey}, for example:
+ *
+ * <pre>
+ * select * from users
+ * &lt;where&gt;
+ *   &lt;if test="lastKey != null"&gt;id &amp;gt; #{lastKey}&lt;/if&gt;
+ * &lt;/where&gt;
+ * order by id
+ * </pre>
+ *
+ * Each page is limited to {@code pageSize} rows with a {@link RowBounds}, which a
+ * {@link Configuration#getPaginationDialect() pagination dialect} turns into a {@code LIMIT} clause. Without a
+ * dialect, or for statements the dialect does not rewrite (callable statements, nested result maps and multiple
+ * result sets), the statement must limit itself with a bound {@code #{pageSize}}, e.g. {@code limit #{pageSize}};
+ * otherwise every page would read all the remaining rows, and the cursor is rejected when it is created.
+ *
+ * @param <T>
+ *          the item type
+ * @since 3.5.9
+ */
+public class KeysetCursor<T> implements Cursor<T> {
+
+  public static final String LAST_KEY = "lastKey";
+  public static final String PAGE_SIZE = "pageSize";
+  public static final String PARAMETER = "parameter";
+
+  private final SqlSessionFactory sqlSessionFactory;
+  private final Configuration configuration;
+  private final String statement;
+  private final Object parameter;
+  private final String keyProperty;
+  private final int pageSize;
+
+  private boolean iteratorRetrieved;
+  private boolean opened;
+  private boolean consumed;
+  private boolean closed;
+  private int currentIndex = -1;
+
+  /**
+   * @param sqlSessionFactory
+   *          the factory that opens a session per page
+   * @param statement
+   *          the statement id
+   * @param parameter
+   *          the statement parameter
+   * @param keyProperty
+   *          the property of the result objects holding the key, {@code null} if the result objects are the keys
+   * @param pageSize
+   *          the number of rows read per page
+   * @throws ExecutorException
+   *           if the pagination dialect does not apply to the statement and the statement does not bind
+   *           {@value #PAGE_SIZE}
+   */
+  public KeysetCursor(SqlSessionFactory sqlSessionFactory, String statement, Object parameter, String keyProperty, int pageSize) {
+    if (pageSize <= 0) {
+      throw new IllegalArgumentException("pageSize must be positive but was " + pageSize);
+    }
+    this.sqlSessionFactory = sqlSessionFactory;
+    this.configuration = sqlSessionFactory.getConfiguration();
+    this.statement = statement;
+    this.parameter = ParamNameResolver.wrapToMapIfCollection(parameter, null);
+    this.keyProperty = keyProperty;
+    this.pageSize = pageSize;
+    MappedStatement ms = configuration.getMappedStatement(statement);
+    if (!Dialects.appliesTo(configuration, ms) && !bindsPageSize(ms)) {
+      throw new ExecutorException("Keyset scan of '" + statement + "' needs a paginationDialect that applies to the"
+          + " statement or a statement that limits its rows with #{" + PAGE_SIZE + "}, otherwise every page reads all"
+          + " the remaining rows. The dialect does not apply to callable statements, nested result maps and multiple"
+          + " result sets.");
+    }
+  }
+
+  private boolean bindsPageSize(MappedStatement ms) {
+    for (ParameterMapping parameterMapping : ms.getBoundSql(pageParameter(null)).getParameterMappings()) {
+      if (PAGE_SIZE.equals(parameterMapping.getProperty())) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  @Override
+  public boolean isOpen() {
+    return opened && !consumed && !closed;
+  }
+
+  @Override
+  public boolean isConsumed() {
+    return consumed;
+  }
+
+  @Override
+  public int getCurrentIndex() {
+    return currentIndex;
+  }
+
+  @Override
+  public Iterator<T> iterator() {
+    if (iteratorRetrieved) {
+      throw new IllegalStateException("Cannot open more than one iterator on a Cursor");
+    }
+    if (closed) {
+      throw new IllegalStateException("A Cursor is already closed.");
+    }
+    iteratorRetrieved = true;
+    return new KeysetIterator();
+  }
+
+  @Override
+  public void close() {
+    closed = true;
+  }
+
+  private List<T> fetchPage(Object lastKey) {
+    opened = true;
+    try (SqlSession session = sqlSessionFactory.openSession()) {
+      return session.selectList(statement, pageParameter(lastKey), new RowBounds(0, pageSize));
+    }
+  }
+
+  private Map<String, Object> pageParameter(Object lastKey) {
+    Map<String, Object> pageParameter = new ParamMap<>();
+    if (parameter instanceof Map) {
+      @SuppressWarnings("unchecked")
+      Map<String, Object> map = (Map<String, Object>) parameter;
+      pageParameter.putAll(map);
+    } else {
+      pageParameter.put(PARAMETER, parameter);
+    }
+    pageParameter.put(LAST_KEY, lastKey);
+    pageParameter.put(PAGE_SIZE, pageSize);
+    return pageParameter;
+  }
+
+  private Object keyOf(T row) {
+    if (keyProperty == null) {
+      return row;
+    }
+    return configuration.newMetaObject(row).getValue(keyProperty);
+  }
+
+  private class KeysetIterator implements Iterator<T> {
+
+    private Iterator<T> page = Collections.emptyIterator();
+    private boolean lastPage;
+    private Object lastKey;
+    private T last;
+
+    @Override
+    public boolean hasNext() {
+      if (closed) {
+        return false;
+      }
+      if (!page.hasNext() && !lastPage) {
+        if (last != null) {
+          lastKey = keyOf(last);
+          if (lastKey == null) {
+            throw new ExecutorException("Keyset scan of '" + statement + "' read a null key from the last row of a page.");
+          }
+        }
+        List<T> rows = fetchPage(lastKey);
+        lastPage = rows.size() < pageSize;
+        page = rows.iterator();
+      }
+      if (!page.hasNext()) {
+        consumed = true;
+        return false;
+      }
+      return true;
+    }
+
+    @Override
+    public T next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      last = page.next();
+      currentIndex++;
+      return last;
+    }
+
+    @Override
+    public void remove() {
+      throw new UnsupportedOperationException("Cannot remove element from Cursor");
+    }
+
+  }
+
+}
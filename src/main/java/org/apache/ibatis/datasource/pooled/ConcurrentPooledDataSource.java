@@ -0,0 +1,458 @@
+/*
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.datasource.pooled;
+
+import java.lang.ref.WeakReference;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.apache.ibatis.datasource.unpooled.UnpooledDataSource;
+import org.apache.ibatis.logging.Log;
+import org.apache.ibatis.logging.LogFactory;
+
+/**
+ * A thread-safe connection pool that never serializes checkouts and returns on a shared monitor.
+ * <p>
+ * Every physical connection lives in a pool entry whose state is switched with a CAS. A borrowing thread first
+ * tries the entries it returned itself (thread-local affinity), then scans the shared entries, then opens a new
+ * connection if {@code poolMaximumActiveConnections} allows it, then claims an overdue connection, and only then
+ * parks on a hand-off queue that returning threads feed directly. Statistics are kept in a
+ * {@link ConcurrentPoolState}.
+ * <p>
+ * The configuration properties and their semantics are the same as those of {@link PooledDataSource}.
+ */
+public class ConcurrentPooledDataSource extends PooledDataSource {
+
+  private static final Log log = LogFactory.getLog(ConcurrentPooledDataSource.class);
+
+  private static final int STATE_NOT_IN_USE = 0;
+  private static final int STATE_IN_USE = 1;
+  private static final int STATE_REMOVED = -1;
+
+  private static final int MAX_THREAD_LOCAL_ENTRIES = 16;
+
+  private final ConcurrentPoolState concurrentState = new ConcurrentPoolState(this);
+
+  private final List<PoolEntry> entries = new CopyOnWriteArrayList<>();
+  private final ThreadLocal<List<WeakReference<PoolEntry>>> threadEntries = ThreadLocal.withInitial(ArrayList::new);
+  private final SynchronousQueue<PoolEntry> handoffQueue = new SynchronousQueue<>(true);
+  private final AtomicInteger totalCount = new AtomicInteger();
+  private final AtomicInteger idleCount = new AtomicInteger();
+  private final AtomicInteger waiters = new AtomicInteger();
+
+  private volatile int expectedConnectionTypeCode;
+
+  public ConcurrentPooledDataSource() {
+    super();
+  }
+
+  public ConcurrentPooledDataSource(UnpooledDataSource dataSource) {
+    super(dataSource);
+  }
+
+  public ConcurrentPooledDataSource(String driver, String url, String username, String password) {
+    super(driver, url, username, password);
+    expectedConnectionTypeCode = assembleConnectionTypeCode(dataSource.getUrl(), dataSource.getUsername(), dataSource.getPassword());
+  }
+
+  public ConcurrentPooledDataSource(String driver, String url, Properties driverProperties) {
+    super(driver, url, driverProperties);
+    expectedConnectionTypeCode = assembleConnectionTypeCode(dataSource.getUrl(), dataSource.getUsername(), dataSource.getPassword());
+  }
+
+  public ConcurrentPooledDataSource(ClassLoader driverClassLoader, String driver, String url, String username, String password) {
+    super(driverClassLoader, driver, url, username, password);
+    expectedConnectionTypeCode = assembleConnectionTypeCode(dataSource.getUrl(), dataSource.getUsername(), dataSource.getPassword());
+  }
+
+  public ConcurrentPooledDataSource(ClassLoader driverClassLoader, String driver, String url, Properties driverProperties) {
+    super(driverClassLoader, driver, url, driverProperties);
+    expectedConnectionTypeCode = assembleConnectionTypeCode(dataSource.getUrl(), dataSource.getUsername(), dataSource.getPassword());
+  }
+
+  @Override
+  public Connection getConnection() throws SQLException {
+    return popConnection(dataSource.getUsername(), dataSource.getPassword()).getProxyConnection();
+  }
+
+  @Override
+  public Connection getConnection(String username, String password) throws SQLException {
+    return popConnection(username, password).getProxyConnection();
+  }
+
+  /**
+   * Closes all active and idle connections in the pool.
+   */
+  @Override
+  public void forceCloseAll() {
+    expectedConnectionTypeCode = assembleConnectionTypeCode(dataSource.getUrl(), dataSource.getUsername(), dataSource.getPassword());
+    for (PoolEntry entry : entries) {
+      PooledConnection owner = entry.owner.getAndSet(null);
+      if (owner != null) {
+        owner.invalidate();
+        getPoolMetrics().cancelLeakDetection(owner);
+      }
+      removeEntry(entry);
+    }
+    if (log.isDebugEnabled()) {
+      log.debug("ConcurrentPooledDataSource forcefully closed/removed all connections.");
+    }
+  }
+
+  @Override
+  public PoolState getPoolState() {
+    return concurrentState;
+  }
+
+  @Override
+  protected int countActiveConnections() {
+    return totalCount.get() - idleCount.get();
+  }
+
+  @Override
+  protected int countIdleConnections() {
+    return idleCount.get();
+  }
+
+  int getIdleCount() {
+    return idleCount.get();
+  }
+
+  int getTotalCount() {
+    return totalCount.get();
+  }
+
+  @Override
+  protected void pushConnection(PooledConnection conn) throws SQLException {
+    PoolEntry entry = ((EntryConnection) conn).entry;
+    if (!conn.isValid() || !entry.owner.compareAndSet(conn, null)) {
+      getPoolMetrics().cancelLeakDetection(conn);
+      if (log.isDebugEnabled()) {
+        log.debug("A bad connection (" + conn.getRealHashCode() + ") attempted to return to the pool, discarding connection.");
+      }
+      concurrentState.badConnectionCounter.increment();
+      if (entry.owner.compareAndSet(conn, null)) {
+        removeEntry(entry);
+      }
+      return;
+    }
+    concurrentState.accumulatedCheckoutTimeCounter.add(conn.getCheckoutTime());
+    getPoolMetrics().recordReturn(conn);
+    conn.invalidate();
+    Connection realConn = entry.realConnection;
+    try {
+      if (!realConn.getAutoCommit()) {
+        realConn.rollback();
+      }
+    } catch (SQLException e) {
+      removeEntry(entry);
+      throw e;
+    }
+    entry.lastUsedTimestamp = conn.getLastUsedTimestamp();
+    if (conn.getConnectionTypeCode() != expectedConnectionTypeCode
+        || (waiters.get() == 0 && idleCount.get() >= poolMaximumIdleConnections)) {
+      removeEntry(entry);
+      if (log.isDebugEnabled()) {
+        log.debug("Closed connection " + conn.getRealHashCode() + ".");
+      }
+      return;
+    }
+    release(entry);
+    if (log.isDebugEnabled()) {
+      log.debug("Returned connection " + conn.getRealHashCode() + " to pool.");
+    }
+    List<WeakReference<PoolEntry>> localEntries = threadEntries.get();
+    if (localEntries.size() < MAX_THREAD_LOCAL_ENTRIES) {
+      localEntries.add(new WeakReference<>(entry));
+    }
+  }
+
+  @Override
+  protected void housekeep() {
+    for (PoolEntry entry : entries) {
+      if (!reserve(entry)) {
+        continue;
+      }
+      if (isEvictable(entry.createdTimestamp, entry.lastUsedTimestamp, idleCount.get() >= poolMinimumIdleConnections)) {
+        removeEntry(entry);
+        if (log.isDebugEnabled()) {
+          log.debug("Evicted idle connection " + entry.realConnection.hashCode() + ".");
+        }
+      } else if (isPingDue(entry.lastUsedTimestamp) && !executePingQuery(wrap(entry))) {
+        concurrentState.badConnectionCounter.increment();
+        removeEntry(entry);
+      } else {
+        release(entry);
+      }
+    }
+    int minimumIdle = Math.min(poolMinimumIdleConnections, poolMaximumIdleConnections);
+    while (idleCount.get() < minimumIdle) {
+      PoolEntry entry;
+      try {
+        entry = createEntry();
+      } catch (SQLException e) {
+        log.warn("Could not open an idle connection: " + e.getMessage());
+        return;
+      }
+      if (entry == null) {
+        return;
+      }
+      release(entry);
+    }
+  }
+
+  private void release(PoolEntry entry) {
+    entry.state.set(STATE_NOT_IN_USE);
+    idleCount.incrementAndGet();
+    while (waiters.get() > 0) {
+      if (entry.state.get() != STATE_NOT_IN_USE || handoffQueue.offer(entry)) {
+        break;
+      }
+      Thread.yield();
+    }
+  }
+
+  private PooledConnection popConnection(String username, String password) throws SQLException {
+    boolean countedWait = false;
+    long t = System.currentTimeMillis();
+    long requestStart = System.nanoTime();
+    int localBadConnectionCount = 0;
+
+    while (true) {
+      PoolEntry entry = reserveIdleEntry();
+      if (entry == null) {
+        entry = createEntry();
+      }
+      if (entry == null) {
+        entry = claimOverdueEntry();
+      }
+      if (entry == null) {
+        if (!countedWait) {
+          concurrentState.hadToWaitCounter.increment();
+          countedWait = true;
+        }
+        if (log.isDebugEnabled()) {
+          log.debug("Waiting as long as " + poolTimeToWait + " milliseconds for connection.");
+        }
+        long wt = System.currentTimeMillis();
+        long waitStart = System.nanoTime();
+        boolean reserved;
+        waiters.incrementAndGet();
+        try {
+          // scan once more after registering: a connection released before that did not see this waiter
+          entry = reserveIdleEntry();
+          reserved = entry != null;
+          if (!reserved) {
+            entry = handoffQueue.poll(poolTimeToWait, TimeUnit.MILLISECONDS);
+          }
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          throw new SQLException("ConcurrentPooledDataSource: Interrupted while waiting for a connection.", e);
+        } finally {
+          waiters.decrementAndGet();
+        }
+        getPoolMetrics().recordWait(System.nanoTime() - waitStart);
+        concurrentState.accumulatedWaitTimeCounter.add(System.currentTimeMillis() - wt);
+        if (!reserved && (entry == null || !reserve(entry))) {
+          continue;
+        }
+      }
+
+      PooledConnection conn = wrap(entry);
+      // ping to server and check the connection is valid or not
+      if (conn.isValid()) {
+        try {
+          if (!conn.getRealConnection().getAutoCommit()) {
+            conn.getRealConnection().rollback();
+          }
+        } catch (SQLException | RuntimeException e) {
+          // the entry is reserved but not published yet, nobody else would ever release it
+          removeEntry(entry);
+          throw e;
+        }
+        conn.setConnectionTypeCode(assembleConnectionTypeCode(dataSource.getUrl(), username, password));
+        conn.setCheckoutTimestamp(System.currentTimeMillis());
+        conn.setLastUsedTimestamp(System.currentTimeMillis());
+        getPoolMetrics().recordCheckout(conn, System.nanoTime() - requestStart);
+        // publish only once the checkout timestamp is set, or it would look overdue to other threads
+        entry.owner.set(conn);
+        concurrentState.requestCounter.increment();
+        concurrentState.accumulatedRequestTimeCounter.add(System.currentTimeMillis() - t);
+        return conn;
+      }
+      if (log.isDebugEnabled()) {
+        log.debug("A bad connection (" + conn.getRealHashCode() + ") was returned from the pool, getting another connection.");
+      }
+      concurrentState.badConnectionCounter.increment();
+      localBadConnectionCount++;
+      removeEntry(entry);
+      if (localBadConnectionCount > (poolMaximumIdleConnections + poolMaximumLocalBadConnectionTolerance)) {
+        if (log.isDebugEnabled()) {
+          log.debug("ConcurrentPooledDataSource: Could not get a good connection to the database.");
+        }
+        throw new SQLException("ConcurrentPooledDataSource: Could not get a good connection to the database.");
+      }
+    }
+  }
+
+  private PoolEntry reserveIdleEntry() {
+    List<WeakReference<PoolEntry>> localEntries = threadEntries.get();
+    for (int i = localEntries.size() - 1; i >= 0; i--) {
+      PoolEntry entry = localEntries.remove(i).get();
+      if (entry != null && reserve(entry)) {
+        if (log.isDebugEnabled()) {
+          log.debug("Checked out connection " + entry.realConnection.hashCode() + " from pool.");
+        }
+        return entry;
+      }
+    }
+    for (PoolEntry entry : entries) {
+      if (reserve(entry)) {
+        if (log.isDebugEnabled()) {
+          log.debug("Checked out connection " + entry.realConnection.hashCode() + " from pool.");
+        }
+        return entry;
+      }
+    }
+    return null;
+  }
+
+  private boolean reserve(PoolEntry entry) {
+    if (entry.state.compareAndSet(STATE_NOT_IN_USE, STATE_IN_USE)) {
+      idleCount.decrementAndGet();
+      return true;
+    }
+    return false;
+  }
+
+  private PoolEntry createEntry() throws SQLException {
+    int total;
+    while ((total = totalCount.get()) < poolMaximumActiveConnections) {
+      if (totalCount.compareAndSet(total, total + 1)) {
+        Connection realConn;
+        try {
+          realConn = dataSource.getConnection();
+        } catch (SQLException | RuntimeException e) {
+          totalCount.decrementAndGet();
+          throw e;
+        }
+        PoolEntry entry = new PoolEntry(realConn);
+        entries.add(entry);
+        if (log.isDebugEnabled()) {
+          log.debug("Created connection " + realConn.hashCode() + ".");
+        }
+        return entry;
+      }
+    }
+    return null;
+  }
+
+  private PoolEntry claimOverdueEntry() {
+    for (PoolEntry entry : entries) {
+      PooledConnection owner = entry.owner.get();
+      if (owner == null || entry.state.get() != STATE_IN_USE) {
+        continue;
+      }
+      long checkoutTime = owner.getCheckoutTime();
+      if (checkoutTime > poolMaximumCheckoutTime && entry.owner.compareAndSet(owner, null)) {
+        // Can claim overdue connection
+        concurrentState.claimedOverdueConnectionCounter.increment();
+        concurrentState.accumulatedCheckoutTimeOfOverdueConnectionsCounter.add(checkoutTime);
+        concurrentState.accumulatedCheckoutTimeCounter.add(checkoutTime);
+        getPoolMetrics().recordReturn(owner);
+        owner.invalidate();
+        try {
+          if (!entry.realConnection.getAutoCommit()) {
+            entry.realConnection.rollback();
+          }
+        } catch (SQLException e) {
+          // the bad connection is discarded by the validity check of the caller
+          log.debug("Bad connection. Could not roll back");
+        }
+        if (log.isDebugEnabled()) {
+          log.debug("Claimed overdue connection " + entry.realConnection.hashCode() + ".");
+        }
+        return entry;
+      }
+    }
+    return null;
+  }
+
+  private PooledConnection wrap(PoolEntry entry) {
+    EntryConnection conn = new EntryConnection(entry, this);
+    conn.setCreatedTimestamp(entry.createdTimestamp);
+    conn.setLastUsedTimestamp(entry.lastUsedTimestamp);
+    return conn;
+  }
+
+  private void removeEntry(PoolEntry entry) {
+    int previousState = entry.state.getAndSet(STATE_REMOVED);
+    if (previousState == STATE_REMOVED) {
+      return;
+    }
+    if (previousState == STATE_NOT_IN_USE) {
+      idleCount.decrementAndGet();
+    }
+    if (entries.remove(entry)) {
+      totalCount.decrementAndGet();
+    }
+    try {
+      Connection realConn = entry.realConnection;
+      if (!realConn.getAutoCommit()) {
+        realConn.rollback();
+      }
+      realConn.close();
+    } catch (Exception e) {
+      // ignore
+    }
+  }
+
+  private static final class PoolEntry {
+
+    private final Connection realConnection;
+    private final AtomicInteger state = new AtomicInteger(STATE_IN_USE);
+    private final AtomicReference<PooledConnection> owner = new AtomicReference<>();
+    private final long createdTimestamp;
+    private volatile long lastUsedTimestamp;
+
+    PoolEntry(Connection realConnection) {
+      this.realConnection = realConnection;
+      this.createdTimestamp = System.currentTimeMillis();
+      this.lastUsedTimestamp = createdTimestamp;
+    }
+
+  }
+
+  private static final class EntryConnection extends PooledConnection {
+
+    private final PoolEntry entry;
+
+    EntryConnection(PoolEntry entry, ConcurrentPooledDataSource dataSource) {
+      super(entry.realConnection, dataSource);
+      this.entry = entry;
+    }
+
+  }
+
+}
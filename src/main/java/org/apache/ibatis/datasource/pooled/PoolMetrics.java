@@ -0,0 +1,216 @@
+/*
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.datasource.pooled;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntSupplier;
+
+import org.apache.ibatis.logging.Log;
+import org.apache.ibatis.logging.LogFactory;
+
+/**
+ * Runtime metrics of a pooled data source that can be read at any time without touching the pool lock.
+ * <ul>
+ * <li>{@link #getRequestTime()}: how long {@code getConnection()} took, waiting included</li>
+ * <li>{@link #getWaitTime()}: how long threads were parked waiting for a connection to be returned</li>
+ * <li>{@link #getHoldTime()}: how long connections were checked out before being returned or claimed</li>
+ * <li>{@link #getActiveConnections()} and {@link #getIdleConnections()}: current pool occupancy</li>
+ * </ul>
+ * When a leak detection threshold is set, the stack of every checkout is captured and a warning is logged for each
+ * connection that is still checked out once the threshold has elapsed; such connections are listed by
+ * {@link #getSuspectedLeaks()} until they are returned.
+ */
+public class PoolMetrics {
+
+  private static final Log log = LogFactory.getLog(PoolMetrics.class);
+
+  private final LatencyHistogram requestTime = new LatencyHistogram();
+  private final LatencyHistogram waitTime = new LatencyHistogram();
+  private final LatencyHistogram holdTime = new LatencyHistogram();
+  private final LongAdder leakCount = new LongAdder();
+  private final Map<PooledConnection, SuspectedLeak> suspectedLeaks = new ConcurrentHashMap<>();
+  private final IntSupplier activeConnections;
+  private final IntSupplier idleConnections;
+
+  private volatile long leakDetectionThreshold;
+
+  public PoolMetrics(IntSupplier activeConnections, IntSupplier idleConnections) {
+    this.activeConnections = activeConnections;
+    this.idleConnections = idleConnections;
+  }
+
+  public LatencyHistogram getRequestTime() {
+    return requestTime;
+  }
+
+  public LatencyHistogram getWaitTime() {
+    return waitTime;
+  }
+
+  public LatencyHistogram getHoldTime() {
+    return holdTime;
+  }
+
+  public int getActiveConnections() {
+    return activeConnections.getAsInt();
+  }
+
+  public int getIdleConnections() {
+    return idleConnections.getAsInt();
+  }
+
+  /**
+   * Gets the number of checkouts that outlived the leak detection threshold.
+   *
+   * @return the number of suspected leaks reported so far
+   */
+  public long getLeakCount() {
+    return leakCount.sum();
+  }
+
+  /**
+   * Gets the connections that are currently checked out for longer than the leak detection threshold.
+   *
+   * @return the suspected leaks, with the stack of the code that checked them out
+   */
+  public Collection<SuspectedLeak> getSuspectedLeaks() {
+    return Collections.unmodifiableList(new ArrayList<>(suspectedLeaks.values()));
+  }
+
+  public long getLeakDetectionThreshold() {
+    return leakDetectionThreshold;
+  }
+
+  void setLeakDetectionThreshold(long milliseconds) {
+    this.leakDetectionThreshold = milliseconds;
+  }
+
+  void recordWait(long nanos) {
+    waitTime.record(nanos, TimeUnit.NANOSECONDS);
+  }
+
+  void recordCheckout(PooledConnection conn, long requestNanos) {
+    requestTime.record(requestNanos, TimeUnit.NANOSECONDS);
+    long threshold = leakDetectionThreshold;
+    if (threshold > 0) {
+      SuspectedLeak leak = new SuspectedLeak(conn.getRealHashCode(), Thread.currentThread().getName(),
+          System.currentTimeMillis(), new Throwable("Connection checked out here"));
+      conn.setLeakTask(LeakDetector.SCHEDULER.schedule(() -> reportLeak(conn, leak), threshold, TimeUnit.MILLISECONDS));
+    }
+  }
+
+  void recordReturn(PooledConnection conn) {
+    holdTime.record(conn.getCheckoutTime(), TimeUnit.MILLISECONDS);
+    cancelLeakDetection(conn);
+  }
+
+  void cancelLeakDetection(PooledConnection conn) {
+    ScheduledFuture<?> leakTask = conn.getLeakTask();
+    if (leakTask != null) {
+      // clear the task before removing the leak, reportLeak checks it again after publishing
+      conn.setLeakTask(null);
+      leakTask.cancel(false);
+      if (suspectedLeaks.remove(conn) != null && log.isDebugEnabled()) {
+        log.debug("Previously reported leaked connection " + conn.getRealHashCode() + " was returned.");
+      }
+    }
+  }
+
+  private void reportLeak(PooledConnection conn, SuspectedLeak leak) {
+    if (conn.getLeakTask() == null) {
+      return;
+    }
+    suspectedLeaks.put(conn, leak);
+    if (conn.getLeakTask() == null) {
+      // returned while the leak was being published
+      suspectedLeaks.remove(conn, leak);
+      return;
+    }
+    leakCount.increment();
+    StringWriter stack = new StringWriter();
+    leak.getCheckoutStack().printStackTrace(new PrintWriter(stack));
+    log.warn("Connection leak detection triggered for connection " + leak.getConnectionHashCode()
+        + ", checked out by thread " + leak.getThreadName() + " more than " + leakDetectionThreshold
+        + " milliseconds ago: " + stack);
+  }
+
+  @Override
+  public String toString() {
+    return "active=" + getActiveConnections() + ", idle=" + getIdleConnections() + ", requestTime=[" + requestTime
+        + "], waitTime=[" + waitTime + "], holdTime=[" + holdTime + "], leaks=" + getLeakCount();
+  }
+
+  /**
+   * A checkout that outlived the leak detection threshold.
+   */
+  public static class SuspectedLeak {
+
+    private final int connectionHashCode;
+    private final String threadName;
+    private final long checkoutTimestamp;
+    private final Throwable checkoutStack;
+
+    SuspectedLeak(int connectionHashCode, String threadName, long checkoutTimestamp, Throwable checkoutStack) {
+      this.connectionHashCode = connectionHashCode;
+      this.threadName = threadName;
+      this.checkoutTimestamp = checkoutTimestamp;
+      this.checkoutStack = checkoutStack;
+    }
+
+    public int getConnectionHashCode() {
+      return connectionHashCode;
+    }
+
+    public String getThreadName() {
+      return threadName;
+    }
+
+    public long getCheckoutTimestamp() {
+      return checkoutTimestamp;
+    }
+
+    public Throwable getCheckoutStack() {
+      return checkoutStack;
+    }
+
+  }
+
+  private static class LeakDetector {
+
+    private static final ScheduledThreadPoolExecutor SCHEDULER = new ScheduledThreadPoolExecutor(1, runnable -> {
+      Thread thread = new Thread(runnable, "mybatis-pool-leak-detector");
+      thread.setDaemon(true);
+      return thread;
+    });
+
+    static {
+      // connections are usually returned long before the threshold, do not keep their cancelled checks around
+      SCHEDULER.setRemoveOnCancelPolicy(true);
+    }
+
+  }
+
+}
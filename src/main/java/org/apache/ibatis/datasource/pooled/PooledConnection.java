@@ -20,6 +20,7 @@ import java.lang.reflect.Method;
 import java.lang.reflect.Proxy;
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.util.concurrent.ScheduledFuture;
 
 import org.apache.ibatis.reflection.ExceptionUtil;
 
@@ -44,6 +45,7 @@ class PooledConnection implements InvocationHandler {
     private long lastUsedTimestamp;
     private int connectionTypeCode;
     private boolean valid;
+    private volatile ScheduledFuture<?> leakTask;
 
     /**
      * Constructor for SimplePooledConnection that uses the Connection and PooledDataSource passed in.
@@ -203,6 +205,24 @@ class PooledConnection implements InvocationHandler {
         return System.currentTimeMillis() - checkoutTimestamp;
     }
 
+    /**
+     * Getter for the pending leak detection check of the current checkout.
+     *
+     * @return the scheduled check, or null if leak detection is disabled
+     */
+    ScheduledFuture<?> getLeakTask() {
+        return leakTask;
+    }
+
+    /**
+     * Setter for the pending leak detection check of the current checkout.
+     *
+     * @param leakTask the scheduled check
+     */
+    void setLeakTask(ScheduledFuture<?> leakTask) {
+        this.leakTask = leakTask;
+    }
+
     @Override
     public int hashCode() {
         return hashCode;
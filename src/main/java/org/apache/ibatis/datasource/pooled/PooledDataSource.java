@@ -16,13 +16,22 @@
 package org.apache.ibatis.datasource.pooled;
 
 import java.io.PrintWriter;
+import java.lang.ref.WeakReference;
 import java.lang.reflect.InvocationHandler;
 import java.lang.reflect.Proxy;
 import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Properties;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.logging.Logger;
 
 import javax.sql.DataSource;
@@ -41,8 +50,15 @@ public class PooledDataSource implements DataSource {
   private static final Log log = LogFactory.getLog(PooledDataSource.class);
 
   private final PoolState state = new PoolState(this);
+  // guards state; a lock instead of a monitor so that virtual threads waiting for a connection do not pin their carrier
+  private final ReentrantLock lock = state.lock;
+  private final Condition condition = lock.newCondition();
 
-  private final UnpooledDataSource dataSource;
+  private final PoolMetrics metrics = new PoolMetrics(this::countActiveConnections, this::countIdleConnections);
+  private volatile int activeConnectionCount;
+  private volatile int idleConnectionCount;
+
+  protected final UnpooledDataSource dataSource;
 
   // OPTIONAL CONFIGURATION FIELDS
   protected int poolMaximumActiveConnections = 10;
@@ -53,9 +69,16 @@ public class PooledDataSource implements DataSource {
   protected String poolPingQuery = "NO PING QUERY SET";
   protected boolean poolPingEnabled;
   protected int poolPingConnectionsNotUsedFor;
+  protected int poolHousekeepingPeriod;
+  protected int poolMaximumLifetime;
+  protected int poolMaximumIdleTime;
+  protected int poolMinimumIdleConnections;
 
   private int expectedConnectionTypeCode;
 
+  private final ReentrantLock housekeeperLock = new ReentrantLock();
+  private ScheduledExecutorService housekeeper;
+
   public PooledDataSource() {
     dataSource = new UnpooledDataSource();
   }
@@ -254,6 +277,71 @@ public class PooledDataSource implements DataSource {
     forceCloseAll();
   }
 
+  /**
+   * How often, in milliseconds, idle connections are validated, evicted and topped up in the background. When
+   * enabled, the ping query is no longer run on checkout or return; idle connections that have not been used for
+   * {@code poolPingConnectionsNotUsedFor} milliseconds are pinged by the housekeeper instead.
+   *
+   * @param milliseconds
+   *          the housekeeping period, 0 (the default) disables housekeeping
+   * @since 3.5.9
+   */
+  public void setPoolHousekeepingPeriod(int milliseconds) {
+    this.poolHousekeepingPeriod = milliseconds;
+    forceCloseAll();
+    scheduleHousekeeping();
+  }
+
+  /**
+   * The maximum time a connection may live. Idle connections older than this are closed by the housekeeper.
+   *
+   * @param milliseconds
+   *          the maximum lifetime, 0 (the default) means unlimited
+   * @since 3.5.9
+   */
+  public void setPoolMaximumLifetime(int milliseconds) {
+    this.poolMaximumLifetime = milliseconds;
+    forceCloseAll();
+  }
+
+  /**
+   * The maximum time a connection may stay idle. Connections idle for longer are closed by the housekeeper, as long
+   * as at least {@code poolMinimumIdleConnections} idle connections remain.
+   *
+   * @param milliseconds
+   *          the maximum idle time, 0 (the default) means unlimited
+   * @since 3.5.9
+   */
+  public void setPoolMaximumIdleTime(int milliseconds) {
+    this.poolMaximumIdleTime = milliseconds;
+    forceCloseAll();
+  }
+
+  /**
+   * The number of idle connections the housekeeper tries to keep open, bounded by
+   * {@code poolMaximumIdleConnections} and {@code poolMaximumActiveConnections}.
+   *
+   * @param poolMinimumIdleConnections
+   *          the minimum number of idle connections
+   * @since 3.5.9
+   */
+  public void setPoolMinimumIdleConnections(int poolMinimumIdleConnections) {
+    this.poolMinimumIdleConnections = poolMinimumIdleConnections;
+    forceCloseAll();
+  }
+
+  /**
+   * Connections checked out for longer than this are reported as suspected leaks, together with the stack of the
+   * code that checked them out. See {@link PoolMetrics#getSuspectedLeaks()}.
+   *
+   * @param milliseconds
+   *          the leak detection threshold, 0 (the default) disables leak detection
+   * @since 3.5.9
+   */
+  public void setPoolLeakDetectionThreshold(int milliseconds) {
+    metrics.setLeakDetectionThreshold(milliseconds);
+  }
+
   public String getDriver() {
     return dataSource.getDriver();
   }
@@ -324,16 +412,38 @@ public class PooledDataSource implements DataSource {
     return poolPingConnectionsNotUsedFor;
   }
 
+  public int getPoolHousekeepingPeriod() {
+    return poolHousekeepingPeriod;
+  }
+
+  public int getPoolMaximumLifetime() {
+    return poolMaximumLifetime;
+  }
+
+  public int getPoolMaximumIdleTime() {
+    return poolMaximumIdleTime;
+  }
+
+  public int getPoolMinimumIdleConnections() {
+    return poolMinimumIdleConnections;
+  }
+
+  public int getPoolLeakDetectionThreshold() {
+    return (int) metrics.getLeakDetectionThreshold();
+  }
+
   /**
    * Closes all active and idle connections in the pool.
    */
   public void forceCloseAll() {
-    synchronized (state) {
+    lock.lock();
+    try {
       expectedConnectionTypeCode = assembleConnectionTypeCode(dataSource.getUrl(), dataSource.getUsername(), dataSource.getPassword());
       for (int i = state.activeConnections.size(); i > 0; i--) {
         try {
           PooledConnection conn = state.activeConnections.remove(i - 1);
           conn.invalidate();
+          metrics.cancelLeakDetection(conn);
 
           Connection realConn = conn.getRealConnection();
           if (!realConn.getAutoCommit()) {
@@ -358,6 +468,9 @@ public class PooledDataSource implements DataSource {
           // ignore
         }
       }
+      updateGauges();
+    } finally {
+      lock.unlock();
     }
     if (log.isDebugEnabled()) {
       log.debug("PooledDataSource forcefully closed/removed all connections.");
@@ -368,15 +481,43 @@ public class PooledDataSource implements DataSource {
     return state;
   }
 
-  private int assembleConnectionTypeCode(String url, String username, String password) {
+  /**
+   * Gets the runtime metrics of this pool. They can be read at any time without contending with checkouts.
+   *
+   * @return the pool metrics
+   * @since 3.5.9
+   */
+  public PoolMetrics getPoolMetrics() {
+    return metrics;
+  }
+
+  protected int countActiveConnections() {
+    return activeConnectionCount;
+  }
+
+  protected int countIdleConnections() {
+    return idleConnectionCount;
+  }
+
+  /**
+   * Publishes the pool occupancy to {@link PoolMetrics}. Must be called holding the pool lock.
+   */
+  private void updateGauges() {
+    activeConnectionCount = state.activeConnections.size();
+    idleConnectionCount = state.idleConnections.size();
+  }
+
+  protected int assembleConnectionTypeCode(String url, String username, String password) {
     return ("" + url + username + password).hashCode();
   }
 
   protected void pushConnection(PooledConnection conn) throws SQLException {
 
-    synchronized (state) {
+    lock.lock();
+    try {
       state.activeConnections.remove(conn);
       if (conn.isValid()) {
+        metrics.recordReturn(conn);
         if (state.idleConnections.size() < poolMaximumIdleConnections && conn.getConnectionTypeCode() == expectedConnectionTypeCode) {
           state.accumulatedCheckoutTime += conn.getCheckoutTime();
           if (!conn.getRealConnection().getAutoCommit()) {
@@ -390,7 +531,7 @@ public class PooledDataSource implements DataSource {
           if (log.isDebugEnabled()) {
             log.debug("Returned connection " + newConn.getRealHashCode() + " to pool.");
           }
-          state.notifyAll();
+          condition.signalAll();
         } else {
           state.accumulatedCheckoutTime += conn.getCheckoutTime();
           if (!conn.getRealConnection().getAutoCommit()) {
@@ -403,11 +544,15 @@ public class PooledDataSource implements DataSource {
           conn.invalidate();
         }
       } else {
+        metrics.cancelLeakDetection(conn);
         if (log.isDebugEnabled()) {
           log.debug("A bad connection (" + conn.getRealHashCode() + ") attempted to return to the pool, discarding connection.");
         }
         state.badConnectionCount++;
       }
+      updateGauges();
+    } finally {
+      lock.unlock();
     }
   }
 
@@ -415,10 +560,12 @@ public class PooledDataSource implements DataSource {
     boolean countedWait = false;
     PooledConnection conn = null;
     long t = System.currentTimeMillis();
+    long requestStart = System.nanoTime();
     int localBadConnectionCount = 0;
 
     while (conn == null) {
-      synchronized (state) {
+      lock.lock();
+      try {
         if (!state.idleConnections.isEmpty()) {
           // Pool has available connection
           conn = state.idleConnections.remove(0);
@@ -443,6 +590,7 @@ public class PooledDataSource implements DataSource {
               state.accumulatedCheckoutTimeOfOverdueConnections += longestCheckoutTime;
               state.accumulatedCheckoutTime += longestCheckoutTime;
               state.activeConnections.remove(oldestActiveConnection);
+              metrics.recordReturn(oldestActiveConnection);
               if (!oldestActiveConnection.getRealConnection().getAutoCommit()) {
                 try {
                   oldestActiveConnection.getRealConnection().rollback();
@@ -476,7 +624,13 @@ public class PooledDataSource implements DataSource {
                   log.debug("Waiting as long as " + poolTimeToWait + " milliseconds for connection.");
                 }
                 long wt = System.currentTimeMillis();
-                state.wait(poolTimeToWait);
+                long waitStart = System.nanoTime();
+                if (poolTimeToWait > 0) {
+                  condition.await(poolTimeToWait, TimeUnit.MILLISECONDS);
+                } else {
+                  condition.await();
+                }
+                metrics.recordWait(System.nanoTime() - waitStart);
                 state.accumulatedWaitTime += System.currentTimeMillis() - wt;
               } catch (InterruptedException e) {
                 break;
@@ -496,6 +650,7 @@ public class PooledDataSource implements DataSource {
             state.activeConnections.add(conn);
             state.requestCount++;
             state.accumulatedRequestTime += System.currentTimeMillis() - t;
+            metrics.recordCheckout(conn, System.nanoTime() - requestStart);
           } else {
             if (log.isDebugEnabled()) {
               log.debug("A bad connection (" + conn.getRealHashCode() + ") was returned from the pool, getting another connection.");
@@ -504,6 +659,7 @@ public class PooledDataSource implements DataSource {
             localBadConnectionCount++;
             conn = null;
             if (localBadConnectionCount > (poolMaximumIdleConnections + poolMaximumLocalBadConnectionTolerance)) {
+              updateGauges();
               if (log.isDebugEnabled()) {
                 log.debug("PooledDataSource: Could not get a good connection to the database.");
               }
@@ -511,6 +667,9 @@ public class PooledDataSource implements DataSource {
             }
           }
         }
+        updateGauges();
+      } finally {
+        lock.unlock();
       }
 
     }
@@ -544,37 +703,201 @@ public class PooledDataSource implements DataSource {
       result = false;
     }
 
-    if (result && poolPingEnabled && poolPingConnectionsNotUsedFor >= 0
-        && conn.getTimeElapsedSinceLastUse() > poolPingConnectionsNotUsedFor) {
+    // with housekeeping enabled idle connections are pinged in the background instead
+    if (result && poolHousekeepingPeriod <= 0 && isPingDue(conn.getLastUsedTimestamp())) {
+      result = executePingQuery(conn);
+    }
+    return result;
+  }
+
+  /**
+   * Runs the ping query on a connection, closing it if the query fails.
+   *
+   * @param conn
+   *          - the connection to check
+   * @return True if the ping query succeeded
+   */
+  protected boolean executePingQuery(PooledConnection conn) {
+    boolean result;
+    try {
+      if (log.isDebugEnabled()) {
+        log.debug("Testing connection " + conn.getRealHashCode() + " ...");
+      }
+      Connection realConn = conn.getRealConnection();
+      try (Statement statement = realConn.createStatement()) {
+        statement.executeQuery(poolPingQuery).close();
+      }
+      if (!realConn.getAutoCommit()) {
+        realConn.rollback();
+      }
+      result = true;
+      if (log.isDebugEnabled()) {
+        log.debug("Connection " + conn.getRealHashCode() + " is GOOD!");
+      }
+    } catch (Exception e) {
+      log.warn("Execution of ping query '" + poolPingQuery + "' failed: " + e.getMessage());
       try {
-        if (log.isDebugEnabled()) {
-          log.debug("Testing connection " + conn.getRealHashCode() + " ...");
-        }
-        Connection realConn = conn.getRealConnection();
-        try (Statement statement = realConn.createStatement()) {
-          statement.executeQuery(poolPingQuery).close();
+        conn.getRealConnection().close();
+      } catch (Exception e2) {
+        // ignore
+      }
+      result = false;
+      if (log.isDebugEnabled()) {
+        log.debug("Connection " + conn.getRealHashCode() + " is BAD: " + e.getMessage());
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Whether a connection has been unused long enough to be pinged before it is handed out again.
+   *
+   * @param lastUsedTimestamp
+   *          when the connection was last used
+   * @return True if the ping query is enabled and due
+   */
+  protected boolean isPingDue(long lastUsedTimestamp) {
+    return poolPingEnabled && poolPingConnectionsNotUsedFor >= 0
+        && System.currentTimeMillis() - lastUsedTimestamp > poolPingConnectionsNotUsedFor;
+  }
+
+  /**
+   * Whether an idle connection should be evicted by the housekeeper.
+   *
+   * @param createdTimestamp
+   *          when the connection was created
+   * @param lastUsedTimestamp
+   *          when the connection was last used
+   * @param aboveMinimumIdle
+   *          whether evicting it keeps at least {@code poolMinimumIdleConnections} idle connections
+   * @return True if the connection is past its maximum lifetime or idle time
+   */
+  protected boolean isEvictable(long createdTimestamp, long lastUsedTimestamp, boolean aboveMinimumIdle) {
+    long now = System.currentTimeMillis();
+    return poolMaximumLifetime > 0 && now - createdTimestamp > poolMaximumLifetime
+        || aboveMinimumIdle && poolMaximumIdleTime > 0 && now - lastUsedTimestamp > poolMaximumIdleTime;
+  }
+
+  /**
+   * Validates, evicts and tops up idle connections. Called periodically by the housekeeper thread when
+   * {@code poolHousekeepingPeriod} is set.
+   */
+  protected void housekeep() {
+    List<PooledConnection> evicted = new ArrayList<>();
+    List<PooledConnection> toValidate = new ArrayList<>();
+    lock.lock();
+    try {
+      for (Iterator<PooledConnection> it = state.idleConnections.iterator(); it.hasNext();) {
+        PooledConnection conn = it.next();
+        boolean aboveMinimumIdle = state.idleConnections.size() - evicted.size() > poolMinimumIdleConnections;
+        if (isEvictable(conn.getCreatedTimestamp(), conn.getLastUsedTimestamp(), aboveMinimumIdle)) {
+          it.remove();
+          evicted.add(conn);
+        } else if (isPingDue(conn.getLastUsedTimestamp())) {
+          // validated outside the lock so that checkouts are not held up by the ping
+          it.remove();
+          toValidate.add(conn);
         }
-        if (!realConn.getAutoCommit()) {
-          realConn.rollback();
+      }
+      updateGauges();
+    } finally {
+      lock.unlock();
+    }
+    for (PooledConnection conn : evicted) {
+      conn.invalidate();
+      closeQuietly(conn.getRealConnection());
+      if (log.isDebugEnabled()) {
+        log.debug("Evicted idle connection " + conn.getRealHashCode() + ".");
+      }
+    }
+    for (PooledConnection conn : toValidate) {
+      boolean good = executePingQuery(conn);
+      lock.lock();
+      try {
+        if (good && state.idleConnections.size() < poolMaximumIdleConnections
+            && conn.getConnectionTypeCode() == expectedConnectionTypeCode) {
+          state.idleConnections.add(conn);
+          updateGauges();
+          condition.signalAll();
+          continue;
         }
-        result = true;
-        if (log.isDebugEnabled()) {
-          log.debug("Connection " + conn.getRealHashCode() + " is GOOD!");
+        if (!good) {
+          state.badConnectionCount++;
         }
-      } catch (Exception e) {
-        log.warn("Execution of ping query '" + poolPingQuery + "' failed: " + e.getMessage());
-        try {
-          conn.getRealConnection().close();
-        } catch (Exception e2) {
-          // ignore
+      } finally {
+        lock.unlock();
+      }
+      conn.invalidate();
+      closeQuietly(conn.getRealConnection());
+    }
+    int minimumIdle = Math.min(poolMinimumIdleConnections, poolMaximumIdleConnections);
+    while (true) {
+      lock.lock();
+      try {
+        if (state.idleConnections.size() >= minimumIdle
+            || state.idleConnections.size() + state.activeConnections.size() >= poolMaximumActiveConnections) {
+          break;
         }
-        result = false;
-        if (log.isDebugEnabled()) {
-          log.debug("Connection " + conn.getRealHashCode() + " is BAD: " + e.getMessage());
+      } finally {
+        lock.unlock();
+      }
+      PooledConnection conn;
+      try {
+        conn = new PooledConnection(dataSource.getConnection(), this);
+      } catch (SQLException e) {
+        log.warn("Could not open an idle connection: " + e.getMessage());
+        break;
+      }
+      conn.setConnectionTypeCode(expectedConnectionTypeCode);
+      lock.lock();
+      try {
+        if (state.idleConnections.size() < minimumIdle) {
+          state.idleConnections.add(conn);
+          updateGauges();
+          condition.signalAll();
+          if (log.isDebugEnabled()) {
+            log.debug("Created idle connection " + conn.getRealHashCode() + ".");
+          }
+          continue;
         }
+      } finally {
+        lock.unlock();
       }
+      conn.invalidate();
+      closeQuietly(conn.getRealConnection());
+    }
+  }
+
+  private void scheduleHousekeeping() {
+    housekeeperLock.lock();
+    try {
+      if (housekeeper != null) {
+        housekeeper.shutdownNow();
+        housekeeper = null;
+      }
+      if (poolHousekeepingPeriod > 0) {
+        housekeeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+          Thread thread = new Thread(runnable, "mybatis-pool-housekeeper");
+          thread.setDaemon(true);
+          return thread;
+        });
+        housekeeper.scheduleWithFixedDelay(new Housekeeper(this, housekeeper), poolHousekeepingPeriod,
+            poolHousekeepingPeriod, TimeUnit.MILLISECONDS);
+      }
+    } finally {
+      housekeeperLock.unlock();
+    }
+  }
+
+  private static void closeQuietly(Connection realConn) {
+    try {
+      if (!realConn.getAutoCommit()) {
+        realConn.rollback();
+      }
+      realConn.close();
+    } catch (Exception e) {
+      // ignore
     }
-    return result;
   }
 
   /**
@@ -600,6 +923,36 @@ public class PooledDataSource implements DataSource {
     super.finalize();
   }
 
+  /**
+   * Periodic housekeeping task. It only holds the data source weakly and shuts its scheduler down once the data
+   * source has been garbage collected.
+   */
+  private static class Housekeeper implements Runnable {
+
+    private final WeakReference<PooledDataSource> dataSource;
+    private final ScheduledExecutorService scheduler;
+
+    Housekeeper(PooledDataSource dataSource, ScheduledExecutorService scheduler) {
+      this.dataSource = new WeakReference<>(dataSource);
+      this.scheduler = scheduler;
+    }
+
+    @Override
+    public void run() {
+      PooledDataSource ds = dataSource.get();
+      if (ds == null) {
+        scheduler.shutdown();
+        return;
+      }
+      try {
+        ds.housekeep();
+      } catch (RuntimeException e) {
+        // keep the schedule alive, the next run will try again
+        log.warn("Pool housekeeping failed: " + e.getMessage());
+      }
+    }
+  }
+
   @Override
   public <T> T unwrap(Class<T> iface) throws SQLException {
     throw new SQLException(getClass().getName() + " is not a wrapper.");
@@ -26,6 +26,7 @@ import java.util.Map;
 import java.util.Properties;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executors;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.logging.Logger;
 
 import javax.sql.DataSource;
@@ -46,6 +47,7 @@ public class UnpooledDataSource implements DataSource {
     private Properties driverProperties;
     private static Map<String, Driver> registeredDrivers = new ConcurrentHashMap<>();
 
+    private final ReentrantLock driverLock = new ReentrantLock();
     private String driver;
     private String url;
     private String username;
@@ -140,12 +142,22 @@ public class UnpooledDataSource implements DataSource {
         this.driverProperties = driverProperties;
     }
 
-    public synchronized String getDriver() {
-        return driver;
+    public String getDriver() {
+        driverLock.lock();
+        try {
+            return driver;
+        } finally {
+            driverLock.unlock();
+        }
     }
 
-    public synchronized void setDriver(String driver) {
-        this.driver = driver;
+    public void setDriver(String driver) {
+        driverLock.lock();
+        try {
+            this.driver = driver;
+        } finally {
+            driverLock.unlock();
+        }
     }
 
     public String getUrl() {
@@ -235,28 +247,34 @@ public class UnpooledDataSource implements DataSource {
         return connection;
     }
 
-    private synchronized void initializeDriver() throws SQLException {
-        // 1. 判断 registeredDrivers 是否已经存在该 driver ，若不存在，进行初始化
-        if (!registeredDrivers.containsKey(driver)) {
-            Class<?> driverType;
-            try {
-                // 2. 获得 driver 类
-                if (driverClassLoader != null) {
-                    driverType = Class.forName(driver, true, driverClassLoader);
-                } else {
-                    driverType = Resources.classForName(driver);
+    private void initializeDriver() throws SQLException {
+        // 驱动类的加载与注册可能涉及 I/O，使用 Lock 而不是 synchronized，避免虚拟线程固定在载体线程上
+        driverLock.lock();
+        try {
+            // 1. 判断 registeredDrivers 是否已经存在该 driver ，若不存在，进行初始化
+            if (!registeredDrivers.containsKey(driver)) {
+                Class<?> driverType;
+                try {
+                    // 2. 获得 driver 类
+                    if (driverClassLoader != null) {
+                        driverType = Class.forName(driver, true, driverClassLoader);
+                    } else {
+                        driverType = Resources.classForName(driver);
+                    }
+                    // DriverManager requires the driver to be loaded via the system ClassLoader.
+                    // http://www.kfu.com/~nsayer/Java/dyn-jdbc.html
+                    // 3. 创建 Driver 对象
+                    Driver driverInstance = (Driver) driverType.getDeclaredConstructor().newInstance();
+                    // 创建 DriverProxy 对象（为了使用自己定义的Logger对象），并注册到 DriverManager 中
+                    DriverManager.registerDriver(new DriverProxy(driverInstance));
+                    // 添加到 registeredDrivers 中
+                    registeredDrivers.put(driver, driverInstance);
+                } catch (Exception e) {
+                    throw new SQLException("Error setting driver on UnpooledDataSource. Cause: " + e);
                 }
-                // DriverManager requires the driver to be loaded via the system ClassLoader.
-                // http://www.kfu.com/~nsayer/Java/dyn-jdbc.html
-                // 3. 创建 Driver 对象
-                Driver driverInstance = (Driver) driverType.getDeclaredConstructor().newInstance();
-                // 创建 DriverProxy 对象（为了使用自己定义的Logger对象），并注册到 DriverManager 中
-                DriverManager.registerDriver(new DriverProxy(driverInstance));
-                // 添加到 registeredDrivers 中
-                registeredDrivers.put(driver, driverInstance);
-            } catch (Exception e) {
-                throw new SQLException("Error setting driver on UnpooledDataSource. Cause: " + e);
             }
+        } finally {
+            driverLock.unlock();
         }
     }
 
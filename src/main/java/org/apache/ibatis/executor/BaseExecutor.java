@@ -26,6 +26,7 @@ import java.util.concurrent.ConcurrentLinkedQueue;
 import org.apache.ibatis.cache.CacheKey;
 import org.apache.ibatis.cache.impl.PerpetualCache;
 import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.executor.pagination.Dialects;
 import org.apache.ibatis.executor.statement.StatementUtil;
 import org.apache.ibatis.logging.Log;
 import org.apache.ibatis.logging.LogFactory;
@@ -168,6 +169,11 @@ public abstract class BaseExecutor implements Executor {
         if (closed) {
             throw new ExecutorException("Executor was closed.");
         }
+        // 配置了分页方言时，由数据库完成分页，结果集不再需要跳过记录
+        if (isPaginated(ms, rowBounds)) {
+            boundSql = paginate(boundSql, rowBounds);
+            rowBounds = RowBounds.DEFAULT;
+        }
         // 1. 清空本地缓存，如果 queryStack 为零，并且要求清空本地缓存（配置了 flushCache = true）
         if (queryStack == 0 && ms.isFlushCacheRequired()) {
             //
@@ -212,9 +218,28 @@ public abstract class BaseExecutor implements Executor {
     @Override
     public <E> Cursor<E> queryCursor(MappedStatement ms, Object parameter, RowBounds rowBounds) throws SQLException {
         BoundSql boundSql = ms.getBoundSql(parameter);
+        if (isPaginated(ms, rowBounds)) {
+            boundSql = paginate(boundSql, rowBounds);
+            rowBounds = RowBounds.DEFAULT;
+        }
         return doQueryCursor(ms, parameter, rowBounds, boundSql);
     }
 
+    /**
+     * 是否由分页方言改写 SQL 完成分页，方言不适用的语句仍在客户端按 RowBounds 跳过结果对象
+     *
+     * @see Dialects#appliesTo(Configuration, MappedStatement)
+     */
+    private boolean isPaginated(MappedStatement ms, RowBounds rowBounds) {
+        return Dialects.appliesTo(configuration, ms)
+            && (rowBounds.getOffset() != RowBounds.NO_ROW_OFFSET || rowBounds.getLimit() != RowBounds.NO_ROW_LIMIT);
+    }
+
+    private BoundSql paginate(BoundSql boundSql, RowBounds rowBounds) {
+        String pagedSql = configuration.getPaginationDialect().getPagedSql(boundSql.getSql(), rowBounds.getOffset(), rowBounds.getLimit());
+        return boundSql.withSql(pagedSql);
+    }
+
     /**
      * 延迟加载，DefaultResultSetHandler.getNestedQueryMappingValue调用.属于嵌套查询，比较高级.
      * @param ms
@@ -299,6 +324,19 @@ public abstract class BaseExecutor implements Executor {
         return localCache.getObject(key) != null;
     }
 
+    @Override
+    public void startLocalLoad(CacheKey key) {
+        localCache.putObject(key, EXECUTION_PLACEHOLDER);
+    }
+
+    @Override
+    public void finishLocalLoad(CacheKey key, List<?> list) {
+        localCache.removeObject(key);
+        if (list != null) {
+            localCache.putObject(key, list);
+        }
+    }
+
     @Override
     public void commit(boolean required) throws SQLException {
         if (closed) {
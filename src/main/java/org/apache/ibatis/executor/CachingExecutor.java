@@ -16,21 +16,31 @@
 package org.apache.ibatis.executor;
 
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import org.apache.ibatis.cache.Cache;
 import org.apache.ibatis.cache.CacheKey;
 import org.apache.ibatis.cache.TransactionalCacheManager;
+import org.apache.ibatis.cache.decorators.ExpiringCache;
+import org.apache.ibatis.cache.decorators.SingleFlightCache;
 import org.apache.ibatis.cursor.Cursor;
 import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.Environment;
 import org.apache.ibatis.mapping.MappedStatement;
 import org.apache.ibatis.mapping.ParameterMapping;
 import org.apache.ibatis.mapping.ParameterMode;
 import org.apache.ibatis.mapping.StatementType;
 import org.apache.ibatis.reflection.MetaObject;
+import org.apache.ibatis.session.Configuration;
 import org.apache.ibatis.session.ResultHandler;
 import org.apache.ibatis.session.RowBounds;
 import org.apache.ibatis.transaction.Transaction;
+import org.apache.ibatis.transaction.TransactionFactory;
+import org.apache.ibatis.transaction.managed.ManagedTransactionFactory;
+import org.apache.ibatis.type.TypeHandlerRegistry;
 
 /**
  * 二级缓存执行器
@@ -49,6 +59,10 @@ public class CachingExecutor implements Executor {
      * 那么，必然需要做到事务提交时，才将当前事务中查询时产生的缓存，同步到二级缓存中，所以需要通过TransactionalCacheManager来实现
      */
     private final TransactionalCacheManager tcm = new TransactionalCacheManager();
+    /**
+     * 当前事务是否执行过写操作，提交或回滚后重置。执行过写操作的事务可能读到自己未提交的修改，不能与其他会话共享查询结果
+     */
+    private boolean dirty;
 
     public CachingExecutor(Executor delegate) {
         this.delegate = delegate;
@@ -84,6 +98,7 @@ public class CachingExecutor implements Executor {
     public int update(MappedStatement ms, Object parameterObject) throws SQLException {
         // 如果需要清空缓存，则进行清空
         flushCacheIfRequired(ms);
+        dirty = true;
         // 执行 delegate 对应的方法
         return delegate.update(ms, parameterObject);
     }
@@ -121,9 +136,25 @@ public class CachingExecutor implements Executor {
                 List<E> list = (List<E>) tcm.getObject(cache, key);
                 if (list == null) {
                     // 2.4 缓存不存在，查询数据库
-                    list = delegate.query(ms, parameterObject, rowBounds, resultHandler, key, boundSql);
+                    if (cache instanceof SingleFlightCache && !dirty && !tcm.isCleared(cache)) {
+                        // 与其他会话同时未命中同一个 key 时，共享同一次查询的结果
+                        // 本事务执行过写操作或清空过缓存时可能读到自己未提交的修改，既不能发起也不能加入共享的查询
+                        list = ((SingleFlightCache) cache).load(key, () -> delegate.query(ms, parameterObject, rowBounds, resultHandler, key, boundSql));
+                    } else {
+                        list = delegate.query(ms, parameterObject, rowBounds, resultHandler, key, boundSql);
+                    }
                     // 2.5 将缓存结果保存至 TransactionalCache.entriesToAddOnCommit 集合中
                     tcm.putObject(cache, key, list); // issue #578 and #116
+                } else {
+                    // 2.6 命中的缓存项即将过期时，在后台重新执行该语句刷新缓存，本次仍返回当前的值
+                    ExpiringCache expiringCache = expiringCache(cache);
+                    if (expiringCache != null && expiringCache.isDue(key)) {
+                        // 调用方可能在返回后修改参数对象，刷新使用此刻的参数值
+                        Map<String, Object> parameterSnapshot = new HashMap<>();
+                        BoundSql snapshotBoundSql = snapshot(ms, parameterObject, boundSql, parameterSnapshot);
+                        expiringCache.refreshIfDue(key, () -> reload(ms, parameterSnapshot, rowBounds, key, snapshotBoundSql),
+                            ms.getConfiguration().getAsyncExecutor());
+                    }
                 }
                 return list;
             }
@@ -143,6 +174,7 @@ public class CachingExecutor implements Executor {
         delegate.commit(required);
         // 遍历所有相关的TransactionalCache对象执行 commit 方法
         tcm.commit();
+        dirty = false;
     }
 
     @Override
@@ -153,8 +185,70 @@ public class CachingExecutor implements Executor {
             if (required) {
                 // 遍历所有相关的 TransactionalCache 对象执行 rollback 方法
                 tcm.rollback();
+                dirty = false;
+            }
+        }
+    }
+
+    private ExpiringCache expiringCache(Cache cache) {
+        if (cache instanceof SingleFlightCache) {
+            cache = ((SingleFlightCache) cache).getDelegate();
+        }
+        return cache instanceof ExpiringCache ? (ExpiringCache) cache : null;
+    }
+
+    /**
+     * 在独立的事务中重新执行语句，不经过二级缓存，用于刷新即将过期的缓存项
+     */
+    private List<Object> reload(MappedStatement ms, Object parameterObject, RowBounds rowBounds, CacheKey key, BoundSql boundSql) throws SQLException {
+        Configuration configuration = ms.getConfiguration();
+        Environment environment = configuration.getEnvironment();
+        TransactionFactory transactionFactory = environment.getTransactionFactory() == null
+                ? new ManagedTransactionFactory() : environment.getTransactionFactory();
+        Transaction tx = transactionFactory.newTransaction(environment.getDataSource(), null, false);
+        Executor executor = new SimpleExecutor(configuration, tx);
+        try {
+            return executor.query(ms, parameterObject, rowBounds, Executor.NO_RESULT_HANDLER, key, boundSql);
+        } finally {
+            executor.close(false);
+        }
+    }
+
+    /**
+     * 复制 BoundSql，按 DefaultParameterHandler 的逻辑取出每个参数此刻的值，以 {@code param1}、{@code param2} ... 保存到
+     * parameterSnapshot 中，复制的 ParameterMapping 改为引用这些名称
+     */
+    private BoundSql snapshot(MappedStatement ms, Object parameterObject, BoundSql boundSql, Map<String, Object> parameterSnapshot) {
+        Configuration configuration = ms.getConfiguration();
+        TypeHandlerRegistry typeHandlerRegistry = configuration.getTypeHandlerRegistry();
+        MetaObject metaObject = null;
+        List<ParameterMapping> parameterMappings = new ArrayList<>(boundSql.getParameterMappings().size());
+        for (ParameterMapping parameterMapping : boundSql.getParameterMappings()) {
+            String propertyName = parameterMapping.getProperty();
+            Object value;
+            if (boundSql.hasAdditionalParameter(propertyName)) {
+                value = boundSql.getAdditionalParameter(propertyName);
+            } else if (parameterObject == null) {
+                value = null;
+            } else if (typeHandlerRegistry.hasTypeHandler(parameterObject.getClass())) {
+                value = parameterObject;
+            } else {
+                if (metaObject == null) {
+                    metaObject = configuration.newMetaObject(parameterObject);
+                }
+                value = metaObject.getValue(propertyName);
             }
+            String snapshotName = "param" + (parameterMappings.size() + 1);
+            parameterSnapshot.put(snapshotName, value);
+            parameterMappings.add(new ParameterMapping.Builder(configuration, snapshotName, parameterMapping.getTypeHandler())
+                .javaType(parameterMapping.getJavaType())
+                .jdbcType(parameterMapping.getJdbcType())
+                .jdbcTypeName(parameterMapping.getJdbcTypeName())
+                .numericScale(parameterMapping.getNumericScale())
+                .mode(parameterMapping.getMode())
+                .build());
         }
+        return new BoundSql(configuration, boundSql.getSql(), parameterMappings, parameterSnapshot);
     }
 
     private void ensureNoOutParams(MappedStatement ms, BoundSql boundSql) {
@@ -182,6 +276,16 @@ public class CachingExecutor implements Executor {
         delegate.deferLoad(ms, resultObject, property, key, targetType);
     }
 
+    @Override
+    public void startLocalLoad(CacheKey key) {
+        delegate.startLocalLoad(key);
+    }
+
+    @Override
+    public void finishLocalLoad(CacheKey key, List<?> list) {
+        delegate.finishLocalLoad(key, list);
+    }
+
     @Override
     public void clearLocalCache() {
         delegate.clearLocalCache();
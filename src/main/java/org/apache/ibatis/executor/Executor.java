@@ -83,6 +83,23 @@ public interface Executor {
      */
     void deferLoad(MappedStatement ms, MetaObject resultObject, String property, CacheKey key, Class<?> targetType);
 
+    /**
+     * 在本地缓存中为 key 放入占位符，表示对应的查询正在执行。
+     * 批量执行嵌套查询前，为每个键值单独对应的 CacheKey 调用，使 isCached 和 deferLoad 的循环引用检测同样适用于批量加载
+     *
+     * @since 3.5.9
+     */
+    default void startLocalLoad(CacheKey key) {
+    }
+
+    /**
+     * 用 key 对应的查询结果替换 {@link #startLocalLoad(CacheKey)} 放入的占位符，list 为 null 时（查询失败）只移除占位符
+     *
+     * @since 3.5.9
+     */
+    default void finishLocalLoad(CacheKey key, List<?> list) {
+    }
+
     Transaction getTransaction();
 
     void close(boolean forceRollback);
@@ -19,6 +19,7 @@ import java.lang.reflect.Method;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
 
 import javassist.util.proxy.MethodHandler;
 import javassist.util.proxy.Proxy;
@@ -107,6 +108,7 @@ public class JavassistProxyFactory implements org.apache.ibatis.executor.loader.
 
         private final Class<?> type;
         private final ResultLoaderMap lazyLoader;
+        private final ReentrantLock lock = new ReentrantLock();
         /**
          * 开启时，任一方法的调用都会加载该对象的所有延迟加载属性，默认false
          */
@@ -141,7 +143,8 @@ public class JavassistProxyFactory implements org.apache.ibatis.executor.loader.
         public Object invoke(Object enhanced, Method method, Method methodProxy, Object[] args) throws Throwable {
             final String methodName = method.getName();
             try {
-                synchronized (lazyLoader) {
+                lock.lock();
+                try {
                     // 1. 如果方法名为 writeReplace，和序列化相关
                     if (WRITE_REPLACE_METHOD.equals(methodName)) {
                         Object original;
@@ -177,6 +180,8 @@ public class JavassistProxyFactory implements org.apache.ibatis.executor.loader.
                             }
                         }
                     }
+                } finally {
+                    lock.unlock();
                 }
                 // 3. 继续执行原方法
                 return methodProxy.invoke(enhanced, args);
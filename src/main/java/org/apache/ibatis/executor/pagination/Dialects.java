@@ -0,0 +1,91 @@
+/*
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor.pagination;
+
+import java.util.Locale;
+
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.StatementType;
+import org.apache.ibatis.session.Configuration;
+
+/**
+ * 分页方言的工具方法
+ */
+public final class Dialects {
+
+    private Dialects() {
+        // Prevent Instantiation
+    }
+
+    /**
+     * 是否由配置的分页方言改写语句的 SQL 完成分页，存储过程不支持。
+     * 嵌套结果映射（一对多关联时一个结果对象对应多行记录）和多结果集不能按行分页，仍在客户端按 RowBounds 跳过结果对象
+     *
+     * @param configuration 全局配置
+     * @param ms 查询语句
+     * @return 有分页方言并且适用于该语句时返回 true
+     * @since 3.5.9
+     */
+    public static boolean appliesTo(Configuration configuration, MappedStatement ms) {
+        return configuration.getPaginationDialect() != null
+            && ms.getStatementType() != StatementType.CALLABLE
+            && !ms.hasNestedResultMaps()
+            && ms.getResultSets() == null;
+    }
+
+    /**
+     * 去掉 SQL 末尾的空白字符和分号，以便在其后追加分页子句
+     */
+    static String trimSql(String sql) {
+        int end = sql.length();
+        while (end > 0 && (Character.isWhitespace(sql.charAt(end - 1)) || sql.charAt(end - 1) == ';')) {
+            end--;
+        }
+        return sql.substring(0, end);
+    }
+
+    /**
+     * 判断 SQL 在最外层是否已经有 ORDER BY 子句，即最后一个 ORDER BY 之后没有未闭合的右括号
+     */
+    static boolean hasOrderBy(String sql) {
+        String lowerCaseSql = sql.toLowerCase(Locale.ENGLISH);
+        int index = lowerCaseSql.length();
+        while ((index = lowerCaseSql.lastIndexOf("order", index - 1)) >= 0) {
+            int by = index + "order".length();
+            while (by < lowerCaseSql.length() && Character.isWhitespace(lowerCaseSql.charAt(by))) {
+                by++;
+            }
+            if (by > index + "order".length() && lowerCaseSql.startsWith("by", by)) {
+                return isTopLevel(lowerCaseSql, by);
+            }
+        }
+        return false;
+    }
+
+    private static boolean isTopLevel(String sql, int from) {
+        int depth = 0;
+        for (int i = from; i < sql.length(); i++) {
+            char c = sql.charAt(i);
+            if (c == '(') {
+                depth++;
+            } else if (c == ')' && --depth < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+}
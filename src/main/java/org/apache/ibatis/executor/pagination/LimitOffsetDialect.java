@@ -0,0 +1,38 @@
+/*
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor.pagination;
+
+import org.apache.ibatis.session.RowBounds;
+
+/**
+ * 使用 LIMIT n OFFSET m 子句分页的方言，适用于 H2、HSQLDB 和 PostgreSQL
+ * @since 3.5.9
+ */
+public class LimitOffsetDialect implements PaginationDialect {
+
+    @Override
+    public String getPagedSql(String sql, int offset, int limit) {
+        StringBuilder pagedSql = new StringBuilder(Dialects.trimSql(sql));
+        if (limit != RowBounds.NO_ROW_LIMIT) {
+            pagedSql.append(" LIMIT ").append(limit);
+        }
+        if (offset != RowBounds.NO_ROW_OFFSET) {
+            pagedSql.append(" OFFSET ").append(offset);
+        }
+        return pagedSql.toString();
+    }
+
+}
@@ -0,0 +1,43 @@
+/*
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor.pagination;
+
+import org.apache.ibatis.session.RowBounds;
+
+/**
+ * MySQL 和 MariaDB 的分页方言，使用 LIMIT m, n 子句，
+ * 因为 MySQL 不支持单独的 OFFSET 子句，只有 offset 时使用最大的 limit
+ * @since 3.5.9
+ */
+public class MySqlDialect implements PaginationDialect {
+
+    private static final String MAX_LIMIT = "18446744073709551615";
+
+    @Override
+    public String getPagedSql(String sql, int offset, int limit) {
+        StringBuilder pagedSql = new StringBuilder(Dialects.trimSql(sql)).append(" LIMIT ");
+        if (offset != RowBounds.NO_ROW_OFFSET) {
+            pagedSql.append(offset).append(", ");
+        }
+        if (limit != RowBounds.NO_ROW_LIMIT) {
+            pagedSql.append(limit);
+        } else {
+            pagedSql.append(MAX_LIMIT);
+        }
+        return pagedSql.toString();
+    }
+
+}
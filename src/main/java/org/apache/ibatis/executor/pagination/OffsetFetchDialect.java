@@ -0,0 +1,42 @@
+/*
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor.pagination;
+
+import org.apache.ibatis.session.RowBounds;
+
+/**
+ * 使用 SQL:2008 标准的 OFFSET m ROWS FETCH NEXT n ROWS ONLY 子句分页的方言，适用于 Derby、DB2 和 Oracle 12c 以上版本
+ * @since 3.5.9
+ */
+public class OffsetFetchDialect implements PaginationDialect {
+
+    @Override
+    public String getPagedSql(String sql, int offset, int limit) {
+        StringBuilder pagedSql = new StringBuilder(Dialects.trimSql(sql));
+        appendOffsetFetch(pagedSql, offset, limit);
+        return pagedSql.toString();
+    }
+
+    protected void appendOffsetFetch(StringBuilder sql, int offset, int limit) {
+        if (offset != RowBounds.NO_ROW_OFFSET) {
+            sql.append(" OFFSET ").append(offset).append(" ROWS");
+        }
+        if (limit != RowBounds.NO_ROW_LIMIT) {
+            sql.append(" FETCH NEXT ").append(limit).append(" ROWS ONLY");
+        }
+    }
+
+}
@@ -0,0 +1,35 @@
+/*
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor.pagination;
+
+/**
+ * 分页方言，将 RowBounds 的 offset 和 limit 改写到 SQL 中，由数据库完成分页，
+ * 而不是在客户端通过 ResultSet 跳过前面的记录
+ * @since 3.5.9
+ */
+public interface PaginationDialect {
+
+    /**
+     * 生成分页 SQL
+     *
+     * @param sql    原始 SQL
+     * @param offset 跳过的记录数，为 {@link org.apache.ibatis.session.RowBounds#NO_ROW_OFFSET} 时不跳过
+     * @param limit  返回的最大记录数，为 {@link org.apache.ibatis.session.RowBounds#NO_ROW_LIMIT} 时不限制
+     * @return 分页 SQL
+     */
+    String getPagedSql(String sql, int offset, int limit);
+
+}
@@ -0,0 +1,38 @@
+/*
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor.pagination;
+
+import org.apache.ibatis.session.RowBounds;
+
+/**
+ * SQL Server 2012 以上版本的分页方言，使用 OFFSET m ROWS FETCH NEXT n ROWS ONLY 子句，
+ * SQL Server 要求 OFFSET 前必须有 ORDER BY 子句并且 OFFSET 不能省略，没有排序时添加 ORDER BY (SELECT NULL)
+ * @since 3.5.9
+ */
+public class SqlServerDialect extends OffsetFetchDialect {
+
+    @Override
+    public String getPagedSql(String sql, int offset, int limit) {
+        StringBuilder pagedSql = new StringBuilder(Dialects.trimSql(sql));
+        if (!Dialects.hasOrderBy(pagedSql.toString())) {
+            pagedSql.append(" ORDER BY (SELECT NULL)");
+        }
+        pagedSql.append(" OFFSET ").append(offset).append(" ROWS");
+        appendOffsetFetch(pagedSql, RowBounds.NO_ROW_OFFSET, limit);
+        return pagedSql.toString();
+    }
+
+}
@@ -0,0 +1,117 @@
+/*
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor.resultset;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.ibatis.reflection.ExceptionUtil;
+import org.apache.ibatis.reflection.ReflectionException;
+import org.apache.ibatis.reflection.factory.ObjectFactory;
+import org.apache.ibatis.reflection.invoker.Invoker;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.type.TypeHandler;
+
+/**
+ * 针对某个 ResultMap 与某种结果集列布局编译好的行映射器
+ * 按列索引读取列值，直接调用 Reflector 中的 setter Invoker（或 Map.put），不再为每个属性创建 MetaObject、PropertyTokenizer
+ * @since 3.5.9
+ */
+public final class CompiledRowMapper {
+
+    private final Configuration configuration;
+    private final Class<?> resultType;
+    private final ColumnMapping[] columnMappings;
+
+    CompiledRowMapper(Configuration configuration, Class<?> resultType, List<ColumnMapping> columnMappings) {
+        this.configuration = configuration;
+        this.resultType = resultType;
+        this.columnMappings = columnMappings.toArray(new ColumnMapping[0]);
+    }
+
+    public Class<?> getResultType() {
+        return resultType;
+    }
+
+    public int getColumnCount() {
+        return columnMappings.length;
+    }
+
+    /**
+     * 映射当前行，规则与 applyAutomaticMappings、applyPropertyMappings 一致：
+     * 先自动映射的列，再 ResultMap 中明确配置的列；一个非空值都没有时根据 returnInstanceForEmptyRow 返回空对象或 null
+     */
+    public Object map(ResultSet rs, ObjectFactory objectFactory) throws SQLException {
+        final Object rowValue = objectFactory.create(resultType);
+        final boolean callSettersOnNulls = configuration.isCallSettersOnNulls();
+        boolean foundValues = false;
+        for (ColumnMapping columnMapping : columnMappings) {
+            final Object value = columnMapping.typeHandler.getResult(rs, columnMapping.columnIndex);
+            if (value != null) {
+                foundValues = true;
+            }
+            if (value != null || (callSettersOnNulls && !columnMapping.primitive)) {
+                // gcode issue #377, call setter on nulls (value is not 'found')
+                columnMapping.setValue(configuration, rowValue, value);
+            }
+        }
+        return foundValues || configuration.isReturnInstanceForEmptyRow() ? rowValue : null;
+    }
+
+    static final class ColumnMapping {
+        private final int columnIndex;
+        private final String property;
+        private final TypeHandler<?> typeHandler;
+        private final boolean primitive;
+        /**
+         * 属性的 setter，为 null 时结果对象是 Map 或者属性是嵌套属性（需要通过 MetaObject 设置）
+         */
+        private final Invoker setter;
+        private final boolean mapEntry;
+
+        ColumnMapping(int columnIndex, String property, TypeHandler<?> typeHandler, boolean primitive, Invoker setter, boolean mapEntry) {
+            this.columnIndex = columnIndex;
+            this.property = property;
+            this.typeHandler = typeHandler;
+            this.primitive = primitive;
+            this.setter = setter;
+            this.mapEntry = mapEntry;
+        }
+
+        @SuppressWarnings("unchecked")
+        private void setValue(Configuration configuration, Object rowValue, Object value) {
+            if (setter != null) {
+                // 与 BeanWrapper.setBeanProperty 的异常处理一致
+                try {
+                    try {
+                        setter.invoke(rowValue, new Object[] {value});
+                    } catch (Throwable t) {
+                        throw ExceptionUtil.unwrapThrowable(t);
+                    }
+                } catch (Throwable t) {
+                    throw new ReflectionException("Could not set property '" + property + "' of '" + rowValue.getClass() + "' with value '" + value + "' Cause: " + t.toString(), t);
+                }
+            } else if (mapEntry) {
+                ((Map<String, Object>) rowValue).put(property, value);
+            } else {
+                configuration.newMetaObject(rowValue).setValue(property, value);
+            }
+        }
+    }
+
+}
@@ -16,17 +16,26 @@
 package org.apache.ibatis.executor.resultset;
 
 import java.lang.reflect.Constructor;
+import java.math.BigDecimal;
 import java.sql.CallableStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ForkJoinPool;
 
 import org.apache.ibatis.annotations.AutomapConstructor;
 import org.apache.ibatis.binding.MapperMethod.ParamMap;
@@ -36,6 +45,7 @@ import org.apache.ibatis.cursor.defaults.DefaultCursor;
 import org.apache.ibatis.executor.ErrorContext;
 import org.apache.ibatis.executor.Executor;
 import org.apache.ibatis.executor.ExecutorException;
+import org.apache.ibatis.executor.ResultExtractor;
 import org.apache.ibatis.executor.loader.ResultLoader;
 import org.apache.ibatis.executor.loader.ResultLoaderMap;
 import org.apache.ibatis.executor.parameter.ParameterHandler;
@@ -51,8 +61,13 @@ import org.apache.ibatis.mapping.ResultMap;
 import org.apache.ibatis.mapping.ResultMapping;
 import org.apache.ibatis.reflection.MetaClass;
 import org.apache.ibatis.reflection.MetaObject;
+import org.apache.ibatis.reflection.ParamNameResolver;
+import org.apache.ibatis.reflection.Reflector;
 import org.apache.ibatis.reflection.ReflectorFactory;
 import org.apache.ibatis.reflection.factory.ObjectFactory;
+import org.apache.ibatis.reflection.invoker.Invoker;
+import org.apache.ibatis.reflection.wrapper.BeanWrapper;
+import org.apache.ibatis.reflection.wrapper.MapWrapper;
 import org.apache.ibatis.session.AutoMappingBehavior;
 import org.apache.ibatis.session.Configuration;
 import org.apache.ibatis.session.ResultContext;
@@ -77,6 +92,10 @@ public class DefaultResultSetHandler implements ResultSetHandler {
      * 占位符对象
      */
     private static final Object DEFERRED = new Object();
+    /**
+     * 并行映射时每个任务处理的行数
+     */
+    private static final int PARALLEL_MAPPING_CHUNK_SIZE = 256;
 
     private final Executor executor;
     private final Configuration configuration;
@@ -116,6 +135,9 @@ public class DefaultResultSetHandler implements ResultSetHandler {
     private final Map<String, ResultMapping> nextResultMaps = new HashMap<>();
     private final Map<CacheKey, List<PendingRelation>> pendingRelations = new HashMap<>();
 
+    // batched nested queries, null when the results are not collected into lists
+    private Map<ResultMapping, PendingBatchLoad> pendingBatchLoads;
+
     // Cached Automappings
     private final Map<String, List<UnMappedColumnAutoMapping>> autoMappingsCache = new HashMap<>();
 
@@ -127,6 +149,30 @@ public class DefaultResultSetHandler implements ResultSetHandler {
         public ResultMapping propertyMapping;
     }
 
+    /**
+     * 等待批量执行的嵌套查询，记录需要设置属性的结果对象及其键值
+     */
+    private static class PendingBatchLoad {
+        private final ResultMapping propertyMapping;
+        /**
+         * 归一化的键值 -> 原始键值，保持父对象的顺序并去重
+         */
+        private final Map<Object, Object> keys = new LinkedHashMap<>();
+        private final List<MetaObject> targets = new ArrayList<>();
+        private final List<Object> targetKeys = new ArrayList<>();
+
+        PendingBatchLoad(ResultMapping propertyMapping) {
+            this.propertyMapping = propertyMapping;
+        }
+
+        void add(MetaObject target, Object key) {
+            Object normalizedKey = normalizeBatchKey(key);
+            keys.putIfAbsent(normalizedKey, key);
+            targets.add(target);
+            targetKeys.add(normalizedKey);
+        }
+    }
+
     private static class UnMappedColumnAutoMapping {
         private final String column;
         private final String property;
@@ -227,6 +273,8 @@ public class DefaultResultSetHandler implements ResultSetHandler {
         // 1. 该集合用于保存映射结果得到的结果对象
         // 多 ResultSet 的结果集合，每个 ResultSet 对应一个 Object 对象，而实际上，每个 Object 是 List<Object> 对象
         final List<Object> multipleResults = new ArrayList<>();
+        // 结果对象交给自定义的 ResultHandler 时，对象在处理完所有记录之前就已经交出，不能批量执行嵌套查询
+        pendingBatchLoads = resultHandler == null ? new IdentityHashMap<>() : null;
 
         int resultSetCount = 0;
         // 2. 获取 ResultSet 对象，并封装成 ResultSetWrapper
@@ -277,6 +325,8 @@ public class DefaultResultSetHandler implements ResultSetHandler {
                 resultSetCount++;
             }
         }
+        // 7. 批量执行所有结果对象的嵌套查询
+        loadPendingBatches();
 
         return collapseSingleResultList(multipleResults);
     }
@@ -442,13 +492,23 @@ public class DefaultResultSetHandler implements ResultSetHandler {
 
     private void handleRowValuesForSimpleResultMap(ResultSetWrapper rsw, ResultMap resultMap, ResultHandler<?> resultHandler, RowBounds rowBounds, ResultMapping parentMapping)
         throws SQLException {
+        if (canMapRowsInParallel(rsw, resultMap, resultHandler, parentMapping)) {
+            handleRowValuesInParallel(rsw, resultMap, resultHandler, rowBounds);
+            return;
+        }
         // 默认的上下文对象，临时保存每一行的结果且记录返回结果数量
         DefaultResultContext<Object> resultContext = new DefaultResultContext<>();
         ResultSet resultSet = rsw.getResultSet();
+        // 0. 开启了 compiledRowMappingEnabled 且是简单的 ResultMap 时，使用该列布局编译好的行映射器
+        final CompiledRowMapper compiledRowMapper = getCompiledRowMapper(rsw, resultMap);
         // 1. 根据 RowBounds 中的 offset 定位到指定的记录
         skipRows(resultSet, rowBounds);
         // 2. 检测已经处理的行数是否已经达到上限（RowBounds,limit）以及 ResultSet 中是否还有可处理的记录
         while (shouldProcessMoreRows(resultContext, rowBounds) && !resultSet.isClosed() && resultSet.next()) {
+            if (compiledRowMapper != null) {
+                storeObject(resultHandler, resultContext, compiledRowMapper.map(resultSet, objectFactory), parentMapping, resultSet);
+                continue;
+            }
             /*
              * <3> 获取最终的 ResultMap
              * 因为 ResultMap 可能使用到了 <discriminator /> 标签，需要根据不同的值映射不同的 ResultMap
@@ -462,6 +522,206 @@ public class DefaultResultSetHandler implements ResultSetHandler {
         }
     }
 
+    //
+    // PARALLEL MAPPING FOR SIMPLE RESULT MAP
+    //
+
+    /**
+     * 并行映射只支持：结果收集到 DefaultResultHandler 的简单 ResultMap
+     */
+    private boolean canMapRowsInParallel(ResultSetWrapper rsw, ResultMap resultMap, ResultHandler<?> resultHandler, ResultMapping parentMapping) {
+        return mappedStatement.isParallelMapping() && parentMapping == null && resultHandler instanceof DefaultResultHandler
+            && isSimplePropertyResultMap(rsw, resultMap);
+    }
+
+    /**
+     * 简单的 ResultMap：无鉴别器、无构造方法映射、无嵌套映射/嵌套查询/多结果集，且结果对象由 ObjectFactory 通过默认构造方法创建
+     */
+    private boolean isSimplePropertyResultMap(ResultSetWrapper rsw, ResultMap resultMap) {
+        if (resultMap.getDiscriminator() != null || !resultMap.getConstructorResultMappings().isEmpty()) {
+            return false;
+        }
+        final Class<?> resultType = resultMap.getType();
+        if (hasTypeHandlerForResultObject(rsw, resultType)
+            || !(resultType.isInterface() || MetaClass.forClass(resultType, reflectorFactory).hasDefaultConstructor())) {
+            return false;
+        }
+        for (ResultMapping propertyMapping : resultMap.getPropertyResultMappings()) {
+            if (propertyMapping.getNestedQueryId() != null || propertyMapping.getNestedResultMapId() != null
+                || propertyMapping.getResultSet() != null || propertyMapping.isCompositeResult()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 在当前（JDBC）线程上通过 TypeHandler 读取每行的列值到缓冲数组，按块交给 fork-join 线程池创建结果对象并设置属性，
+     * 再按原顺序保存到 resultHandler 中
+     */
+    private void handleRowValuesInParallel(ResultSetWrapper rsw, ResultMap resultMap, ResultHandler<?> resultHandler, RowBounds rowBounds)
+        throws SQLException {
+        final DefaultResultContext<Object> resultContext = new DefaultResultContext<>();
+        final ResultSet resultSet = rsw.getResultSet();
+        skipRows(resultSet, rowBounds);
+        // 1. 映射计划只计算一次：自动映射的列与明确配置的列
+        final List<UnMappedColumnAutoMapping> autoMappings = shouldApplyAutomaticMappings(resultMap, false)
+            ? createAutomaticMappings(rsw, resultMap, configuration.newMetaObject(objectFactory.create(resultMap.getType())), null)
+            : Collections.emptyList();
+        final List<String> mappedColumnNames = rsw.getMappedColumnNames(resultMap, null);
+        final List<ResultMapping> propertyMappings = new ArrayList<>();
+        for (ResultMapping propertyMapping : resultMap.getPropertyResultMappings()) {
+            if (propertyMapping.getProperty() != null && propertyMapping.getColumn() != null
+                && mappedColumnNames.contains(propertyMapping.getColumn().toUpperCase(Locale.ENGLISH))) {
+                propertyMappings.add(propertyMapping);
+            }
+        }
+        final int width = autoMappings.size() + propertyMappings.size();
+        final int maxPendingChunks = Math.max(2, ForkJoinPool.getCommonPoolParallelism() * 2);
+        final Deque<CompletableFuture<Object[]>> pendingChunks = new ArrayDeque<>();
+        List<Object[]> chunk = new ArrayList<>(PARALLEL_MAPPING_CHUNK_SIZE);
+        int readRows = 0;
+        while (readRows < rowBounds.getLimit() && !resultSet.isClosed() && resultSet.next()) {
+            // 2. 读取原始列值
+            final Object[] values = new Object[width];
+            int i = 0;
+            for (UnMappedColumnAutoMapping mapping : autoMappings) {
+                values[i++] = mapping.typeHandler.getResult(resultSet, mapping.column);
+            }
+            for (ResultMapping propertyMapping : propertyMappings) {
+                values[i++] = propertyMapping.getTypeHandler().getResult(resultSet, propertyMapping.getColumn());
+            }
+            chunk.add(values);
+            readRows++;
+            if (chunk.size() == PARALLEL_MAPPING_CHUNK_SIZE) {
+                // 3. 提交映射任务，保存已完成（或积压过多）的块，避免缓冲无限增长
+                pendingChunks.add(mapRowsAsync(resultMap.getType(), chunk, autoMappings, propertyMappings));
+                chunk = new ArrayList<>(PARALLEL_MAPPING_CHUNK_SIZE);
+                while (!pendingChunks.isEmpty() && (pendingChunks.peek().isDone() || pendingChunks.size() > maxPendingChunks)) {
+                    storeMappedChunk(resultHandler, resultContext, pendingChunks.poll());
+                }
+            }
+        }
+        if (!chunk.isEmpty()) {
+            pendingChunks.add(mapRowsAsync(resultMap.getType(), chunk, autoMappings, propertyMappings));
+        }
+        while (!pendingChunks.isEmpty()) {
+            storeMappedChunk(resultHandler, resultContext, pendingChunks.poll());
+        }
+    }
+
+    private CompletableFuture<Object[]> mapRowsAsync(Class<?> resultType, List<Object[]> rows,
+        List<UnMappedColumnAutoMapping> autoMappings, List<ResultMapping> propertyMappings) {
+        return CompletableFuture.supplyAsync(() -> {
+            final Object[] rowValues = new Object[rows.size()];
+            for (int r = 0; r < rowValues.length; r++) {
+                final Object[] values = rows.get(r);
+                final Object rowValue = objectFactory.create(resultType);
+                final MetaObject metaObject = configuration.newMetaObject(rowValue);
+                boolean foundValues = false;
+                int i = 0;
+                // 与 applyAutomaticMappings、applyPropertyMappings 的规则一致
+                for (UnMappedColumnAutoMapping mapping : autoMappings) {
+                    final Object value = values[i++];
+                    if (value != null) {
+                        foundValues = true;
+                    }
+                    if (value != null || (configuration.isCallSettersOnNulls() && !mapping.primitive)) {
+                        metaObject.setValue(mapping.property, value);
+                    }
+                }
+                for (ResultMapping propertyMapping : propertyMappings) {
+                    final Object value = values[i++];
+                    final String property = propertyMapping.getProperty();
+                    if (value != null) {
+                        foundValues = true;
+                    }
+                    if (value != null || (configuration.isCallSettersOnNulls() && !metaObject.getSetterType(property).isPrimitive())) {
+                        metaObject.setValue(property, value);
+                    }
+                }
+                rowValues[r] = foundValues || configuration.isReturnInstanceForEmptyRow() ? rowValue : null;
+            }
+            return rowValues;
+        }, ForkJoinPool.commonPool());
+    }
+
+    private void storeMappedChunk(ResultHandler<?> resultHandler, DefaultResultContext<Object> resultContext, CompletableFuture<Object[]> mappedChunk) {
+        final Object[] rowValues;
+        try {
+            rowValues = mappedChunk.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+        for (Object rowValue : rowValues) {
+            callResultHandler(resultHandler, resultContext, rowValue);
+        }
+    }
+
+    //
+    // COMPILED ROW MAPPING FOR SIMPLE RESULT MAP
+    //
+
+    private CompiledRowMapper getCompiledRowMapper(ResultSetWrapper rsw, ResultMap resultMap) throws SQLException {
+        if (!configuration.isCompiledRowMappingEnabled() || !isSimplePropertyResultMap(rsw, resultMap)) {
+            return null;
+        }
+        // 同一个 ResultMap 与同样的列布局只编译一次
+        final String layoutKey = resultMap.getId() + ":" + rsw.getColumnLayout();
+        CompiledRowMapper compiledRowMapper = configuration.getCompiledRowMapper(layoutKey);
+        if (compiledRowMapper == null) {
+            compiledRowMapper = compileRowMapper(rsw, resultMap);
+            configuration.addCompiledRowMapper(layoutKey, compiledRowMapper);
+        }
+        return compiledRowMapper;
+    }
+
+    /**
+     * 按 getRowValue 的规则计算一次映射计划：先自动映射的列，再 ResultMap 中明确配置的列，
+     * 每列记录列索引、TypeHandler 以及属性的 setter
+     */
+    private CompiledRowMapper compileRowMapper(ResultSetWrapper rsw, ResultMap resultMap) throws SQLException {
+        final MetaObject metaObject = configuration.newMetaObject(objectFactory.create(resultMap.getType()));
+        final List<CompiledRowMapper.ColumnMapping> columnMappings = new ArrayList<>();
+        if (shouldApplyAutomaticMappings(resultMap, false)) {
+            for (UnMappedColumnAutoMapping mapping : createAutomaticMappings(rsw, resultMap, metaObject, null)) {
+                columnMappings.add(compileColumnMapping(rsw, metaObject, mapping.column, mapping.property, mapping.typeHandler, mapping.primitive));
+            }
+        }
+        final List<String> mappedColumnNames = rsw.getMappedColumnNames(resultMap, null);
+        for (ResultMapping propertyMapping : resultMap.getPropertyResultMappings()) {
+            final String column = propertyMapping.getColumn();
+            final String property = propertyMapping.getProperty();
+            // issue #541 make property optional
+            if (property != null && column != null && mappedColumnNames.contains(column.toUpperCase(Locale.ENGLISH))) {
+                final boolean primitive = metaObject.hasSetter(property) && metaObject.getSetterType(property).isPrimitive();
+                columnMappings.add(compileColumnMapping(rsw, metaObject, column, property, propertyMapping.getTypeHandler(), primitive));
+            }
+        }
+        return new CompiledRowMapper(configuration, resultMap.getType(), columnMappings);
+    }
+
+    private CompiledRowMapper.ColumnMapping compileColumnMapping(ResultSetWrapper rsw, MetaObject metaObject, String column, String property,
+        TypeHandler<?> typeHandler, boolean primitive) {
+        Invoker setter = null;
+        boolean mapEntry = false;
+        // 嵌套属性（如 author.id）以及自定义的 ObjectWrapper 仍然通过 MetaObject 设置
+        if (property.indexOf('.') < 0 && property.indexOf('[') < 0) {
+            if (metaObject.getObjectWrapper() instanceof BeanWrapper) {
+                final Reflector reflector = reflectorFactory.findForClass(metaObject.getOriginalObject().getClass());
+                if (reflector.hasSetter(property)) {
+                    setter = reflector.getSetInvoker(property);
+                }
+            } else if (metaObject.getObjectWrapper() instanceof MapWrapper) {
+                mapEntry = true;
+            }
+        }
+        return new CompiledRowMapper.ColumnMapping(rsw.getColumnIndex(column), property, typeHandler, primitive, setter, mapEntry);
+    }
+
     private void storeObject(ResultHandler<?> resultHandler, DefaultResultContext<Object> resultContext, Object rowValue, ResultMapping parentMapping, ResultSet rs) throws SQLException {
         if (parentMapping != null) {
             // 嵌套查询或者嵌套映射，将结果对保存到福对象对应的属性中
@@ -1094,7 +1354,20 @@ public class DefaultResultSetHandler implements ResultSetHandler {
         // 获得嵌套子查询的参数类型
         final Class<?> nestedQueryParameterType = nestedQuery.getParameterMap().getType();
         // 2. 准备好嵌套子查询的入参
-        final Object nestedQueryParameterObject = prepareParameterForNestedQuery(rs, propertyMapping, nestedQueryParameterType, columnPrefix);
+        final Object nestedQueryParameterObject;
+        if (propertyMapping.getBatchSize() > 0) {
+            // 批量执行的嵌套查询的入参是键值列表
+            Object batchKey = prepareSimpleKeyParameter(rs, propertyMapping, Object.class, columnPrefix);
+            if (batchKey != null && pendingBatchLoads != null && !propertyMapping.isLazy()) {
+                // 记录下来，在处理完所有记录后批量执行
+                pendingBatchLoads.computeIfAbsent(propertyMapping, PendingBatchLoad::new).add(metaResultObject, batchKey);
+                return DEFERRED;
+            }
+            nestedQueryParameterObject = batchKey == null ? null
+                : ParamNameResolver.wrapToMapIfCollection(Collections.singletonList(batchKey), null);
+        } else {
+            nestedQueryParameterObject = prepareParameterForNestedQuery(rs, propertyMapping, nestedQueryParameterType, columnPrefix);
+        }
         Object value = null;
         if (nestedQueryParameterObject != null) {
             // 获取嵌套查询对应的BoundSql对象和相应的CacheKey对象
@@ -1122,6 +1395,100 @@ public class DefaultResultSetHandler implements ResultSetHandler {
         return value;
     }
 
+    /**
+     * 批量执行等待中的嵌套查询，每一批最多 batchSize 个键值，再按子对象的 batchKey 属性将结果分配给各个父对象。
+     * 与逐行加载一样，每个键值按单个键值的参数计算 CacheKey：已经缓存或者正在加载（循环引用）的键值通过 deferLoad 加载，
+     * 其余键值在批量查询执行期间于一级缓存中放入占位符，查询完成后分别放入各自的结果
+     */
+    private void loadPendingBatches() throws SQLException {
+        if (pendingBatchLoads == null || pendingBatchLoads.isEmpty()) {
+            return;
+        }
+        List<PendingBatchLoad> loads = new ArrayList<>(pendingBatchLoads.values());
+        pendingBatchLoads.clear();
+        for (PendingBatchLoad load : loads) {
+            ResultMapping propertyMapping = load.propertyMapping;
+            MappedStatement nestedQuery = configuration.getMappedStatement(propertyMapping.getNestedQueryId());
+            // 1. 计算每个键值的 CacheKey，找出需要查询的键值
+            Map<Object, CacheKey> cacheKeys = new HashMap<>();
+            List<Object> keys = new ArrayList<>();
+            for (Map.Entry<Object, Object> entry : load.keys.entrySet()) {
+                Object parameterObject = ParamNameResolver.wrapToMapIfCollection(Collections.singletonList(entry.getValue()), null);
+                CacheKey cacheKey = executor.createCacheKey(nestedQuery, parameterObject, RowBounds.DEFAULT, nestedQuery.getBoundSql(parameterObject));
+                cacheKeys.put(entry.getKey(), cacheKey);
+                if (!executor.isCached(nestedQuery, cacheKey)) {
+                    keys.add(entry.getKey());
+                }
+            }
+            Set<Object> loadedKeys = new HashSet<>(keys);
+            // 2. 分批执行嵌套查询，按子对象的键值分组
+            Map<Object, List<Object>> childrenByKey = new HashMap<>();
+            for (int from = 0; from < keys.size(); from += propertyMapping.getBatchSize()) {
+                List<Object> batch = keys.subList(from, Math.min(from + propertyMapping.getBatchSize(), keys.size()));
+                // 只有一个键值时，批量查询的 CacheKey 就是该键值的 CacheKey，由 Executor 自己放入占位符和结果
+                boolean singleKey = batch.size() == 1;
+                List<Object> batchParameter = new ArrayList<>(batch.size());
+                for (Object key : batch) {
+                    batchParameter.add(load.keys.get(key));
+                    if (!singleKey) {
+                        executor.startLocalLoad(cacheKeys.get(key));
+                    }
+                }
+                List<Object> children = null;
+                try {
+                    children = executor.query(nestedQuery, ParamNameResolver.wrapToMapIfCollection(batchParameter, null),
+                        RowBounds.DEFAULT, Executor.NO_RESULT_HANDLER);
+                } finally {
+                    if (children == null && !singleKey) {
+                        for (Object key : batch) {
+                            executor.finishLocalLoad(cacheKeys.get(key), null);
+                        }
+                    }
+                }
+                for (Object child : children) {
+                    Object childKey = normalizeBatchKey(configuration.newMetaObject(child).getValue(propertyMapping.getBatchKey()));
+                    childrenByKey.computeIfAbsent(childKey, k -> new ArrayList<>()).add(child);
+                }
+                for (Object key : batch) {
+                    List<Object> keyChildren = childrenByKey.computeIfAbsent(key, k -> new ArrayList<>());
+                    if (!singleKey) {
+                        executor.finishLocalLoad(cacheKeys.get(key), keyChildren);
+                    }
+                }
+            }
+            // 3. 将结果设置到各个父对象中
+            ResultExtractor resultExtractor = new ResultExtractor(configuration, objectFactory);
+            for (int i = 0; i < load.targets.size(); i++) {
+                Object key = load.targetKeys.get(i);
+                MetaObject target = load.targets.get(i);
+                if (!loadedKeys.contains(key)) {
+                    executor.deferLoad(nestedQuery, target, propertyMapping.getProperty(), cacheKeys.get(key), propertyMapping.getJavaType());
+                    continue;
+                }
+                Object value = resultExtractor.extractObjectFromList(new ArrayList<>(childrenByKey.get(key)), propertyMapping.getJavaType());
+                if (value != null || configuration.isCallSettersOnNulls() && !propertyMapping.getJavaType().isPrimitive()) {
+                    target.setValue(propertyMapping.getProperty(), value);
+                }
+            }
+        }
+    }
+
+    /**
+     * 父对象的列值和子对象的属性值可能是不同的数字类型，例如 Integer 和 Long，统一转换后再比较
+     */
+    private static Object normalizeBatchKey(Object key) {
+        if (key instanceof BigDecimal) {
+            return ((BigDecimal) key).stripTrailingZeros();
+        }
+        if (key instanceof Double || key instanceof Float) {
+            return BigDecimal.valueOf(((Number) key).doubleValue()).stripTrailingZeros();
+        }
+        if (key instanceof Number) {
+            return new BigDecimal(key.toString()).stripTrailingZeros();
+        }
+        return key;
+    }
+
     private Object prepareParameterForNestedQuery(ResultSet rs, ResultMapping resultMapping, Class<?> parameterType, String columnPrefix) throws SQLException {
         if (resultMapping.isCompositeResult()) {    // 嵌套子查询是否有多个属性映射
             // 从结果集中获取多个属性值设置到入参对象中
@@ -74,6 +74,7 @@ public class ResultSetWrapper {
      * value：ResultMap 对象未被映射的列名集合
      */
     private final Map<String, List<String>> unMappedColumnNamesMap = new HashMap<>();
+    private String columnLayout;
 
     public ResultSetWrapper(ResultSet rs, Configuration configuration) throws SQLException {
         super();
@@ -117,6 +118,35 @@ public class ResultSetWrapper {
         return null;
     }
 
+    /**
+     * 获取列在结果集中的索引（从 1 开始），与 ResultSet 按列名读取一样忽略大小写并取第一个匹配的列
+     *
+     * @param columnName the column name
+     * @return the column index, or -1 if the result set does not contain the column
+     */
+    public int getColumnIndex(String columnName) {
+        for (int i = 0; i < columnNames.size(); i++) {
+            if (columnNames.get(i).equalsIgnoreCase(columnName)) {
+                return i + 1;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * 结果集的列布局（列名、Jdbc Type、Java Type），列布局相同的结果集会解析出相同的 TypeHandler
+     */
+    public String getColumnLayout() {
+        if (columnLayout == null) {
+            final StringBuilder layout = new StringBuilder();
+            for (int i = 0; i < columnNames.size(); i++) {
+                layout.append(columnNames.get(i)).append(':').append(jdbcTypes.get(i)).append(':').append(classNames.get(i)).append(',');
+            }
+            columnLayout = layout.toString();
+        }
+        return columnLayout;
+    }
+
     /**
      * Gets the type handler to use when reading the result set.
      * Tries to get from the TypeHandlerRegistry by searching for the property type.
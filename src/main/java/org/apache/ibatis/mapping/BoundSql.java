@@ -63,6 +63,26 @@ public class BoundSql {
         this.metaParameters = configuration.newMetaObject(additionalParameters);
     }
 
+    private BoundSql(BoundSql boundSql, String sql) {
+        this.sql = sql;
+        this.parameterMappings = boundSql.parameterMappings;
+        this.parameterObject = boundSql.parameterObject;
+        this.additionalParameters = boundSql.additionalParameters;
+        this.metaParameters = boundSql.metaParameters;
+    }
+
+    /**
+     * Creates a copy of this bound sql with another sql string. The copy shares the parameter mappings and the
+     * additional parameters with this instance.
+     *
+     * @param sql the new sql string
+     * @return the copy
+     * @since 3.5.9
+     */
+    public BoundSql withSql(String sql) {
+        return new BoundSql(this, sql);
+    }
+
     public String getSql() {
         return sql;
     }
@@ -24,11 +24,14 @@ import java.util.Properties;
 import org.apache.ibatis.builder.InitializingObject;
 import org.apache.ibatis.cache.Cache;
 import org.apache.ibatis.cache.CacheException;
+import org.apache.ibatis.cache.ConcurrentCache;
 import org.apache.ibatis.cache.decorators.BlockingCache;
+import org.apache.ibatis.cache.decorators.ExpiringCache;
 import org.apache.ibatis.cache.decorators.LoggingCache;
 import org.apache.ibatis.cache.decorators.LruCache;
 import org.apache.ibatis.cache.decorators.ScheduledCache;
 import org.apache.ibatis.cache.decorators.SerializedCache;
+import org.apache.ibatis.cache.decorators.SingleFlightCache;
 import org.apache.ibatis.cache.decorators.SynchronizedCache;
 import org.apache.ibatis.cache.impl.PerpetualCache;
 import org.apache.ibatis.reflection.MetaObject;
@@ -46,6 +49,11 @@ public class CacheBuilder {
   private boolean readWrite;
   private Properties properties;
   private boolean blocking;
+  private Long timeToLive;
+  private Double timeToLiveJitter;
+  private Double refreshAhead;
+  private boolean singleFlight;
+  private Long singleFlightTimeout;
 
   public CacheBuilder(String id) {
     this.id = id;
@@ -84,6 +92,56 @@ public class CacheBuilder {
     return this;
   }
 
+  /**
+   * Expires each entry on its own once the given milliseconds have elapsed.
+   *
+   * @since 3.5.9
+   */
+  public CacheBuilder timeToLive(Long timeToLive) {
+    this.timeToLive = timeToLive;
+    return this;
+  }
+
+  /**
+   * The largest fraction by which the time to live of an entry is randomly shortened.
+   *
+   * @since 3.5.9
+   */
+  public CacheBuilder timeToLiveJitter(Double timeToLiveJitter) {
+    this.timeToLiveJitter = timeToLiveJitter;
+    return this;
+  }
+
+  /**
+   * The fraction of the time to live after which a hit reloads the entry in the background.
+   *
+   * @since 3.5.9
+   */
+  public CacheBuilder refreshAhead(Double refreshAhead) {
+    this.refreshAhead = refreshAhead;
+    return this;
+  }
+
+  /**
+   * Coalesces concurrent misses of the same key into one query. Supersedes {@link #blocking(boolean)}.
+   *
+   * @since 3.5.9
+   */
+  public CacheBuilder singleFlight(boolean singleFlight) {
+    this.singleFlight = singleFlight;
+    return this;
+  }
+
+  /**
+   * The milliseconds a miss waits for the query of another one before running its own.
+   *
+   * @since 3.5.9
+   */
+  public CacheBuilder singleFlightTimeout(Long singleFlightTimeout) {
+    this.singleFlightTimeout = singleFlightTimeout;
+    return this;
+  }
+
   public CacheBuilder properties(Properties properties) {
     this.properties = properties;
     return this;
@@ -121,18 +179,50 @@ public class CacheBuilder {
       if (size != null && metaCache.hasSetter("size")) {
         metaCache.setValue("size", size);
       }
+      // the decorators added below only keep timestamps and statistics, the entries are guarded by the cache itself
+      boolean concurrent = cache instanceof ConcurrentCache;
+      SerializedCache serializedCache = null;
       if (clearInterval != null) {
         cache = new ScheduledCache(cache);
         ((ScheduledCache) cache).setClearInterval(clearInterval);
       }
       if (readWrite) {
-        cache = new SerializedCache(cache);
+        serializedCache = new SerializedCache(cache);
+        // serializer, copyStrategy
+        setCacheProperties(serializedCache);
+        cache = serializedCache;
       }
       cache = new LoggingCache(cache);
-      cache = new SynchronizedCache(cache);
-      if (blocking) {
+      if (!concurrent) {
+        cache = new SynchronizedCache(cache);
+      }
+      Cache storage = cache;
+      if (blocking && !singleFlight) {
         cache = new BlockingCache(cache);
       }
+      if (timeToLive != null) {
+        ExpiringCache expiringCache = new ExpiringCache(cache, storage);
+        expiringCache.setTimeToLive(timeToLive);
+        if (timeToLiveJitter != null) {
+          expiringCache.setJitter(timeToLiveJitter);
+        }
+        if (refreshAhead != null) {
+          expiringCache.setRefreshAhead(refreshAhead);
+        }
+        cache = expiringCache;
+      }
+      if (singleFlight) {
+        SingleFlightCache singleFlightCache = new SingleFlightCache(cache);
+        if (serializedCache != null) {
+          // the waiters get copies made the same way as the cache hits
+          singleFlightCache.setSerializer(serializedCache.getSerializer());
+          singleFlightCache.setCopier(serializedCache.getCopier());
+        }
+        if (singleFlightTimeout != null) {
+          singleFlightCache.setTimeout(singleFlightTimeout);
+        }
+        cache = singleFlightCache;
+      }
       return cache;
     } catch (Exception e) {
       throw new CacheException("Error building standard cache decorators.  Cause: " + e, e);
@@ -90,6 +90,18 @@ public final class MappedStatement {
      * 这就使得在获取嵌套结果集的时候不至于内存不够用
      */
     private boolean resultOrdered;
+    /**
+     * 是否在 fork-join 线程池中并行创建结果对象，仅对简单 ResultMap 生效
+     */
+    private boolean parallelMapping;
+    /**
+     * 需要分批执行的集合参数的名称
+     */
+    private String chunkParameter;
+    /**
+     * 每一批的元素个数，不大于 0 表示不分批
+     */
+    private int chunkSize;
     /**
      * SQL 语句类型
      */
@@ -215,6 +227,21 @@ public final class MappedStatement {
             return this;
         }
 
+        public Builder parallelMapping(boolean parallelMapping) {
+            mappedStatement.parallelMapping = parallelMapping;
+            return this;
+        }
+
+        public Builder chunkParameter(String chunkParameter) {
+            mappedStatement.chunkParameter = chunkParameter;
+            return this;
+        }
+
+        public Builder chunkSize(int chunkSize) {
+            mappedStatement.chunkSize = chunkSize;
+            return this;
+        }
+
         public Builder keyGenerator(KeyGenerator keyGenerator) {
             mappedStatement.keyGenerator = keyGenerator;
             return this;
@@ -336,6 +363,36 @@ public final class MappedStatement {
         return resultOrdered;
     }
 
+    /**
+     * Whether result objects of this statement are built in parallel.
+     *
+     * @return true if the rows are read on the calling thread and mapped on the fork-join pool
+     * @since 3.5.9
+     */
+    public boolean isParallelMapping() {
+        return parallelMapping;
+    }
+
+    /**
+     * Gets the name of the collection parameter that is split into chunks.
+     *
+     * @return the parameter name, or {@code null} if the statement is not chunked
+     * @since 3.5.9
+     */
+    public String getChunkParameter() {
+        return chunkParameter;
+    }
+
+    /**
+     * Gets the maximum number of collection elements passed to a single execution of this statement.
+     *
+     * @return the chunk size; zero or less if the statement is not chunked
+     * @since 3.5.9
+     */
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
     public String getDatabaseId() {
         return databaseId;
     }
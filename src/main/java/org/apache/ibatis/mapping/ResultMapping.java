@@ -77,6 +77,14 @@ public class ResultMapping {
     private String resultSet;
     private String foreignColumn;
     private boolean lazy;
+    /**
+     * 批量执行嵌套查询时，每一批的最大键数，不大于 0 表示逐行执行
+     */
+    private int batchSize;
+    /**
+     * 批量执行嵌套查询时，子对象中保存父对象键值的属性
+     */
+    private String batchKey;
 
     ResultMapping() {
     }
@@ -164,6 +172,16 @@ public class ResultMapping {
             return this;
         }
 
+        public Builder batchSize(int batchSize) {
+            resultMapping.batchSize = batchSize;
+            return this;
+        }
+
+        public Builder batchKey(String batchKey) {
+            resultMapping.batchKey = batchKey;
+            return this;
+        }
+
         public ResultMapping build() {
             // lock down collections
             resultMapping.flags = Collections.unmodifiableList(resultMapping.flags);
@@ -186,6 +204,18 @@ public class ResultMapping {
             if (resultMapping.nestedResultMapId == null && resultMapping.column == null && resultMapping.composites.isEmpty()) {
                 throw new IllegalStateException("Mapping is missing column attribute for property " + resultMapping.property);
             }
+            if (resultMapping.batchSize > 0) {
+                if (resultMapping.nestedQueryId == null || resultMapping.batchKey == null) {
+                    throw new IllegalStateException("Batched property " + resultMapping.property + " requires a nested select and a batchKey");
+                }
+                if (!resultMapping.composites.isEmpty()) {
+                    throw new IllegalStateException("Batched property " + resultMapping.property + " cannot use a composite column");
+                }
+                // 构造参数在创建结果对象时就需要，不能等到批量查询执行完再设置
+                if (resultMapping.flags.contains(ResultFlag.CONSTRUCTOR)) {
+                    throw new IllegalStateException("Batched property " + resultMapping.property + " cannot be a constructor argument");
+                }
+            }
             if (resultMapping.getResultSet() != null) {
                 int numColumns = 0;
                 if (resultMapping.column != null) {
@@ -283,6 +313,26 @@ public class ResultMapping {
         this.lazy = lazy;
     }
 
+    /**
+     * Gets the maximum number of parent keys passed to one execution of the nested select.
+     *
+     * @return the batch size; zero or less if the nested select is executed per row
+     * @since 3.5.9
+     */
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    /**
+     * Gets the property of the nested select results that holds the key of their parent.
+     *
+     * @return the batch key property
+     * @since 3.5.9
+     */
+    public String getBatchKey() {
+        return batchKey;
+    }
+
     public boolean isSimple() {
         return this.nestedResultMapId == null && this.nestedQueryId == null && this.resultSet == null;
     }
@@ -15,9 +15,14 @@
  */
 package org.apache.ibatis.plugin;
 
+import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.ibatis.util.MapUtil;
 
 /**
  * @author Clinton Begin
@@ -26,21 +31,88 @@ public class InterceptorChain {
 
     private final List<Interceptor> interceptors = new ArrayList<>();
 
+    /**
+     * 按顺序分好的段：使用默认 {@link Interceptor#plugin(Object)} 的相邻拦截器合并为一段，只创建一层代理；
+     * 重写了 plugin 方法的拦截器单独成段，仍然调用它自己的 plugin 方法
+     */
+    private volatile List<Segment> segments;
+
     public Object pluginAll(Object target) {
-        // 遍历拦截器集合
-        for (Interceptor interceptor : interceptors) {
-            // 调用拦截器的 plugin 方法植入相应的插件逻辑
-            target = interceptor.plugin(target);
+        // 遍历拦截器分段，植入相应的插件逻辑
+        for (Segment segment : getSegments()) {
+            target = segment.plugin(target);
         }
         return target;
     }
 
     public void addInterceptor(Interceptor interceptor) {
         interceptors.add(interceptor);
+        segments = null;
     }
 
     public List<Interceptor> getInterceptors() {
         return Collections.unmodifiableList(interceptors);
     }
 
+    private List<Segment> getSegments() {
+        List<Segment> result = segments;
+        if (result == null) {
+            result = new ArrayList<>();
+            List<Interceptor> run = new ArrayList<>();
+            for (Interceptor interceptor : interceptors) {
+                if (usesDefaultPlugin(interceptor)) {
+                    run.add(interceptor);
+                    continue;
+                }
+                if (!run.isEmpty()) {
+                    result.add(new Segment(run));
+                    run = new ArrayList<>();
+                }
+                result.add(new Segment(interceptor));
+            }
+            if (!run.isEmpty()) {
+                result.add(new Segment(run));
+            }
+            segments = result;
+        }
+        return result;
+    }
+
+    private static boolean usesDefaultPlugin(Interceptor interceptor) {
+        try {
+            Method plugin = interceptor.getClass().getMethod("plugin", Object.class);
+            return plugin.getDeclaringClass() == Interceptor.class;
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+
+    private static final class Segment {
+        private final Interceptor interceptor;
+        /**
+         * 由外到内的顺序，即注册顺序的倒序（后注册的拦截器包装在外层）
+         */
+        private final List<Interceptor> layers;
+        private final Map<Class<?>, PluginChain.Resolution> resolutions = new ConcurrentHashMap<>();
+
+        private Segment(Interceptor interceptor) {
+            this.interceptor = interceptor;
+            this.layers = null;
+        }
+
+        private Segment(List<Interceptor> run) {
+            this.interceptor = null;
+            this.layers = new ArrayList<>(run);
+            Collections.reverse(this.layers);
+        }
+
+        private Object plugin(Object target) {
+            if (interceptor != null) {
+                return interceptor.plugin(target);
+            }
+            PluginChain.Resolution resolution = MapUtil.computeIfAbsent(resolutions, target.getClass(), type -> PluginChain.resolve(type, layers));
+            return PluginChain.wrap(target, resolution);
+        }
+    }
+
 }
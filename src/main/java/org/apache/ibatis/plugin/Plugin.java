@@ -22,6 +22,7 @@ import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.ibatis.reflection.ExceptionUtil;
 import org.apache.ibatis.util.MapUtil;
@@ -49,6 +50,11 @@ public class Plugin implements InvocationHandler {
      */
     private final Map<Class<?>, Set<Method>> signatureMap;
 
+    /**
+     * 拦截器类对应的拦截方法映射，@Intercepts 注解定义在类上，所以按类缓存
+     */
+    private static final Map<Class<?>, Map<Class<?>, Set<Method>>> signatureMapCache = new ConcurrentHashMap<>();
+
     private Plugin(Object target, Interceptor interceptor, Map<Class<?>, Set<Method>> signatureMap) {
         this.target = target;
         this.interceptor = interceptor;
@@ -90,7 +96,11 @@ public class Plugin implements InvocationHandler {
         }
     }
 
-    private static Map<Class<?>, Set<Method>> getSignatureMap(Interceptor interceptor) {
+    static Map<Class<?>, Set<Method>> getSignatureMap(Interceptor interceptor) {
+        return MapUtil.computeIfAbsent(signatureMapCache, interceptor.getClass(), k -> resolveSignatureMap(interceptor));
+    }
+
+    private static Map<Class<?>, Set<Method>> resolveSignatureMap(Interceptor interceptor) {
         // 获取 @Intercepts 注解
         Intercepts interceptsAnnotation = interceptor.getClass().getAnnotation(Intercepts.class);
         // issue #251
@@ -114,7 +124,7 @@ public class Plugin implements InvocationHandler {
         return signatureMap;
     }
 
-    private static Class<?>[] getAllInterfaces(Class<?> type, Map<Class<?>, Set<Method>> signatureMap) {
+    static Class<?>[] getAllInterfaces(Class<?> type, Map<Class<?>, Set<Method>> signatureMap) {
         // 接口的集合
         Set<Class<?>> interfaces = new HashSet<>();
         // 循环递归 type 类，机器父类
@@ -0,0 +1,230 @@
+/*
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.plugin;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.lang.reflect.UndeclaredThrowableException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.ibatis.reflection.ExceptionUtil;
+
+/**
+ * 将多个拦截器合并到一层 JDK 动态代理中，效果与依次调用 {@link Plugin#wrap(Object, Interceptor)} 一致：
+ * 后注册的拦截器先执行，{@link Invocation#proceed()} 调用下一个匹配该方法的拦截器，最后调用目标对象的方法，
+ * {@link Invocation#getTarget()} 返回由剩余拦截器组成的代理对象（没有剩余拦截器时返回目标对象）
+ * <p>
+ * 每个目标类型对应的拦截计划 {@link Resolution} 只解析一次，不匹配方法签名的拦截器不会参与调用
+ * @since 3.5.9
+ */
+public class PluginChain implements InvocationHandler {
+
+    /**
+     * 目标对象
+     */
+    private final Object target;
+    private final Resolution resolution;
+    /**
+     * 从第几层拦截器开始执行，{@link Invocation#getTarget()} 返回的代理对象会跳过外层的拦截器
+     */
+    private final int fromLayer;
+    /**
+     * 延迟创建的、由剩余拦截器组成的代理对象，下标为开始的层
+     */
+    private final Object[] innerProxies;
+
+    private PluginChain(Object target, Resolution resolution, int fromLayer, Object[] innerProxies) {
+        this.target = target;
+        this.resolution = resolution;
+        this.fromLayer = fromLayer;
+        this.innerProxies = innerProxies;
+    }
+
+    /**
+     * 解析拦截器（按由外到内的顺序）对目标类型的拦截计划
+     */
+    public static Resolution resolve(Class<?> type, List<Interceptor> interceptors) {
+        final List<Interceptor> layers = new ArrayList<>();
+        final List<Map<Class<?>, Set<Method>>> signatureMaps = new ArrayList<>();
+        final Set<Class<?>> interfaces = new LinkedHashSet<>();
+        for (Interceptor interceptor : interceptors) {
+            Map<Class<?>, Set<Method>> signatureMap = Plugin.getSignatureMap(interceptor);
+            Class<?>[] interceptedInterfaces = Plugin.getAllInterfaces(type, signatureMap);
+            // 与 Plugin.wrap 一致，没有需要拦截的接口时不会创建这一层代理
+            if (interceptedInterfaces.length > 0) {
+                layers.add(interceptor);
+                signatureMaps.add(signatureMap);
+                interfaces.addAll(Arrays.asList(interceptedInterfaces));
+            }
+        }
+        final Map<Method, MethodChain> methodChains = new HashMap<>();
+        for (Class<?> intercepted : interfaces) {
+            for (Method method : intercepted.getMethods()) {
+                List<Integer> matchedLayers = new ArrayList<>();
+                for (int layer = 0; layer < layers.size(); layer++) {
+                    Set<Method> methods = signatureMaps.get(layer).get(method.getDeclaringClass());
+                    if (methods != null && methods.contains(method)) {
+                        matchedLayers.add(layer);
+                    }
+                }
+                if (!matchedLayers.isEmpty()) {
+                    methodChains.put(method, new MethodChain(layers, matchedLayers));
+                }
+            }
+        }
+        return new Resolution(interfaces.toArray(new Class<?>[0]), layers.size(), methodChains);
+    }
+
+    /**
+     * 使用解析好的拦截计划为目标对象创建一个代理对象，没有需要拦截的接口时返回目标对象
+     */
+    public static Object wrap(Object target, Resolution resolution) {
+        if (resolution.layerCount == 0) {
+            return target;
+        }
+        return newProxy(new PluginChain(target, resolution, 0, new Object[resolution.layerCount]));
+    }
+
+    private static Object newProxy(PluginChain pluginChain) {
+        return Proxy.newProxyInstance(pluginChain.target.getClass().getClassLoader(), pluginChain.resolution.interfaces, pluginChain);
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        try {
+            MethodChain methodChain = resolution.methodChains.get(method);
+            int index = methodChain == null ? -1 : methodChain.firstIndexFrom(fromLayer);
+            if (index >= 0) {
+                return methodChain.interceptors[index].intercept(new ChainedInvocation(this, methodChain, index, method, args));
+            }
+            // 如果没有需要被拦截的方法，则调用原方法
+            return method.invoke(target, args);
+        } catch (Exception e) {
+            throw ExceptionUtil.unwrapThrowable(e);
+        }
+    }
+
+    /**
+     * 第 layer 层拦截器看到的目标对象：由内层拦截器组成的代理对象，没有内层拦截器时为目标对象
+     */
+    private Object getTargetOf(int layer) {
+        final int innerLayer = layer + 1;
+        if (innerLayer >= resolution.layerCount) {
+            return target;
+        }
+        Object innerProxy = innerProxies[innerLayer];
+        if (innerProxy == null) {
+            innerProxy = newProxy(new PluginChain(target, resolution, innerLayer, innerProxies));
+            innerProxies[innerLayer] = innerProxy;
+        }
+        return innerProxy;
+    }
+
+    /**
+     * 目标类型的拦截计划
+     */
+    public static final class Resolution {
+        private final Class<?>[] interfaces;
+        private final int layerCount;
+        private final Map<Method, MethodChain> methodChains;
+
+        private Resolution(Class<?>[] interfaces, int layerCount, Map<Method, MethodChain> methodChains) {
+            this.interfaces = interfaces;
+            this.layerCount = layerCount;
+            this.methodChains = methodChains;
+        }
+    }
+
+    /**
+     * 拦截某个方法的拦截器，按由外到内的顺序
+     */
+    private static final class MethodChain {
+        private final Interceptor[] interceptors;
+        private final int[] layers;
+
+        private MethodChain(List<Interceptor> allLayers, List<Integer> matchedLayers) {
+            this.interceptors = new Interceptor[matchedLayers.size()];
+            this.layers = new int[matchedLayers.size()];
+            for (int i = 0; i < layers.length; i++) {
+                layers[i] = matchedLayers.get(i);
+                interceptors[i] = allLayers.get(layers[i]);
+            }
+        }
+
+        private int firstIndexFrom(int fromLayer) {
+            for (int i = 0; i < layers.length; i++) {
+                if (layers[i] >= fromLayer) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+    }
+
+    private static final class ChainedInvocation extends Invocation {
+        private final PluginChain pluginChain;
+        private final MethodChain methodChain;
+        private final int index;
+
+        private ChainedInvocation(PluginChain pluginChain, MethodChain methodChain, int index, Method method, Object[] args) {
+            super(pluginChain.target, method, args);
+            this.pluginChain = pluginChain;
+            this.methodChain = methodChain;
+            this.index = index;
+        }
+
+        @Override
+        public Object getTarget() {
+            return pluginChain.getTargetOf(methodChain.layers[index]);
+        }
+
+        @Override
+        public Object proceed() throws InvocationTargetException, IllegalAccessException {
+            final int next = index + 1;
+            if (next >= methodChain.interceptors.length) {
+                return getMethod().invoke(pluginChain.target, getArgs());
+            }
+            try {
+                return methodChain.interceptors[next].intercept(new ChainedInvocation(pluginChain, methodChain, next, getMethod(), getArgs()));
+            } catch (Throwable t) {
+                // 与通过 Method.invoke 调用内层代理对象时抛出的异常一致
+                throw new InvocationTargetException(asDeclaredThrowable(t));
+            }
+        }
+
+        private Throwable asDeclaredThrowable(Throwable t) {
+            final Throwable unwrapped = t instanceof Exception ? ExceptionUtil.unwrapThrowable(t) : t;
+            if (unwrapped instanceof RuntimeException || unwrapped instanceof Error) {
+                return unwrapped;
+            }
+            for (Class<?> exceptionType : getMethod().getExceptionTypes()) {
+                if (exceptionType.isInstance(unwrapped)) {
+                    return unwrapped;
+                }
+            }
+            return new UndeclaredThrowableException(unwrapped);
+        }
+    }
+
+}
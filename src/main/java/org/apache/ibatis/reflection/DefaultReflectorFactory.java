@@ -18,6 +18,8 @@ package org.apache.ibatis.reflection;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 
+import org.apache.ibatis.reflection.invoker.DefaultInvokerFactory;
+import org.apache.ibatis.reflection.invoker.InvokerFactory;
 import org.apache.ibatis.util.MapUtil;
 
 /**
@@ -35,8 +37,20 @@ public class DefaultReflectorFactory implements ReflectorFactory {
      * VALUE：Reflector 对象
      */
     private final ConcurrentMap<Class<?>, Reflector> reflectorMap = new ConcurrentHashMap<>();
+    /**
+     * 创建 Reflector 中 Invoker 对象的策略
+     */
+    private final InvokerFactory invokerFactory;
 
     public DefaultReflectorFactory() {
+        this(new DefaultInvokerFactory());
+    }
+
+    /**
+     * @since 3.5.9
+     */
+    public DefaultReflectorFactory(InvokerFactory invokerFactory) {
+        this.invokerFactory = invokerFactory;
     }
 
     @Override
@@ -53,10 +67,14 @@ public class DefaultReflectorFactory implements ReflectorFactory {
     public Reflector findForClass(Class<?> type) {
         if (classCacheEnabled) {
             // synchronized (type) removed see issue #461
-            return MapUtil.computeIfAbsent(reflectorMap, type, Reflector::new);
+            return MapUtil.computeIfAbsent(reflectorMap, type, this::newReflector);
         } else {
-            return new Reflector(type);
+            return newReflector(type);
         }
     }
 
+    private Reflector newReflector(Class<?> type) {
+        return new Reflector(type, invokerFactory);
+    }
+
 }
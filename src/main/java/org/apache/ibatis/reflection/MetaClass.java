@@ -23,6 +23,7 @@ import java.util.Collection;
 
 import org.apache.ibatis.reflection.invoker.GetFieldInvoker;
 import org.apache.ibatis.reflection.invoker.Invoker;
+import org.apache.ibatis.reflection.invoker.LambdaGetInvoker;
 import org.apache.ibatis.reflection.invoker.MethodInvoker;
 import org.apache.ibatis.reflection.property.PropertyTokenizer;
 
@@ -125,6 +126,9 @@ public class MetaClass {
         declaredField.setAccessible(true);
         Field field = (Field) declaredField.get(invoker);
         return TypeParameterResolver.resolveFieldType(field, reflector.getType());
+      } else if (invoker instanceof LambdaGetInvoker) {
+        Method method = ((LambdaGetInvoker) invoker).getMember();
+        return TypeParameterResolver.resolveReturnType(method, reflector.getType());
       }
     } catch (NoSuchFieldException | IllegalAccessException e) {
       // Ignored
@@ -35,10 +35,10 @@ import java.util.Map;
 import java.util.Map.Entry;
 
 import org.apache.ibatis.reflection.invoker.AmbiguousMethodInvoker;
-import org.apache.ibatis.reflection.invoker.GetFieldInvoker;
+import org.apache.ibatis.reflection.invoker.DefaultInvokerFactory;
 import org.apache.ibatis.reflection.invoker.Invoker;
+import org.apache.ibatis.reflection.invoker.InvokerFactory;
 import org.apache.ibatis.reflection.invoker.MethodInvoker;
-import org.apache.ibatis.reflection.invoker.SetFieldInvoker;
 import org.apache.ibatis.reflection.property.PropertyNamer;
 import org.apache.ibatis.util.MapUtil;
 
@@ -102,10 +102,22 @@ public class Reflector {
      * value 为属性名称
      */
     private Map<String, String> caseInsensitivePropertyMap = new HashMap<>();
+    /**
+     * 创建 getter、setter 对应的 Invoker 对象
+     */
+    private final InvokerFactory invokerFactory;
 
     public Reflector(Class<?> clazz) {
+        this(clazz, new DefaultInvokerFactory());
+    }
+
+    /**
+     * @since 3.5.9
+     */
+    public Reflector(Class<?> clazz, InvokerFactory invokerFactory) {
         // 设置对应的类
         type = clazz;
+        this.invokerFactory = invokerFactory;
         // 1. 初始化 defaultConstructor 默认构造器，也就是无参构造器
         addDefaultConstructor(clazz);
         // 2. 初始化 getMethods 和 getTypes
@@ -172,11 +184,11 @@ public class Reflector {
     }
 
     private void addGetMethod(String name, Method method, boolean isAmbiguous) {
-        MethodInvoker invoker = isAmbiguous
+        Invoker invoker = isAmbiguous
             ? new AmbiguousMethodInvoker(method, MessageFormat.format(
             "Illegal overloaded getter method with ambiguous type for property ''{0}'' in class ''{1}''. This breaks the JavaBeans specification and can cause unpredictable results.",
             name, method.getDeclaringClass().getName()))
-            : new MethodInvoker(method);
+            : invokerFactory.newMethodInvoker(method);
         getMethods.put(name, invoker);
         Type returnType = TypeParameterResolver.resolveReturnType(method, type);
         getTypes.put(name, typeToClass(returnType));
@@ -243,7 +255,7 @@ public class Reflector {
     }
 
     private void addSetMethod(String name, Method method) {
-        MethodInvoker invoker = new MethodInvoker(method);
+        Invoker invoker = invokerFactory.newMethodInvoker(method);
         setMethods.put(name, invoker);
         Type[] paramTypes = TypeParameterResolver.resolveParamTypes(method, type);
         setTypes.put(name, typeToClass(paramTypes[0]));
@@ -293,7 +305,7 @@ public class Reflector {
 
     private void addSetField(Field field) {
         if (isValidPropertyName(field.getName())) {
-            setMethods.put(field.getName(), new SetFieldInvoker(field));
+            setMethods.put(field.getName(), invokerFactory.newSetFieldInvoker(field));
             Type fieldType = TypeParameterResolver.resolveFieldType(field, type);
             setTypes.put(field.getName(), typeToClass(fieldType));
         }
@@ -301,7 +313,7 @@ public class Reflector {
 
     private void addGetField(Field field) {
         if (isValidPropertyName(field.getName())) {
-            getMethods.put(field.getName(), new GetFieldInvoker(field));
+            getMethods.put(field.getName(), invokerFactory.newGetFieldInvoker(field));
             Type fieldType = TypeParameterResolver.resolveFieldType(field, type);
             getTypes.put(field.getName(), typeToClass(fieldType));
         }
@@ -0,0 +1,68 @@
+/*
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.reflection.invoker;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+
+/**
+ * Reads a property through a functional accessor created by {@link LambdaInvokerFactory}.
+ * @since 3.5.9
+ */
+public class LambdaGetInvoker implements Invoker {
+
+  /**
+   * Functional form of a getter method.
+   */
+  @FunctionalInterface
+  public interface Getter {
+    Object get(Object target) throws Throwable;
+  }
+
+  private final Getter getter;
+  private final Class<?> type;
+  private final Method member;
+
+  public LambdaGetInvoker(Getter getter, Class<?> type, Method member) {
+    this.getter = getter;
+    this.type = type;
+    this.member = member;
+  }
+
+  /**
+   * Returns the getter method this invoker calls.
+   *
+   * @return the getter method
+   */
+  public Method getMember() {
+    return member;
+  }
+
+  @Override
+  public Object invoke(Object target, Object[] args) throws InvocationTargetException {
+    try {
+      return getter.get(target);
+    } catch (Throwable t) {
+      // same contract as Method.invoke
+      throw new InvocationTargetException(t);
+    }
+  }
+
+  @Override
+  public Class<?> getType() {
+    return type;
+  }
+}
@@ -0,0 +1,183 @@
+/*
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.reflection.invoker;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodHandles.Lookup;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+
+/**
+ * Creates method invokers that call getters and setters through accessors spun by {@link LambdaMetafactory},
+ * which the JIT can inline like a regular method call instead of going through {@link Method#invoke(Object, Object...)}.
+ * <p>
+ * On Java 9 and later the accessor is defined in the declaring class of the method so non-public classes are supported.
+ * On Java 8 only public methods of public classes visible from the MyBatis class loader are supported.
+ * Field access and methods that cannot be linked fall back to the reflective invokers.
+ * @since 3.5.9
+ */
+public class LambdaInvokerFactory extends DefaultInvokerFactory {
+
+  private static final Lookup LOOKUP = MethodHandles.lookup();
+
+  private static final Method privateLookupInMethod;
+
+  private static final MethodType GETTER_SIGNATURE = MethodType.methodType(Object.class, Object.class);
+  private static final MethodType SETTER_SIGNATURE = MethodType.methodType(void.class, Object.class, Object.class);
+
+  static {
+    Method privateLookupIn;
+    try {
+      privateLookupIn = MethodHandles.class.getMethod("privateLookupIn", Class.class, Lookup.class);
+    } catch (NoSuchMethodException e) {
+      privateLookupIn = null;
+    }
+    privateLookupInMethod = privateLookupIn;
+  }
+
+  @Override
+  public Invoker newMethodInvoker(Method method) {
+    if (!Modifier.isStatic(method.getModifiers())) {
+      final Lookup lookup = lookupFor(method);
+      if (lookup != null) {
+        try {
+          return newLambdaInvoker(lookup, method);
+        } catch (Throwable e) {
+          // fall back to reflection
+        }
+      }
+    }
+    return super.newMethodInvoker(method);
+  }
+
+  private static Invoker newLambdaInvoker(Lookup lookup, Method method) throws Throwable {
+    final Class<?> declaringClass = method.getDeclaringClass();
+    final MethodHandle handle = lookup.unreflect(method);
+    if (method.getParameterTypes().length == 1) {
+      final Class<?> type = method.getParameterTypes()[0];
+      final LambdaSetInvoker.Setter setter = metafactory(lookup, LambdaSetInvoker.Setter.class, "set", SETTER_SIGNATURE,
+          handle, MethodType.methodType(void.class, declaringClass, box(type)));
+      return new LambdaSetInvoker(setter, type);
+    }
+    final Class<?> type = method.getReturnType();
+    final LambdaGetInvoker.Getter getter = metafactory(lookup, LambdaGetInvoker.Getter.class, "get", GETTER_SIGNATURE,
+        handle, MethodType.methodType(box(type), declaringClass));
+    return new LambdaGetInvoker(getter, type, method);
+  }
+
+  @SuppressWarnings("unchecked")
+  private static <T> T metafactory(Lookup lookup, Class<T> functionalInterface, String methodName, MethodType erasedSignature,
+      MethodHandle handle, MethodType instantiatedSignature) throws Throwable {
+    final CallSite callSite = LambdaMetafactory.metafactory(lookup, methodName, MethodType.methodType(functionalInterface),
+        erasedSignature, handle, instantiatedSignature);
+    return (T) callSite.getTarget().invokeWithArguments();
+  }
+
+  /**
+   * The generated accessor calls the method directly, so it must be defined where the method is accessible.
+   */
+  private static Lookup lookupFor(Method method) {
+    final Class<?> declaringClass = method.getDeclaringClass();
+    if (privateLookupInMethod != null) {
+      try {
+        return (Lookup) privateLookupInMethod.invoke(null, declaringClass, LOOKUP);
+      } catch (ReflectiveOperationException | RuntimeException e) {
+        return null;
+      }
+    }
+    if (!Modifier.isPublic(method.getModifiers()) || !Modifier.isPublic(declaringClass.getModifiers())) {
+      return null;
+    }
+    try {
+      return Class.forName(declaringClass.getName(), false, LambdaInvokerFactory.class.getClassLoader()) == declaringClass ? LOOKUP : null;
+    } catch (ClassNotFoundException | LinkageError e) {
+      return null;
+    }
+  }
+
+  static Class<?> box(Class<?> type) {
+    if (!type.isPrimitive()) {
+      return type;
+    } else if (type == int.class) {
+      return Integer.class;
+    } else if (type == long.class) {
+      return Long.class;
+    } else if (type == boolean.class) {
+      return Boolean.class;
+    } else if (type == double.class) {
+      return Double.class;
+    } else if (type == float.class) {
+      return Float.class;
+    } else if (type == short.class) {
+      return Short.class;
+    } else if (type == byte.class) {
+      return Byte.class;
+    } else if (type == char.class) {
+      return Character.class;
+    }
+    return Void.class;
+  }
+
+  /**
+   * Applies the widening primitive conversion {@code Method.invoke} accepts for a primitive parameter.
+   *
+   * @param value
+   *          a non-null value that is not an instance of the boxed parameter type
+   * @param type
+   *          the primitive parameter type
+   * @return the widened value, or null if the value cannot be widened to the type
+   */
+  static Object widen(Object value, Class<?> type) {
+    int from = wideningRank(value.getClass());
+    int to = wideningRank(box(type));
+    // char only widens to int and wider, nothing widens to char
+    if (from < 0 || to < 0 || from >= to || type == char.class || (value instanceof Character && type == short.class)) {
+      return null;
+    }
+    Number number = value instanceof Character ? (int) (Character) value : (Number) value;
+    if (type == short.class) {
+      return number.shortValue();
+    } else if (type == int.class) {
+      return number.intValue();
+    } else if (type == long.class) {
+      return number.longValue();
+    } else if (type == float.class) {
+      return number.floatValue();
+    }
+    return number.doubleValue();
+  }
+
+  private static int wideningRank(Class<?> boxedType) {
+    if (boxedType == Byte.class) {
+      return 1;
+    } else if (boxedType == Short.class || boxedType == Character.class) {
+      return 2;
+    } else if (boxedType == Integer.class) {
+      return 3;
+    } else if (boxedType == Long.class) {
+      return 4;
+    } else if (boxedType == Float.class) {
+      return 5;
+    } else if (boxedType == Double.class) {
+      return 6;
+    }
+    return -1;
+  }
+}
@@ -0,0 +1,67 @@
+/*
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.reflection.invoker;
+
+import java.lang.reflect.InvocationTargetException;
+
+/**
+ * Writes a property through a functional accessor created by {@link LambdaInvokerFactory}.
+ * @since 3.5.9
+ */
+public class LambdaSetInvoker implements Invoker {
+
+  /**
+   * Functional form of a setter method.
+   */
+  @FunctionalInterface
+  public interface Setter {
+    void set(Object target, Object value) throws Throwable;
+  }
+
+  private final Setter setter;
+  private final Class<?> type;
+  private final Class<?> boxedType;
+
+  public LambdaSetInvoker(Setter setter, Class<?> type) {
+    this.setter = setter;
+    this.type = type;
+    this.boxedType = LambdaInvokerFactory.box(type);
+  }
+
+  @Override
+  public Object invoke(Object target, Object[] args) throws InvocationTargetException {
+    Object value = args[0];
+    // the accessor casts (or unboxes) the value, so widen or reject it the way Method.invoke does
+    if (value == null ? type.isPrimitive() : !boxedType.isInstance(value)) {
+      Object widened = value != null && type.isPrimitive() ? LambdaInvokerFactory.widen(value, type) : null;
+      if (widened == null) {
+        throw new IllegalArgumentException("argument type mismatch");
+      }
+      value = widened;
+    }
+    try {
+      setter.set(target, value);
+    } catch (Throwable t) {
+      throw new InvocationTargetException(t);
+    }
+    return null;
+  }
+
+  @Override
+  public Class<?> getType() {
+    return type;
+  }
+}
@@ -20,6 +20,7 @@ import java.util.List;
 import java.util.Map;
 
 import org.apache.ibatis.reflection.MetaObject;
+import org.apache.ibatis.reflection.ReflectionException;
 import org.apache.ibatis.reflection.SystemMetaObject;
 import org.apache.ibatis.reflection.factory.ObjectFactory;
 import org.apache.ibatis.reflection.property.PropertyTokenizer;
@@ -94,18 +95,36 @@ public class MapWrapper extends BaseWrapper {
   public Class<?> getGetterType(String name) {
     PropertyTokenizer prop = new PropertyTokenizer(name);
     if (prop.hasNext()) {
-      MetaObject metaValue = metaObject.metaObjectForProperty(prop.getIndexedName());
+      MetaObject metaValue;
+      try {
+        metaValue = metaObject.metaObjectForProperty(prop.getIndexedName());
+      } catch (ReflectionException | IndexOutOfBoundsException | NumberFormatException e) {
+        // not a collection, or no such element
+        return Object.class;
+      }
       if (metaValue == SystemMetaObject.NULL_META_OBJECT) {
         return Object.class;
       } else {
         return metaValue.getGetterType(prop.getChildren());
       }
     } else {
-      if (map.get(name) != null) {
-        return map.get(name).getClass();
+      Object value;
+      if (prop.getIndex() != null && !map.containsKey(name)) {
+        // an element of a collection, e.g. list[0]
+        value = map.get(prop.getName()) != null ? getElement(prop) : null;
       } else {
-        return Object.class;
+        value = map.get(name);
       }
+      return value != null ? value.getClass() : Object.class;
+    }
+  }
+
+  private Object getElement(PropertyTokenizer prop) {
+    try {
+      return get(prop);
+    } catch (ReflectionException | IndexOutOfBoundsException | NumberFormatException e) {
+      // not a collection, or no such element
+      return null;
     }
   }
 
@@ -118,7 +137,7 @@ public class MapWrapper extends BaseWrapper {
   public boolean hasGetter(String name) {
     PropertyTokenizer prop = new PropertyTokenizer(name);
     if (prop.hasNext()) {
-      if (map.containsKey(prop.getIndexedName())) {
+      if (map.containsKey(prop.getIndexedName()) || prop.getIndex() != null && map.containsKey(prop.getName())) {
         MetaObject metaValue = metaObject.metaObjectForProperty(prop.getIndexedName());
         if (metaValue == SystemMetaObject.NULL_META_OBJECT) {
           return true;
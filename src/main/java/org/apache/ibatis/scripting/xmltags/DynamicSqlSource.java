@@ -15,9 +15,20 @@
  */
 package org.apache.ibatis.scripting.xmltags;
 
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
 import org.apache.ibatis.builder.SqlSourceBuilder;
 import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.ParameterMapping;
 import org.apache.ibatis.mapping.SqlSource;
+import org.apache.ibatis.reflection.MetaObject;
 import org.apache.ibatis.session.Configuration;
 
 /**
@@ -32,6 +43,17 @@ public class DynamicSqlSource implements SqlSource {
      * 根 SqlNode 对象
      */
     private final SqlNode rootSqlNode;
+    /**
+     * 已解析的 SQL 形态，KEY：应用 SqlNode 后、解析 #{} 之前的 SQL 的哈希，
+     * 最多保存 {@link Configuration#getSqlShapeCacheSize()} 个，超出时淘汰最久未使用的形态
+     */
+    private final Map<SqlShapeKey, SqlShape> sqlShapes = new LinkedHashMap<>(16, 0.75f, true);
+    private final Lock sqlShapesLock = new ReentrantLock();
+    /**
+     * 计算哈希使用的随机基数，使 SQL 文本（可能包含 ${} 替换的外部输入）无法构造出冲突
+     */
+    private final long hashBase1 = randomHashBase();
+    private final long hashBase2 = randomHashBase();
 
     public DynamicSqlSource(Configuration configuration, SqlNode rootSqlNode) {
         this.configuration = configuration;
@@ -52,14 +74,160 @@ public class DynamicSqlSource implements SqlSource {
         DynamicContext context = new DynamicContext(configuration, parameterObject);
         // 2. 根据上下文应用整个 SqlNode ,处理动态 SQL 标签（如 <if>, <choose>, <foreach> 等）
         rootSqlNode.apply(context);
-        SqlSourceBuilder sqlSourceParser = new SqlSourceBuilder(configuration);
         Class<?> parameterType = parameterObject == null ? Object.class : parameterObject.getClass();
-        // 3. 通过 SqlSourceBuilder 将应用后的 SQL 进行转换，变量替换成 ? 占位符，并生成对应的 ParameterMapping 集合
-        SqlSource sqlSource = sqlSourceParser.parse(context.getSql(), parameterType, context.getBindings());
-        BoundSql boundSql = sqlSource.getBoundSql(parameterObject);
-        // 4. 添加附加参数到 BoundSql 对象中，因为上一步创建的`BoundSql`对象时候传入的仅是入参信息，没有添加附加参数
+        String originalSql = context.getSql();
+        BoundSql boundSql;
+        // 3. 相同形态的 SQL 直接复用已解析的 SQL 和 ParameterMapping 集合
+        SqlShapeKey sqlShapeKey = configuration.getSqlShapeCacheSize() > 0 ? new SqlShapeKey(originalSql, hashBase1, hashBase2) : null;
+        SqlShape sqlShape = sqlShapeKey != null ? getSqlShape(sqlShapeKey) : null;
+        if (sqlShape != null && sqlShape.matches(parameterType, configuration.newMetaObject(context.getBindings()))) {
+            boundSql = new BoundSql(configuration, sqlShape.sql, new ArrayList<>(sqlShape.parameterMappings), parameterObject);
+        } else {
+            SqlSourceBuilder sqlSourceParser = new SqlSourceBuilder(configuration);
+            // 4. 通过 SqlSourceBuilder 将应用后的 SQL 进行转换，变量替换成 ? 占位符，并生成对应的 ParameterMapping 集合
+            SqlSource sqlSource = sqlSourceParser.parse(originalSql, parameterType, context.getBindings());
+            boundSql = sqlSource.getBoundSql(parameterObject);
+            if (sqlShapeKey != null) {
+                cacheSqlShape(sqlShapeKey, parameterType, context, boundSql);
+            }
+        }
+        // 5. 添加附加参数到 BoundSql 对象中，因为上一步创建的`BoundSql`对象时候传入的仅是入参信息，没有添加附加参数
         context.getBindings().forEach(boundSql::setAdditionalParameter);
         return boundSql;
     }
 
+    private SqlShape getSqlShape(SqlShapeKey key) {
+        sqlShapesLock.lock();
+        try {
+            return sqlShapes.get(key);
+        } finally {
+            sqlShapesLock.unlock();
+        }
+    }
+
+    private void cacheSqlShape(SqlShapeKey key, Class<?> parameterType, DynamicContext context, BoundSql boundSql) {
+        MetaObject metaParameters = configuration.newMetaObject(context.getBindings());
+        SqlShape sqlShape = new SqlShape(boundSql.getSql(), new ArrayList<>(boundSql.getParameterMappings()),
+            parameterType, metaParameters);
+        sqlShapesLock.lock();
+        try {
+            sqlShapes.put(key, sqlShape);
+            // 淘汰最久未使用的形态
+            Iterator<SqlShapeKey> keys = sqlShapes.keySet().iterator();
+            for (int excess = sqlShapes.size() - configuration.getSqlShapeCacheSize(); excess > 0; excess--) {
+                keys.next();
+                keys.remove();
+            }
+        } finally {
+            sqlShapesLock.unlock();
+        }
+    }
+
+    private static long randomHashBase() {
+        return SqlShapeKey.MODULUS / 2 + ThreadLocalRandom.current().nextLong(SqlShapeKey.MODULUS / 2);
+    }
+
+    /**
+     * SQL 文本的哈希，由长度和两个随机基数的多项式哈希（模 2^61-1）组成，只保存哈希而不保存可能很长的 SQL 文本
+     */
+    private static final class SqlShapeKey {
+        private static final long MODULUS = (1L << 61) - 1;
+
+        private final int length;
+        private final long hash1;
+        private final long hash2;
+
+        SqlShapeKey(String sql, long base1, long base2) {
+            long h1 = 0;
+            long h2 = 0;
+            for (int i = 0, n = sql.length(); i < n; i++) {
+                char c = sql.charAt(i);
+                h1 = addMod(multiplyMod(h1, base1), c + 1);
+                h2 = addMod(multiplyMod(h2, base2), c + 1);
+            }
+            this.length = sql.length();
+            this.hash1 = h1;
+            this.hash2 = h2;
+        }
+
+        /**
+         * 计算 a * b mod 2^61-1，a 和 b 都小于 2^61
+         */
+        private static long multiplyMod(long a, long b) {
+            long aHigh = a >>> 31;
+            long aLow = a & 0x7FFFFFFFL;
+            long bHigh = b >>> 31;
+            long bLow = b & 0x7FFFFFFFL;
+            long middle = aLow * bHigh + aHigh * bLow;
+            // 按无符号数处理，和可能超过 Long.MAX_VALUE
+            long product = (aHigh * bHigh << 1) + (middle >>> 30) + ((middle & 0x3FFFFFFFL) << 31) + aLow * bLow;
+            return addMod(product >>> 61, product & MODULUS);
+        }
+
+        private static long addMod(long a, long b) {
+            long sum = a + b;
+            return sum >= MODULUS ? sum - MODULUS : sum;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof SqlShapeKey)) {
+                return false;
+            }
+            SqlShapeKey other = (SqlShapeKey) o;
+            return length == other.length && hash1 == other.hash1 && hash2 == other.hash2;
+        }
+
+        @Override
+        public int hashCode() {
+            return (int) (hash1 ^ hash1 >>> 32) * 31 + length;
+        }
+    }
+
+    /**
+     * 一种 SQL 形态解析后的结果
+     *
+     * ParameterMapping 的 javaType 可能来自附加参数（<bind /> 和 <foreach /> 绑定的值）的运行时类型，
+     * 所以同时记录解析时每个占位符是否由附加参数提供及其类型，复用前逐一校验
+     */
+    private static final class SqlShape {
+        private final String sql;
+        private final List<ParameterMapping> parameterMappings;
+        private final Class<?> parameterType;
+        /**
+         * 占位符在附加参数中的类型，不由附加参数提供时为 null
+         */
+        private final Class<?>[] additionalParameterTypes;
+
+        SqlShape(String sql, List<ParameterMapping> parameterMappings, Class<?> parameterType, MetaObject metaParameters) {
+            this.sql = sql;
+            this.parameterMappings = parameterMappings;
+            this.parameterType = parameterType;
+            this.additionalParameterTypes = new Class<?>[parameterMappings.size()];
+            for (int i = 0; i < additionalParameterTypes.length; i++) {
+                additionalParameterTypes[i] = getAdditionalParameterType(metaParameters, parameterMappings.get(i).getProperty());
+            }
+        }
+
+        boolean matches(Class<?> parameterType, MetaObject metaParameters) {
+            if (this.parameterType != parameterType) {
+                return false;
+            }
+            for (int i = 0; i < additionalParameterTypes.length; i++) {
+                if (additionalParameterTypes[i] != getAdditionalParameterType(metaParameters, parameterMappings.get(i).getProperty())) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private static Class<?> getAdditionalParameterType(MetaObject metaParameters, String property) {
+            // 与 SqlSourceBuilder 推断 javaType 的逻辑保持一致
+            return property != null && metaParameters.hasGetter(property) ? metaParameters.getGetterType(property) : null;
+        }
+    }
+
 }
@@ -18,18 +18,120 @@ package org.apache.ibatis.scripting.xmltags;
 import java.lang.reflect.Array;
 import java.math.BigDecimal;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 
 import org.apache.ibatis.builder.BuilderException;
+import org.apache.ibatis.reflection.ReflectorFactory;
 
 /**
  * @author Clinton Begin
  */
 public class ExpressionEvaluator {
 
+  /**
+   * The number of compiled expressions the evaluator of a {@link org.apache.ibatis.session.Configuration} keeps.
+   *
+   * @since 3.5.9
+   */
+  public static final int DEFAULT_SIMPLE_EXPRESSION_CACHE_SIZE = 1024;
+
+  /**
+   * Compiled expressions keyed by their source, the least recently used one is evicted first. An empty value means the
+   * expression is outside of the subset supported by {@link SimpleExpression} and is always evaluated by OGNL.
+   * {@code null} if every expression is evaluated by OGNL.
+   */
+  private final Map<String, Optional<SimpleExpression>> simpleExpressionCache;
+  private final Lock simpleExpressionLock = new ReentrantLock();
+  private final ReflectorFactory reflectorFactory;
+
+  /**
+   * Creates an evaluator that evaluates every expression with OGNL.
+   */
+  public ExpressionEvaluator() {
+    this.simpleExpressionCache = null;
+    this.reflectorFactory = null;
+  }
+
+  /**
+   * Creates an evaluator that evaluates the expressions supported by {@link SimpleExpression} without OGNL. The
+   * {@link org.apache.ibatis.session.Configuration} keeps one, shared by the statements it builds.
+   *
+   * @param simpleExpressionCacheSize
+   *          the maximum number of compiled expressions kept
+   * @param reflectorFactory
+   *          looks up the getters of the properties the expressions read
+   * @since 3.5.9
+   */
+  public ExpressionEvaluator(int simpleExpressionCacheSize, ReflectorFactory reflectorFactory) {
+    this.reflectorFactory = reflectorFactory;
+    this.simpleExpressionCache = new LinkedHashMap<String, Optional<SimpleExpression>>(16, 0.75f, true) {
+      private static final long serialVersionUID = 1L;
+
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<String, Optional<SimpleExpression>> eldest) {
+        return size() > simpleExpressionCacheSize;
+      }
+    };
+  }
+
   public boolean evaluateBoolean(String expression, Object parameterObject) {
-    Object value = OgnlCache.getValue(expression, parameterObject);
+    return toBoolean(getValue(compile(expression), expression, parameterObject));
+  }
+
+  /**
+   * Evaluates the expression without OGNL when it belongs to the subset supported by {@link SimpleExpression},
+   * falling back to OGNL otherwise.
+   *
+   * @since 3.5.9
+   */
+  Object getValue(String expression, Object root) {
+    return getValue(compile(expression), expression, root);
+  }
+
+  /**
+   * Evaluates an expression compiled by {@link #compile(String)}.
+   *
+   * @since 3.5.9
+   */
+  static Object getValue(SimpleExpression simpleExpression, String expression, Object root) {
+    if (simpleExpression != null) {
+      Object value = simpleExpression.getValue(root);
+      if (value != SimpleExpression.UNSUPPORTED) {
+        return value;
+      }
+    }
+    return OgnlCache.getValue(expression, root);
+  }
+
+  /**
+   * Compiles the expression once so that statements pay the parsing cost when they are built.
+   *
+   * @return the compiled expression, or {@code null} if it must be evaluated by OGNL
+   * @since 3.5.9
+   */
+  SimpleExpression compile(String expression) {
+    if (simpleExpressionCache == null) {
+      return null;
+    }
+    simpleExpressionLock.lock();
+    try {
+      Optional<SimpleExpression> compiled = simpleExpressionCache.get(expression);
+      if (compiled == null) {
+        compiled = Optional.ofNullable(SimpleExpression.compile(expression, reflectorFactory));
+        simpleExpressionCache.put(expression, compiled);
+      }
+      return compiled.orElse(null);
+    } finally {
+      simpleExpressionLock.unlock();
+    }
+  }
+
+  static boolean toBoolean(Object value) {
     if (value instanceof Boolean) {
       return (Boolean) value;
     }
@@ -51,7 +153,16 @@ public class ExpressionEvaluator {
    * @since 3.5.9
    */
   public Iterable<?> evaluateIterable(String expression, Object parameterObject, boolean nullable) {
-    Object value = OgnlCache.getValue(expression, parameterObject);
+    return evaluateIterable(compile(expression), expression, parameterObject, nullable);
+  }
+
+  /**
+   * Evaluates an expression compiled by {@link #compile(String)} to an iterable.
+   *
+   * @since 3.5.9
+   */
+  Iterable<?> evaluateIterable(SimpleExpression simpleExpression, String expression, Object parameterObject, boolean nullable) {
+    Object value = getValue(simpleExpression, expression, parameterObject);
     if (value == null) {
       if (nullable) {
         return null;
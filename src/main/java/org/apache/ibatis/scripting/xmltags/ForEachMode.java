@@ -0,0 +1,37 @@
+/*
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.scripting.xmltags;
+
+/**
+ * How a &lt;foreach /&gt; element renders its collection.
+ * @since 3.5.9
+ */
+public enum ForEachMode {
+  /**
+   * Renders the body once for every element.
+   */
+  ITEMS,
+  /**
+   * Renders the body once for every element, then repeats the last element until the number of elements reaches the
+   * next power of two, so that collections of similar sizes share the same SQL.
+   */
+  PADDED,
+  /**
+   * Renders {@code open}, a single placeholder bound to the whole collection as a JDBC array, and {@code close}. The
+   * body is ignored.
+   */
+  ARRAY
+}
@@ -15,11 +15,17 @@
  */
 package org.apache.ibatis.scripting.xmltags;
 
+import java.lang.reflect.Array;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.ibatis.parsing.GenericTokenParser;
 import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.type.ArrayTypeHandler;
 
 /**
  * <foreach /> 标签对应的 SqlNode 实现类
@@ -31,11 +37,23 @@ public class ForEachSqlNode implements SqlNode {
      * 集合中元素绑定到上下文中 key 的前缀
      */
     public static final String ITEM_PREFIX = "__frch_";
+    /**
+     * 每个节点最多缓存的 SQL 片段模板数量，超出的片段（例如包含 ${} 的文本）每次都重新解析
+     */
+    private static final int MAX_CACHED_TEMPLATES = 64;
+    /**
+     * 模板中标记占位符位置的字符
+     */
+    private static final char PLACEHOLDER_MARKER = '\0';
 
     /**
      * 表达式计算器
      */
     private final ExpressionEvaluator evaluator;
+    /**
+     * 构建阶段编译的集合表达式，不在 SimpleExpression 支持范围内时为 null
+     */
+    private final SimpleExpression simpleCollectionExpression;
     /**
      * 需要遍历的集合类型，支持：list set map array
      */
@@ -60,7 +78,15 @@ public class ForEachSqlNode implements SqlNode {
      * 集合中每个元素的索引
      */
     private final String index;
+    /**
+     * 集合的渲染方式
+     */
+    private final ForEachMode mode;
     private final Configuration configuration;
+    /**
+     * 循环体内 SQL 片段解析后的模板，KEY：SQL 片段
+     */
+    private final Map<String, Template> templates = new ConcurrentHashMap<>();
 
     /**
      * @deprecated Since 3.5.9, use the {@link #ForEachSqlNode(Configuration, SqlNode, String, Boolean, String, String, String, String, String)}.
@@ -74,7 +100,16 @@ public class ForEachSqlNode implements SqlNode {
      * @since 3.5.9
      */
     public ForEachSqlNode(Configuration configuration, SqlNode contents, String collectionExpression, Boolean nullable, String index, String item, String open, String close, String separator) {
-        this.evaluator = new ExpressionEvaluator();
+        this(configuration, contents, collectionExpression, nullable, index, item, open, close, separator, ForEachMode.ITEMS);
+    }
+
+    /**
+     * @since 3.5.9
+     */
+    public ForEachSqlNode(Configuration configuration, SqlNode contents, String collectionExpression, Boolean nullable, String index, String item, String open, String close, String separator, ForEachMode mode) {
+        this.evaluator = configuration.getExpressionEvaluator();
+        // 在构建阶段预先编译常用形式的表达式
+        this.simpleCollectionExpression = evaluator.compile(collectionExpression);
         this.collectionExpression = collectionExpression;
         this.nullable = nullable;
         this.contents = contents;
@@ -83,6 +118,7 @@ public class ForEachSqlNode implements SqlNode {
         this.separator = separator;
         this.index = index;
         this.item = item;
+        this.mode = mode == null ? ForEachMode.ITEMS : mode;
         this.configuration = configuration;
     }
 
@@ -95,69 +131,64 @@ public class ForEachSqlNode implements SqlNode {
         //  list：则从入参中获取到 List 集合类型的属性的值
         //  array：则从入参中获取到 Array 数组类型的属性的值，会转换成 ArrayList
         //  map：则从入参中获取到 Map 集合类型的属性的值
-        final Iterable<?> iterable = evaluator.evaluateIterable(collectionExpression, bindings,
+        final Iterable<?> iterable = evaluator.evaluateIterable(simpleCollectionExpression, collectionExpression, bindings,
             Optional.ofNullable(nullable).orElseGet(configuration::isNullableOnForEach));
         if (iterable == null || !iterable.iterator().hasNext()) {
             return true;
         }
+        if (mode == ForEachMode.ARRAY) {
+            // 整个集合作为一个 JDBC 数组绑定，SQL 语句与集合大小无关
+            applyArray(context, iterable);
+            return true;
+        }
         boolean first = true;
         // 2. 添加 open 到 sql 中
         applyOpen(context);
+        /*
+         * 3. 一次遍历只生成一个唯一索引值，集合中的元素和索引分别收集到两个列表中，
+         * 以 __frch_'item'_uniqueNumber 和 __frch_'index'_uniqueNumber 为 KEY 绑定到上下文中，
+         * 占位符通过下标访问列表中的元素，例如 #{__frch_'item'_uniqueNumber[0]}
+         */
+        int uniqueNumber = context.getUniqueNumber();
+        int expectedSize = iterable instanceof Collection ? ((Collection<?>) iterable).size() : 10;
+        List<Object> items = null;
+        String itemizedItem = null;
+        if (item != null) {
+            items = new ArrayList<>(expectedSize);
+            itemizedItem = itemizeItem(item, uniqueNumber);
+            context.bind(itemizedItem, items);
+        }
+        List<Object> indexes = null;
+        String itemizedIndex = null;
+        if (index != null) {
+            indexes = new ArrayList<>(expectedSize);
+            itemizedIndex = itemizeItem(index, uniqueNumber);
+            context.bind(itemizedIndex, indexes);
+        }
         int i = 0;
+        Object lastIndex = null;
+        Object lastItem = null;
         for (Object o : iterable) {
-            // 3. 先记录context原始对象为oldcontext，下面通过两个装饰器对他进行操作
-            DynamicContext oldContext = context;
-            // 4. 生成一个 context 装饰器，主要是对集合中的每个元素添加 separator 分隔符
-            if (first || separator == null) {
-                context = new PrefixedContext(context, "");
-            } else {
-                // 设置其需要添加的前缀为分隔符
-                context = new PrefixedContext(context, separator);
-            }
-            // 5. 生成一个唯一索引值，也就是DynamicContext的uniqueNumber++，这样集合中每个元素都有一个唯一索引了
-            int uniqueNumber = context.getUniqueNumber();
             // Issue #709
-            // 6. 将集合中的当前元素绑定到上下文中
             if (o instanceof Map.Entry) {
+                // 索引是 Map 的 key
                 @SuppressWarnings("unchecked")
                 Map.Entry<Object, Object> mapEntry = (Map.Entry<Object, Object>) o;
-                // 和下面同理，只不过索引是 Map 的 key
-                applyIndex(context, mapEntry.getKey(), uniqueNumber);
-                applyItem(context, mapEntry.getValue(), uniqueNumber);
+                lastIndex = mapEntry.getKey();
+                lastItem = mapEntry.getValue();
             } else {
-                /*
-                   绑定当前集合中当前元素的索引到当前解析 SQL 语句的上下文中
-                   1. 'index' -> i
-                   2. __frch_'index'_uniqueNumber -> i
-                 */
-                applyIndex(context, i, uniqueNumber);
-                /*
-                 * 绑定集合中当前元素的值到当前解析 SQL 语句的上下文中
-                 *
-                 * 1. 'item' -> o
-                 *
-                 * 2. __frch_'item'_uniqueNumber -> o
-                 *
-                 */
-                applyItem(context, o, uniqueNumber);
-            }
-            /*
-             * 再装饰一下 PrefixedContext -> FilteredDynamicContext
-             *
-             * 前者进行前缀的添加，第一个元素添加后设置为已添加标记，后续不在添加
-             * 后者将<foreach />标签内的"#{item}"或者"#{index}"替换成上面我们已经绑定的数据："#{__frch_'item'_uniqueNumber}"或者"#{__frch_'index'_uniqueNumber}"
-             *
-             * 7. 进行转换，将<foreach />标签内部定义的内容进行转换
-             */
-            contents.apply(new FilteredDynamicContext(configuration, context, index, item, uniqueNumber));
-            if (first) {
-                // 8. 判断 prefix 是否已经插入
-                first = !((PrefixedContext) context).isPrefixApplied();
+                lastIndex = i;
+                lastItem = o;
             }
-            // 9. 恢复原始的 context 对象，因为目前 context 是装饰器
-            context = oldContext;
+            first = applyElement(context, first, lastIndex, lastItem, i, indexes, items, itemizedIndex, itemizedItem);
             i++;
         }
+        if (mode == ForEachMode.PADDED) {
+            // 重复最后一个元素，直到元素个数达到下一个 2 的幂
+            for (int size = paddedSize(i); i < size; i++) {
+                first = applyElement(context, first, lastIndex, lastItem, i, indexes, items, itemizedIndex, itemizedItem);
+            }
+        }
         // 10. 添加 close 到 SQL 中
         applyClose(context);
         // 11. 移除 index 和 item 对应的绑定
@@ -166,17 +197,75 @@ public class ForEachSqlNode implements SqlNode {
         return true;
     }
 
-    private void applyIndex(DynamicContext context, Object o, int i) {
+    /**
+     * 应用集合中的一个元素
+     *
+     * @return 分隔符是否仍未添加
+     */
+    private boolean applyElement(DynamicContext context, boolean first, Object indexValue, Object itemValue, int position,
+                                 List<Object> indexes, List<Object> items, String itemizedIndex, String itemizedItem) {
+        // 1. 生成一个 context 装饰器，主要是对集合中的每个元素添加 separator 分隔符
+        PrefixedContext prefixedContext;
+        if (first || separator == null) {
+            prefixedContext = new PrefixedContext(context, "");
+        } else {
+            // 设置其需要添加的前缀为分隔符
+            prefixedContext = new PrefixedContext(context, separator);
+        }
+        /*
+         * 2. 将集合中的当前元素及其索引绑定到上下文中
+         * 1. 'index' -> 索引，并添加到 __frch_'index'_uniqueNumber 列表中
+         * 2. 'item' -> 元素，并添加到 __frch_'item'_uniqueNumber 列表中
+         */
+        applyIndex(prefixedContext, indexes, indexValue);
+        applyItem(prefixedContext, items, itemValue);
+        /*
+         * 3. 再装饰一下 PrefixedContext -> FilteredDynamicContext
+         *
+         * 前者进行前缀的添加，第一个元素添加后设置为已添加标记，后续不在添加
+         * 后者将<foreach />标签内的"#{item}"或者"#{index}"替换成上面我们已经绑定的数据："#{__frch_'item'_uniqueNumber[i]}"或者"#{__frch_'index'_uniqueNumber[i]}"
+         */
+        contents.apply(new FilteredDynamicContext(configuration, prefixedContext, itemizedIndex, itemizedItem, position));
+        // 4. 判断 prefix 是否已经插入
+        return first && !prefixedContext.isPrefixApplied();
+    }
+
+    /**
+     * 将整个集合转换成数组绑定到上下文中，并添加一个使用 ArrayTypeHandler 的占位符
+     */
+    private void applyArray(DynamicContext context, Iterable<?> iterable) {
+        List<Object> elements = new ArrayList<>();
+        Class<?> componentType = null;
+        for (Object o : iterable) {
+            Object element = o instanceof Map.Entry ? ((Map.Entry<?, ?>) o).getValue() : o;
+            if (element != null) {
+                componentType = componentType == null || componentType == element.getClass() ? element.getClass() : Object.class;
+            }
+            elements.add(element);
+        }
+        Object[] array = (Object[]) Array.newInstance(componentType == null ? Object.class : componentType, elements.size());
+        String itemizedArray = itemizeItem(item == null ? "array" : item, context.getUniqueNumber());
+        context.bind(itemizedArray, elements.toArray(array));
+        applyOpen(context);
+        context.appendSql("#{" + itemizedArray + ",typeHandler=" + ArrayTypeHandler.class.getName() + "}");
+        applyClose(context);
+    }
+
+    static int paddedSize(int size) {
+        return size <= 1 ? size : Integer.highestOneBit(size - 1) << 1;
+    }
+
+    private void applyIndex(DynamicContext context, List<Object> indexes, Object o) {
         if (index != null) {
             context.bind(index, o);
-            context.bind(itemizeItem(index, i), o);
+            indexes.add(o);
         }
     }
 
-    private void applyItem(DynamicContext context, Object o, int i) {
+    private void applyItem(DynamicContext context, List<Object> items, Object o) {
         if (item != null) {
             context.bind(item, o);
-            context.bind(itemizeItem(item, i), o);
+            items.add(o);
         }
     }
 
@@ -196,30 +285,158 @@ public class ForEachSqlNode implements SqlNode {
         return ITEM_PREFIX + item + "_" + i;
     }
 
-    private static class FilteredDynamicContext extends DynamicContext {
+    /**
+     * 获取 SQL 片段对应的模板
+     */
+    private Template getTemplate(String sql) {
+        Template template = templates.get(sql);
+        if (template == null) {
+            template = Template.parse(sql, item, index);
+            if (template != null && templates.size() < MAX_CACHED_TEMPLATES) {
+                templates.put(sql, template);
+            }
+        }
+        return template;
+    }
+
+    /**
+     * 将 #{} 中以 name 开头的内容替换成 replacement，规则与 "^\\s*name(?![^.,:\\s])" 的正则表达式一致
+     *
+     * @return 替换后的内容，不匹配时返回 null
+     */
+    private static String rewrite(String content, String name, String replacement) {
+        int end = matchName(content, name);
+        return end < 0 ? null : replacement + content.substring(end);
+    }
+
+    private static int matchName(String content, String name) {
+        if (name == null) {
+            return -1;
+        }
+        int start = 0;
+        while (start < content.length() && isWhitespace(content.charAt(start))) {
+            start++;
+        }
+        if (!content.startsWith(name, start)) {
+            return -1;
+        }
+        int end = start + name.length();
+        if (end < content.length()) {
+            char c = content.charAt(end);
+            if (c != '.' && c != ',' && c != ':' && !isWhitespace(c)) {
+                return -1;
+            }
+        }
+        return end;
+    }
+
+    private static boolean isWhitespace(char c) {
+        // 与正则表达式中的 \s 一致
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+    }
+
+    /**
+     * 循环体内一段 SQL 解析 #{} 后的模板，每个元素只需按下标拼接，不再重复解析
+     */
+    private static final class Template {
+        private static final int OTHER = 0;
+        private static final int ITEM = 1;
+        private static final int INDEX = 2;
+
+        /**
+         * 占位符之间的文本，比占位符多一个
+         */
+        private final String[] texts;
+        private final int[] kinds;
+        /**
+         * 占位符的内容，ITEM 和 INDEX 类型只保存名称之后的部分
+         */
+        private final String[] contents;
+
+        private Template(String[] texts, int[] kinds, String[] contents) {
+            this.texts = texts;
+            this.kinds = kinds;
+            this.contents = contents;
+        }
+
+        /**
+         * @return 模板，SQL 中含有标记字符时返回 null
+         */
+        static Template parse(String sql, String item, String index) {
+            if (sql.indexOf(PLACEHOLDER_MARKER) >= 0) {
+                return null;
+            }
+            List<String> tokens = new ArrayList<>();
+            String marked = new GenericTokenParser("#{", "}", content -> {
+                tokens.add(content);
+                return String.valueOf(PLACEHOLDER_MARKER);
+            }).parse(sql);
+            String[] texts = new String[tokens.size() + 1];
+            int[] kinds = new int[tokens.size()];
+            String[] contents = new String[tokens.size()];
+            int start = 0;
+            for (int k = 0; k < tokens.size(); k++) {
+                int marker = marked.indexOf(PLACEHOLDER_MARKER, start);
+                texts[k] = marked.substring(start, marker);
+                start = marker + 1;
+                String content = tokens.get(k);
+                int end = matchName(content, item);
+                if (end >= 0) {
+                    kinds[k] = ITEM;
+                } else if ((end = matchName(content, index)) >= 0) {
+                    kinds[k] = INDEX;
+                } else {
+                    kinds[k] = OTHER;
+                }
+                contents[k] = end >= 0 ? content.substring(end) : content;
+            }
+            texts[tokens.size()] = marked.substring(start);
+            return new Template(texts, kinds, contents);
+        }
+
+        String render(String itemizedItem, String itemizedIndex, int position) {
+            if (kinds.length == 0) {
+                return texts[0];
+            }
+            StringBuilder builder = new StringBuilder();
+            builder.append(texts[0]);
+            for (int k = 0; k < kinds.length; k++) {
+                builder.append("#{");
+                if (kinds[k] == ITEM) {
+                    builder.append(itemizedItem).append('[').append(position).append(']');
+                } else if (kinds[k] == INDEX) {
+                    builder.append(itemizedIndex).append('[').append(position).append(']');
+                }
+                builder.append(contents[k]).append('}').append(texts[k + 1]);
+            }
+            return builder.toString();
+        }
+    }
+
+    private class FilteredDynamicContext extends DynamicContext {
         /**
          * 装饰的对象
          */
         private final DynamicContext delegate;
         /**
-         * 集合中当前元素的索引
+         * 集合中当前元素的位置
          */
-        private final int index;
+        private final int position;
         /**
-         * <foreach />定义的 index 属性
+         * 绑定索引列表的 KEY，<foreach /> 未定义 index 属性时为 null
          */
-        private final String itemIndex;
+        private final String itemizedIndex;
         /**
-         * <foreach />定义的 item 属性
+         * 绑定元素列表的 KEY，<foreach /> 未定义 item 属性时为 null
          */
-        private final String item;
+        private final String itemizedItem;
 
-        public FilteredDynamicContext(Configuration configuration, DynamicContext delegate, String itemIndex, String item, int i) {
+        public FilteredDynamicContext(Configuration configuration, DynamicContext delegate, String itemizedIndex, String itemizedItem, int position) {
             super(configuration, null);
             this.delegate = delegate;
-            this.index = i;
-            this.itemIndex = itemIndex;
-            this.item = item;
+            this.position = position;
+            this.itemizedIndex = itemizedIndex;
+            this.itemizedItem = itemizedItem;
         }
 
         @Override
@@ -239,24 +456,26 @@ public class ForEachSqlNode implements SqlNode {
 
         @Override
         public void appendSql(String sql) {
+            Template template = getTemplate(sql);
+            if (template != null) {
+                delegate.appendSql(template.render(itemizedItem, itemizedIndex, position));
+                return;
+            }
             GenericTokenParser parser = new GenericTokenParser("#{", "}", content -> {
-                // 如果在`<foreach />`标签下的内容为通过item获取元素，则替换成`__frch_'item'_uniqueNumber`
-                String newContent = content.replaceFirst("^\\s*" + item + "(?![^.,:\\s])", itemizeItem(item, index));
+                // 如果在`<foreach />`标签下的内容为通过item获取元素，则替换成`__frch_'item'_uniqueNumber[i]`
+                String newContent = rewrite(content, item, itemizedItem + "[" + position + "]");
                 /*
                  * 如果在`<foreach />`标签中定义了index属性，并且标签下的内容为通过index获取元素
-                 * 则替换成`__frch_'index'_uniqueNumber`
+                 * 则替换成`__frch_'index'_uniqueNumber[i]`
                  */
-                if (itemIndex != null && newContent.equals(content)) {
-                    newContent = content.replaceFirst("^\\s*" + itemIndex + "(?![^.,:\\s])", itemizeItem(itemIndex, index));
+                if (newContent == null) {
+                    newContent = rewrite(content, index, itemizedIndex + "[" + position + "]");
                 }
                 /*
-                 * 返回`#{__frch_'item'_uniqueNumber}`或者`#{__frch_'index'_uniqueNumber}`
-                 * 因为在前面已经将集合中的元素绑定在上下文的ContextMap中了，所以可以通过上面两个key获取到对应元素的值
-                 * 例如绑定的数据：
-                 * 1. __frch_'item'_uniqueNumber = 对应的元素值
-                 * 2. __frch_'index'_uniqueNumber = 对应的元素值的索引
+                 * 返回`#{__frch_'item'_uniqueNumber[i]}`或者`#{__frch_'index'_uniqueNumber[i]}`
+                 * 因为在前面已经将集合中的元素和索引以列表的形式绑定在上下文的ContextMap中了，所以可以通过下标获取到对应元素的值
                  */
-                return "#{" + newContent + "}";
+                return "#{" + (newContent == null ? content : newContent) + "}";
             });
 
             delegate.appendSql(parser.parse(sql));
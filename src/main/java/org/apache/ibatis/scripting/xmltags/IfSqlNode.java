@@ -15,15 +15,13 @@
  */
 package org.apache.ibatis.scripting.xmltags;
 
+import org.apache.ibatis.session.Configuration;
+
 /**
  * <if /> 标签对应的 SqlNode 实现类
  * @author Clinton Begin
  */
 public class IfSqlNode implements SqlNode {
-    /**
-     * 表达式计算器
-     */
-    private final ExpressionEvaluator evaluator;
     /**
      * 判断条件的表达式
      */
@@ -32,17 +30,33 @@ public class IfSqlNode implements SqlNode {
      * MixedSqlNode，包含该<if />节点内所有信息
      */
     private final SqlNode contents;
+    /**
+     * 构建阶段编译的表达式，不在 SimpleExpression 支持范围内时为 null
+     */
+    private final SimpleExpression simpleTest;
 
     public IfSqlNode(SqlNode contents, String test) {
+        this(new ExpressionEvaluator(), contents, test);
+    }
+
+    /**
+     * @since 3.5.9
+     */
+    public IfSqlNode(Configuration configuration, SqlNode contents, String test) {
+        this(configuration.getExpressionEvaluator(), contents, test);
+    }
+
+    private IfSqlNode(ExpressionEvaluator evaluator, SqlNode contents, String test) {
         this.test = test;
         this.contents = contents;
-        this.evaluator = new ExpressionEvaluator();
+        // 在构建阶段预先编译常用形式的表达式
+        this.simpleTest = evaluator.compile(test);
     }
 
     @Override
     public boolean apply(DynamicContext context) {
         // 1. 判断是否符合条件
-        if (evaluator.evaluateBoolean(test, context.getBindings())) {
+        if (ExpressionEvaluator.toBoolean(ExpressionEvaluator.getValue(simpleTest, test, context.getBindings()))) {
             // 2. 解析该<if />节点中的内容
             contents.apply(context);
             return true;
@@ -71,6 +71,15 @@ public final class OgnlCache {
         }
     }
 
+    /**
+     * 通过 OGNL 使用的类解析器加载类，与表达式中 @class@member 的解析方式一致
+     *
+     * @since 3.5.9
+     */
+    static Class<?> classForName(String className) throws ClassNotFoundException {
+        return CLASS_RESOLVER.classForName(className, null);
+    }
+
     /**
      * 根据表达式构建一个 Ognl 表达式
      *
@@ -0,0 +1,626 @@
+/*
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.scripting.xmltags;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import ognl.OgnlOps;
+
+import org.apache.ibatis.reflection.ReflectorFactory;
+import org.apache.ibatis.reflection.invoker.Invoker;
+
+/**
+ * OGNL 表达式中常用子集的快速实现，在解析期编译成节点树，执行期不再经过 OGNL
+ *
+ * 支持的语法：
+ * 1. 属性路径，例如 user.name，以及末尾的 size()、isEmpty()、length()、name() 方法调用
+ * 2. 字面量：null、true、false、整数、字符串，以及枚举常量 @com.example.Status@ACTIVE
+ * 3. 运算符：==、!=、&lt;、&gt;、&lt;=、&gt;=（及 eq、neq、lt、gt、lte、gte）、!（not）、&amp;&amp;（and）、||（or）和括号
+ *
+ * 运算符的语义直接复用 {@link OgnlOps}，因此结果与 OGNL 完全一致；
+ * 执行期遇到无法确定语义的情况（例如集合的下标访问、中间属性为 null）时返回 {@link #UNSUPPORTED}，由调用方交给 OGNL 处理
+ * @since 3.5.9
+ */
+final class SimpleExpression {
+
+    /**
+     * 表示当前参数无法由快速实现求值，需要交给 OGNL
+     */
+    static final Object UNSUPPORTED = new Object();
+
+    /**
+     * OGNL 的保留字中不在支持范围内的部分，遇到时整个表达式交给 OGNL
+     */
+    private static final Set<String> UNSUPPORTED_KEYWORDS = new HashSet<>(Arrays.asList(
+        "in", "instanceof", "new", "shl", "shr", "ushr", "band", "bor", "xor"));
+
+    private final Node root;
+
+    private SimpleExpression(Node root) {
+        this.root = root;
+    }
+
+    /**
+     * 编译表达式
+     *
+     * @param expression 表达式
+     * @param reflectorFactory 查找属性 getter 使用的 ReflectorFactory，通常是 Configuration 的
+     * @return 编译后的表达式，不在支持范围内时返回 null
+     */
+    static SimpleExpression compile(String expression, ReflectorFactory reflectorFactory) {
+        try {
+            Parser parser = new Parser(expression, reflectorFactory);
+            Node node = parser.parseOr();
+            return parser.atEnd() ? new SimpleExpression(node) : null;
+        } catch (UnsupportedExpressionException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 求值
+     *
+     * @param rootObject 根元素，通常是 DynamicContext 的 ContextMap
+     * @return 表达式的结果，或 {@link #UNSUPPORTED}
+     */
+    Object getValue(Object rootObject) {
+        try {
+            return root.getValue(rootObject);
+        } catch (RuntimeException e) {
+            // 交给 OGNL 重新求值，由其抛出与原来一致的异常
+            return UNSUPPORTED;
+        }
+    }
+
+    private interface Node {
+        Object getValue(Object rootObject);
+    }
+
+    private static final class Literal implements Node {
+        private final Object value;
+
+        Literal(Object value) {
+            this.value = value;
+        }
+
+        @Override
+        public Object getValue(Object rootObject) {
+            return value;
+        }
+    }
+
+    /**
+     * 枚举常量，在第一次求值时通过 OGNL 的类解析器加载，与 OGNL 使用相同的类加载器；不是枚举常量时交给 OGNL
+     */
+    private static final class EnumConstant implements Node {
+        private final String className;
+        private final String fieldName;
+        private volatile Object value;
+
+        EnumConstant(String className, String fieldName) {
+            this.className = className;
+            this.fieldName = fieldName;
+        }
+
+        @Override
+        public Object getValue(Object rootObject) {
+            Object constant = value;
+            if (constant == null) {
+                try {
+                    Field field = OgnlCache.classForName(className).getField(fieldName);
+                    if (!field.isEnumConstant() || !Modifier.isStatic(field.getModifiers())) {
+                        throw new UnsupportedExpressionException();
+                    }
+                    constant = field.get(null);
+                } catch (ReflectiveOperationException e) {
+                    throw new UnsupportedExpressionException();
+                }
+                value = constant;
+            }
+            return constant;
+        }
+    }
+
+    private static final class Not implements Node {
+        private final Node operand;
+
+        Not(Node operand) {
+            this.operand = operand;
+        }
+
+        @Override
+        public Object getValue(Object rootObject) {
+            Object value = operand.getValue(rootObject);
+            if (value == UNSUPPORTED) {
+                return UNSUPPORTED;
+            }
+            return OgnlOps.booleanValue(value) ? Boolean.FALSE : Boolean.TRUE;
+        }
+    }
+
+    /**
+     * and 和 or，与 OGNL 一样返回最后一个被求值的操作数
+     */
+    private static final class Junction implements Node {
+        private final Node[] operands;
+        private final boolean stopWhen;
+
+        Junction(List<Node> operands, boolean stopWhen) {
+            this.operands = operands.toArray(new Node[0]);
+            this.stopWhen = stopWhen;
+        }
+
+        @Override
+        public Object getValue(Object rootObject) {
+            Object result = null;
+            for (int i = 0; i < operands.length; i++) {
+                result = operands[i].getValue(rootObject);
+                if (result == UNSUPPORTED) {
+                    return UNSUPPORTED;
+                }
+                if (i != operands.length - 1 && OgnlOps.booleanValue(result) == stopWhen) {
+                    break;
+                }
+            }
+            return result;
+        }
+    }
+
+    private enum Operator {
+        EQ, NEQ, LT, GT, LTE, GTE
+    }
+
+    private static final class Comparison implements Node {
+        private final Operator operator;
+        private final Node left;
+        private final Node right;
+
+        Comparison(Operator operator, Node left, Node right) {
+            this.operator = operator;
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        public Object getValue(Object rootObject) {
+            Object v1 = left.getValue(rootObject);
+            if (v1 == UNSUPPORTED) {
+                return UNSUPPORTED;
+            }
+            Object v2 = right.getValue(rootObject);
+            if (v2 == UNSUPPORTED) {
+                return UNSUPPORTED;
+            }
+            switch (operator) {
+                case EQ:
+                    return OgnlOps.equal(v1, v2) ? Boolean.TRUE : Boolean.FALSE;
+                case NEQ:
+                    return OgnlOps.equal(v1, v2) ? Boolean.FALSE : Boolean.TRUE;
+                case LT:
+                    return OgnlOps.less(v1, v2) ? Boolean.TRUE : Boolean.FALSE;
+                case GT:
+                    return OgnlOps.greater(v1, v2) ? Boolean.TRUE : Boolean.FALSE;
+                case LTE:
+                    return OgnlOps.greater(v1, v2) ? Boolean.FALSE : Boolean.TRUE;
+                default:
+                    return OgnlOps.less(v1, v2) ? Boolean.FALSE : Boolean.TRUE;
+            }
+        }
+    }
+
+    /**
+     * 属性路径，每一段缓存上一次使用的类型及其 getter，避免重复查找 Reflector
+     */
+    private static final class PropertyPath implements Node {
+        private final Segment[] segments;
+        private final String method;
+
+        PropertyPath(List<Segment> segments, String method) {
+            this.segments = segments.toArray(new Segment[0]);
+            this.method = method;
+        }
+
+        @Override
+        public Object getValue(Object rootObject) {
+            Object value = rootObject;
+            for (int i = 0; i < segments.length; i++) {
+                if (value == null) {
+                    return UNSUPPORTED;
+                }
+                if (i == 0 && value instanceof DynamicContext.ContextMap) {
+                    value = getContextValue((Map<?, ?>) value, segments[0].name);
+                } else {
+                    value = segments[i].getValue(value);
+                }
+                if (value == UNSUPPORTED) {
+                    return UNSUPPORTED;
+                }
+            }
+            return method == null ? value : invokeMethod(value);
+        }
+
+        /**
+         * 与 DynamicContext.ContextAccessor 的取值逻辑保持一致
+         */
+        private static Object getContextValue(Map<?, ?> map, String name) {
+            Object result = map.get(name);
+            if (map.containsKey(name) || result != null) {
+                return result;
+            }
+            Object parameterObject = map.get(DynamicContext.PARAMETER_OBJECT_KEY);
+            if (parameterObject instanceof Map) {
+                return ((Map<?, ?>) parameterObject).get(name);
+            }
+            return null;
+        }
+
+        private Object invokeMethod(Object target) {
+            switch (method) {
+                case "size":
+                    if (target instanceof Collection) {
+                        return ((Collection<?>) target).size();
+                    } else if (target instanceof Map) {
+                        return ((Map<?, ?>) target).size();
+                    }
+                    return UNSUPPORTED;
+                case "isEmpty":
+                    if (target instanceof Collection) {
+                        return ((Collection<?>) target).isEmpty();
+                    } else if (target instanceof Map) {
+                        return ((Map<?, ?>) target).isEmpty();
+                    } else if (target instanceof String) {
+                        return ((String) target).isEmpty();
+                    }
+                    return UNSUPPORTED;
+                case "length":
+                    return target instanceof String ? (Object) ((String) target).length() : UNSUPPORTED;
+                default:
+                    return target instanceof Enum ? ((Enum<?>) target).name() : UNSUPPORTED;
+            }
+        }
+    }
+
+    private static final class Segment {
+        private final String name;
+        private final ReflectorFactory reflectorFactory;
+        private CachedGetter cachedGetter;
+
+        Segment(String name, ReflectorFactory reflectorFactory) {
+            this.name = name;
+            this.reflectorFactory = reflectorFactory;
+        }
+
+        Object getValue(Object target) {
+            if (target instanceof Map) {
+                // MapPropertyAccessor 会把这些名称当作方法处理
+                if ("size".equals(name) || "isEmpty".equals(name) || "keys".equals(name)
+                    || "keySet".equals(name) || "values".equals(name)) {
+                    return UNSUPPORTED;
+                }
+                return ((Map<?, ?>) target).get(name);
+            }
+            Class<?> type = target.getClass();
+            if (type.isArray() || target instanceof Collection || target instanceof Iterator || target instanceof Enumeration) {
+                // OGNL 对这些类型有专门的 PropertyAccessor
+                return UNSUPPORTED;
+            }
+            CachedGetter getter = cachedGetter;
+            if (getter == null || getter.type != type) {
+                getter = new CachedGetter(type, reflectorFactory.findForClass(type).getGetInvoker(name));
+                cachedGetter = getter;
+            }
+            try {
+                return getter.invoker.invoke(target, null);
+            } catch (Exception e) {
+                return UNSUPPORTED;
+            }
+        }
+    }
+
+    private static final class CachedGetter {
+        private final Class<?> type;
+        private final Invoker invoker;
+
+        CachedGetter(Class<?> type, Invoker invoker) {
+            this.type = type;
+            this.invoker = invoker;
+        }
+    }
+
+    private static final class UnsupportedExpressionException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        UnsupportedExpressionException() {
+            super(null, null, false, false);
+        }
+    }
+
+    /**
+     * 递归下降解析器，优先级与 OGNL 一致：or &lt; and &lt; 相等 &lt; 关系 &lt; 一元
+     */
+    private static final class Parser {
+        private final String expression;
+        private final ReflectorFactory reflectorFactory;
+        private int position;
+
+        Parser(String expression, ReflectorFactory reflectorFactory) {
+            this.expression = expression;
+            this.reflectorFactory = reflectorFactory;
+        }
+
+        boolean atEnd() {
+            skipWhitespace();
+            return position == expression.length();
+        }
+
+        Node parseOr() {
+            List<Node> operands = new ArrayList<>();
+            operands.add(parseAnd());
+            while (acceptOperator("||") || acceptKeyword("or")) {
+                operands.add(parseAnd());
+            }
+            return operands.size() == 1 ? operands.get(0) : new Junction(operands, true);
+        }
+
+        private Node parseAnd() {
+            List<Node> operands = new ArrayList<>();
+            operands.add(parseEquality());
+            while (acceptOperator("&&") || acceptKeyword("and")) {
+                operands.add(parseEquality());
+            }
+            return operands.size() == 1 ? operands.get(0) : new Junction(operands, false);
+        }
+
+        private Node parseEquality() {
+            Node left = parseRelational();
+            Operator operator = null;
+            if (acceptOperator("==") || acceptKeyword("eq")) {
+                operator = Operator.EQ;
+            } else if (acceptOperator("!=") || acceptKeyword("neq")) {
+                operator = Operator.NEQ;
+            }
+            if (operator == null) {
+                return left;
+            }
+            Node node = new Comparison(operator, left, parseRelational());
+            if (peekOperator("==") || peekOperator("!=") || peekKeyword("eq") || peekKeyword("neq")) {
+                throw new UnsupportedExpressionException();
+            }
+            return node;
+        }
+
+        private Node parseRelational() {
+            Node left = parseUnary();
+            Operator operator = null;
+            if (acceptOperator("<=") || acceptKeyword("lte")) {
+                operator = Operator.LTE;
+            } else if (acceptOperator(">=") || acceptKeyword("gte")) {
+                operator = Operator.GTE;
+            } else if (acceptOperator("<") || acceptKeyword("lt")) {
+                operator = Operator.LT;
+            } else if (acceptOperator(">") || acceptKeyword("gt")) {
+                operator = Operator.GT;
+            }
+            if (operator == null) {
+                return left;
+            }
+            Node node = new Comparison(operator, left, parseUnary());
+            if (peekOperator("<") || peekOperator(">") || peekKeyword("lt") || peekKeyword("gt")
+                || peekKeyword("lte") || peekKeyword("gte")) {
+                throw new UnsupportedExpressionException();
+            }
+            return node;
+        }
+
+        private Node parseUnary() {
+            if (peekOperator("!=")) {
+                throw new UnsupportedExpressionException();
+            }
+            if (acceptOperator("!") || acceptKeyword("not")) {
+                return new Not(parseUnary());
+            }
+            return parsePrimary();
+        }
+
+        private Node parsePrimary() {
+            skipWhitespace();
+            if (position >= expression.length()) {
+                throw new UnsupportedExpressionException();
+            }
+            char c = expression.charAt(position);
+            if (c == '(') {
+                position++;
+                Node node = parseOr();
+                if (!acceptOperator(")")) {
+                    throw new UnsupportedExpressionException();
+                }
+                return node;
+            }
+            if (c == '\'' || c == '"') {
+                return new Literal(parseString(c));
+            }
+            if (c >= '0' && c <= '9') {
+                return new Literal(parseInteger());
+            }
+            if (c == '@') {
+                return parseEnumConstant();
+            }
+            String identifier = parseIdentifier();
+            switch (identifier) {
+                case "null":
+                    return new Literal(null);
+                case "true":
+                    return new Literal(Boolean.TRUE);
+                case "false":
+                    return new Literal(Boolean.FALSE);
+                default:
+                    return parsePropertyPath(identifier);
+            }
+        }
+
+        private Node parsePropertyPath(String first) {
+            checkPropertyName(first);
+            List<Segment> segments = new ArrayList<>();
+            segments.add(new Segment(first, reflectorFactory));
+            while (position < expression.length() && expression.charAt(position) == '.') {
+                position++;
+                String name = parseIdentifier();
+                if (acceptOperator("(")) {
+                    if (!acceptOperator(")") || !("size".equals(name) || "isEmpty".equals(name)
+                        || "length".equals(name) || "name".equals(name))) {
+                        throw new UnsupportedExpressionException();
+                    }
+                    if (position < expression.length() && expression.charAt(position) == '.') {
+                        throw new UnsupportedExpressionException();
+                    }
+                    return new PropertyPath(segments, name);
+                }
+                checkPropertyName(name);
+                segments.add(new Segment(name, reflectorFactory));
+            }
+            return new PropertyPath(segments, null);
+        }
+
+        private void checkPropertyName(String name) {
+            if (UNSUPPORTED_KEYWORDS.contains(name) || isOperatorKeyword(name)
+                || "null".equals(name) || "true".equals(name) || "false".equals(name)) {
+                throw new UnsupportedExpressionException();
+            }
+        }
+
+        private Object parseString(char quote) {
+            int end = expression.indexOf(quote, position + 1);
+            if (end < 0) {
+                throw new UnsupportedExpressionException();
+            }
+            String value = expression.substring(position + 1, end);
+            if (value.indexOf('\\') >= 0) {
+                throw new UnsupportedExpressionException();
+            }
+            position = end + 1;
+            // OGNL 中单引号内只有一个字符时是 Character
+            return quote == '\'' && value.length() == 1 ? (Object) value.charAt(0) : value;
+        }
+
+        private Integer parseInteger() {
+            int start = position;
+            while (position < expression.length() && Character.isDigit(expression.charAt(position))) {
+                position++;
+            }
+            if (position - start > 9 || expression.charAt(start) == '0' && position - start > 1
+                || position < expression.length() && (Character.isJavaIdentifierPart(expression.charAt(position))
+                || expression.charAt(position) == '.')) {
+                // 八进制、长整型、浮点数等交给 OGNL
+                throw new UnsupportedExpressionException();
+            }
+            return Integer.valueOf(expression.substring(start, position));
+        }
+
+        private Node parseEnumConstant() {
+            int classEnd = expression.indexOf('@', position + 1);
+            if (classEnd < 0) {
+                throw new UnsupportedExpressionException();
+            }
+            String className = expression.substring(position + 1, classEnd).trim();
+            position = classEnd + 1;
+            String fieldName = parseIdentifier();
+            if (peekOperator("(")) {
+                throw new UnsupportedExpressionException();
+            }
+            return new EnumConstant(className, fieldName);
+        }
+
+        private String parseIdentifier() {
+            skipWhitespace();
+            int start = position;
+            if (position >= expression.length() || !Character.isJavaIdentifierStart(expression.charAt(position))) {
+                throw new UnsupportedExpressionException();
+            }
+            while (position < expression.length() && Character.isJavaIdentifierPart(expression.charAt(position))) {
+                position++;
+            }
+            return expression.substring(start, position);
+        }
+
+        private boolean acceptOperator(String operator) {
+            if (peekOperator(operator)) {
+                position += operator.length();
+                return true;
+            }
+            return false;
+        }
+
+        private boolean peekOperator(String operator) {
+            skipWhitespace();
+            if (!expression.startsWith(operator, position)) {
+                return false;
+            }
+            // 避免把 <= 识别成 <，把 != 识别成 !
+            int next = position + operator.length();
+            return operator.length() != 1 || next >= expression.length() || expression.charAt(next) != '='
+                || operator.charAt(0) == '(' || operator.charAt(0) == ')';
+        }
+
+        private boolean acceptKeyword(String keyword) {
+            if (peekKeyword(keyword)) {
+                position += keyword.length();
+                return true;
+            }
+            return false;
+        }
+
+        private boolean peekKeyword(String keyword) {
+            skipWhitespace();
+            int next = position + keyword.length();
+            return expression.startsWith(keyword, position)
+                && (next >= expression.length() || !Character.isJavaIdentifierPart(expression.charAt(next)));
+        }
+
+        private static boolean isOperatorKeyword(String name) {
+            switch (name) {
+                case "and":
+                case "or":
+                case "not":
+                case "eq":
+                case "neq":
+                case "lt":
+                case "gt":
+                case "lte":
+                case "gte":
+                    return true;
+                default:
+                    return false;
+            }
+        }
+
+        private void skipWhitespace() {
+            while (position < expression.length() && Character.isWhitespace(expression.charAt(position))) {
+                position++;
+            }
+        }
+    }
+
+}
@@ -250,12 +250,25 @@ public class XMLScriptBuilder extends BaseBuilder {
             String open = nodeToHandle.getStringAttribute("open");
             String close = nodeToHandle.getStringAttribute("close");
             String separator = nodeToHandle.getStringAttribute("separator");
+            ForEachMode mode = resolveForEachMode(nodeToHandle.getStringAttribute("mode"));
             // 3. 根据这些属性创建ForEachSqlNode对象
-            ForEachSqlNode forEachSqlNode = new ForEachSqlNode(configuration, mixedSqlNode, collection, nullable, index, item, open, close, separator);
+            ForEachSqlNode forEachSqlNode = new ForEachSqlNode(configuration, mixedSqlNode, collection, nullable, index, item, open, close, separator, mode);
             targetContents.add(forEachSqlNode);
         }
     }
 
+    // 解析<foreach />标签的 mode 属性
+    private ForEachMode resolveForEachMode(String alias) {
+        if (alias == null) {
+            return ForEachMode.ITEMS;
+        }
+        try {
+            return ForEachMode.valueOf(alias);
+        } catch (IllegalArgumentException e) {
+            throw new BuilderException("Error resolving ForEachMode. Cause: " + e, e);
+        }
+    }
+
     /**
      * <if />标签的处理器
      */
@@ -271,7 +284,7 @@ public class XMLScriptBuilder extends BaseBuilder {
             // 2. 获得 test 属性
             String test = nodeToHandle.getStringAttribute("test");
             // 3. 根据这个属性创建IfSqlNode对象
-            IfSqlNode ifSqlNode = new IfSqlNode(mixedSqlNode, test);
+            IfSqlNode ifSqlNode = new IfSqlNode(configuration, mixedSqlNode, test);
             targetContents.add(ifSqlNode);
         }
     }
@@ -0,0 +1,140 @@
+/*
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.session;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import org.apache.ibatis.session.defaults.DefaultSqlSession;
+import org.apache.ibatis.session.defaults.DefaultSqlSessionFactory;
+
+/**
+ * Runs work against a dedicated {@link SqlSession} on the {@link Configuration#getAsyncExecutor() async executor}.
+ * <p>
+ * Every call opens its own session, and therefore its own connection and transaction, on the executor thread and
+ * closes it once the work is done, so asynchronous calls never share the (non thread-safe) session of their caller.
+ * The session is opened by the {@link SqlSessionFactory} of the caller, so its transaction factory and defaults apply.
+ * @since 3.5.9
+ */
+public final class AsyncSqlSessions {
+
+  private AsyncSqlSessions() {
+    // Prevent Instantiation
+  }
+
+  /**
+   * Runs the work on a new session opened by the factory of the calling session.
+   *
+   * @param <T>
+   *          the result type
+   * @param caller
+   *          the session the call was made on, a session opened by a {@link DefaultSqlSessionFactory} or a
+   *          {@link SqlSessionManager}
+   * @param commit
+   *          whether the session is committed after the work completes
+   * @param work
+   *          the work to run
+   * @return a future completed with the result of the work, or exceptionally with the exception it threw
+   * @throws SqlSessionException
+   *           if the factory of the calling session is not known
+   */
+  public static <T> CompletableFuture<T> supplyAsync(SqlSession caller, boolean commit,
+      Function<SqlSession, T> work) {
+    SqlSessionFactory sqlSessionFactory = sqlSessionFactoryOf(caller);
+    if (sqlSessionFactory == null) {
+      throw new SqlSessionException("Cannot run asynchronously on " + caller.getClass().getName()
+          + " because the SqlSessionFactory that opened it is not known. Use AsyncSqlSessions.supplyAsync(SqlSessionFactory, boolean, Function) instead.");
+    }
+    return supplyAsync(sqlSessionFactory, commit, work);
+  }
+
+  /**
+   * Runs the work on a new session.
+   *
+   * @param <T>
+   *          the result type
+   * @param sqlSessionFactory
+   *          the factory that opens the session, its configuration provides the async executor
+   * @param commit
+   *          whether the session is committed after the work completes
+   * @param work
+   *          the work to run
+   * @return a future completed with the result of the work, or exceptionally with the exception it threw
+   */
+  public static <T> CompletableFuture<T> supplyAsync(SqlSessionFactory sqlSessionFactory, boolean commit,
+      Function<SqlSession, T> work) {
+    return CompletableFuture.supplyAsync(() -> {
+      try (SqlSession session = sqlSessionFactory.openSession()) {
+        T result = work.apply(session);
+        if (commit) {
+          session.commit();
+        }
+        return result;
+      }
+    }, sqlSessionFactory.getConfiguration().getAsyncExecutor());
+  }
+
+  /**
+   * Gets the factory that opened a session.
+   *
+   * @return the factory, {@code null} if it is not known
+   */
+  static SqlSessionFactory sqlSessionFactoryOf(SqlSession caller) {
+    if (caller instanceof SqlSessionFactory) {
+      return (SqlSessionFactory) caller;
+    }
+    if (caller instanceof DefaultSqlSession) {
+      return ((DefaultSqlSession) caller).getSqlSessionFactory();
+    }
+    return null;
+  }
+
+  /**
+   * Gets the executor used when none is configured: a virtual-thread-per-task executor when the runtime supports
+   * virtual threads (JDK 21 and later), an unbounded pool of daemon threads otherwise.
+   *
+   * @return the shared default executor
+   */
+  public static Executor defaultExecutor() {
+    return DefaultExecutorHolder.EXECUTOR;
+  }
+
+  private static class DefaultExecutorHolder {
+
+    private static final Executor EXECUTOR = createDefaultExecutor();
+
+    private static Executor createDefaultExecutor() {
+      try {
+        Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+        return (ExecutorService) factory.invoke(null);
+      } catch (ReflectiveOperationException e) {
+        AtomicInteger threadNumber = new AtomicInteger();
+        return Executors.newCachedThreadPool(runnable -> {
+          Thread thread = new Thread(runnable, "mybatis-async-" + threadNumber.incrementAndGet());
+          thread.setDaemon(true);
+          return thread;
+        });
+      }
+    }
+
+  }
+
+}
@@ -25,6 +25,8 @@ import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.function.BiFunction;
 
 import org.apache.ibatis.binding.MapperRegistry;
@@ -34,12 +36,16 @@ import org.apache.ibatis.builder.ResultMapResolver;
 import org.apache.ibatis.builder.annotation.MethodResolver;
 import org.apache.ibatis.builder.xml.XMLStatementBuilder;
 import org.apache.ibatis.cache.Cache;
+import org.apache.ibatis.cache.decorators.ConcurrentLruCache;
 import org.apache.ibatis.cache.decorators.FifoCache;
 import org.apache.ibatis.cache.decorators.LruCache;
 import org.apache.ibatis.cache.decorators.SoftCache;
+import org.apache.ibatis.cache.decorators.TinyLfuCache;
 import org.apache.ibatis.cache.decorators.WeakCache;
+import org.apache.ibatis.cache.impl.OffHeapCache;
 import org.apache.ibatis.cache.impl.PerpetualCache;
 import org.apache.ibatis.datasource.jndi.JndiDataSourceFactory;
+import org.apache.ibatis.datasource.pooled.ConcurrentPooledDataSourceFactory;
 import org.apache.ibatis.datasource.pooled.PooledDataSourceFactory;
 import org.apache.ibatis.datasource.unpooled.UnpooledDataSourceFactory;
 import org.apache.ibatis.executor.BatchExecutor;
@@ -51,7 +57,13 @@ import org.apache.ibatis.executor.keygen.KeyGenerator;
 import org.apache.ibatis.executor.loader.ProxyFactory;
 import org.apache.ibatis.executor.loader.cglib.CglibProxyFactory;
 import org.apache.ibatis.executor.loader.javassist.JavassistProxyFactory;
+import org.apache.ibatis.executor.pagination.LimitOffsetDialect;
+import org.apache.ibatis.executor.pagination.MySqlDialect;
+import org.apache.ibatis.executor.pagination.OffsetFetchDialect;
+import org.apache.ibatis.executor.pagination.PaginationDialect;
+import org.apache.ibatis.executor.pagination.SqlServerDialect;
 import org.apache.ibatis.executor.parameter.ParameterHandler;
+import org.apache.ibatis.executor.resultset.CompiledRowMapper;
 import org.apache.ibatis.executor.resultset.DefaultResultSetHandler;
 import org.apache.ibatis.executor.resultset.ResultSetHandler;
 import org.apache.ibatis.executor.statement.RoutingStatementHandler;
@@ -86,6 +98,7 @@ import org.apache.ibatis.reflection.wrapper.ObjectWrapperFactory;
 import org.apache.ibatis.scripting.LanguageDriver;
 import org.apache.ibatis.scripting.LanguageDriverRegistry;
 import org.apache.ibatis.scripting.defaults.RawLanguageDriver;
+import org.apache.ibatis.scripting.xmltags.ExpressionEvaluator;
 import org.apache.ibatis.scripting.xmltags.XMLLanguageDriver;
 import org.apache.ibatis.transaction.Transaction;
 import org.apache.ibatis.transaction.jdbc.JdbcTransactionFactory;
@@ -118,11 +131,14 @@ public class Configuration {
     protected boolean returnInstanceForEmptyRow;
     protected boolean shrinkWhitespacesInSql;
     protected boolean nullableOnForEach;
+    protected boolean compiledRowMappingEnabled;
+    protected int sqlShapeCacheSize;
 
     protected String logPrefix;
     protected Class<? extends Log> logImpl;
     protected Class<? extends VFS> vfsImpl;
     protected Class<?> defaultSqlProviderType;
+    protected PaginationDialect paginationDialect;
     protected LocalCacheScope localCacheScope = LocalCacheScope.SESSION;
     protected JdbcType jdbcTypeForNull = JdbcType.OTHER;
     protected Set<String> lazyLoadTriggerMethods = new HashSet<>(Arrays.asList("equals", "clone", "hashCode", "toString"));
@@ -131,6 +147,7 @@ public class Configuration {
     protected ResultSetType defaultResultSetType;
     // 默认为简单执行器
     protected ExecutorType defaultExecutorType = ExecutorType.SIMPLE;
+    protected java.util.concurrent.Executor asyncExecutor;
     protected AutoMappingBehavior autoMappingBehavior = AutoMappingBehavior.PARTIAL;
     protected AutoMappingUnknownColumnBehavior autoMappingUnknownColumnBehavior = AutoMappingUnknownColumnBehavior.NONE;
     // ----------------- <settings> 节点 end ------------------------
@@ -189,6 +206,10 @@ public class Configuration {
     protected final Collection<CacheRefResolver> incompleteCacheRefs = new LinkedList<>();
     protected final Collection<ResultMapResolver> incompleteResultMaps = new LinkedList<>();
     protected final Collection<MethodResolver> incompleteMethods = new LinkedList<>();
+    private final ReentrantLock incompleteStatementsLock = new ReentrantLock();
+    private final ReentrantLock incompleteCacheRefsLock = new ReentrantLock();
+    private final ReentrantLock incompleteResultMapsLock = new ReentrantLock();
+    private final ReentrantLock incompleteMethodsLock = new ReentrantLock();
 
     /*
      * A map holds cache-ref relationship. The key is the namespace that
@@ -196,6 +217,15 @@ public class Configuration {
      * namespace which the actual cache is bound to.
      */
     protected final Map<String, String> cacheRefMap = new HashMap<>();
+    /*
+     * 编译后的行映射器，key 为 ResultMap 的 id 加上结果集的列布局
+     */
+    protected final Map<String, CompiledRowMapper> compiledRowMappers = new ConcurrentHashMap<>();
+    /*
+     * 动态 SQL 的表达式计算器，由当前 Configuration 构建的所有语句共享其编译后的表达式，通过 reflectorFactory 查找属性的 getter，
+     * 更换 reflectorFactory 时重新创建
+     */
+    protected ExpressionEvaluator expressionEvaluator = newExpressionEvaluator();
 
     public Configuration(Environment environment) {
         this();
@@ -208,16 +238,27 @@ public class Configuration {
 
         typeAliasRegistry.registerAlias("JNDI", JndiDataSourceFactory.class);
         typeAliasRegistry.registerAlias("POOLED", PooledDataSourceFactory.class);
+        typeAliasRegistry.registerAlias("POOLED_CONCURRENT", ConcurrentPooledDataSourceFactory.class);
         typeAliasRegistry.registerAlias("UNPOOLED", UnpooledDataSourceFactory.class);
 
         typeAliasRegistry.registerAlias("PERPETUAL", PerpetualCache.class);
+        typeAliasRegistry.registerAlias("OFF_HEAP", OffHeapCache.class);
         typeAliasRegistry.registerAlias("FIFO", FifoCache.class);
         typeAliasRegistry.registerAlias("LRU", LruCache.class);
+        typeAliasRegistry.registerAlias("LRU_CONCURRENT", ConcurrentLruCache.class);
+        typeAliasRegistry.registerAlias("TINYLFU", TinyLfuCache.class);
         typeAliasRegistry.registerAlias("SOFT", SoftCache.class);
         typeAliasRegistry.registerAlias("WEAK", WeakCache.class);
 
         typeAliasRegistry.registerAlias("DB_VENDOR", VendorDatabaseIdProvider.class);
 
+        typeAliasRegistry.registerAlias("H2", LimitOffsetDialect.class);
+        typeAliasRegistry.registerAlias("HSQLDB", LimitOffsetDialect.class);
+        typeAliasRegistry.registerAlias("POSTGRESQL", LimitOffsetDialect.class);
+        typeAliasRegistry.registerAlias("MYSQL", MySqlDialect.class);
+        typeAliasRegistry.registerAlias("DERBY", OffsetFetchDialect.class);
+        typeAliasRegistry.registerAlias("SQLSERVER", SqlServerDialect.class);
+
         typeAliasRegistry.registerAlias("XML", XMLLanguageDriver.class);
         typeAliasRegistry.registerAlias("RAW", RawLanguageDriver.class);
 
@@ -340,6 +381,92 @@ public class Configuration {
         return nullableOnForEach;
     }
 
+    /**
+     * Sets whether simple result maps are mapped by row mappers compiled once per result set column layout.
+     *
+     * @param compiledRowMappingEnabled If enabled, set to {@code true}
+     * @since 3.5.9
+     */
+    public void setCompiledRowMappingEnabled(boolean compiledRowMappingEnabled) {
+        this.compiledRowMappingEnabled = compiledRowMappingEnabled;
+    }
+
+    /**
+     * Returns whether simple result maps are mapped by compiled row mappers.
+     *
+     * <p>Default is {@code false}.
+     *
+     * @return If enabled, set to {@code true}
+     * @since 3.5.9
+     */
+    public boolean isCompiledRowMappingEnabled() {
+        return compiledRowMappingEnabled;
+    }
+
+    /**
+     * Returns the evaluator of the test and collection expressions of the dynamic statements built by this
+     * configuration. It keeps a bounded number of compiled expressions.
+     *
+     * @return the expression evaluator
+     * @since 3.5.9
+     */
+    public ExpressionEvaluator getExpressionEvaluator() {
+        return expressionEvaluator;
+    }
+
+    /**
+     * Sets the maximum number of parsed SQL shapes each dynamic statement keeps, so that calls generating the same SQL
+     * text skip parsing {@code #{...}} placeholders again. The least recently used shape is evicted once the limit is
+     * reached.
+     *
+     * @param sqlShapeCacheSize the maximum number of shapes per statement, {@code 0} disables the cache
+     * @since 3.5.9
+     */
+    public void setSqlShapeCacheSize(int sqlShapeCacheSize) {
+        this.sqlShapeCacheSize = sqlShapeCacheSize;
+    }
+
+    /**
+     * Returns the maximum number of parsed SQL shapes each dynamic statement keeps.
+     *
+     * <p>Default is {@code 0} (disabled).
+     *
+     * @return the maximum number of shapes per statement
+     * @since 3.5.9
+     */
+    public int getSqlShapeCacheSize() {
+        return sqlShapeCacheSize;
+    }
+
+    /**
+     * Gets the dialect that rewrites statements executed with a {@link RowBounds} into paged SQL.
+     *
+     * @return the pagination dialect, or {@code null} if offsets are skipped on the result set
+     * @since 3.5.9
+     */
+    public PaginationDialect getPaginationDialect() {
+        return paginationDialect;
+    }
+
+    /**
+     * Sets the dialect that rewrites statements executed with a {@link RowBounds} into paged SQL, so that the database
+     * skips the offset rows instead of the driver.
+     *
+     * @param paginationDialect the pagination dialect, {@code null} skips offset rows on the result set
+     * @since 3.5.9
+     */
+    public void setPaginationDialect(PaginationDialect paginationDialect) {
+        this.paginationDialect = paginationDialect;
+    }
+
+    public CompiledRowMapper getCompiledRowMapper(String layoutKey) {
+        return compiledRowMappers.get(layoutKey);
+    }
+
+    public void addCompiledRowMapper(String layoutKey, CompiledRowMapper rowMapper) {
+        compiledRowMappers.putIfAbsent(layoutKey, rowMapper);
+    }
+
     public String getDatabaseId() {
         return databaseId;
     }
@@ -483,6 +610,28 @@ public class Configuration {
         this.defaultExecutorType = defaultExecutorType;
     }
 
+    /**
+     * Gets the executor that runs asynchronous statements ({@code SqlSession#selectListAsync} and mapper methods
+     * returning {@code CompletableFuture}).
+     *
+     * @return the configured executor, or {@link AsyncSqlSessions#defaultExecutor()} if none was set
+     * @since 3.5.9
+     */
+    public java.util.concurrent.Executor getAsyncExecutor() {
+        return asyncExecutor == null ? AsyncSqlSessions.defaultExecutor() : asyncExecutor;
+    }
+
+    /**
+     * Sets the executor that runs asynchronous statements, e.g. {@code Executors.newVirtualThreadPerTaskExecutor()}.
+     *
+     * @param asyncExecutor
+     *          the executor, null restores the default
+     * @since 3.5.9
+     */
+    public void setAsyncExecutor(java.util.concurrent.Executor asyncExecutor) {
+        this.asyncExecutor = asyncExecutor;
+    }
+
     public boolean isCacheEnabled() {
         return cacheEnabled;
     }
@@ -608,6 +757,11 @@ public class Configuration {
 
     public void setReflectorFactory(ReflectorFactory reflectorFactory) {
         this.reflectorFactory = reflectorFactory;
+        this.expressionEvaluator = newExpressionEvaluator();
+    }
+
+    private ExpressionEvaluator newExpressionEvaluator() {
+        return new ExpressionEvaluator(ExpressionEvaluator.DEFAULT_SIMPLE_EXPRESSION_CACHE_SIZE, reflectorFactory);
     }
 
     public ObjectFactory getObjectFactory() {
@@ -882,7 +1036,12 @@ public class Configuration {
     }
 
     public void addIncompleteStatement(XMLStatementBuilder incompleteStatement) {
-        incompleteStatements.add(incompleteStatement);
+        incompleteStatementsLock.lock();
+        try {
+            incompleteStatements.add(incompleteStatement);
+        } finally {
+            incompleteStatementsLock.unlock();
+        }
     }
 
     public Collection<CacheRefResolver> getIncompleteCacheRefs() {
@@ -890,7 +1049,12 @@ public class Configuration {
     }
 
     public void addIncompleteCacheRef(CacheRefResolver incompleteCacheRef) {
-        incompleteCacheRefs.add(incompleteCacheRef);
+        incompleteCacheRefsLock.lock();
+        try {
+            incompleteCacheRefs.add(incompleteCacheRef);
+        } finally {
+            incompleteCacheRefsLock.unlock();
+        }
     }
 
     public Collection<ResultMapResolver> getIncompleteResultMaps() {
@@ -898,11 +1062,21 @@ public class Configuration {
     }
 
     public void addIncompleteResultMap(ResultMapResolver resultMapResolver) {
-        incompleteResultMaps.add(resultMapResolver);
+        incompleteResultMapsLock.lock();
+        try {
+            incompleteResultMaps.add(resultMapResolver);
+        } finally {
+            incompleteResultMapsLock.unlock();
+        }
     }
 
     public void addIncompleteMethod(MethodResolver builder) {
-        incompleteMethods.add(builder);
+        incompleteMethodsLock.lock();
+        try {
+            incompleteMethods.add(builder);
+        } finally {
+            incompleteMethodsLock.unlock();
+        }
     }
 
     public Collection<MethodResolver> getIncompleteMethods() {
@@ -979,35 +1153,28 @@ public class Configuration {
      * statement validation.
      */
     protected void buildAllStatements() {
-        parsePendingResultMaps();
-        if (!incompleteCacheRefs.isEmpty()) {
-            synchronized (incompleteCacheRefs) {
-                incompleteCacheRefs.removeIf(x -> x.resolveCacheRef() != null);
-            }
-        }
-        if (!incompleteStatements.isEmpty()) {
-            synchronized (incompleteStatements) {
-                incompleteStatements.removeIf(x -> {
-                    x.parseStatementNode();
-                    return true;
-                });
-            }
-        }
-        if (!incompleteMethods.isEmpty()) {
-            synchronized (incompleteMethods) {
-                incompleteMethods.removeIf(x -> {
-                    x.resolve();
-                    return true;
-                });
-            }
-        }
+        parsePendingResultMaps(true);
+        parsePendingCacheRefs(true);
+        parsePendingStatements(true);
+        parsePendingMethods(true);
     }
 
-    private void parsePendingResultMaps() {
+    /**
+     * Resolves the pending result maps, repeating until no more can be resolved.
+     * <p>
+     * The pending collections are guarded by {@link ReentrantLock}s rather than monitors: resolving may load
+     * classes and resources, and a monitor held there would pin the carrier of a virtual thread.
+     *
+     * @param reportUnresolved
+     *          whether to throw the {@link IncompleteElementException} of a result map that is still unresolvable
+     * @since 3.5.9
+     */
+    public void parsePendingResultMaps(boolean reportUnresolved) {
         if (incompleteResultMaps.isEmpty()) {
             return;
         }
-        synchronized (incompleteResultMaps) {
+        incompleteResultMapsLock.lock();
+        try {
             boolean resolved;
             IncompleteElementException ex = null;
             do {
@@ -1023,10 +1190,99 @@ public class Configuration {
                     }
                 }
             } while (resolved);
-            if (!incompleteResultMaps.isEmpty() && ex != null) {
+            if (reportUnresolved && !incompleteResultMaps.isEmpty() && ex != null) {
                 // At least one result map is unresolvable.
                 throw ex;
             }
+        } finally {
+            incompleteResultMapsLock.unlock();
+        }
+    }
+
+    /**
+     * Resolves the pending cache references.
+     *
+     * @param reportUnresolved
+     *          whether to throw the {@link IncompleteElementException} of a reference that is still unresolvable
+     * @since 3.5.9
+     */
+    public void parsePendingCacheRefs(boolean reportUnresolved) {
+        if (incompleteCacheRefs.isEmpty()) {
+            return;
+        }
+        incompleteCacheRefsLock.lock();
+        try {
+            incompleteCacheRefs.removeIf(x -> {
+                try {
+                    x.resolveCacheRef();
+                    return true;
+                } catch (IncompleteElementException e) {
+                    if (reportUnresolved) {
+                        throw e;
+                    }
+                    return false;
+                }
+            });
+        } finally {
+            incompleteCacheRefsLock.unlock();
+        }
+    }
+
+    /**
+     * Parses the pending statement nodes.
+     *
+     * @param reportUnresolved
+     *          whether to throw the {@link IncompleteElementException} of a statement that is still unresolvable
+     * @since 3.5.9
+     */
+    public void parsePendingStatements(boolean reportUnresolved) {
+        if (incompleteStatements.isEmpty()) {
+            return;
+        }
+        incompleteStatementsLock.lock();
+        try {
+            incompleteStatements.removeIf(x -> {
+                try {
+                    x.parseStatementNode();
+                    return true;
+                } catch (IncompleteElementException e) {
+                    if (reportUnresolved) {
+                        throw e;
+                    }
+                    return false;
+                }
+            });
+        } finally {
+            incompleteStatementsLock.unlock();
+        }
+    }
+
+    /**
+     * Resolves the pending annotated mapper methods.
+     *
+     * @param reportUnresolved
+     *          whether to throw the {@link IncompleteElementException} of a method that is still unresolvable
+     * @since 3.5.9
+     */
+    public void parsePendingMethods(boolean reportUnresolved) {
+        if (incompleteMethods.isEmpty()) {
+            return;
+        }
+        incompleteMethodsLock.lock();
+        try {
+            incompleteMethods.removeIf(x -> {
+                try {
+                    x.resolve();
+                    return true;
+                } catch (IncompleteElementException e) {
+                    if (reportUnresolved) {
+                        throw e;
+                    }
+                    return false;
+                }
+            });
+        } finally {
+            incompleteMethodsLock.unlock();
         }
     }
 
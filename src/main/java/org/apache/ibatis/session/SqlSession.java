@@ -19,8 +19,11 @@ import java.io.Closeable;
 import java.sql.Connection;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.cursor.CursorPublisher;
+import org.apache.ibatis.cursor.KeysetCursor;
 import org.apache.ibatis.executor.BatchResult;
 
 /**
@@ -49,6 +52,20 @@ public interface SqlSession extends Closeable {
    */
   <T> T selectOne(String statement, Object parameter);
 
+  /**
+   * Retrieve a single row mapped from the statement key and parameter on the
+   * {@link Configuration#getAsyncExecutor() async executor}, using a session of its own opened by the
+   * {@link SqlSessionFactory} of this session.
+   * @param <T> the returned object type
+   * @param statement Unique identifier matching the statement to use.
+   * @param parameter A parameter object to pass to the statement.
+   * @return a future of the mapped object
+   * @since 3.5.9
+   */
+  default <T> CompletableFuture<T> selectOneAsync(String statement, Object parameter) {
+    return AsyncSqlSessions.supplyAsync(this, false, session -> session.selectOne(statement, parameter));
+  }
+
   /**
    * Retrieve a list of mapped objects from the statement key.
    * @param <E> the returned list element type
@@ -77,6 +94,53 @@ public interface SqlSession extends Closeable {
    */
   <E> List<E> selectList(String statement, Object parameter, RowBounds rowBounds);
 
+  /**
+   * Retrieve a list of mapped objects from the statement key and parameter on the
+   * {@link Configuration#getAsyncExecutor() async executor}, using a session of its own opened by the
+   * {@link SqlSessionFactory} of this session.
+   * @param <E> the returned list element type
+   * @param statement Unique identifier matching the statement to use.
+   * @param parameter A parameter object to pass to the statement.
+   * @return a future of the list of mapped objects
+   * @since 3.5.9
+   */
+  default <E> CompletableFuture<List<E>> selectListAsync(String statement, Object parameter) {
+    return selectListAsync(statement, parameter, RowBounds.DEFAULT);
+  }
+
+  /**
+   * Retrieve a list of mapped objects from the statement key and parameter, within the specified row bounds, on the
+   * {@link Configuration#getAsyncExecutor() async executor}, using a session of its own opened by the
+   * {@link SqlSessionFactory} of this session.
+   * @param <E> the returned list element type
+   * @param statement Unique identifier matching the statement to use.
+   * @param parameter A parameter object to pass to the statement.
+   * @param rowBounds  Bounds to limit object retrieval
+   * @return a future of the list of mapped objects
+   * @since 3.5.9
+   */
+  default <E> CompletableFuture<List<E>> selectListAsync(String statement, Object parameter, RowBounds rowBounds) {
+    return AsyncSqlSessions.supplyAsync(this, false,
+        session -> session.selectList(statement, parameter, rowBounds));
+  }
+
+  /**
+   * Convert a list of results into a Map based on one of the properties in the resulting objects, on the
+   * {@link Configuration#getAsyncExecutor() async executor}, using a session of its own opened by the
+   * {@link SqlSessionFactory} of this session.
+   * @param <K> the returned Map keys type
+   * @param <V> the returned Map values type
+   * @param statement Unique identifier matching the statement to use.
+   * @param parameter A parameter object to pass to the statement.
+   * @param mapKey The property to use as key for each value in the list.
+   * @return a future of the Map containing key pair data.
+   * @since 3.5.9
+   */
+  default <K, V> CompletableFuture<Map<K, V>> selectMapAsync(String statement, Object parameter, String mapKey) {
+    return AsyncSqlSessions.supplyAsync(this, false,
+        session -> session.selectMap(statement, parameter, mapKey));
+  }
+
   /**
    * The selectMap is a special case in that it is designed to convert a list
    * of results into a Map based on one of the properties in the resulting
@@ -144,6 +208,50 @@ public interface SqlSession extends Closeable {
    */
   <T> Cursor<T> selectCursor(String statement, Object parameter, RowBounds rowBounds);
 
+  /**
+   * Publishes the results of the statement with backpressure: rows are read from the result set only as the
+   * subscriber requests them, on the {@link Configuration#getAsyncExecutor() async executor}, in batches of the
+   * statement fetch size. The query is executed on the calling thread. This session must not be used by anyone else
+   * and must stay open until the subscriber has been completed, failed or has cancelled.
+   * @param <T> the returned element type.
+   * @param statement Unique identifier matching the statement to use.
+   * @param parameter A parameter object to pass to the statement.
+   * @return a publisher of the mapped objects, which accepts a single subscriber
+   * @since 3.5.9
+   */
+  default <T> CursorPublisher<T> selectPublisher(String statement, Object parameter) {
+    Configuration configuration = getConfiguration();
+    Integer fetchSize = configuration.getMappedStatement(statement).getFetchSize();
+    if (fetchSize == null) {
+      fetchSize = configuration.getDefaultFetchSize();
+    }
+    return new CursorPublisher<>(selectCursor(statement, parameter), configuration.getAsyncExecutor(),
+        fetchSize != null && fetchSize > 0 ? fetchSize : CursorPublisher.DEFAULT_BATCH_SIZE);
+  }
+
+  /**
+   * Scans the results of the statement with keyset pagination, reading {@code pageSize} rows at a time on a session
+   * opened by the factory of this session, so that no connection or transaction is held between pages. The statement
+   * receives the key of the last row read as {@code lastKey} and must return the following rows ordered by that key.
+   * @param <T> the returned element type.
+   * @param statement Unique identifier matching the statement to use.
+   * @param parameter A parameter object to pass to the statement.
+   * @param keyProperty The property holding the key of each result object, {@code null} if the results are the keys.
+   * @param pageSize The number of rows read per page.
+   * @return a cursor over all the pages
+   * @throws SqlSessionException if the factory of this session is not known
+   * @see KeysetCursor
+   * @since 3.5.9
+   */
+  default <T> Cursor<T> selectKeyset(String statement, Object parameter, String keyProperty, int pageSize) {
+    SqlSessionFactory sqlSessionFactory = AsyncSqlSessions.sqlSessionFactoryOf(this);
+    if (sqlSessionFactory == null) {
+      throw new SqlSessionException("Cannot scan with keyset pagination on " + getClass().getName()
+          + " because the SqlSessionFactory that opened it is not known. Use new KeysetCursor(SqlSessionFactory, ...) instead.");
+    }
+    return new KeysetCursor<>(sqlSessionFactory, statement, parameter, keyProperty, pageSize);
+  }
+
   /**
    * Retrieve a single row mapped from the statement key and parameter
    * using a {@code ResultHandler}.
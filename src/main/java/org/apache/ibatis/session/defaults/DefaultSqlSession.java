@@ -16,17 +16,21 @@
 package org.apache.ibatis.session.defaults;
 
 import java.io.IOException;
+import java.lang.reflect.Array;
 import java.sql.Connection;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
 import org.apache.ibatis.binding.BindingException;
+import org.apache.ibatis.binding.MapperMethod.ParamMap;
 import org.apache.ibatis.cursor.Cursor;
 import org.apache.ibatis.exceptions.ExceptionFactory;
 import org.apache.ibatis.exceptions.TooManyResultsException;
+import org.apache.ibatis.executor.BatchExecutor;
 import org.apache.ibatis.executor.BatchResult;
 import org.apache.ibatis.executor.ErrorContext;
 import org.apache.ibatis.executor.Executor;
@@ -38,6 +42,7 @@ import org.apache.ibatis.session.Configuration;
 import org.apache.ibatis.session.ResultHandler;
 import org.apache.ibatis.session.RowBounds;
 import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
 
 /**
  * 默认的 SqlSession 实现类，调用 Executor 执行器，执行数据库操作
@@ -50,6 +55,10 @@ import org.apache.ibatis.session.SqlSession;
 public class DefaultSqlSession implements SqlSession {
 
     private final Configuration configuration;
+    /**
+     * 创建当前 SqlSession 的工厂，异步调用通过它打开独立的 SqlSession
+     */
+    private final SqlSessionFactory sqlSessionFactory;
     /**
      * 底层依赖的 Executor 对象
      */
@@ -66,6 +75,11 @@ public class DefaultSqlSession implements SqlSession {
     private List<Cursor<?>> cursorList;
 
     public DefaultSqlSession(Configuration configuration, Executor executor, boolean autoCommit) {
+        this(null, configuration, executor, autoCommit);
+    }
+
+    public DefaultSqlSession(SqlSessionFactory sqlSessionFactory, Configuration configuration, Executor executor, boolean autoCommit) {
+        this.sqlSessionFactory = sqlSessionFactory;
         this.configuration = configuration;
         this.executor = executor;
         this.dirty = false;
@@ -184,8 +198,19 @@ public class DefaultSqlSession implements SqlSession {
         try {
             // 1. 根据 id 找到 MappedStatement
             MappedStatement ms = configuration.getMappedStatement(statement);
-            // 2. 使用执行器查询结果，这里传入的 ResultHandler 是 null
-            return executor.query(ms, wrapCollection(parameter), rowBounds, handler);
+            Object parameterObject = wrapCollection(parameter);
+            // 分批执行时，分页参数无法跨批次生效，只对默认的 RowBounds 分批
+            List<Object> chunks = rowBounds == RowBounds.DEFAULT ? splitParameter(ms, parameterObject) : null;
+            if (chunks == null) {
+                // 2. 使用执行器查询结果，这里传入的 ResultHandler 是 null
+                return executor.query(ms, parameterObject, rowBounds, handler);
+            }
+            // 依次执行每一批，并按顺序合并结果
+            List<E> results = new ArrayList<>();
+            for (Object chunk : chunks) {
+                results.addAll(executor.query(ms, chunk, rowBounds, handler));
+            }
+            return results;
         } catch (Exception e) {
             throw ExceptionFactory.wrapException("Error querying database.  Cause: " + e, e);
         } finally {
@@ -229,8 +254,20 @@ public class DefaultSqlSession implements SqlSession {
             // 1. 每次更新之前，dirty 标记设置为 true
             dirty = true;
             MappedStatement ms = configuration.getMappedStatement(statement);
-            // 执行器执行 update 更新操作
-            return executor.update(ms, wrapCollection(parameter));
+            Object parameterObject = wrapCollection(parameter);
+            List<Object> chunks = splitParameter(ms, parameterObject);
+            if (chunks == null) {
+                // 执行器执行 update 更新操作
+                return executor.update(ms, parameterObject);
+            }
+            // 依次执行每一批，并累加影响的行数
+            int updateCount = 0;
+            for (Object chunk : chunks) {
+                int count = executor.update(ms, chunk);
+                // 批处理执行器在 flush 之前无法得知影响的行数
+                updateCount = count == BatchExecutor.BATCH_UPDATE_RETURN_VALUE ? count : updateCount + count;
+            }
+            return updateCount;
         } catch (Exception e) {
             throw ExceptionFactory.wrapException("Error updating database.  Cause: " + e, e);
         } finally {
@@ -325,6 +362,16 @@ public class DefaultSqlSession implements SqlSession {
         return configuration;
     }
 
+    /**
+     * Gets the factory that opened this session.
+     *
+     * @return the factory, or null if the session was created directly
+     * @since 3.5.9
+     */
+    public SqlSessionFactory getSqlSessionFactory() {
+        return sqlSessionFactory;
+    }
+
     @Override
     public <T> T getMapper(Class<T> type) {
         // 最后调用 MapperRegistry.getMapper
@@ -365,6 +412,60 @@ public class DefaultSqlSession implements SqlSession {
         return ParamNameResolver.wrapToMapIfCollection(object, null);
     }
 
+    /**
+     * 将 chunkParameter 指定的集合参数按 chunkSize 拆分，为每一批生成一个参数对象
+     *
+     * @param ms        MappedStatement 对象
+     * @param parameter 参数对象
+     * @return 每一批的参数对象，不需要分批时返回 null
+     */
+    private List<Object> splitParameter(MappedStatement ms, Object parameter) {
+        int chunkSize = ms.getChunkSize();
+        if (chunkSize <= 0 || ms.getChunkParameter() == null) {
+            return null;
+        }
+        if (!(parameter instanceof Map)) {
+            throw new BindingException("Statement '" + ms.getId() + "' is chunked by parameter '" + ms.getChunkParameter()
+                + "', but its parameter is not a map. Use @Param or pass the collection as the only parameter.");
+        }
+        @SuppressWarnings("unchecked")
+        Map<String, Object> parameterMap = (Map<String, Object>) parameter;
+        Object collection = parameterMap.get(ms.getChunkParameter());
+        int size;
+        if (collection instanceof Collection) {
+            size = ((Collection<?>) collection).size();
+        } else if (collection != null && collection.getClass().isArray()) {
+            size = Array.getLength(collection);
+        } else {
+            // null 或者不支持的类型，不分批，交给 <foreach /> 处理
+            return null;
+        }
+        if (size <= chunkSize) {
+            return null;
+        }
+        List<?> elements = collection instanceof List ? (List<?>) collection
+            : collection instanceof Collection ? new ArrayList<>((Collection<?>) collection) : null;
+        List<Object> chunks = new ArrayList<>((size + chunkSize - 1) / chunkSize);
+        for (int from = 0; from < size; from += chunkSize) {
+            int to = Math.min(from + chunkSize, size);
+            Object chunk;
+            if (elements != null) {
+                chunk = new ArrayList<>(elements.subList(from, to));
+            } else {
+                chunk = Array.newInstance(collection.getClass().getComponentType(), to - from);
+                System.arraycopy(collection, from, chunk, 0, to - from);
+            }
+            // 复制参数对象，集合的所有别名（例如 collection、list）都替换成当前批次
+            Map<String, Object> chunkParameter = parameterMap instanceof ParamMap
+                ? new ParamMap<>() : new HashMap<>();
+            for (Map.Entry<String, Object> entry : parameterMap.entrySet()) {
+                chunkParameter.put(entry.getKey(), entry.getValue() == collection ? chunk : entry.getValue());
+            }
+            chunks.add(chunkParameter);
+        }
+        return chunks;
+    }
+
     /**
      * 严格 Map，如果获取不到对应 key 抛出异常
      *
@@ -108,7 +108,7 @@ public class DefaultSqlSessionFactory implements SqlSessionFactory {
             tx = transactionFactory.newTransaction(environment.getDataSource(), level, autoCommit);
             // 根据配置创建 Executor 对象
             final Executor executor = configuration.newExecutor(tx, execType);
-            return new DefaultSqlSession(configuration, executor, autoCommit);
+            return new DefaultSqlSession(this, configuration, executor, autoCommit);
         } catch (Exception e) {
             // 如果打开事务出错，则关闭它
             closeTransaction(tx); // may have fetched a connection so lets call close()
@@ -135,7 +135,7 @@ public class DefaultSqlSessionFactory implements SqlSessionFactory {
             final Transaction tx = transactionFactory.newTransaction(connection);
             // 根据配置创建执行器
             final Executor executor = configuration.newExecutor(tx, execType);
-            return new DefaultSqlSession(configuration, executor, autoCommit);
+            return new DefaultSqlSession(this, configuration, executor, autoCommit);
         } catch (Exception e) {
             throw ExceptionFactory.wrapException("Error opening session.  Cause: " + e, e);
         } finally {
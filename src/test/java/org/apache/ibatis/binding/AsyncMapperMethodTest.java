@@ -0,0 +1,214 @@
+/*
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.binding;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.sql.DataSource;
+
+import org.apache.ibatis.BaseDataTest;
+import org.apache.ibatis.annotations.Delete;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.MapKey;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.domain.blog.Author;
+import org.apache.ibatis.exceptions.PersistenceException;
+import org.apache.ibatis.mapping.Environment;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionException;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.apache.ibatis.session.defaults.DefaultSqlSession;
+import org.apache.ibatis.session.defaults.DefaultSqlSessionFactory;
+import org.apache.ibatis.transaction.jdbc.JdbcTransactionFactory;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+class AsyncMapperMethodTest {
+
+  private static SqlSessionFactory sqlSessionFactory;
+  private static ExecutorService executor;
+  private static final AtomicInteger submittedTasks = new AtomicInteger();
+
+  @BeforeAll
+  static void setup() throws Exception {
+    DataSource dataSource = BaseDataTest.createBlogDataSource();
+    Environment environment = new Environment("Production", new JdbcTransactionFactory(), dataSource);
+    Configuration configuration = new Configuration(environment);
+    executor = Executors.newFixedThreadPool(2);
+    configuration.setAsyncExecutor(task -> {
+      submittedTasks.incrementAndGet();
+      executor.execute(task);
+    });
+    configuration.addMapper(Mapper.class);
+    configuration.addMapper(CursorMapper.class);
+    sqlSessionFactory = new SqlSessionFactoryBuilder().build(configuration);
+  }
+
+  @AfterAll
+  static void tearDown() {
+    executor.shutdownNow();
+  }
+
+  @Test
+  void shouldSelectOneAndListAsynchronously() throws Exception {
+    try (SqlSession session = sqlSessionFactory.openSession()) {
+      Mapper mapper = session.getMapper(Mapper.class);
+      CompletableFuture<Author> author = mapper.selectAuthor(101);
+      CompletableFuture<List<Author>> authors = mapper.selectAuthors();
+      assertEquals("jim", author.get(10, TimeUnit.SECONDS).getUsername());
+      assertThat(authors.get(10, TimeUnit.SECONDS)).extracting(Author::getId).containsExactly(101, 102);
+      assertNull(mapper.selectAuthor(-1).get(10, TimeUnit.SECONDS));
+    }
+  }
+
+  @Test
+  void shouldSelectMapAsynchronously() throws Exception {
+    try (SqlSession session = sqlSessionFactory.openSession()) {
+      Map<Integer, Author> authors = session.getMapper(Mapper.class).selectAuthorMap().get(10, TimeUnit.SECONDS);
+      assertEquals("sally", authors.get(102).getUsername());
+    }
+  }
+
+  @Test
+  void shouldRunOnConfiguredExecutor() throws Exception {
+    try (SqlSession session = sqlSessionFactory.openSession()) {
+      int before = submittedTasks.get();
+      assertNotNull(session.getMapper(Mapper.class).selectAuthor(101).get(10, TimeUnit.SECONDS));
+      assertEquals(before + 1, submittedTasks.get());
+    }
+  }
+
+  @Test
+  void shouldCommitDmlRunInItsOwnSession() throws Exception {
+    try (SqlSession session = sqlSessionFactory.openSession()) {
+      Mapper mapper = session.getMapper(Mapper.class);
+      assertEquals(1, mapper.insertAuthor(9001).get(10, TimeUnit.SECONDS).intValue());
+      // visible to a different session, so the async session committed
+      try (SqlSession other = sqlSessionFactory.openSession()) {
+        assertNotNull(other.getMapper(Mapper.class).selectAuthor(9001).get(10, TimeUnit.SECONDS));
+      }
+      assertNull(mapper.deleteAuthor(9001).get(10, TimeUnit.SECONDS));
+      assertNull(mapper.selectAuthor(9001).get(10, TimeUnit.SECONDS));
+    }
+  }
+
+  @Test
+  void shouldOpenSessionsFromTheCallersFactory() throws Exception {
+    AtomicInteger openedSessions = new AtomicInteger();
+    SqlSessionFactory countingFactory = new DefaultSqlSessionFactory(sqlSessionFactory.getConfiguration()) {
+      @Override
+      public SqlSession openSession() {
+        openedSessions.incrementAndGet();
+        return super.openSession();
+      }
+    };
+    try (SqlSession session = countingFactory.openSession()) {
+      assertNotNull(session.getMapper(Mapper.class).selectAuthor(101).get(10, TimeUnit.SECONDS));
+      assertNotNull(session.selectOneAsync(Mapper.class.getName() + ".selectAuthor", 101).get(10, TimeUnit.SECONDS));
+    }
+    assertEquals(3, openedSessions.get());
+  }
+
+  @Test
+  void shouldRejectSessionWithoutKnownFactory() {
+    Configuration configuration = sqlSessionFactory.getConfiguration();
+    SqlSession session = new DefaultSqlSession(configuration, configuration.newExecutor(
+        new JdbcTransactionFactory().newTransaction(configuration.getEnvironment().getDataSource(), null, false)));
+    try {
+      assertThrows(SqlSessionException.class, () -> session.selectOneAsync(Mapper.class.getName() + ".selectAuthor", 101));
+    } finally {
+      session.close();
+    }
+  }
+
+  @Test
+  void shouldCompleteExceptionallyOnFailure() {
+    try (SqlSession session = sqlSessionFactory.openSession()) {
+      CompletableFuture<Author> future = session.getMapper(Mapper.class).selectBroken();
+      ExecutionException e = assertThrows(ExecutionException.class, () -> future.get(10, TimeUnit.SECONDS));
+      assertTrue(e.getCause() instanceof PersistenceException);
+    }
+  }
+
+  @Test
+  void shouldSelectThroughSqlSessionAsyncMethods() throws Exception {
+    try (SqlSession session = sqlSessionFactory.openSession()) {
+      String statement = Mapper.class.getName() + ".selectAuthor";
+      Author author = session.<Author>selectOneAsync(statement, 102).get(10, TimeUnit.SECONDS);
+      assertEquals("sally", author.getUsername());
+      List<Author> authors = session.<Author>selectListAsync(Mapper.class.getName() + ".selectAuthors", null)
+          .get(10, TimeUnit.SECONDS);
+      assertEquals(2, authors.size());
+      Map<Integer, Author> map = session.<Integer, Author>selectMapAsync(Mapper.class.getName() + ".selectAuthors",
+          null, "id").get(10, TimeUnit.SECONDS);
+      assertEquals("jim", map.get(101).getUsername());
+    }
+  }
+
+  @Test
+  void shouldRejectAsyncCursor() {
+    try (SqlSession session = sqlSessionFactory.openSession()) {
+      CursorMapper mapper = session.getMapper(CursorMapper.class);
+      BindingException e = assertThrows(BindingException.class, mapper::selectAuthors);
+      assertThat(e.getMessage()).contains("cannot return a Cursor asynchronously");
+    }
+  }
+
+  interface Mapper {
+    @Select("select * from author where id = #{id}")
+    CompletableFuture<Author> selectAuthor(int id);
+
+    @Select("select * from author order by id")
+    CompletableFuture<List<Author>> selectAuthors();
+
+    @MapKey("id")
+    @Select("select * from author order by id")
+    CompletableFuture<Map<Integer, Author>> selectAuthorMap();
+
+    @Select("select * from no_such_table")
+    CompletableFuture<Author> selectBroken();
+
+    @Insert("insert into author (id, username, password, email) values (#{id}, 'async', 'secret', 'async@ibatis.apache.org')")
+    CompletableFuture<Integer> insertAuthor(int id);
+
+    @Delete("delete from author where id = #{id}")
+    CompletableFuture<Void> deleteAuthor(int id);
+  }
+
+  interface CursorMapper {
+    @Select("select * from author")
+    CompletableFuture<Cursor<Author>> selectAuthors();
+  }
+
+}
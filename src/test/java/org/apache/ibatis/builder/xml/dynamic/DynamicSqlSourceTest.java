@@ -16,6 +16,10 @@
 package org.apache.ibatis.builder.xml.dynamic;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.io.IOException;
 import java.io.Reader;
@@ -29,6 +33,7 @@ import java.util.Map;
 import org.apache.ibatis.BaseDataTest;
 import org.apache.ibatis.io.Resources;
 import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.ParameterMapping;
 import org.apache.ibatis.scripting.xmltags.ChooseSqlNode;
 import org.apache.ibatis.scripting.xmltags.DynamicSqlSource;
 import org.apache.ibatis.scripting.xmltags.ForEachSqlNode;
@@ -324,9 +329,33 @@ class DynamicSqlSourceTest extends BaseDataTest {
     BoundSql boundSql = source.getBoundSql(parameterObject);
     assertEquals(expected, boundSql.getSql());
     assertEquals(3, boundSql.getParameterMappings().size());
-    assertEquals("__frch_item_0", boundSql.getParameterMappings().get(0).getProperty());
-    assertEquals("__frch_item_1", boundSql.getParameterMappings().get(1).getProperty());
-    assertEquals("__frch_item_2", boundSql.getParameterMappings().get(2).getProperty());
+    assertEquals("__frch_item_0[0]", boundSql.getParameterMappings().get(0).getProperty());
+    assertEquals("__frch_item_0[1]", boundSql.getParameterMappings().get(1).getProperty());
+    assertEquals("__frch_item_0[2]", boundSql.getParameterMappings().get(2).getProperty());
+    assertEquals(String.class, boundSql.getParameterMappings().get(2).getJavaType());
+    assertEquals("three", boundSql.getAdditionalParameter("__frch_item_0[2]"));
+  }
+
+  @Test
+  void shouldBindOneListPerForEachForLargeCollections() {
+    Configuration configuration = new Configuration();
+    List<Integer> ids = new ArrayList<>();
+    for (int i = 0; i < 10000; i++) {
+      ids.add(i);
+    }
+    Map<String, Object> parameterObject = new HashMap<>();
+    parameterObject.put("ids", ids);
+    DynamicSqlSource source = new DynamicSqlSource(configuration, mixedContents(new TextSqlNode("SELECT * FROM BLOG WHERE ID in"),
+        new ForEachSqlNode(configuration, mixedContents(new TextSqlNode("#{ id }"), new TextSqlNode("+ #{i}")), "ids", null, "i", "id", "(", ")", ",")));
+    BoundSql boundSql = source.getBoundSql(parameterObject);
+    assertEquals(20000, boundSql.getParameterMappings().size());
+    assertEquals("__frch_id_0[9999]", boundSql.getParameterMappings().get(19998).getProperty());
+    assertEquals("__frch_i_0[9999]", boundSql.getParameterMappings().get(19999).getProperty());
+    assertEquals(Integer.class, boundSql.getParameterMappings().get(19998).getJavaType());
+    assertEquals(9999, boundSql.getAdditionalParameter("__frch_id_0[9999]"));
+    assertTrue(boundSql.hasAdditionalParameter("__frch_i_0"));
+    assertFalse(boundSql.hasAdditionalParameter("__frch_id_1"));
+    assertTrue(boundSql.getSql().startsWith("SELECT * FROM BLOG WHERE ID in (  ? + ? , ? + ?"));
   }
 
   @Test
@@ -371,9 +400,9 @@ class DynamicSqlSourceTest extends BaseDataTest {
     BoundSql boundSql = source.getBoundSql(param);
     assertEquals(4, boundSql.getParameterMappings().size());
     assertEquals("uuu.u", boundSql.getParameterMappings().get(0).getProperty());
-    assertEquals("__frch_u_0.id", boundSql.getParameterMappings().get(1).getProperty());
-    assertEquals("__frch_u_0", boundSql.getParameterMappings().get(2).getProperty());
-    assertEquals("__frch_u_0", boundSql.getParameterMappings().get(3).getProperty());
+    assertEquals("__frch_u_0[0].id", boundSql.getParameterMappings().get(1).getProperty());
+    assertEquals("__frch_u_0[0]", boundSql.getParameterMappings().get(2).getProperty());
+    assertEquals("__frch_u_0[0]", boundSql.getParameterMappings().get(3).getProperty());
   }
 
   private DynamicSqlSource createDynamicSqlSource(SqlNode... contents) throws IOException, SQLException {
@@ -399,6 +428,61 @@ class DynamicSqlSourceTest extends BaseDataTest {
     Assertions.assertEquals("id=", sql);
   }
 
+  @Test
+  void shouldReuseParsedSqlShape() {
+    Configuration configuration = new Configuration();
+    configuration.setSqlShapeCacheSize(2);
+    DynamicSqlSource source = new DynamicSqlSource(configuration, mixedContents(new TextSqlNode("SELECT * FROM BLOG"),
+        new WhereSqlNode(configuration, mixedContents(new IfSqlNode(mixedContents(new TextSqlNode("and ID = #{id}")), "id != null")))));
+    BoundSql first = source.getBoundSql(new Bean("1"));
+    first.getParameterMappings().clear();
+    BoundSql second = source.getBoundSql(new Bean("2"));
+    assertEquals("SELECT * FROM BLOG WHERE  ID = ?", second.getSql());
+    assertEquals(1, second.getParameterMappings().size());
+    assertEquals(String.class, second.getParameterMappings().get(0).getJavaType());
+    assertSame(second.getParameterMappings().get(0), source.getBoundSql(new Bean("3")).getParameterMappings().get(0));
+    assertEquals("SELECT * FROM BLOG", source.getBoundSql(new Bean(null)).getSql());
+  }
+
+  @Test
+  void shouldNotReuseSqlShapeWhenAdditionalParameterTypesDiffer() {
+    Configuration configuration = new Configuration();
+    configuration.setSqlShapeCacheSize(2);
+    DynamicSqlSource source = new DynamicSqlSource(configuration, mixedContents(new TextSqlNode("SELECT * FROM BLOG WHERE ID in"),
+        new ForEachSqlNode(configuration, mixedContents(new TextSqlNode("#{item}")), "list", "index", "item", "(", ")", ",")));
+    Map<String, Object> integers = new HashMap<>();
+    integers.put("list", new ArrayList<>(Arrays.asList(1, 2)));
+    Map<String, Object> strings = new HashMap<>();
+    strings.put("list", new ArrayList<>(Arrays.asList("a", "b")));
+    assertEquals(Integer.class, source.getBoundSql(integers).getParameterMappings().get(1).getJavaType());
+    BoundSql boundSql = source.getBoundSql(strings);
+    assertEquals(String.class, boundSql.getParameterMappings().get(1).getJavaType());
+    assertEquals("b", boundSql.getAdditionalParameter("__frch_item_0[1]"));
+    assertEquals(Integer.class, source.getBoundSql(integers).getParameterMappings().get(0).getJavaType());
+  }
+
+  @Test
+  void shouldEvictLeastRecentlyUsedSqlShape() {
+    Configuration configuration = new Configuration();
+    configuration.setSqlShapeCacheSize(1);
+    DynamicSqlSource source = new DynamicSqlSource(configuration, mixedContents(new TextSqlNode("SELECT * FROM BLOG"),
+        new WhereSqlNode(configuration, mixedContents(new IfSqlNode(mixedContents(new TextSqlNode("and ID = #{id}")), "id != null")))));
+    ParameterMapping first = source.getBoundSql(new Bean("1")).getParameterMappings().get(0);
+    assertSame(first, source.getBoundSql(new Bean("2")).getParameterMappings().get(0));
+    assertEquals("SELECT * FROM BLOG", source.getBoundSql(new Bean(null)).getSql());
+    ParameterMapping second = source.getBoundSql(new Bean("3")).getParameterMappings().get(0);
+    assertNotSame(first, second);
+    assertSame(second, source.getBoundSql(new Bean("4")).getParameterMappings().get(0));
+  }
+
+  @Test
+  void shouldParseEveryTimeWhenSqlShapeCacheIsDisabled() {
+    Configuration configuration = new Configuration();
+    DynamicSqlSource source = new DynamicSqlSource(configuration, mixedContents(new TextSqlNode("SELECT * FROM BLOG WHERE ID = #{id}")));
+    assertNotSame(source.getBoundSql(new Bean("1")).getParameterMappings().get(0),
+        source.getBoundSql(new Bean("1")).getParameterMappings().get(0));
+  }
+
   public static class Bean {
     public String id;
     Bean(String property) {
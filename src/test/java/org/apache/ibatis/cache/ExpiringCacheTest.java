@@ -0,0 +1,118 @@
+/*
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.ibatis.cache.decorators.BlockingCache;
+import org.apache.ibatis.cache.decorators.ExpiringCache;
+import org.apache.ibatis.cache.impl.PerpetualCache;
+import org.junit.jupiter.api.Test;
+
+class ExpiringCacheTest {
+
+  @Test
+  void shouldExpireEachEntryOnItsOwn() throws Exception {
+    ExpiringCache cache = new ExpiringCache(new PerpetualCache("default"));
+    cache.setTimeToLive(50);
+    cache.putObject(0, 0);
+    Thread.sleep(30);
+    cache.putObject(1, 1);
+    Thread.sleep(30);
+    assertNull(cache.getObject(0));
+    assertEquals(1, cache.getObject(1));
+    assertEquals(1, cache.getSize());
+  }
+
+  @Test
+  void shouldNotOutliveTimeToLiveWithJitter() throws Exception {
+    ExpiringCache cache = new ExpiringCache(new PerpetualCache("default"));
+    cache.setTimeToLive(50);
+    cache.setJitter(0.5);
+    for (int i = 0; i < 100; i++) {
+      cache.putObject(i, i);
+    }
+    Thread.sleep(60);
+    for (int i = 0; i < 100; i++) {
+      assertNull(cache.getObject(i));
+    }
+  }
+
+  @Test
+  void shouldLockExpiredEntryOfBlockingCache() throws Exception {
+    Cache storage = new PerpetualCache("default");
+    ExpiringCache cache = new ExpiringCache(new BlockingCache(storage), storage);
+    cache.setTimeToLive(10);
+    assertNull(cache.getObject(0));
+    cache.putObject(0, 0);
+    Thread.sleep(20);
+    assertNull(cache.getObject(0));
+    // the caller now holds the lock of the key and releases it by putting the reloaded value
+    cache.putObject(0, 1);
+    assertEquals(1, cache.getObject(0));
+  }
+
+  @Test
+  void shouldRefreshDueEntryInBackground() throws Exception {
+    ExpiringCache cache = new ExpiringCache(new PerpetualCache("default"));
+    cache.setTimeToLive(TimeUnit.MINUTES.toMillis(1));
+    cache.setRefreshAhead(0.0001);
+    cache.putObject(0, "stale");
+    Thread.sleep(20);
+    CountDownLatch loaded = new CountDownLatch(1);
+    assertEquals("stale", cache.getObject(0));
+    assertTrue(cache.isDue(0));
+    cache.refreshIfDue(0, () -> {
+      loaded.countDown();
+      return "fresh";
+    }, ForkJoinPool.commonPool());
+    assertTrue(loaded.await(5, TimeUnit.SECONDS));
+    long deadline = System.currentTimeMillis() + 5000;
+    while (!"fresh".equals(cache.getObject(0)) && System.currentTimeMillis() < deadline) {
+      Thread.sleep(10);
+    }
+    assertEquals("fresh", cache.getObject(0));
+  }
+
+  @Test
+  void shouldNotRefreshEntryThatIsNotDue() {
+    ExpiringCache cache = new ExpiringCache(new PerpetualCache("default"));
+    cache.setRefreshAhead(0.5);
+    cache.putObject(0, "value");
+    assertEquals("value", cache.getObject(0));
+    assertFalse(cache.isDue(0));
+    cache.refreshIfDue(0, () -> {
+      throw new AssertionError("should not reload");
+    }, Runnable::run);
+  }
+
+  @Test
+  void shouldFlushAllItemsOnDemand() {
+    Cache cache = new ExpiringCache(new PerpetualCache("default"));
+    for (int i = 0; i < 5; i++) {
+      cache.putObject(i, i);
+    }
+    assertNotNull(cache.getObject(0));
+    cache.clear();
+    assertNull(cache.getObject(0));
+    assertNull(cache.getObject(4));
+  }
+
+}
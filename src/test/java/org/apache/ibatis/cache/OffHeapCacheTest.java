@@ -0,0 +1,131 @@
+/*
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+
+import org.apache.ibatis.cache.impl.OffHeapCache;
+import org.apache.ibatis.mapping.CacheBuilder;
+import org.junit.jupiter.api.Test;
+
+class OffHeapCacheTest {
+
+  @Test
+  void shouldReturnCopiesOfStoredValues() {
+    Cache cache = new OffHeapCache("default");
+    List<String> value = new ArrayList<>(Arrays.asList("a", "b"));
+    cache.putObject(0, value);
+    Object copy = cache.getObject(0);
+    assertEquals(value, copy);
+    assertNotSame(value, copy);
+  }
+
+  @Test
+  void shouldStoreValuesSpanningBlocksAndSlabs() {
+    OffHeapCache cache = new OffHeapCache("default");
+    cache.setBlockSize(16);
+    for (int i = 0; i < 1000; i++) {
+      cache.putObject(i, "value-" + i);
+    }
+    for (int i = 0; i < 1000; i++) {
+      assertEquals("value-" + i, cache.getObject(i));
+    }
+    assertEquals(1000, cache.getSize());
+  }
+
+  @Test
+  void shouldEvictLeastRecentlyUsedValuesBeyondCapacity() {
+    OffHeapCache cache = new OffHeapCache("default");
+    cache.setBlockSize(128);
+    cache.setCapacity(128 * 5);
+    for (int i = 0; i < 5; i++) {
+      cache.putObject(i, i);
+    }
+    assertEquals(0, cache.getObject(0));
+    cache.putObject(5, 5);
+    assertNull(cache.getObject(1));
+    assertEquals(0, cache.getObject(0));
+    assertEquals(5, cache.getSize());
+  }
+
+  @Test
+  void shouldReuseBlocksOfReplacedAndRemovedValues() {
+    OffHeapCache cache = new OffHeapCache("default");
+    cache.setBlockSize(128);
+    cache.setCapacity(128 * 2);
+    cache.putObject(0, 0);
+    cache.putObject(1, 1);
+    cache.putObject(1, 2);
+    cache.removeObject(0);
+    cache.putObject(2, 3);
+    assertEquals(2, cache.getObject(1));
+    assertEquals(3, cache.getObject(2));
+  }
+
+  @Test
+  void shouldNotCacheValueLargerThanCapacity() {
+    OffHeapCache cache = new OffHeapCache("default");
+    cache.setBlockSize(16);
+    cache.setCapacity(64);
+    cache.putObject(0, new byte[1024]);
+    assertNull(cache.getObject(0));
+    assertEquals(0, cache.getSize());
+  }
+
+  @Test
+  void shouldFlushAllItemsOnDemand() {
+    Cache cache = new OffHeapCache("default");
+    for (int i = 0; i < 5; i++) {
+      cache.putObject(i, i);
+    }
+    assertNotNull(cache.getObject(0));
+    assertNotNull(cache.getObject(4));
+    cache.clear();
+    assertNull(cache.getObject(0));
+    assertNull(cache.getObject(4));
+    cache.putObject(5, 5);
+    assertEquals(5, cache.getObject(5));
+  }
+
+  @Test
+  void shouldRejectNonSerializableValue() {
+    Cache cache = new OffHeapCache("default");
+    assertThrows(CacheException.class, () -> cache.putObject(0, new Object()));
+  }
+
+  @Test
+  void shouldBeConfiguredByProperties() {
+    Properties properties = new Properties();
+    properties.setProperty("capacity", "1048576");
+    properties.setProperty("blockSize", "512");
+    Cache cache = new CacheBuilder("default").implementation(OffHeapCache.class).properties(properties).build();
+    cache.putObject(0, 0);
+    assertEquals(0, cache.getObject(0));
+  }
+
+  @Test
+  void shouldDemonstrateIdIsNull() {
+    Cache cache = new OffHeapCache(null);
+    assertThrows(CacheException.class, () -> cache.hashCode());
+    assertThrows(CacheException.class, () -> cache.equals(new Object()));
+  }
+
+}
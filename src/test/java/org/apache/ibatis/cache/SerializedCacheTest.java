@@ -17,12 +17,32 @@ package org.apache.ibatis.cache;
 
 import org.apache.ibatis.cache.decorators.SerializedCache;
 import org.apache.ibatis.cache.impl.PerpetualCache;
+import org.apache.ibatis.cache.serializer.FastCacheSerializer;
 import org.junit.jupiter.api.Test;
 
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
 import java.io.Serializable;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.TreeMap;
+import java.util.TreeSet;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
 class SerializedCacheTest {
@@ -56,6 +76,243 @@ class SerializedCacheTest {
       () -> cache.putObject(0, new CachingObjectWithoutSerializable(0)));
   }
 
+  @Test
+  void shouldCopyBeansThatAreNotSerializableWithFastSerializer() {
+    SerializedCache cache = new SerializedCache(new PerpetualCache("default"));
+    cache.setSerializer("fast");
+    assertDeepCopies(cache);
+  }
+
+  @Test
+  void shouldCopyBeansThatAreNotSerializableWithReflectCopyStrategy() {
+    SerializedCache cache = new SerializedCache(new PerpetualCache("default"));
+    cache.setCopyStrategy("reflect");
+    assertDeepCopies(cache);
+  }
+
+  @Test
+  void shouldCopyJdkCollectionsAndSerializableValuesWithFastSerializer() {
+    SerializedCache cache = new SerializedCache(new PerpetualCache("default"));
+    cache.setSerializer("fast");
+    Map<String, Object> row = new HashMap<>();
+    row.put("id", 1L);
+    row.put("names", Collections.unmodifiableList(Arrays.asList("a", "b")));
+    row.put("sorted", new TreeSet<>(Arrays.asList(3, 1, 2)));
+    row.put("ids", new int[] { 1, 2, 3 });
+    row.put("object", new CachingObject(7));
+    row.put("timestamp", new Timestamp(1000L));
+    cache.putObject(0, new ArrayList<>(Arrays.asList(row, null, Thread.State.NEW)));
+
+    List<?> copy = (List<?>) cache.getObject(0);
+    Map<?, ?> rowCopy = (Map<?, ?>) copy.get(0);
+    assertEquals(1L, rowCopy.get("id"));
+    assertEquals(Arrays.asList("a", "b"), rowCopy.get("names"));
+    assertEquals(new TreeSet<>(Arrays.asList(1, 2, 3)), rowCopy.get("sorted"));
+    assertArrayEquals(new int[] { 1, 2, 3 }, (int[]) rowCopy.get("ids"));
+    assertEquals(new CachingObject(7), rowCopy.get("object"));
+    assertEquals(new Timestamp(1000L), rowCopy.get("timestamp"));
+    assertEquals(null, copy.get(1));
+    assertSame(Thread.State.NEW, copy.get(2));
+  }
+
+  @Test
+  void shouldKeepCollectionsThatCannotBeRebuiltWithFastSerializer() {
+    SerializedCache cache = new SerializedCache(new PerpetualCache("default"));
+    cache.setSerializer("fast");
+    assertKeepsCollectionTypes(cache);
+  }
+
+  @Test
+  void shouldKeepCollectionsThatCannotBeRebuiltWithReflectCopyStrategy() {
+    SerializedCache cache = new SerializedCache(new PerpetualCache("default"));
+    cache.setCopyStrategy("reflect");
+    assertKeepsCollectionTypes(cache);
+  }
+
+  @Test
+  void throwExceptionWhenFastSerializedValueNamesUnexpectedClass() throws Exception {
+    FastCacheSerializer serializer = new FastCacheSerializer();
+    // collection (20) and map (21) tags only take the standard classes, the bean tag (22) never takes a JDK class
+    assertThrows(CacheException.class, () -> serializer.deserialize(valueOf(20, "java.util.Properties")));
+    assertThrows(CacheException.class, () -> serializer.deserialize(valueOf(21, "java.util.Properties")));
+    assertThrows(CacheException.class, () -> serializer.deserialize(valueOf(22, "java.lang.Thread")));
+  }
+
+  private static byte[] valueOf(int tag, String className) throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (DataOutputStream out = new DataOutputStream(bytes)) {
+      byte[] name = className.getBytes(StandardCharsets.UTF_8);
+      out.writeByte(tag);
+      out.writeInt(-1);
+      out.writeInt(name.length);
+      out.write(name);
+      out.writeInt(0);
+    }
+    return bytes.toByteArray();
+  }
+
+  @Test
+  void throwExceptionWhenTryingToCacheNonSerializableObjectWithoutDefaultConstructor() {
+    SerializedCache fast = new SerializedCache(new PerpetualCache("default"));
+    fast.setSerializer("fast");
+    assertThrows(CacheException.class, () -> fast.putObject(0, new CachingObjectWithoutSerializable(0)));
+    SerializedCache reflect = new SerializedCache(new PerpetualCache("default"));
+    reflect.setCopyStrategy("reflect");
+    assertThrows(CacheException.class, () -> reflect.putObject(0, new CachingObjectWithoutSerializable(0)));
+  }
+
+  @Test
+  void throwExceptionWhenSerializerOrCopyStrategyIsUnknown() {
+    SerializedCache cache = new SerializedCache(new PerpetualCache("default"));
+    assertThrows(CacheException.class, () -> cache.setSerializer("unknown"));
+    assertThrows(CacheException.class, () -> cache.setCopyStrategy("unknown"));
+  }
+
+  private void assertKeepsCollectionTypes(SerializedCache cache) {
+    Map<String, Object> row = new HashMap<>();
+    row.put("names", Collections.unmodifiableList(new ArrayList<>(Arrays.asList("a", "b"))));
+    row.put("states", EnumSet.of(Thread.State.NEW, Thread.State.RUNNABLE));
+    TreeMap<String, Integer> descending = new TreeMap<>(Comparator.reverseOrder());
+    descending.put("a", 1);
+    descending.put("b", 2);
+    row.put("descending", descending);
+    cache.putObject(0, row);
+
+    Map<?, ?> copy = (Map<?, ?>) cache.getObject(0);
+    assertNotSame(row, copy);
+    Object names = copy.get("names");
+    assertEquals(row.get("names").getClass(), names.getClass());
+    assertEquals(Arrays.asList("a", "b"), names);
+    assertThrows(UnsupportedOperationException.class, () -> ((List<?>) names).add(null));
+    assertEquals(row.get("states").getClass(), copy.get("states").getClass());
+    assertEquals(row.get("states"), copy.get("states"));
+    TreeMap<?, ?> descendingCopy = (TreeMap<?, ?>) copy.get("descending");
+    assertNotSame(descending, descendingCopy);
+    assertEquals(Arrays.asList("b", "a"), new ArrayList<>(descendingCopy.keySet()));
+    assertEquals(Comparator.reverseOrder(), descendingCopy.comparator());
+  }
+
+  private void assertDeepCopies(SerializedCache cache) {
+    Author author = new Author();
+    author.setId(1);
+    author.setName("jim");
+    author.setBalance(new BigDecimal("10.50"));
+    Blog blog = new Blog();
+    blog.setTitle("blog");
+    blog.setAuthor(author);
+    blog.setPosts(new ArrayList<>());
+    for (int i = 0; i < 2; i++) {
+      Post post = new Post();
+      post.setBlog(blog);
+      post.setAuthor(author);
+      post.setBody("post " + i);
+      blog.getPosts().add(post);
+    }
+    cache.putObject(0, blog);
+    author.setName("changed");
+
+    Blog copy = (Blog) cache.getObject(0);
+    assertNotSame(blog, copy);
+    assertEquals("blog", copy.getTitle());
+    assertEquals("jim", copy.getAuthor().getName());
+    assertEquals(new BigDecimal("10.50"), copy.getAuthor().getBalance());
+    assertEquals(2, copy.getPosts().size());
+    assertEquals("post 1", copy.getPosts().get(1).getBody());
+    assertSame(copy, copy.getPosts().get(0).getBlog());
+    assertSame(copy.getAuthor(), copy.getPosts().get(1).getAuthor());
+    assertNotSame(copy, cache.getObject(0));
+  }
+
+  public static class Blog {
+    private String title;
+    private Author author;
+    private List<Post> posts;
+
+    public String getTitle() {
+      return title;
+    }
+
+    public void setTitle(String title) {
+      this.title = title;
+    }
+
+    public Author getAuthor() {
+      return author;
+    }
+
+    public void setAuthor(Author author) {
+      this.author = author;
+    }
+
+    public List<Post> getPosts() {
+      return posts;
+    }
+
+    public void setPosts(List<Post> posts) {
+      this.posts = posts;
+    }
+  }
+
+  public static class Author {
+    private int id;
+    private String name;
+    private BigDecimal balance;
+
+    public int getId() {
+      return id;
+    }
+
+    public void setId(int id) {
+      this.id = id;
+    }
+
+    public String getName() {
+      return name;
+    }
+
+    public void setName(String name) {
+      this.name = name;
+    }
+
+    public BigDecimal getBalance() {
+      return balance;
+    }
+
+    public void setBalance(BigDecimal balance) {
+      this.balance = balance;
+    }
+  }
+
+  public static class Post {
+    private Blog blog;
+    private Author author;
+    private String body;
+
+    public Blog getBlog() {
+      return blog;
+    }
+
+    public void setBlog(Blog blog) {
+      this.blog = blog;
+    }
+
+    public Author getAuthor() {
+      return author;
+    }
+
+    public void setAuthor(Author author) {
+      this.author = author;
+    }
+
+    public String getBody() {
+      return body;
+    }
+
+    public void setBody(String body) {
+      this.body = body;
+    }
+  }
+
   static class CachingObject implements Serializable {
     int x;
 
@@ -0,0 +1,168 @@
+/*
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.ibatis.cache.decorators.SingleFlightCache;
+import org.apache.ibatis.cache.impl.PerpetualCache;
+import org.apache.ibatis.cache.serializer.JavaCacheSerializer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class SingleFlightCacheTest {
+
+  private final ExecutorService executor = Executors.newCachedThreadPool();
+
+  @AfterEach
+  void shutdown() {
+    executor.shutdownNow();
+  }
+
+  @Test
+  void shouldShareOneLoadBetweenConcurrentMisses() throws Exception {
+    SingleFlightCache cache = new SingleFlightCache(new PerpetualCache("default"));
+    AtomicInteger loads = new AtomicInteger();
+    CountDownLatch started = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    Future<Object> leader = executor.submit(() -> cache.load("key", () -> {
+      loads.incrementAndGet();
+      started.countDown();
+      await(release);
+      return "value";
+    }));
+    assertTrue(started.await(5, TimeUnit.SECONDS));
+    List<Future<Object>> waiters = new ArrayList<>();
+    for (int i = 0; i < 4; i++) {
+      waiters.add(executor.submit(() -> cache.load("key", () -> {
+        loads.incrementAndGet();
+        return "other";
+      })));
+    }
+    Thread.sleep(50);
+    release.countDown();
+    assertEquals("value", leader.get(5, TimeUnit.SECONDS));
+    for (Future<Object> waiter : waiters) {
+      assertEquals("value", waiter.get(5, TimeUnit.SECONDS));
+    }
+    assertEquals(1, loads.get());
+  }
+
+  @Test
+  void shouldLoadOnItsOwnWhenLeaderFails() throws Exception {
+    SingleFlightCache cache = new SingleFlightCache(new PerpetualCache("default"));
+    CountDownLatch started = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    Future<Object> leader = executor.submit(() -> cache.load("key", () -> {
+      started.countDown();
+      await(release);
+      throw new SQLException("rolled back");
+    }));
+    assertTrue(started.await(5, TimeUnit.SECONDS));
+    Future<Object> waiter = executor.submit(() -> cache.load("key", () -> "own"));
+    Thread.sleep(50);
+    release.countDown();
+    assertEquals("own", waiter.get(5, TimeUnit.SECONDS));
+    Exception e = assertThrows(Exception.class, () -> leader.get(5, TimeUnit.SECONDS));
+    assertTrue(e.getCause() instanceof SQLException);
+  }
+
+  @Test
+  void shouldLoadOnItsOwnAfterTimeout() throws Exception {
+    SingleFlightCache cache = new SingleFlightCache(new PerpetualCache("default"));
+    cache.setTimeout(20);
+    CountDownLatch started = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    Future<Object> leader = executor.submit(() -> cache.load("key", () -> {
+      started.countDown();
+      await(release);
+      return "slow";
+    }));
+    assertTrue(started.await(5, TimeUnit.SECONDS));
+    assertEquals("own", cache.load("key", () -> "own"));
+    release.countDown();
+    assertEquals("slow", leader.get(5, TimeUnit.SECONDS));
+  }
+
+  @Test
+  void shouldGiveEachWaiterItsOwnCopyWhenReadWrite() throws Exception {
+    SingleFlightCache cache = new SingleFlightCache(new PerpetualCache("default"));
+    cache.setSerializer(new JavaCacheSerializer());
+    List<String> value = new ArrayList<>(Arrays.asList("a", "b"));
+    CountDownLatch started = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    Future<Object> leader = executor.submit(() -> cache.load("key", () -> {
+      started.countDown();
+      await(release);
+      return value;
+    }));
+    assertTrue(started.await(5, TimeUnit.SECONDS));
+    Future<Object> waiter = executor.submit(() -> cache.load("key", () -> null));
+    Thread.sleep(50);
+    release.countDown();
+    assertSame(value, leader.get(5, TimeUnit.SECONDS));
+    Object copy = waiter.get(5, TimeUnit.SECONDS);
+    assertEquals(value, copy);
+    assertNotSame(value, copy);
+  }
+
+  @Test
+  void shouldNotWaitForLoadOfSameThread() throws Exception {
+    SingleFlightCache cache = new SingleFlightCache(new PerpetualCache("default"));
+    Object value = cache.load("key", () -> "outer:" + cache.load("key", () -> "inner"));
+    assertEquals("outer:inner", value);
+  }
+
+  @Test
+  void shouldStopWaitingWhenInterrupted() throws Exception {
+    SingleFlightCache cache = new SingleFlightCache(new PerpetualCache("default"));
+    CountDownLatch started = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    executor.submit(() -> cache.load("key", () -> {
+      started.countDown();
+      await(release);
+      return "value";
+    }));
+    assertTrue(started.await(5, TimeUnit.SECONDS));
+    Thread.currentThread().interrupt();
+    try {
+      assertThrows(CacheException.class, () -> cache.load("key", () -> "own"));
+      assertTrue(Thread.interrupted());
+    } finally {
+      release.countDown();
+    }
+  }
+
+  private static void await(CountDownLatch latch) {
+    try {
+      latch.await(5, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+}
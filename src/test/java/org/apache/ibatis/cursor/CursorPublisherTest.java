@@ -0,0 +1,296 @@
+/*
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cursor;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+
+class CursorPublisherTest {
+
+  private static final Executor DIRECT = Runnable::run;
+
+  @Test
+  void shouldFetchOnlyRequestedRows() {
+    ListCursor cursor = new ListCursor(10);
+    RecordingSubscriber subscriber = new RecordingSubscriber();
+    new CursorPublisher<>(cursor, DIRECT).subscribe(subscriber);
+
+    assertEquals(0, cursor.fetched.get());
+    subscriber.subscription.request(2);
+    assertEquals(2, cursor.fetched.get());
+    assertThat(subscriber.items).containsExactly(0, 1);
+    assertFalse(subscriber.completed);
+
+    subscriber.subscription.request(Long.MAX_VALUE);
+    subscriber.subscription.request(Long.MAX_VALUE);
+    assertEquals(10, subscriber.items.size());
+    assertTrue(subscriber.completed);
+    assertNull(subscriber.error);
+    assertTrue(cursor.closed);
+  }
+
+  @Test
+  void shouldAllowRequestsFromOnNext() {
+    ListCursor cursor = new ListCursor(1000);
+    RecordingSubscriber subscriber = new RecordingSubscriber() {
+      @Override
+      public void onNext(Integer item) {
+        super.onNext(item);
+        subscription.request(1);
+      }
+    };
+    new CursorPublisher<>(cursor, DIRECT, 7).subscribe(subscriber);
+    subscriber.subscription.request(1);
+    assertEquals(1000, subscriber.items.size());
+    assertTrue(subscriber.completed);
+  }
+
+  @Test
+  void shouldNotSignalOnNextBeforeOnSubscribeReturns() throws Exception {
+    // Reactive Streams TCK, rule 1.3: onSubscribe, onNext, onError and onComplete must be signalled serially
+    for (Executor executor : new Executor[] { DIRECT, task -> new Thread(task).start() }) {
+      ListCursor cursor = new ListCursor(5);
+      AtomicInteger violations = new AtomicInteger();
+      CountDownLatch terminated = new CountDownLatch(1);
+      RecordingSubscriber subscriber = new RecordingSubscriber() {
+        private volatile boolean inOnSubscribe;
+
+        @Override
+        public void onSubscribe(CursorPublisher.Subscription subscription) {
+          inOnSubscribe = true;
+          super.onSubscribe(subscription);
+          subscription.request(Long.MAX_VALUE);
+          try {
+            Thread.sleep(50);
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+          }
+          inOnSubscribe = false;
+        }
+
+        @Override
+        public void onNext(Integer item) {
+          if (inOnSubscribe) {
+            violations.incrementAndGet();
+          }
+          super.onNext(item);
+        }
+
+        @Override
+        public void onComplete() {
+          super.onComplete();
+          terminated.countDown();
+        }
+      };
+      new CursorPublisher<>(cursor, executor).subscribe(subscriber);
+      assertTrue(terminated.await(5, TimeUnit.SECONDS));
+      assertEquals(0, violations.get());
+      assertEquals(5, subscriber.items.size());
+    }
+  }
+
+  @Test
+  void shouldYieldTheExecutorAfterEachBatch() {
+    AtomicInteger tasks = new AtomicInteger();
+    Executor executor = task -> {
+      tasks.incrementAndGet();
+      task.run();
+    };
+    RecordingSubscriber subscriber = new RecordingSubscriber();
+    new CursorPublisher<>(new ListCursor(10), executor, 3).subscribe(subscriber);
+    subscriber.subscription.request(Long.MAX_VALUE);
+    assertEquals(10, subscriber.items.size());
+    assertEquals(4, tasks.get());
+    assertTrue(subscriber.completed);
+  }
+
+  @Test
+  void shouldCloseCursorOnCancel() {
+    ListCursor cursor = new ListCursor(10);
+    RecordingSubscriber subscriber = new RecordingSubscriber();
+    new CursorPublisher<>(cursor, DIRECT).subscribe(subscriber);
+    subscriber.subscription.request(3);
+    subscriber.subscription.cancel();
+    subscriber.subscription.request(3);
+    assertEquals(3, subscriber.items.size());
+    assertEquals(3, cursor.fetched.get());
+    assertTrue(cursor.closed);
+    assertFalse(subscriber.completed);
+  }
+
+  @Test
+  void shouldSignalErrorOnNonPositiveRequest() {
+    ListCursor cursor = new ListCursor(10);
+    RecordingSubscriber subscriber = new RecordingSubscriber();
+    new CursorPublisher<>(cursor, DIRECT).subscribe(subscriber);
+    subscriber.subscription.request(0);
+    assertTrue(subscriber.error instanceof IllegalArgumentException);
+    assertTrue(cursor.closed);
+  }
+
+  @Test
+  void shouldSignalFetchErrors() {
+    ListCursor cursor = new ListCursor(10) {
+      @Override
+      Integer fetch(int index) {
+        if (index == 2) {
+          throw new IllegalStateException("broken row");
+        }
+        return super.fetch(index);
+      }
+    };
+    RecordingSubscriber subscriber = new RecordingSubscriber();
+    new CursorPublisher<>(cursor, DIRECT).subscribe(subscriber);
+    subscriber.subscription.request(5);
+    assertThat(subscriber.items).containsExactly(0, 1);
+    assertEquals("broken row", subscriber.error.getMessage());
+    assertTrue(cursor.closed);
+  }
+
+  @Test
+  void shouldRejectSecondSubscriber() {
+    CursorPublisher<Integer> publisher = new CursorPublisher<>(new ListCursor(1), DIRECT);
+    publisher.subscribe(new RecordingSubscriber());
+    RecordingSubscriber second = new RecordingSubscriber();
+    publisher.subscribe(second);
+    assertTrue(second.error instanceof IllegalStateException);
+  }
+
+  @Test
+  void shouldAdaptToFlowPublisher() throws Exception {
+    Class<?> publisherType;
+    try {
+      publisherType = Class.forName("java.util.concurrent.Flow$Publisher");
+    } catch (ClassNotFoundException e) {
+      return;
+    }
+    Class<?> subscriberType = Class.forName("java.util.concurrent.Flow$Subscriber");
+    Method request = Class.forName("java.util.concurrent.Flow$Subscription").getMethod("request", long.class);
+    Object flowPublisher = new CursorPublisher<>(new ListCursor(3), DIRECT).asFlowPublisher();
+    assertTrue(publisherType.isInstance(flowPublisher));
+
+    List<Object> signals = new ArrayList<>();
+    Object flowSubscriber = Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] { subscriberType },
+        (proxy, method, args) -> {
+          if ("onSubscribe".equals(method.getName())) {
+            request.invoke(args[0], Long.MAX_VALUE);
+          } else if ("onNext".equals(method.getName())) {
+            signals.add(args[0]);
+          } else if ("onComplete".equals(method.getName())) {
+            signals.add("complete");
+          }
+          return null;
+        });
+    publisherType.getMethod("subscribe", subscriberType).invoke(flowPublisher, flowSubscriber);
+    assertThat(signals).containsExactly(0, 1, 2, "complete");
+  }
+
+  static class RecordingSubscriber implements CursorPublisher.Subscriber<Integer> {
+    CursorPublisher.Subscription subscription;
+    final List<Integer> items = new ArrayList<>();
+    boolean completed;
+    Throwable error;
+
+    @Override
+    public void onSubscribe(CursorPublisher.Subscription subscription) {
+      this.subscription = subscription;
+    }
+
+    @Override
+    public void onNext(Integer item) {
+      items.add(item);
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+      error = throwable;
+    }
+
+    @Override
+    public void onComplete() {
+      completed = true;
+    }
+  }
+
+  static class ListCursor implements Cursor<Integer> {
+    final List<Integer> rows;
+    final AtomicInteger fetched = new AtomicInteger();
+    boolean closed;
+
+    ListCursor(int size) {
+      rows = IntStream.range(0, size).boxed().collect(Collectors.toList());
+    }
+
+    Integer fetch(int index) {
+      return rows.get(index);
+    }
+
+    @Override
+    public boolean isOpen() {
+      return fetched.get() > 0 && !closed;
+    }
+
+    @Override
+    public boolean isConsumed() {
+      return fetched.get() == rows.size();
+    }
+
+    @Override
+    public int getCurrentIndex() {
+      return fetched.get() - 1;
+    }
+
+    @Override
+    public void close() {
+      closed = true;
+    }
+
+    @Override
+    public Iterator<Integer> iterator() {
+      return new Iterator<Integer>() {
+        @Override
+        public boolean hasNext() {
+          return !closed && fetched.get() < rows.size();
+        }
+
+        @Override
+        public Integer next() {
+          Integer row = fetch(fetched.get());
+          fetched.incrementAndGet();
+          return row;
+        }
+      };
+    }
+  }
+
+}
@@ -0,0 +1,224 @@
+/*
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.datasource.pooled;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.ibatis.BaseDataTest;
+import org.apache.ibatis.datasource.unpooled.UnpooledDataSource;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.session.Configuration;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class ConcurrentPooledDataSourceTest {
+
+  private ConcurrentPooledDataSource dataSource;
+
+  @BeforeEach
+  void setUp() throws Exception {
+    Properties props = Resources.getResourceAsProperties(BaseDataTest.JPETSTORE_PROPERTIES);
+    dataSource = new ConcurrentPooledDataSource(props.getProperty("driver"), props.getProperty("url"),
+        props.getProperty("username"), props.getProperty("password"));
+  }
+
+  @AfterEach
+  void tearDown() {
+    dataSource.forceCloseAll();
+  }
+
+  @Test
+  void shouldProperlyMaintainPoolOf3ActiveAnd2IdleConnections() throws Exception {
+    dataSource.setPoolMaximumActiveConnections(3);
+    dataSource.setPoolMaximumIdleConnections(2);
+    dataSource.setPoolPingEnabled(true);
+    dataSource.setPoolPingConnectionsNotUsedFor(1);
+    dataSource.setPoolPingQuery("SELECT 1 FROM INFORMATION_SCHEMA.SYSTEM_USERS");
+    List<Connection> connections = new ArrayList<>();
+    for (int i = 0; i < 3; i++) {
+      connections.add(dataSource.getConnection());
+    }
+    assertEquals(3, dataSource.getPoolState().getActiveConnectionCount());
+    for (Connection c : connections) {
+      c.close();
+    }
+    assertEquals(0, dataSource.getPoolState().getActiveConnectionCount());
+    assertEquals(2, dataSource.getPoolState().getIdleConnectionCount());
+    assertEquals(3, dataSource.getPoolState().getRequestCount());
+    assertEquals(0, dataSource.getPoolState().getBadConnectionCount());
+    assertEquals(0, dataSource.getPoolState().getHadToWaitCount());
+    assertNotNull(dataSource.getPoolState().toString());
+  }
+
+  @Test
+  void shouldReuseConnectionReturnedByTheSameThread() throws Exception {
+    Connection first = dataSource.getConnection();
+    Connection realFirst = PooledDataSource.unwrapConnection(first);
+    first.close();
+    Connection second = dataSource.getConnection();
+    assertSame(realFirst, PooledDataSource.unwrapConnection(second));
+    second.close();
+    assertEquals(1, dataSource.getPoolState().getIdleConnectionCount());
+  }
+
+  @Test
+  void shouldInvalidateProxyOnClose() throws Exception {
+    Connection c = dataSource.getConnection();
+    c.close();
+    assertThrows(SQLException.class, c::getAutoCommit);
+    c.close();
+    assertEquals(1, dataSource.getPoolState().getBadConnectionCount());
+    assertEquals(1, dataSource.getPoolState().getIdleConnectionCount());
+  }
+
+  @Test
+  void shouldHandOffReturnedConnectionToWaitingThread() throws Exception {
+    dataSource.setPoolMaximumActiveConnections(1);
+    dataSource.setPoolTimeToWait(10000);
+    Connection held = dataSource.getConnection();
+    CountDownLatch started = new CountDownLatch(1);
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      Future<Connection> waiter = executor.submit(() -> {
+        started.countDown();
+        return dataSource.getConnection();
+      });
+      started.await();
+      Thread.sleep(100);
+      held.close();
+      Connection handedOff = waiter.get(5, TimeUnit.SECONDS);
+      assertFalse(handedOff.isClosed());
+      assertEquals(1, dataSource.getPoolState().getHadToWaitCount());
+      assertEquals(1, dataSource.getPoolState().getActiveConnectionCount());
+      handedOff.close();
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  void shouldClaimOverdueConnection() throws Exception {
+    dataSource.setPoolMaximumActiveConnections(1);
+    dataSource.setPoolMaximumCheckoutTime(50);
+    Connection overdue = dataSource.getConnection();
+    Thread.sleep(100);
+    Connection claimed = dataSource.getConnection();
+    assertEquals(1, dataSource.getPoolState().getClaimedOverdueConnectionCount());
+    assertThrows(SQLException.class, overdue::getAutoCommit);
+    assertFalse(claimed.isClosed());
+    overdue.close();
+    claimed.close();
+    assertEquals(1, dataSource.getPoolState().getIdleConnectionCount());
+  }
+
+  @Test
+  void shouldNeverExceedMaximumActiveConnectionsUnderContention() throws Exception {
+    dataSource.setPoolMaximumActiveConnections(4);
+    dataSource.setPoolMaximumIdleConnections(4);
+    int threads = 16;
+    int iterations = 200;
+    AtomicInteger inUse = new AtomicInteger();
+    AtomicInteger maxInUse = new AtomicInteger();
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    try {
+      List<Future<?>> futures = new ArrayList<>();
+      for (int i = 0; i < threads; i++) {
+        futures.add(executor.submit(() -> {
+          for (int j = 0; j < iterations; j++) {
+            try (Connection c = dataSource.getConnection()) {
+              maxInUse.accumulateAndGet(inUse.incrementAndGet(), Math::max);
+              c.getAutoCommit();
+              inUse.decrementAndGet();
+            }
+          }
+          return null;
+        }));
+      }
+      for (Future<?> future : futures) {
+        future.get(30, TimeUnit.SECONDS);
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+    assertTrue(maxInUse.get() <= 4);
+    assertEquals(threads * iterations, dataSource.getPoolState().getRequestCount());
+    assertEquals(0, dataSource.getPoolState().getActiveConnectionCount());
+    assertTrue(dataSource.getPoolState().getIdleConnectionCount() <= 4);
+    assertEquals(0, dataSource.getPoolState().getBadConnectionCount());
+  }
+
+  @Test
+  void shouldReleaseSlotWhenCheckoutFails() throws Exception {
+    Properties props = Resources.getResourceAsProperties(BaseDataTest.JPETSTORE_PROPERTIES);
+    UnpooledDataSource failing = new UnpooledDataSource(props.getProperty("driver"), props.getProperty("url"),
+        props.getProperty("username"), props.getProperty("password")) {
+      @Override
+      public Connection getConnection() throws SQLException {
+        Connection realConn = super.getConnection();
+        return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] { Connection.class },
+            (proxy, method, args) -> {
+              if ("getAutoCommit".equals(method.getName())) {
+                throw new SQLException("getAutoCommit failed");
+              }
+              try {
+                return method.invoke(realConn, args);
+              } catch (InvocationTargetException e) {
+                throw e.getTargetException();
+              }
+            });
+      }
+    };
+    ConcurrentPooledDataSource failingPool = new ConcurrentPooledDataSource(failing);
+    failingPool.setPoolMaximumActiveConnections(2);
+    try {
+      for (int i = 0; i < 5; i++) {
+        assertThrows(SQLException.class, failingPool::getConnection);
+        assertEquals(0, failingPool.getTotalCount());
+      }
+    } finally {
+      failingPool.forceCloseAll();
+    }
+  }
+
+  @Test
+  void shouldBeRegisteredAsPooledConcurrent() {
+    Configuration configuration = new Configuration();
+    assertEquals(ConcurrentPooledDataSourceFactory.class,
+        configuration.getTypeAliasRegistry().resolveAlias("POOLED_CONCURRENT"));
+    assertTrue(new ConcurrentPooledDataSourceFactory().getDataSource() instanceof ConcurrentPooledDataSource);
+  }
+
+}
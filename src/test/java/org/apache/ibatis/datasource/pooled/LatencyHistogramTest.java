@@ -0,0 +1,69 @@
+/*
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.datasource.pooled;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+class LatencyHistogramTest {
+
+  @Test
+  void shouldMapEveryValueIntoItsBucket() {
+    long[] values = { 0, 1, 15, 16, 17, 31, 32, 33, 1000, 123456789, Long.MAX_VALUE };
+    for (long value : values) {
+      int index = LatencyHistogram.bucketIndex(value);
+      assertTrue(LatencyHistogram.bucketUpperBound(index) >= value);
+      if (index > 0) {
+        assertTrue(LatencyHistogram.bucketUpperBound(index - 1) < value);
+      }
+    }
+  }
+
+  @Test
+  void shouldReportPercentilesWithinBucketPrecision() {
+    LatencyHistogram histogram = new LatencyHistogram();
+    for (int i = 1; i <= 1000; i++) {
+      histogram.record(i, TimeUnit.MICROSECONDS);
+    }
+    assertEquals(1000, histogram.getCount());
+    assertEquals(500, histogram.getMean());
+    assertEquals(1000, histogram.getMax());
+    assertWithinPrecision(500, histogram.getValueAtPercentile(50));
+    assertWithinPrecision(990, histogram.getValueAtPercentile(99));
+    assertEquals(1000, histogram.getValueAtPercentile(100));
+  }
+
+  @Test
+  void shouldConvertUnitsAndReset() {
+    LatencyHistogram histogram = new LatencyHistogram();
+    histogram.record(2, TimeUnit.MILLISECONDS);
+    histogram.record(-1, TimeUnit.MILLISECONDS);
+    assertEquals(2000, histogram.getMax());
+    assertEquals(0, histogram.getValueAtPercentile(50));
+    histogram.reset();
+    assertEquals(0, histogram.getCount());
+    assertEquals(0, histogram.getValueAtPercentile(99));
+  }
+
+  private static void assertWithinPrecision(long expected, long actual) {
+    assertTrue(actual >= expected && actual <= expected * 1.0625, "expected ~" + expected + " but was " + actual);
+  }
+
+}
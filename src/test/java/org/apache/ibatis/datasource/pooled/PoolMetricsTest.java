@@ -0,0 +1,137 @@
+/*
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.datasource.pooled;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.sql.Connection;
+import java.util.Properties;
+
+import org.apache.ibatis.BaseDataTest;
+import org.apache.ibatis.io.Resources;
+import org.junit.jupiter.api.Test;
+
+class PoolMetricsTest {
+
+  private static PooledDataSource createDataSource(boolean concurrent) throws Exception {
+    Properties props = Resources.getResourceAsProperties(BaseDataTest.JPETSTORE_PROPERTIES);
+    return concurrent
+        ? new ConcurrentPooledDataSource(props.getProperty("driver"), props.getProperty("url"),
+            props.getProperty("username"), props.getProperty("password"))
+        : new PooledDataSource(props.getProperty("driver"), props.getProperty("url"), props.getProperty("username"),
+            props.getProperty("password"));
+  }
+
+  @Test
+  void shouldRecordCheckoutsAndGauges() throws Exception {
+    for (boolean concurrent : new boolean[] { false, true }) {
+      PooledDataSource ds = createDataSource(concurrent);
+      try {
+        PoolMetrics metrics = ds.getPoolMetrics();
+        Connection c1 = ds.getConnection();
+        Connection c2 = ds.getConnection();
+        assertEquals(2, metrics.getActiveConnections());
+        assertEquals(0, metrics.getIdleConnections());
+        Thread.sleep(20);
+        c1.close();
+        c2.close();
+        assertEquals(0, metrics.getActiveConnections());
+        assertEquals(2, metrics.getIdleConnections());
+        assertEquals(2, metrics.getRequestTime().getCount());
+        assertEquals(2, metrics.getHoldTime().getCount());
+        assertTrue(metrics.getHoldTime().getMax() >= 20000);
+        assertEquals(0, metrics.getWaitTime().getCount());
+      } finally {
+        ds.forceCloseAll();
+      }
+    }
+  }
+
+  @Test
+  void shouldRecordWaitTime() throws Exception {
+    for (boolean concurrent : new boolean[] { false, true }) {
+      PooledDataSource ds = createDataSource(concurrent);
+      try {
+        ds.setPoolMaximumActiveConnections(1);
+        Connection held = ds.getConnection();
+        Thread releaser = new Thread(() -> {
+          try {
+            Thread.sleep(50);
+            held.close();
+          } catch (Exception e) {
+            throw new IllegalStateException(e);
+          }
+        });
+        releaser.start();
+        ds.getConnection().close();
+        releaser.join();
+        PoolMetrics metrics = ds.getPoolMetrics();
+        assertTrue(metrics.getWaitTime().getCount() >= 1);
+        assertTrue(metrics.getRequestTime().getMax() >= 40000);
+      } finally {
+        ds.forceCloseAll();
+      }
+    }
+  }
+
+  @Test
+  void shouldReportLeakedConnections() throws Exception {
+    for (boolean concurrent : new boolean[] { false, true }) {
+      PooledDataSource ds = createDataSource(concurrent);
+      try {
+        ds.setPoolLeakDetectionThreshold(20);
+        PoolMetrics metrics = ds.getPoolMetrics();
+        ds.getConnection().close();
+        Connection leaked = ds.getConnection();
+        long deadline = System.currentTimeMillis() + 5000;
+        while (metrics.getLeakCount() == 0 && System.currentTimeMillis() < deadline) {
+          Thread.sleep(10);
+        }
+        assertEquals(1, metrics.getLeakCount());
+        PoolMetrics.SuspectedLeak leak = metrics.getSuspectedLeaks().iterator().next();
+        assertEquals(Thread.currentThread().getName(), leak.getThreadName());
+        assertTrue(leak.getCheckoutStack().getStackTrace().length > 0);
+        leaked.close();
+        assertTrue(metrics.getSuspectedLeaks().isEmpty());
+        assertEquals(1, metrics.getLeakCount());
+      } finally {
+        ds.forceCloseAll();
+      }
+    }
+  }
+
+  @Test
+  void shouldNotReportLeakForDiscardedConnection() throws Exception {
+    for (boolean concurrent : new boolean[] { false, true }) {
+      PooledDataSource ds = createDataSource(concurrent);
+      try {
+        ds.setPoolLeakDetectionThreshold(50);
+        PoolMetrics metrics = ds.getPoolMetrics();
+        Connection bad = ds.getConnection();
+        PooledDataSource.unwrapConnection(bad).close();
+        bad.close();
+        assertEquals(1, ds.getPoolState().getBadConnectionCount());
+        Thread.sleep(150);
+        assertEquals(0, metrics.getLeakCount());
+        assertTrue(metrics.getSuspectedLeaks().isEmpty());
+      } finally {
+        ds.forceCloseAll();
+      }
+    }
+  }
+
+}
@@ -0,0 +1,154 @@
+/*
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.datasource.pooled;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.sql.Connection;
+import java.util.Properties;
+import java.util.function.BooleanSupplier;
+
+import org.apache.ibatis.BaseDataTest;
+import org.apache.ibatis.io.Resources;
+import org.junit.jupiter.api.Test;
+
+class PooledDataSourceHousekeepingTest {
+
+  private static PooledDataSource createDataSource(boolean concurrent) throws Exception {
+    Properties props = Resources.getResourceAsProperties(BaseDataTest.JPETSTORE_PROPERTIES);
+    return concurrent
+        ? new ConcurrentPooledDataSource(props.getProperty("driver"), props.getProperty("url"),
+            props.getProperty("username"), props.getProperty("password"))
+        : new PooledDataSource(props.getProperty("driver"), props.getProperty("url"), props.getProperty("username"),
+            props.getProperty("password"));
+  }
+
+  private static void awaitCondition(BooleanSupplier condition) throws InterruptedException {
+    long deadline = System.currentTimeMillis() + 5000;
+    while (!condition.getAsBoolean() && System.currentTimeMillis() < deadline) {
+      Thread.sleep(10);
+    }
+    assertTrue(condition.getAsBoolean());
+  }
+
+  @Test
+  void shouldPrefillMinimumIdleConnections() throws Exception {
+    for (boolean concurrent : new boolean[] { false, true }) {
+      checkShouldPrefillMinimumIdleConnections(concurrent);
+    }
+  }
+
+  private void checkShouldPrefillMinimumIdleConnections(boolean concurrent) throws Exception {
+    PooledDataSource ds = createDataSource(concurrent);
+    try {
+      ds.setPoolMinimumIdleConnections(3);
+      ds.setPoolHousekeepingPeriod(20);
+      awaitCondition(() -> ds.getPoolState().getIdleConnectionCount() == 3);
+      assertEquals(0, ds.getPoolState().getActiveConnectionCount());
+    } finally {
+      ds.setPoolHousekeepingPeriod(0);
+      ds.forceCloseAll();
+    }
+  }
+
+  @Test
+  void shouldEvictConnectionsPastMaximumLifetime() throws Exception {
+    for (boolean concurrent : new boolean[] { false, true }) {
+      checkShouldEvictConnectionsPastMaximumLifetime(concurrent);
+    }
+  }
+
+  private void checkShouldEvictConnectionsPastMaximumLifetime(boolean concurrent) throws Exception {
+    PooledDataSource ds = createDataSource(concurrent);
+    try {
+      ds.setPoolMaximumLifetime(50);
+      Connection conn = ds.getConnection();
+      Connection realConn = PooledDataSource.unwrapConnection(conn);
+      conn.close();
+      assertEquals(1, ds.getPoolState().getIdleConnectionCount());
+      ds.setPoolHousekeepingPeriod(20);
+      awaitCondition(() -> ds.getPoolState().getIdleConnectionCount() == 0);
+      assertTrue(realConn.isClosed());
+      conn = ds.getConnection();
+      assertNotSame(realConn, PooledDataSource.unwrapConnection(conn));
+      conn.close();
+    } finally {
+      ds.setPoolHousekeepingPeriod(0);
+      ds.forceCloseAll();
+    }
+  }
+
+  @Test
+  void shouldEvictIdleConnectionsDownToMinimumIdle() throws Exception {
+    for (boolean concurrent : new boolean[] { false, true }) {
+      checkShouldEvictIdleConnectionsDownToMinimumIdle(concurrent);
+    }
+  }
+
+  private void checkShouldEvictIdleConnectionsDownToMinimumIdle(boolean concurrent) throws Exception {
+    PooledDataSource ds = createDataSource(concurrent);
+    try {
+      ds.setPoolMaximumIdleTime(50);
+      ds.setPoolMinimumIdleConnections(1);
+      Connection c1 = ds.getConnection();
+      Connection c2 = ds.getConnection();
+      Connection c3 = ds.getConnection();
+      c1.close();
+      c2.close();
+      c3.close();
+      assertEquals(3, ds.getPoolState().getIdleConnectionCount());
+      ds.setPoolHousekeepingPeriod(20);
+      awaitCondition(() -> ds.getPoolState().getIdleConnectionCount() == 1);
+    } finally {
+      ds.setPoolHousekeepingPeriod(0);
+      ds.forceCloseAll();
+    }
+  }
+
+  @Test
+  void shouldPingIdleConnectionsInTheBackgroundOnly() throws Exception {
+    for (boolean concurrent : new boolean[] { false, true }) {
+      checkShouldPingIdleConnectionsInTheBackgroundOnly(concurrent);
+    }
+  }
+
+  private void checkShouldPingIdleConnectionsInTheBackgroundOnly(boolean concurrent) throws Exception {
+    PooledDataSource ds = createDataSource(concurrent);
+    try {
+      ds.setPoolPingEnabled(true);
+      ds.setPoolPingConnectionsNotUsedFor(0);
+      // a failing ping query would break every checkout if it ran on the borrowing thread
+      ds.setPoolPingQuery("SELECT * FROM NO_SUCH_TABLE");
+      ds.setPoolHousekeepingPeriod(60000);
+      for (int i = 0; i < 3; i++) {
+        Connection conn = ds.getConnection();
+        conn.close();
+      }
+      assertEquals(0, ds.getPoolState().getBadConnectionCount());
+      assertEquals(1, ds.getPoolState().getIdleConnectionCount());
+      Thread.sleep(5);
+      ds.housekeep();
+      assertEquals(1, ds.getPoolState().getBadConnectionCount());
+      assertEquals(0, ds.getPoolState().getIdleConnectionCount());
+    } finally {
+      ds.setPoolHousekeepingPeriod(0);
+      ds.forceCloseAll();
+    }
+  }
+
+}
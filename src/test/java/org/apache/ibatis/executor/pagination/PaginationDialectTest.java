@@ -0,0 +1,68 @@
+/*
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor.pagination;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.apache.ibatis.session.RowBounds;
+import org.junit.jupiter.api.Test;
+
+class PaginationDialectTest {
+
+  @Test
+  void shouldAppendLimitAndOffset() {
+    PaginationDialect dialect = new LimitOffsetDialect();
+    assertEquals("select * from t LIMIT 10 OFFSET 20", dialect.getPagedSql("select * from t ;\n", 20, 10));
+    assertEquals("select * from t LIMIT 10", dialect.getPagedSql("select * from t", RowBounds.NO_ROW_OFFSET, 10));
+    assertEquals("select * from t OFFSET 20", dialect.getPagedSql("select * from t", 20, RowBounds.NO_ROW_LIMIT));
+  }
+
+  @Test
+  void shouldAppendMySqlLimit() {
+    PaginationDialect dialect = new MySqlDialect();
+    assertEquals("select * from t LIMIT 20, 10", dialect.getPagedSql("select * from t", 20, 10));
+    assertEquals("select * from t LIMIT 10", dialect.getPagedSql("select * from t", RowBounds.NO_ROW_OFFSET, 10));
+    assertEquals("select * from t LIMIT 20, 18446744073709551615",
+        dialect.getPagedSql("select * from t", 20, RowBounds.NO_ROW_LIMIT));
+  }
+
+  @Test
+  void shouldAppendOffsetFetch() {
+    PaginationDialect dialect = new OffsetFetchDialect();
+    assertEquals("select * from t OFFSET 20 ROWS FETCH NEXT 10 ROWS ONLY", dialect.getPagedSql("select * from t", 20, 10));
+    assertEquals("select * from t FETCH NEXT 10 ROWS ONLY", dialect.getPagedSql("select * from t", RowBounds.NO_ROW_OFFSET, 10));
+    assertEquals("select * from t OFFSET 20 ROWS", dialect.getPagedSql("select * from t", 20, RowBounds.NO_ROW_LIMIT));
+  }
+
+  @Test
+  void shouldAddOrderByForSqlServer() {
+    PaginationDialect dialect = new SqlServerDialect();
+    assertEquals("select * from t order by id OFFSET 0 ROWS FETCH NEXT 10 ROWS ONLY",
+        dialect.getPagedSql("select * from t order by id", RowBounds.NO_ROW_OFFSET, 10));
+    assertEquals("select * from (select * from t order by id) x ORDER BY (SELECT NULL) OFFSET 20 ROWS",
+        dialect.getPagedSql("select * from (select * from t order by id) x", 20, RowBounds.NO_ROW_LIMIT));
+  }
+
+  @Test
+  void shouldDetectTopLevelOrderBy() {
+    assertTrue(Dialects.hasOrderBy("select * from t ORDER\n  BY coalesce(a, b)"));
+    assertFalse(Dialects.hasOrderBy("select * from (select * from t order by id) x"));
+    assertFalse(Dialects.hasOrderBy("select recorder from t"));
+  }
+
+}
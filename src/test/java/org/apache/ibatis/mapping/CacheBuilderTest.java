@@ -19,10 +19,22 @@ import static com.googlecode.catchexception.apis.BDDCatchException.*;
 import static org.assertj.core.api.BDDAssertions.then;
 
 import java.lang.reflect.Field;
+import java.util.Properties;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.ibatis.builder.InitializingObject;
 import org.apache.ibatis.cache.Cache;
 import org.apache.ibatis.cache.CacheException;
+import org.apache.ibatis.cache.decorators.LoggingCache;
+import org.apache.ibatis.cache.decorators.LruCache;
+import org.apache.ibatis.cache.decorators.SingleFlightCache;
+import org.apache.ibatis.cache.decorators.SynchronizedCache;
+import org.apache.ibatis.cache.decorators.TinyLfuCache;
 import org.apache.ibatis.cache.impl.PerpetualCache;
 import org.assertj.core.api.Assertions;
 import org.junit.jupiter.api.Test;
@@ -43,6 +55,111 @@ class CacheBuilderTest {
       .hasMessage("Failed cache initialization for 'test' on 'org.apache.ibatis.mapping.CacheBuilderTest$InitializingFailureCache'");
   }
 
+  @Test
+  void shouldNotSynchronizeConcurrentEvictionCache() {
+    Cache cache = new CacheBuilder("test").addDecorator(TinyLfuCache.class).size(10).build();
+
+    then(cache).isInstanceOf(LoggingCache.class);
+    TinyLfuCache eviction = unwrap(cache);
+    then(eviction.getSize()).isZero();
+  }
+
+  @Test
+  void shouldSynchronizeLruCache() {
+    Cache cache = new CacheBuilder("test").addDecorator(LruCache.class).build();
+
+    then(cache).isInstanceOf(SynchronizedCache.class);
+  }
+
+  @Test
+  void shouldApplyPropertiesToSerializedCache() {
+    Properties properties = new Properties();
+    properties.setProperty("serializer", "fast");
+    Cache cache = new CacheBuilder("test").readWrite(true).properties(properties).build();
+
+    Bean bean = new Bean();
+    bean.setName("value");
+    cache.putObject("key", bean);
+    Bean copy = (Bean) cache.getObject("key");
+    then(copy).isNotSameAs(bean);
+    then(copy.getName()).isEqualTo("value");
+  }
+
+  @Test
+  void shouldCopyOnlyTheValuesOfExpiringEntriesWithFastSerializer() {
+    Properties properties = new Properties();
+    properties.setProperty("serializer", "fast");
+    Cache cache = new CacheBuilder("test").readWrite(true).timeToLive(60000L).properties(properties).build();
+
+    // not serializable, so the entry around it must not be serialized
+    Bean bean = new Bean();
+    bean.setName("value");
+    cache.putObject("key", bean);
+    Bean copy = (Bean) cache.getObject("key");
+    then(copy).isNotSameAs(bean);
+    then(copy.getName()).isEqualTo("value");
+    then(cache.getObject("key")).isNotSameAs(copy);
+  }
+
+  @Test
+  void shouldShareLoadsOfBeansWithFastSerializer() throws Exception {
+    Properties properties = new Properties();
+    properties.setProperty("serializer", "fast");
+
+    shouldGiveEachWaiterItsOwnCopy(properties);
+  }
+
+  @Test
+  void shouldShareLoadsOfBeansWithReflectiveCopier() throws Exception {
+    Properties properties = new Properties();
+    properties.setProperty("copyStrategy", "reflect");
+
+    shouldGiveEachWaiterItsOwnCopy(properties);
+  }
+
+  private void shouldGiveEachWaiterItsOwnCopy(Properties properties) throws Exception {
+    SingleFlightCache cache = (SingleFlightCache) new CacheBuilder("test").readWrite(true).singleFlight(true)
+        .properties(properties).build();
+    // not serializable, the waiter must get a copy made by the configured serializer or copier
+    Bean bean = new Bean();
+    bean.setName("value");
+    AtomicInteger loads = new AtomicInteger();
+    CountDownLatch started = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    ExecutorService executor = Executors.newCachedThreadPool();
+    try {
+      Future<Bean> leader = executor.submit(() -> cache.load("key", () -> {
+        loads.incrementAndGet();
+        started.countDown();
+        await(release);
+        return bean;
+      }));
+      then(started.await(5, TimeUnit.SECONDS)).isTrue();
+      Future<Bean> waiter = executor.submit(() -> cache.load("key", () -> {
+        loads.incrementAndGet();
+        return new Bean();
+      }));
+      Thread.sleep(50);
+      release.countDown();
+
+      then(leader.get(5, TimeUnit.SECONDS)).isSameAs(bean);
+      Bean copy = waiter.get(5, TimeUnit.SECONDS);
+      then(copy).isNotSameAs(bean);
+      then(copy.getName()).isEqualTo("value");
+      then(loads.get()).isEqualTo(1);
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private static void await(CountDownLatch latch) {
+    try {
+      latch.await(5, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
   @SuppressWarnings("unchecked")
   private <T> T unwrap(Cache cache) {
     Field field;
@@ -61,6 +178,20 @@ class CacheBuilderTest {
     }
   }
 
+  public static class Bean {
+
+    private String name;
+
+    public String getName() {
+      return name;
+    }
+
+    public void setName(String name) {
+      this.name = name;
+    }
+
+  }
+
   private static class InitializingCache extends PerpetualCache implements InitializingObject {
 
     private boolean initialized;
@@ -17,7 +17,10 @@ package org.apache.ibatis.plugin;
 
 import static org.junit.jupiter.api.Assertions.*;
 
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import org.junit.jupiter.api.Test;
@@ -38,6 +41,117 @@ class PluginTest {
     assertNotEquals("Always", map.toString());
   }
 
+  @Test
+  void shouldCollapseInterceptorsIntoOneProxy() {
+    List<String> trace = new ArrayList<>();
+    InterceptorChain chain = new InterceptorChain();
+    chain.addInterceptor(new TracingGetPlugin("first", trace));
+    chain.addInterceptor(new TracingPutPlugin("put", trace));
+    chain.addInterceptor(new TracingGetPlugin("last", trace));
+    Map<String, String> map = new HashMap<>();
+    map.put("key", "value");
+    Map<?, ?> plugged = (Map<?, ?>) chain.pluginAll(map);
+    assertTrue(Proxy.getInvocationHandler(plugged) instanceof PluginChain);
+    assertEquals("value", plugged.get("key"));
+    // the last registered interceptor is the outermost one and non-matching interceptors are skipped
+    assertEquals("[last, first]", trace.toString());
+  }
+
+  @Test
+  void shouldExposeRemainingChainAsTarget() {
+    List<String> trace = new ArrayList<>();
+    InterceptorChain chain = new InterceptorChain();
+    chain.addInterceptor(new TracingGetPlugin("inner", trace));
+    chain.addInterceptor(new TargetCallingGetPlugin());
+    Map<String, String> map = new HashMap<>();
+    map.put("key", "value");
+    Map<?, ?> plugged = (Map<?, ?>) chain.pluginAll(map);
+    assertEquals("value", plugged.get("key"));
+    // the outer interceptor called the target directly, which still goes through the inner interceptor
+    assertEquals("[inner]", trace.toString());
+  }
+
+  @Test
+  void shouldKeepCustomPluginMethods() {
+    List<String> trace = new ArrayList<>();
+    InterceptorChain chain = new InterceptorChain();
+    chain.addInterceptor(new TracingGetPlugin("collapsed", trace));
+    chain.addInterceptor(new CustomPlugin(trace));
+    Map<String, String> map = new HashMap<>();
+    Map<?, ?> plugged = (Map<?, ?>) chain.pluginAll(map);
+    plugged.get("key");
+    assertEquals("[custom, collapsed]", trace.toString());
+  }
+
+  @Test
+  void shouldPropagateExceptionsThroughTheChain() {
+    List<String> trace = new ArrayList<>();
+    InterceptorChain chain = new InterceptorChain();
+    chain.addInterceptor(new FailingGetPlugin());
+    chain.addInterceptor(new TracingGetPlugin("outer", trace));
+    Map<?, ?> plugged = (Map<?, ?>) chain.pluginAll(new HashMap<>());
+    IllegalStateException e = assertThrows(IllegalStateException.class, () -> plugged.get("key"));
+    assertEquals("failed", e.getMessage());
+    assertEquals("[outer]", trace.toString());
+  }
+
+  @Intercepts({
+      @Signature(type = Map.class, method = "get", args = {Object.class})})
+  public static class TracingGetPlugin implements Interceptor {
+    private final String name;
+    private final List<String> trace;
+
+    TracingGetPlugin(String name, List<String> trace) {
+      this.name = name;
+      this.trace = trace;
+    }
+
+    @Override
+    public Object intercept(Invocation invocation) throws Throwable {
+      trace.add(name);
+      return invocation.proceed();
+    }
+  }
+
+  @Intercepts({
+      @Signature(type = Map.class, method = "put", args = {Object.class, Object.class})})
+  public static class TracingPutPlugin extends TracingGetPlugin {
+    TracingPutPlugin(String name, List<String> trace) {
+      super(name, trace);
+    }
+  }
+
+  @Intercepts({
+      @Signature(type = Map.class, method = "get", args = {Object.class})})
+  public static class TargetCallingGetPlugin implements Interceptor {
+    @Override
+    public Object intercept(Invocation invocation) throws Throwable {
+      return ((Map<?, ?>) invocation.getTarget()).get(invocation.getArgs()[0]);
+    }
+  }
+
+  @Intercepts({
+      @Signature(type = Map.class, method = "get", args = {Object.class})})
+  public static class FailingGetPlugin implements Interceptor {
+    @Override
+    public Object intercept(Invocation invocation) {
+      throw new IllegalStateException("failed");
+    }
+  }
+
+  @Intercepts({
+      @Signature(type = Map.class, method = "get", args = {Object.class})})
+  public static class CustomPlugin extends TracingGetPlugin {
+    CustomPlugin(List<String> trace) {
+      super("custom", trace);
+    }
+
+    @Override
+    public Object plugin(Object target) {
+      return Plugin.wrap(target, this);
+    }
+  }
+
   @Intercepts({
       @Signature(type = Map.class, method = "get", args = {Object.class})})
   public static class AlwaysMapPlugin implements Interceptor {
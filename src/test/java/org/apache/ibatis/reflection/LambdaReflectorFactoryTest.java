@@ -0,0 +1,183 @@
+/*
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.reflection;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.ibatis.reflection.invoker.GetFieldInvoker;
+import org.apache.ibatis.reflection.invoker.Invoker;
+import org.apache.ibatis.reflection.invoker.LambdaGetInvoker;
+import org.apache.ibatis.reflection.invoker.LambdaSetInvoker;
+import org.apache.ibatis.reflection.invoker.MethodInvoker;
+import org.junit.jupiter.api.Test;
+
+class LambdaReflectorFactoryTest {
+
+  private final ReflectorFactory reflectorFactory = new LambdaReflectorFactory();
+
+  @Test
+  void shouldUseReflectiveInvokersByDefault() {
+    Reflector reflector = new DefaultReflectorFactory().findForClass(Bean.class);
+    assertThat(reflector.getGetInvoker("name")).isInstanceOf(MethodInvoker.class);
+    assertThat(reflector.getSetInvoker("name")).isInstanceOf(MethodInvoker.class);
+  }
+
+  @Test
+  void shouldReadAndWriteThroughLambdaInvokers() throws Exception {
+    Reflector reflector = reflectorFactory.findForClass(Bean.class);
+    Bean bean = new Bean();
+    Invoker setter = reflector.getSetInvoker("name");
+    Invoker getter = reflector.getGetInvoker("name");
+    assertThat(setter).isInstanceOf(LambdaSetInvoker.class);
+    assertThat(getter).isInstanceOf(LambdaGetInvoker.class);
+    setter.invoke(bean, new Object[] {"mybatis"});
+    assertEquals("mybatis", getter.invoke(bean, null));
+    assertEquals(String.class, setter.getType());
+    assertEquals(String.class, getter.getType());
+  }
+
+  @Test
+  void shouldUnboxPrimitives() throws Exception {
+    Reflector reflector = reflectorFactory.findForClass(Bean.class);
+    Bean bean = new Bean();
+    reflector.getSetInvoker("age").invoke(bean, new Object[] {42});
+    assertEquals(42, reflector.getGetInvoker("age").invoke(bean, null));
+    assertEquals(int.class, reflector.getSetInvoker("age").getType());
+  }
+
+  @Test
+  void shouldRejectArgumentsLikeMethodInvoke() {
+    Reflector reflector = reflectorFactory.findForClass(Bean.class);
+    Bean bean = new Bean();
+    assertThrows(IllegalArgumentException.class, () -> reflector.getSetInvoker("age").invoke(bean, new Object[] {null}));
+    assertThrows(IllegalArgumentException.class, () -> reflector.getSetInvoker("name").invoke(bean, new Object[] {1}));
+  }
+
+  @Test
+  void shouldWidenPrimitivesLikeMethodInvoke() throws Exception {
+    Reflector lambda = reflectorFactory.findForClass(Bean.class);
+    Reflector reflective = new DefaultReflectorFactory().findForClass(Bean.class);
+    Object[] values = { (byte) 1, (short) 2, 'c', 4, 5L, 6.5f, 7.5d, true };
+    for (String property : new String[] { "age", "total", "ratio" }) {
+      for (Object value : values) {
+        Bean expected = new Bean();
+        Bean actual = new Bean();
+        Object[] args = { value };
+        boolean accepted;
+        try {
+          reflective.getSetInvoker(property).invoke(expected, args);
+          accepted = true;
+        } catch (IllegalArgumentException e) {
+          accepted = false;
+        }
+        if (accepted) {
+          lambda.getSetInvoker(property).invoke(actual, args);
+          assertEquals(reflective.getGetInvoker(property).invoke(expected, null),
+              lambda.getGetInvoker(property).invoke(actual, null), property + " = " + value);
+        } else {
+          assertThrows(IllegalArgumentException.class, () -> lambda.getSetInvoker(property).invoke(actual, args),
+              property + " = " + value);
+        }
+      }
+    }
+    Bean bean = new Bean();
+    lambda.getSetInvoker("total").invoke(bean, new Object[] { 42 });
+    assertEquals(42L, bean.getTotal());
+  }
+
+  @Test
+  void shouldWrapExceptionsThrownByAccessors() {
+    Reflector reflector = reflectorFactory.findForClass(Bean.class);
+    InvocationTargetException e = assertThrows(InvocationTargetException.class,
+        () -> reflector.getSetInvoker("failing").invoke(new Bean(), new Object[] {"x"}));
+    assertThat(e.getTargetException()).isInstanceOf(IllegalStateException.class).hasMessage("x");
+  }
+
+  @Test
+  void shouldFallBackToFieldInvokers() {
+    Reflector reflector = reflectorFactory.findForClass(Bean.class);
+    assertThat(reflector.getGetInvoker("fieldOnly")).isInstanceOf(GetFieldInvoker.class);
+  }
+
+  @Test
+  void shouldResolveGenericGetterTypes() {
+    MetaObject metaObject = MetaObject.forObject(new Bean(), SystemMetaObject.DEFAULT_OBJECT_FACTORY,
+        SystemMetaObject.DEFAULT_OBJECT_WRAPPER_FACTORY, reflectorFactory);
+    metaObject.setValue("tags", Arrays.asList("a", "b"));
+    assertEquals("b", metaObject.getValue("tags[1]"));
+    assertEquals(String.class, MetaClass.forClass(Bean.class, reflectorFactory).getGetterType("tags[0]"));
+  }
+
+  private static class Bean {
+    private String name;
+    private int age;
+    private long total;
+    private double ratio;
+    private List<String> tags;
+    private String fieldOnly;
+
+    public String getName() {
+      return name;
+    }
+
+    public void setName(String name) {
+      this.name = name;
+    }
+
+    public int getAge() {
+      return age;
+    }
+
+    public void setAge(int age) {
+      this.age = age;
+    }
+
+    public long getTotal() {
+      return total;
+    }
+
+    public void setTotal(long total) {
+      this.total = total;
+    }
+
+    public double getRatio() {
+      return ratio;
+    }
+
+    public void setRatio(double ratio) {
+      this.ratio = ratio;
+    }
+
+    public List<String> getTags() {
+      return tags;
+    }
+
+    public void setTags(List<String> tags) {
+      this.tags = tags;
+    }
+
+    public void setFailing(String message) {
+      throw new IllegalStateException(message);
+    }
+  }
+
+}
@@ -18,6 +18,7 @@ package org.apache.ibatis.reflection;
 import static org.junit.jupiter.api.Assertions.*;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
@@ -194,6 +195,32 @@ class MetaObjectTest {
     assertEquals(Section.class, object.getGetterType("favouriteSection"));
   }
 
+  @Test
+  void shouldResolveCollectionElementsInMap() {
+    Map<String, Object> map = new HashMap<>();
+    map.put("list", new ArrayList<>(Arrays.asList("a", new RichType())));
+    MetaObject metaMap = SystemMetaObject.forObject(map);
+    assertTrue(metaMap.hasGetter("list[0]"));
+    assertEquals(String.class, metaMap.getGetterType("list[0]"));
+    assertTrue(metaMap.hasGetter("list[1].richField"));
+    assertEquals(String.class, metaMap.getGetterType("list[1].richField"));
+    assertFalse(metaMap.hasGetter("other[0].richField"));
+    assertEquals(Object.class, metaMap.getGetterType("other[0]"));
+  }
+
+  @Test
+  void shouldFallBackToObjectForUnresolvableElementsInMap() {
+    Map<String, Object> map = new HashMap<>();
+    map.put("list", new ArrayList<>(Arrays.asList("a")));
+    map.put("name", "value");
+    MetaObject metaMap = SystemMetaObject.forObject(map);
+    assertEquals(Object.class, metaMap.getGetterType("list[5]"));
+    assertEquals(Object.class, metaMap.getGetterType("list[5].richField"));
+    assertEquals(Object.class, metaMap.getGetterType("list[x]"));
+    assertEquals(Object.class, metaMap.getGetterType("name[0]"));
+    assertEquals(Object.class, metaMap.getGetterType("name[0].richField"));
+  }
+
   @Test
   void shouldDemonstrateDeeplyNestedMapProperties() {
     HashMap<String, String> map = new HashMap<>();
@@ -0,0 +1,184 @@
+/*
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.scripting.xmltags;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.ibatis.builder.BuilderException;
+import org.apache.ibatis.domain.blog.Author;
+import org.apache.ibatis.domain.blog.Section;
+import org.apache.ibatis.reflection.DefaultReflectorFactory;
+import org.apache.ibatis.reflection.Reflector;
+import org.apache.ibatis.session.Configuration;
+import org.junit.jupiter.api.Test;
+
+class SimpleExpressionTest {
+
+  private static final List<String> SUPPORTED = Arrays.asList(
+      "name != null",
+      "name == null",
+      "null != name",
+      "name != ''",
+      "name != '' and name != null",
+      "name == \"a\"",
+      "name eq 'abc'",
+      "name.length() > 2",
+      "ids != null and ids.size() > 0",
+      "ids != null && !ids.isEmpty()",
+      "emptyIds.isEmpty() || emptyIds.size() == 0",
+      "not (missing != null)",
+      "missing",
+      "flag",
+      "!flag",
+      "flag == true",
+      "count > 0",
+      "count >= 3",
+      "count lt 10",
+      "count lte 2",
+      "count == 3 or count == 4",
+      "zero",
+      "section == @org.apache.ibatis.domain.blog.Section@NEWS",
+      "section != @org.apache.ibatis.domain.blog.Section@VIDEOS",
+      "section.name() == 'NEWS'",
+      "author.username == 'cbegin'",
+      "author.id > 0 and author.favouriteSection != null",
+      "nested.inner == 'value'",
+      "name and count",
+      "missing or name");
+
+  @Test
+  void shouldEvaluateLikeOgnl() {
+    Map<String, Object> bindings = bindings();
+    for (String expression : SUPPORTED) {
+      SimpleExpression simpleExpression = compile(expression);
+      assertNotNull(simpleExpression, expression);
+      assertEquals(OgnlCache.getValue(expression, bindings), simpleExpression.getValue(bindings), expression);
+    }
+  }
+
+  @Test
+  void shouldEvaluateAgainstBeanRoot() {
+    Author author = new Author(1, "cbegin", "******", "cbegin@apache.org", "N/A", Section.NEWS);
+    SimpleExpression simpleExpression = compile("username == 'cbegin' and bio != null");
+    assertEquals(OgnlCache.getValue("username == 'cbegin' and bio != null", author), simpleExpression.getValue(author));
+    assertEquals(Boolean.TRUE, simpleExpression.getValue(author));
+  }
+
+  @Test
+  void shouldLeaveOtherExpressionsToOgnl() {
+    for (String expression : Arrays.asList("name + 'x' != null", "ids[0] == 1", "#this != null", "count == 1L",
+        "count > 1.5", "name.trim() != ''", "ids.size() > 0 ? true : false", "count == 1 == true", "name == 'a\\'b'",
+        "name in {'a', 'b'}", "count = 1", "name !=")) {
+      assertNull(compile(expression), expression);
+    }
+  }
+
+  @Test
+  void shouldFallBackWhenValueCannotBeResolved() {
+    Map<String, Object> bindings = bindings();
+    assertSame(SimpleExpression.UNSUPPORTED, compile("missing.id != null").getValue(bindings));
+    assertSame(SimpleExpression.UNSUPPORTED, compile("author.unknown != null").getValue(bindings));
+    assertSame(SimpleExpression.UNSUPPORTED, compile("ids.size != null").getValue(bindings));
+    assertSame(SimpleExpression.UNSUPPORTED, compile("nested.size > 0").getValue(bindings));
+    // a single quoted character is a Character in OGNL and cannot be compared with a String
+    assertSame(SimpleExpression.UNSUPPORTED, compile("name == 'a'").getValue(bindings));
+    // only enum constants are resolved, when the expression is first evaluated
+    assertSame(SimpleExpression.UNSUPPORTED, compile("@java.lang.Integer@MAX_VALUE > 0").getValue(bindings));
+    assertSame(SimpleExpression.UNSUPPORTED, compile("section == @com.example.Missing@NEWS").getValue(bindings));
+    // OGNL still reports the error
+    assertThrows(BuilderException.class, () -> new ExpressionEvaluator().evaluateBoolean("missing.id != null", bindings));
+    assertEquals(Boolean.TRUE, new Configuration().getExpressionEvaluator().getValue("nested.size > 0", bindings));
+  }
+
+  @Test
+  void shouldKeepCompiledExpressionsPerConfiguration() {
+    ExpressionEvaluator first = new Configuration().getExpressionEvaluator();
+    ExpressionEvaluator second = new Configuration().getExpressionEvaluator();
+    assertSame(first.compile("name != null"), first.compile("name != null"));
+    assertNotSame(first.compile("name != null"), second.compile("name != null"));
+    assertNull(new ExpressionEvaluator().compile("name != null"));
+  }
+
+  @Test
+  void shouldEvictLeastRecentlyUsedExpression() {
+    ExpressionEvaluator evaluator = new ExpressionEvaluator(2, new DefaultReflectorFactory());
+    SimpleExpression a = evaluator.compile("a != null");
+    SimpleExpression b = evaluator.compile("b != null");
+    assertSame(a, evaluator.compile("a != null"));
+    evaluator.compile("c != null");
+    assertSame(a, evaluator.compile("a != null"));
+    assertNotSame(b, evaluator.compile("b != null"));
+  }
+
+  @Test
+  void shouldLookUpGettersWithReflectorFactoryOfConfiguration() {
+    List<Class<?>> lookedUp = new ArrayList<>();
+    Configuration configuration = new Configuration();
+    configuration.setReflectorFactory(new DefaultReflectorFactory() {
+      @Override
+      public Reflector findForClass(Class<?> type) {
+        lookedUp.add(type);
+        return super.findForClass(type);
+      }
+    });
+    Author author = new Author(1, "cbegin", "******", "cbegin@apache.org", "N/A", Section.NEWS);
+    assertEquals(Boolean.TRUE, configuration.getExpressionEvaluator().getValue("username == 'cbegin'", author));
+    assertEquals(Arrays.asList(Author.class), lookedUp);
+  }
+
+  private static SimpleExpression compile(String expression) {
+    return SimpleExpression.compile(expression, new DefaultReflectorFactory());
+  }
+
+  @Test
+  void shouldResolveParameterMapEntries() {
+    Map<String, Object> parameter = new HashMap<>();
+    parameter.put("name", "abc");
+    Map<String, Object> bindings = new DynamicContext(new Configuration(), parameter).getBindings();
+    bindings.remove("name");
+    assertEquals(Boolean.TRUE, compile("name == 'abc'").getValue(bindings));
+    assertEquals(Boolean.TRUE, new ExpressionEvaluator().evaluateBoolean("_parameter != null and name != ''", bindings));
+  }
+
+  private static Map<String, Object> bindings() {
+    Map<String, Object> parameter = new HashMap<>();
+    parameter.put("name", "abc");
+    parameter.put("ids", new ArrayList<>(Arrays.asList(1, 2)));
+    parameter.put("emptyIds", new ArrayList<>());
+    parameter.put("missing", null);
+    parameter.put("flag", true);
+    parameter.put("count", 3L);
+    parameter.put("zero", 0);
+    parameter.put("section", Section.NEWS);
+    parameter.put("author", new Author(1, "cbegin", "******", "cbegin@apache.org", "N/A", Section.NEWS));
+    Map<String, Object> nested = new HashMap<>();
+    nested.put("inner", "value");
+    parameter.put("nested", nested);
+    return new DynamicContext(new Configuration(), parameter).getBindings();
+  }
+
+}
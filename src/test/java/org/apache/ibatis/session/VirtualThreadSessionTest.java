@@ -0,0 +1,171 @@
+/*
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.session;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import jdk.jfr.Event;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordingStream;
+
+import org.apache.ibatis.BaseDataTest;
+import org.apache.ibatis.annotations.CacheNamespace;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.datasource.pooled.PooledDataSource;
+import org.apache.ibatis.mapping.Environment;
+import org.apache.ibatis.transaction.jdbc.JdbcTransactionFactory;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Runs many short sessions, each on its own virtual thread, against a small pool so that most of them have to wait
+ * for a connection. Skipped on runtimes without virtual threads. Fails if JFR records a
+ * {@code jdk.VirtualThreadPinned} event, i.e. a session that blocked while pinned to its carrier thread.
+ */
+class VirtualThreadSessionTest {
+
+  private static final int SESSIONS = 2000;
+
+  @Test
+  void shouldRunConcurrentSessionsOnVirtualThreads() throws Exception {
+    ExecutorService executor = newVirtualThreadPerTaskExecutor();
+    assumeTrue(executor != null, "virtual threads are not available on this runtime");
+
+    BaseDataTest.createJPetstoreDataSource();
+    PooledDataSource dataSource = BaseDataTest.createPooledDataSource(BaseDataTest.JPETSTORE_PROPERTIES);
+    dataSource.setPoolMaximumActiveConnections(4);
+    dataSource.setPoolMaximumIdleConnections(4);
+    Configuration configuration = new Configuration(
+        new Environment("test", new JdbcTransactionFactory(), dataSource));
+    configuration.addMapper(ProductMapper.class);
+    SqlSessionFactory sqlSessionFactory = new SqlSessionFactoryBuilder().build(configuration);
+
+    try (PinningRecorder recorder = new PinningRecorder()) {
+      List<Future<Integer>> results = new ArrayList<>();
+      for (int i = 0; i < SESSIONS; i++) {
+        int n = i;
+        results.add(executor.submit(() -> {
+          try (SqlSession session = sqlSessionFactory.openSession()) {
+            ProductMapper mapper = session.getMapper(ProductMapper.class);
+            // alternate between the cache and the pool
+            return n % 2 == 0 ? mapper.countProducts() : mapper.countProductsUncached();
+          }
+        }));
+      }
+      int expected = results.get(0).get(30, TimeUnit.SECONDS);
+      for (Future<Integer> result : results) {
+        assertEquals(expected, result.get(30, TimeUnit.SECONDS).intValue());
+      }
+      assertEquals(Collections.emptyList(), recorder.pinnedStacks(), "sessions blocked while pinned");
+    } finally {
+      executor.shutdownNow();
+      dataSource.forceCloseAll();
+    }
+    assertEquals(0, dataSource.getPoolState().getBadConnectionCount());
+  }
+
+  private static ExecutorService newVirtualThreadPerTaskExecutor() throws Exception {
+    Method factory;
+    try {
+      factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+    } catch (NoSuchMethodException e) {
+      return null;
+    }
+    try {
+      return (ExecutorService) factory.invoke(null);
+    } catch (InvocationTargetException e) {
+      if (e.getCause() instanceof UnsupportedOperationException) {
+        // a preview release run without --enable-preview
+        return null;
+      }
+      throw e;
+    }
+  }
+
+  /**
+   * Collects the {@code jdk.VirtualThreadPinned} events of the test JVM. Only loaded on runtimes with virtual threads,
+   * which all have JFR event streaming.
+   */
+  private static final class PinningRecorder implements AutoCloseable {
+
+    private final RecordingStream stream = new RecordingStream();
+    private final List<String> pinnedStacks = new CopyOnWriteArrayList<>();
+    private final CountDownLatch flushed = new CountDownLatch(1);
+
+    PinningRecorder() {
+      stream.enable("jdk.VirtualThreadPinned").withoutThreshold().withStackTrace();
+      stream.enable(FlushMarker.class);
+      stream.onEvent("jdk.VirtualThreadPinned", event -> pinnedStacks.add(format(event.getStackTrace())));
+      stream.onEvent(FlushMarker.class.getName(), event -> flushed.countDown());
+      stream.startAsync();
+    }
+
+    /**
+     * @return the stacks of the threads pinned so far
+     */
+    List<String> pinnedStacks() throws InterruptedException {
+      // the stream delivers events in order, so every earlier event has been seen once the marker arrives
+      new FlushMarker().commit();
+      assertTrue(flushed.await(30, TimeUnit.SECONDS), "JFR did not deliver the recorded events");
+      return pinnedStacks;
+    }
+
+    @Override
+    public void close() {
+      stream.close();
+    }
+
+    private static String format(RecordedStackTrace stackTrace) {
+      if (stackTrace == null) {
+        return "(no stack trace)";
+      }
+      StringBuilder sb = new StringBuilder();
+      for (RecordedFrame frame : stackTrace.getFrames()) {
+        sb.append("\n\tat ").append(frame.getMethod().getType().getName()).append('.')
+            .append(frame.getMethod().getName()).append(':').append(frame.getLineNumber());
+      }
+      return sb.toString();
+    }
+
+  }
+
+  static class FlushMarker extends Event {
+  }
+
+  @CacheNamespace
+  interface ProductMapper {
+    @Select("select count(*) from product")
+    int countProducts();
+
+    @Select("select count(*) from product where productid is not null")
+    int countProductsUncached();
+  }
+
+}
@@ -0,0 +1,127 @@
+/*
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.batch_nested_select;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.apache.ibatis.BaseDataTest;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.mapping.ResultFlag;
+import org.apache.ibatis.mapping.ResultMapping;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class BatchNestedSelectTest {
+
+  private static SqlSessionFactory sqlSessionFactory;
+
+  @BeforeAll
+  static void setUp() throws Exception {
+    try (Reader reader = Resources.getResourceAsReader("org/apache/ibatis/submitted/batch_nested_select/mybatis-config.xml")) {
+      sqlSessionFactory = new SqlSessionFactoryBuilder().build(reader);
+    }
+    BaseDataTest.runScript(sqlSessionFactory.getConfiguration().getEnvironment().getDataSource(),
+        "org/apache/ibatis/submitted/batch_nested_select/CreateDB.sql");
+  }
+
+  @BeforeEach
+  void clear() {
+    StatementCounter.statements.clear();
+  }
+
+  @Test
+  void shouldLoadNestedSelectsInBatches() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      List<Blog> blogs = sqlSession.selectList("org.apache.ibatis.submitted.batch_nested_select.Mapper.selectBlogs");
+      assertBlogs(blogs);
+      // 1 blogs + 1 authors (2 distinct keys, batch of 10) + 3 posts (5 keys, batches of 2)
+      assertEquals(5, StatementCounter.statements.size());
+      assertSame(blogs.get(0).getAuthor(), blogs.get(2).getAuthor());
+    }
+  }
+
+  @Test
+  void shouldLoadPerRowWithResultHandler() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      List<Blog> blogs = new ArrayList<>();
+      sqlSession.select("org.apache.ibatis.submitted.batch_nested_select.Mapper.selectBlogs",
+          context -> blogs.add((Blog) context.getResultObject()));
+      assertBlogs(blogs);
+      assertTrue(StatementCounter.statements.size() > 5);
+    }
+  }
+
+  @Test
+  void shouldLoadSelfReferencingAssociationInBatches() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      List<Person> people = sqlSession.selectList("org.apache.ibatis.submitted.batch_nested_select.Mapper.selectPeople");
+      assertEquals(3, people.size());
+      Person dora = people.get(0).getManager();
+      assertEquals("Dora", dora.getName());
+      assertEquals("Carl", dora.getManager().getName());
+      assertSame(dora, dora.getManager().getManager());
+      assertEquals("Carl", people.get(1).getManager().getName());
+      assertSame(people.get(1).getManager(), people.get(2).getManager());
+      // 1 people + 1 managers (2 distinct keys); the managers of the managers come from the local cache
+      assertEquals(2, StatementCounter.statements.size());
+    }
+  }
+
+  @Test
+  void shouldRejectBatchedConstructorArgument() {
+    Configuration configuration = sqlSessionFactory.getConfiguration();
+    ResultMapping.Builder builder = new ResultMapping.Builder(configuration, "author", "author_id", Author.class)
+        .nestedQueryId("org.apache.ibatis.submitted.batch_nested_select.Mapper.selectAuthors")
+        .flags(Collections.singletonList(ResultFlag.CONSTRUCTOR))
+        .batchSize(10)
+        .batchKey("id");
+    assertThrows(IllegalStateException.class, builder::build);
+  }
+
+  private static void assertBlogs(List<Blog> blogs) {
+    assertEquals(5, blogs.size());
+    assertEquals("Ann", blogs.get(0).getAuthor().getName());
+    assertEquals("Bob", blogs.get(1).getAuthor().getName());
+    assertEquals("Ann", blogs.get(2).getAuthor().getName());
+    assertNull(blogs.get(4).getAuthor());
+    assertEquals(Arrays.asList(1, 2), postIds(blogs.get(0)));
+    assertEquals(Arrays.asList(3), postIds(blogs.get(1)));
+    assertTrue(blogs.get(2).getPosts().isEmpty());
+    assertEquals(Arrays.asList(4), postIds(blogs.get(3)));
+    assertEquals(Arrays.asList(5, 6), postIds(blogs.get(4)));
+  }
+
+  private static List<Integer> postIds(Blog blog) {
+    return blog.getPosts().stream().map(Post::getId).collect(Collectors.toList());
+  }
+
+}
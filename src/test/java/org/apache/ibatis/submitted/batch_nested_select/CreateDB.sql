@@ -0,0 +1,64 @@
+--
+--    Copyright 2009-2021 the original author or authors.
+--
+--    Licensed under the Apache License, Version 2.0 (the "License");
+--    you may not use this file except in compliance with the License.
+--    You may obtain a copy of the License at
+--
+--       http://www.apache.org/licenses/LICENSE-2.0
+--
+--    Unless required by applicable law or agreed to in writing, software
+--    distributed under the License is distributed on an "AS IS" BASIS,
+--    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+--    See the License for the specific language governing permissions and
+--    limitations under the License.
+--
+
+
+drop table people if exists;
+drop table posts if exists;
+drop table blogs if exists;
+drop table authors if exists;
+
+create table authors (
+  id int,
+  name varchar(20)
+);
+
+create table blogs (
+  id int,
+  title varchar(20),
+  author_id int
+);
+
+create table people (
+  id int,
+  name varchar(20),
+  manager_id int
+);
+
+create table posts (
+  id int,
+  blog_id bigint,
+  subject varchar(20)
+);
+
+insert into authors (id, name) values (1, 'Ann');
+insert into authors (id, name) values (2, 'Bob');
+
+insert into blogs (id, title, author_id) values (1, 'Blog1', 1);
+insert into blogs (id, title, author_id) values (2, 'Blog2', 2);
+insert into blogs (id, title, author_id) values (3, 'Blog3', 1);
+insert into blogs (id, title, author_id) values (4, 'Blog4', 2);
+insert into blogs (id, title, author_id) values (5, 'Blog5', null);
+
+insert into posts (id, blog_id, subject) values (1, 1, 'Post1');
+insert into posts (id, blog_id, subject) values (2, 1, 'Post2');
+insert into posts (id, blog_id, subject) values (3, 2, 'Post3');
+insert into posts (id, blog_id, subject) values (4, 4, 'Post4');
+insert into posts (id, blog_id, subject) values (5, 5, 'Post5');
+insert into posts (id, blog_id, subject) values (6, 5, 'Post6');
+
+insert into people (id, name, manager_id) values (1, 'Carl', 2);
+insert into people (id, name, manager_id) values (2, 'Dora', 1);
+insert into people (id, name, manager_id) values (3, 'Emil', 1);
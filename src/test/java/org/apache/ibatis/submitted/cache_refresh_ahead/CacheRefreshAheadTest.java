@@ -0,0 +1,112 @@
+/*
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.cache_refresh_ahead;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.ibatis.BaseDataTest;
+import org.apache.ibatis.cache.Cache;
+import org.apache.ibatis.cache.decorators.ExpiringCache;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+class CacheRefreshAheadTest {
+
+  private static SqlSessionFactory sqlSessionFactory;
+
+  @BeforeAll
+  static void setUp() throws Exception {
+    try (Reader reader = Resources.getResourceAsReader("org/apache/ibatis/submitted/cache_refresh_ahead/mybatis-config.xml")) {
+      sqlSessionFactory = new SqlSessionFactoryBuilder().build(reader);
+    }
+    BaseDataTest.runScript(sqlSessionFactory.getConfiguration().getEnvironment().getDataSource(),
+        "org/apache/ibatis/submitted/cache_refresh_ahead/CreateDB.sql");
+  }
+
+  @Test
+  void shouldServeStaleValueWhileReloadingStatement() throws Exception {
+    Cache cache = sqlSessionFactory.getConfiguration().getCache(Mapper.class.getName());
+    assertTrue(cache instanceof ExpiringCache);
+
+    assertEquals("User1", selectName());
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      // does not flush the cache, so only a refresh can pick up the new name
+      sqlSession.getMapper(Mapper.class).rename(1, "Renamed");
+      sqlSession.commit();
+    }
+    Thread.sleep(20);
+    assertEquals("User1", selectName());
+
+    long deadline = System.currentTimeMillis() + 5000;
+    String name = selectName();
+    while (!"Renamed".equals(name) && System.currentTimeMillis() < deadline) {
+      Thread.sleep(20);
+      name = selectName();
+    }
+    assertEquals("Renamed", name);
+  }
+
+  @Test
+  void shouldReloadWithParameterValuesOfTheHit() throws Exception {
+    Configuration configuration = sqlSessionFactory.getConfiguration();
+    List<Runnable> refreshes = new ArrayList<>();
+    configuration.setAsyncExecutor(refreshes::add);
+    try {
+      Map<String, Object> parameter = new HashMap<>();
+      parameter.put("id", 2);
+      assertEquals("User2", selectNameByMap(parameter));
+      try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+        sqlSession.getMapper(Mapper.class).rename(2, "Renamed2");
+        sqlSession.commit();
+      }
+      Thread.sleep(20);
+      assertEquals("User2", selectNameByMap(parameter));
+      assertEquals(1, refreshes.size());
+      // the caller reuses its parameter object before the refresh runs
+      parameter.put("id", 3);
+      refreshes.get(0).run();
+      parameter.put("id", 2);
+      assertEquals("Renamed2", selectNameByMap(parameter));
+    } finally {
+      configuration.setAsyncExecutor(null);
+    }
+  }
+
+  private String selectNameByMap(Map<String, Object> parameter) {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      return sqlSession.getMapper(Mapper.class).selectNameByMap(parameter);
+    }
+  }
+
+  private String selectName() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      return sqlSession.getMapper(Mapper.class).selectName(1);
+    }
+  }
+
+}
@@ -0,0 +1,121 @@
+/*
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.compiled_row_mapping;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.io.Reader;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import org.apache.ibatis.BaseDataTest;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+class CompiledRowMappingTest {
+
+  private static SqlSessionFactory sqlSessionFactory;
+
+  @BeforeAll
+  static void setUp() throws Exception {
+    try (Reader reader = Resources.getResourceAsReader("org/apache/ibatis/submitted/compiled_row_mapping/mybatis-config.xml")) {
+      sqlSessionFactory = new SqlSessionFactoryBuilder().build(reader);
+    }
+    BaseDataTest.runScript(sqlSessionFactory.getConfiguration().getEnvironment().getDataSource(),
+        "org/apache/ibatis/submitted/compiled_row_mapping/CreateDB.sql");
+  }
+
+  @AfterEach
+  void restoreSetting() {
+    sqlSessionFactory.getConfiguration().setCompiledRowMappingEnabled(true);
+  }
+
+  @Test
+  void shouldReadSettingFromConfig() {
+    Configuration configuration = sqlSessionFactory.getConfiguration();
+    assertEquals(true, configuration.isCompiledRowMappingEnabled());
+    assertFalse(new Configuration().isCompiledRowMappingEnabled());
+  }
+
+  @Test
+  void shouldAutoMapPropertiesAndNestedProperties() {
+    List<User> users = select(Mapper::selectUsers);
+    assertEquals(4, users.size());
+    // all columns are null
+    assertNull(users.get(0));
+    User user1 = users.get(1);
+    assertEquals(1, user1.getId().intValue());
+    assertEquals("User1", user1.getName());
+    assertEquals(31, user1.getAge());
+    assertEquals("Tokyo", user1.getAddress().getCity());
+    // null is not set to a primitive
+    assertEquals(0, users.get(2).getAge());
+    assertNull(users.get(3).getName());
+    assertNull(users.get(3).getAddress().getCity());
+  }
+
+  @Test
+  void shouldApplyResultMapAndAutoMapping() {
+    List<User> users = select(Mapper::selectUsersWithResultMap);
+    assertEquals(4, users.size());
+    User user2 = users.get(2);
+    assertEquals(2, user2.getId().intValue());
+    assertEquals("User2", user2.getName());
+    assertEquals("Paris", user2.getAddress().getCity());
+    assertEquals(17, users.get(3).getAge());
+  }
+
+  @Test
+  void shouldMapMaps() {
+    List<Map<String, Object>> users = select(Mapper::selectUserMaps);
+    assertEquals(4, users.size());
+    assertNull(users.get(0));
+    assertEquals("User1", users.get(1).get("USER_NAME"));
+    assertFalse(users.get(2).containsKey("AGE"));
+  }
+
+  @Test
+  void shouldMapSameResultsAsReflectiveMapping() {
+    List<User> compiled = select(Mapper::selectUsersWithResultMap);
+    sqlSessionFactory.getConfiguration().setCompiledRowMappingEnabled(false);
+    List<User> reflective = select(Mapper::selectUsersWithResultMap);
+    assertEquals(reflective.size(), compiled.size());
+    for (int i = 1; i < compiled.size(); i++) {
+      assertNotNull(compiled.get(i));
+      assertEquals(reflective.get(i).getId(), compiled.get(i).getId());
+      assertEquals(reflective.get(i).getName(), compiled.get(i).getName());
+      assertEquals(reflective.get(i).getAge(), compiled.get(i).getAge());
+      assertEquals(reflective.get(i).getAddress().getCity(), compiled.get(i).getAddress().getCity());
+    }
+  }
+
+  private <T> T select(Function<Mapper, T> query) {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      return query.apply(sqlSession.getMapper(Mapper.class));
+    }
+  }
+
+}
@@ -18,12 +18,18 @@ package org.apache.ibatis.submitted.cursor_simple;
 import java.io.IOException;
 import java.io.Reader;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
 import java.util.NoSuchElementException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 
 import org.apache.ibatis.BaseDataTest;
 import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.cursor.CursorPublisher;
 import org.apache.ibatis.io.Resources;
 import org.apache.ibatis.session.RowBounds;
 import org.apache.ibatis.session.SqlSession;
@@ -468,4 +474,41 @@ class CursorSimpleTest {
       Assertions.assertTrue(cursor.isConsumed());
     }
   }
+
+  @Test
+  void shouldPublishRequestedUsers() throws Exception {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      CursorPublisher<User> publisher = sqlSession.selectPublisher(
+          "org.apache.ibatis.submitted.cursor_simple.Mapper.getAllUsers", null);
+      List<String> names = new CopyOnWriteArrayList<>();
+      CountDownLatch received = new CountDownLatch(2);
+      AtomicReference<CursorPublisher.Subscription> subscription = new AtomicReference<>();
+      publisher.subscribe(new CursorPublisher.Subscriber<User>() {
+        @Override
+        public void onSubscribe(CursorPublisher.Subscription s) {
+          subscription.set(s);
+          s.request(2);
+        }
+
+        @Override
+        public void onNext(User item) {
+          names.add(item.getName());
+          received.countDown();
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+          Assertions.fail(throwable);
+        }
+
+        @Override
+        public void onComplete() {
+          Assertions.fail("Only two users were requested");
+        }
+      });
+      Assertions.assertTrue(received.await(10, TimeUnit.SECONDS));
+      subscription.get().cancel();
+      Assertions.assertEquals(Arrays.asList("User1", "User2"), names);
+    }
+  }
 }
@@ -0,0 +1,103 @@
+/*
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.foreach_mode;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.ibatis.BaseDataTest;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.reflection.ParamNameResolver;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.apache.ibatis.type.ArrayTypeHandler;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+class ForEachModeTest {
+
+  private static SqlSessionFactory sqlSessionFactory;
+
+  @BeforeAll
+  static void setUp() throws Exception {
+    try (Reader reader = Resources.getResourceAsReader("org/apache/ibatis/submitted/foreach_mode/mybatis-config.xml")) {
+      sqlSessionFactory = new SqlSessionFactoryBuilder().build(reader);
+    }
+    BaseDataTest.runScript(sqlSessionFactory.getConfiguration().getEnvironment().getDataSource(),
+        "org/apache/ibatis/submitted/foreach_mode/CreateDB.sql");
+  }
+
+  @Test
+  void shouldRenderOnePlaceholderPerItemByDefault() {
+    assertEquals(3, boundSql("selectItems", list(1, 2, 3)).getParameterMappings().size());
+    assertNotEquals(boundSql("selectItems", list(1, 2, 3)).getSql(), boundSql("selectItems", list(1, 2, 3, 4)).getSql());
+  }
+
+  @Test
+  void shouldPadItemsToNextPowerOfTwo() {
+    assertEquals(1, boundSql("selectPadded", list(1)).getParameterMappings().size());
+    assertEquals(2, boundSql("selectPadded", list(1, 2)).getParameterMappings().size());
+    assertEquals(4, boundSql("selectPadded", list(1, 2, 3)).getParameterMappings().size());
+    assertEquals(8, boundSql("selectPadded", list(1, 2, 3, 4, 5)).getParameterMappings().size());
+    assertEquals(boundSql("selectPadded", list(1, 2, 3)).getSql(), boundSql("selectPadded", list(4, 3, 2, 1)).getSql());
+  }
+
+  @Test
+  void shouldSelectWithPaddedItems() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      assertEquals(Arrays.asList("User1", "User3", "User5"), mapper.selectPadded(list(5, 1, 3)));
+      assertEquals(mapper.selectItems(list(2, 4, 5)), mapper.selectPadded(list(2, 4, 5)));
+    }
+  }
+
+  @Test
+  void shouldBindWholeCollectionAsArray() {
+    BoundSql boundSql = boundSql("selectArray", list(1, 2, 3));
+    assertEquals(1, boundSql.getParameterMappings().size());
+    assertEquals(ArrayTypeHandler.class, boundSql.getParameterMappings().get(0).getTypeHandler().getClass());
+    assertEquals(boundSql.getSql(), boundSql("selectArray", list(1, 2, 3, 4, 5)).getSql());
+  }
+
+  @Test
+  void shouldSelectWithArray() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      assertEquals(Arrays.asList("User1", "User3", "User5"), mapper.selectArray(list(5, 1, 3)));
+      assertEquals(Arrays.asList("User2"), mapper.selectArray(list(2)));
+    }
+  }
+
+  private static BoundSql boundSql(String id, List<Integer> ids) {
+    MappedStatement ms = sqlSessionFactory.getConfiguration()
+        .getMappedStatement("org.apache.ibatis.submitted.foreach_mode.Mapper." + id);
+    return ms.getBoundSql(ParamNameResolver.wrapToMapIfCollection(ids, null));
+  }
+
+  private static List<Integer> list(Integer... ids) {
+    return new ArrayList<>(Arrays.asList(ids));
+  }
+
+}
@@ -0,0 +1,213 @@
+/*
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.keyset_scan;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.ibatis.BaseDataTest;
+import org.apache.ibatis.annotations.Keyset;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.binding.BindingException;
+import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.executor.ExecutorException;
+import org.apache.ibatis.executor.pagination.PaginationDialect;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionException;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.apache.ibatis.session.defaults.DefaultSqlSession;
+import org.apache.ibatis.session.defaults.DefaultSqlSessionFactory;
+import org.apache.ibatis.transaction.jdbc.JdbcTransactionFactory;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class KeysetScanTest {
+
+  private static SqlSessionFactory sqlSessionFactory;
+
+  @BeforeAll
+  static void setUp() throws Exception {
+    try (Reader reader = Resources.getResourceAsReader("org/apache/ibatis/submitted/keyset_scan/mybatis-config.xml")) {
+      sqlSessionFactory = new SqlSessionFactoryBuilder().build(reader);
+    }
+    BaseDataTest.runScript(sqlSessionFactory.getConfiguration().getEnvironment().getDataSource(),
+        "org/apache/ibatis/submitted/keyset_scan/CreateDB.sql");
+  }
+
+  @BeforeEach
+  void resetCounter() {
+    PageCounter.pages.set(0);
+  }
+
+  @Test
+  void shouldScanAllRowsPageByPage() throws Exception {
+    List<Integer> ids = new ArrayList<>();
+    try (SqlSession sqlSession = sqlSessionFactory.openSession();
+        Cursor<User> users = sqlSession.getMapper(Mapper.class).scanUsers()) {
+      assertFalse(users.isOpen());
+      for (User user : users) {
+        ids.add(user.getId());
+        assertTrue(users.isOpen());
+      }
+      assertTrue(users.isConsumed());
+      assertEquals(7, users.getCurrentIndex());
+    }
+    assertEquals(Arrays.asList(1, 2, 3, 4, 5, 6, 7, 8), ids);
+    assertEquals(3, PageCounter.pages.get());
+  }
+
+  @Test
+  void shouldFetchEmptyPageAfterFullLastPage() throws Exception {
+    List<Integer> ids = new ArrayList<>();
+    try (SqlSession sqlSession = sqlSessionFactory.openSession();
+        Cursor<Integer> cursor = sqlSession.getMapper(Mapper.class).scanIds(5)) {
+      cursor.forEach(ids::add);
+    }
+    assertEquals(Arrays.asList(5, 6, 7, 8), ids);
+    assertEquals(3, PageCounter.pages.get());
+  }
+
+  @Test
+  void shouldScanThroughSqlSession() throws Exception {
+    User prefix = new User();
+    prefix.setName("User");
+    List<String> names = new ArrayList<>();
+    try (SqlSession sqlSession = sqlSessionFactory.openSession();
+        Cursor<User> users = sqlSession.selectKeyset(
+            "org.apache.ibatis.submitted.keyset_scan.Mapper.selectUsersAfter", prefix, "id", 5)) {
+      for (User user : users) {
+        names.add(user.getName());
+      }
+    }
+    assertEquals(8, names.size());
+    assertEquals("User8", names.get(7));
+    assertEquals(2, PageCounter.pages.get());
+  }
+
+  @Test
+  void shouldStopIteratingWhenClosed() throws Exception {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Cursor<User> users = sqlSession.getMapper(Mapper.class).scanUsers();
+      int count = 0;
+      for (User user : users) {
+        if (++count == 2) {
+          users.close();
+        }
+      }
+      assertEquals(2, count);
+      assertFalse(users.isConsumed());
+      assertEquals(1, PageCounter.pages.get());
+    }
+  }
+
+  @Test
+  void shouldScanWithBoundPageSizeWithoutDialect() throws Exception {
+    Configuration configuration = sqlSessionFactory.getConfiguration();
+    PaginationDialect paginationDialect = configuration.getPaginationDialect();
+    configuration.setPaginationDialect(null);
+    List<Integer> ids = new ArrayList<>();
+    try (SqlSession sqlSession = sqlSessionFactory.openSession();
+        Cursor<User> users = sqlSession.getMapper(Mapper.class).scanUsersWithLimit()) {
+      users.forEach(user -> ids.add(user.getId()));
+    } finally {
+      configuration.setPaginationDialect(paginationDialect);
+    }
+    assertEquals(Arrays.asList(1, 2, 3, 4, 5, 6, 7, 8), ids);
+    assertEquals(3, PageCounter.pages.get());
+  }
+
+  @Test
+  void shouldRejectUnlimitedStatementWithoutDialect() {
+    Configuration configuration = sqlSessionFactory.getConfiguration();
+    PaginationDialect paginationDialect = configuration.getPaginationDialect();
+    configuration.setPaginationDialect(null);
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      assertThrows(ExecutorException.class, mapper::scanUsers);
+    } finally {
+      configuration.setPaginationDialect(paginationDialect);
+    }
+    assertEquals(0, PageCounter.pages.get());
+  }
+
+  @Test
+  void shouldRejectUnlimitedStatementTheDialectDoesNotApplyTo() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      assertThrows(ExecutorException.class, mapper::scanUsersInResultSet);
+      assertThrows(ExecutorException.class, mapper::scanUsersCallable);
+    }
+    assertEquals(0, PageCounter.pages.get());
+  }
+
+  @Test
+  void shouldReadPagesWithTheCallersFactory() throws Exception {
+    AtomicInteger openedSessions = new AtomicInteger();
+    SqlSessionFactory countingFactory = new DefaultSqlSessionFactory(sqlSessionFactory.getConfiguration()) {
+      @Override
+      public SqlSession openSession() {
+        openedSessions.incrementAndGet();
+        return super.openSession();
+      }
+    };
+    try (SqlSession sqlSession = countingFactory.openSession();
+        Cursor<User> users = sqlSession.getMapper(Mapper.class).scanUsers()) {
+      users.forEach(user -> { });
+    }
+    assertEquals(4, openedSessions.get());
+  }
+
+  @Test
+  void shouldRejectSessionWithoutKnownFactory() {
+    Configuration configuration = sqlSessionFactory.getConfiguration();
+    SqlSession sqlSession = new DefaultSqlSession(configuration, configuration.newExecutor(
+        new JdbcTransactionFactory().newTransaction(configuration.getEnvironment().getDataSource(), null, false)));
+    try {
+      assertThrows(SqlSessionException.class, () -> sqlSession.selectKeyset(
+          "org.apache.ibatis.submitted.keyset_scan.Mapper.selectUsersAfter", null, "id", 5));
+    } finally {
+      sqlSession.close();
+    }
+  }
+
+  @Test
+  void shouldRejectKeysetOnMethodsNotReturningCursor() {
+    sqlSessionFactory.getConfiguration().addMapper(InvalidMapper.class);
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      InvalidMapper mapper = sqlSession.getMapper(InvalidMapper.class);
+      assertThrows(BindingException.class, mapper::selectIds);
+    }
+  }
+
+  interface InvalidMapper {
+    @Keyset(pageSize = 2)
+    @Select("select id from users order by id")
+    List<Integer> selectIds();
+  }
+
+}
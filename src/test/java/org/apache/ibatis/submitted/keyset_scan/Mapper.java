@@ -0,0 +1,66 @@
+/*
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.keyset_scan;
+
+import java.util.List;
+
+import org.apache.ibatis.annotations.Keyset;
+import org.apache.ibatis.annotations.Options;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.mapping.StatementType;
+
+public interface Mapper {
+
+  @Keyset(key = "id", pageSize = 3)
+  @Select({ "<script>select id, name from users",
+      "<where><if test='lastKey != null'>id &gt; #{lastKey}</if></where>",
+      "order by id</script>" })
+  Cursor<User> scanUsers();
+
+  @Keyset(pageSize = 2)
+  @Select({ "<script>select id from users where id &gt;= #{minId}",
+      "<if test='lastKey != null'>and id &gt; #{lastKey}</if>",
+      "order by id</script>" })
+  Cursor<Integer> scanIds(@Param("minId") int minId);
+
+  @Select({ "<script>select id, name from users where name like #{parameter.name} || '%'",
+      "<if test='lastKey != null'>and id &gt; #{lastKey}</if>",
+      "order by id</script>" })
+  List<User> selectUsersAfter(User prefix);
+
+  @Keyset(key = "id", pageSize = 3)
+  @Select({ "<script>select id, name from users",
+      "<where><if test='lastKey != null'>id &gt; #{lastKey}</if></where>",
+      "order by id limit #{pageSize}</script>" })
+  Cursor<User> scanUsersWithLimit();
+
+  @Keyset(key = "id", pageSize = 3)
+  @Options(resultSets = "users")
+  @Select({ "<script>select id, name from users",
+      "<where><if test='lastKey != null'>id &gt; #{lastKey}</if></where>",
+      "order by id</script>" })
+  Cursor<User> scanUsersInResultSet();
+
+  @Keyset(key = "id", pageSize = 3)
+  @Options(statementType = StatementType.CALLABLE)
+  @Select({ "<script>select id, name from users",
+      "<where><if test='lastKey != null'>id &gt; #{lastKey}</if></where>",
+      "order by id</script>" })
+  Cursor<User> scanUsersCallable();
+
+}
@@ -0,0 +1,125 @@
+/*
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.parallel_mapping;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.ibatis.BaseDataTest;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.session.ExecutorType;
+import org.apache.ibatis.session.RowBounds;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+class ParallelMappingTest {
+
+  private static final int ROWS = 5000;
+
+  private static SqlSessionFactory sqlSessionFactory;
+
+  @BeforeAll
+  static void setUp() throws Exception {
+    try (Reader reader = Resources.getResourceAsReader("org/apache/ibatis/submitted/parallel_mapping/mybatis-config.xml")) {
+      sqlSessionFactory = new SqlSessionFactoryBuilder().build(reader);
+    }
+    BaseDataTest.runScript(sqlSessionFactory.getConfiguration().getEnvironment().getDataSource(),
+        "org/apache/ibatis/submitted/parallel_mapping/CreateDB.sql");
+    try (SqlSession sqlSession = sqlSessionFactory.openSession(ExecutorType.BATCH)) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      for (int i = 0; i < ROWS; i++) {
+        Item item = new Item();
+        item.setId(i);
+        // every 10th row has no name
+        item.setName(i % 10 == 0 ? null : "item" + i);
+        item.setPrice(BigDecimal.valueOf(i, 2));
+        item.setInStock(i % 3 == 0);
+        mapper.insertItem(item);
+      }
+      sqlSession.commit();
+    }
+  }
+
+  @Test
+  void shouldParseParallelMappingAttribute() {
+    assertTrue(sqlSessionFactory.getConfiguration()
+        .getMappedStatement("org.apache.ibatis.submitted.parallel_mapping.Mapper.selectItemsInParallel").isParallelMapping());
+    assertTrue(sqlSessionFactory.getConfiguration()
+        .getMappedStatement("org.apache.ibatis.submitted.parallel_mapping.Mapper.selectItemsAnnotated").isParallelMapping());
+    assertFalse(sqlSessionFactory.getConfiguration()
+        .getMappedStatement("org.apache.ibatis.submitted.parallel_mapping.Mapper.selectItems").isParallelMapping());
+  }
+
+  @Test
+  void shouldMapSameResultsInSameOrder() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      List<Item> expected = mapper.selectItems();
+      assertEquals(ROWS, expected.size());
+      assertEquals(expected, mapper.selectItemsInParallel());
+      assertEquals(expected, mapper.selectItemsAnnotated());
+      assertNull(expected.get(0).getName());
+      assertEquals(BigDecimal.valueOf(4999, 2), expected.get(4999).getPrice());
+    }
+  }
+
+  @Test
+  void shouldApplyResultMapAndAutoMapping() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      List<Item> items = sqlSession.getMapper(Mapper.class).selectItemsWithResultMapInParallel();
+      assertEquals(ROWS, items.size());
+      Item item = items.get(42);
+      assertEquals(42, item.getId().intValue());
+      assertEquals("item42", item.getName());
+      assertEquals(BigDecimal.valueOf(42, 2), item.getPrice());
+      assertTrue(item.isInStock());
+    }
+  }
+
+  @Test
+  void shouldMapMaps() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      List<Map<String, Object>> items = sqlSession.getMapper(Mapper.class).selectItemMapsInParallel();
+      assertEquals(ROWS, items.size());
+      assertEquals("item7", items.get(7).get("NAME"));
+      assertThat(items.get(10)).doesNotContainKey("NAME");
+    }
+  }
+
+  @Test
+  void shouldHonorRowBounds() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      RowBounds rowBounds = new RowBounds(1000, 700);
+      List<Item> items = mapper.selectItemsInParallel(rowBounds);
+      assertEquals(700, items.size());
+      assertEquals(mapper.selectItems(rowBounds), items);
+      assertEquals(1000, items.get(0).getId().intValue());
+    }
+  }
+
+}
@@ -0,0 +1,126 @@
+/*
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.row_bounds_pagination;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+
+import org.apache.ibatis.BaseDataTest;
+import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.session.RowBounds;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class RowBoundsPaginationTest {
+
+  @BeforeEach
+  void clear() {
+    SqlRecorder.statements.clear();
+  }
+
+  @Test
+  void shouldPageOnHsqldb() throws Exception {
+    assertPagedOnDatabase("hsqldb", "HSQLDB");
+  }
+
+  @Test
+  void shouldPageOnH2() throws Exception {
+    assertPagedOnDatabase("h2", "H2");
+  }
+
+  @Test
+  void shouldPageOnDerby() throws Exception {
+    assertPagedOnDatabase("derby", "DERBY");
+  }
+
+  @Test
+  void shouldPageCursorOnHsqldb() throws Exception {
+    assertCursorPagedOnDatabase("hsqldb", "HSQLDB");
+  }
+
+  @Test
+  void shouldPageCursorOnDerby() throws Exception {
+    assertCursorPagedOnDatabase("derby", "DERBY");
+  }
+
+  @Test
+  void shouldPageOneToManyJoinOnClient() throws Exception {
+    SqlSessionFactory sqlSessionFactory = build("hsqldb", "HSQLDB");
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      // a database-side limit of 2 rows would return only User1
+      List<User> users = sqlSession.getMapper(Mapper.class).selectUsersWithOrders(new RowBounds(0, 2));
+      assertEquals(2, users.size());
+      assertEquals(Arrays.asList("Item1", "Item2"), users.get(0).getOrders());
+      assertEquals(Arrays.asList("Item3", "Item4", "Item5"), users.get(1).getOrders());
+    }
+    assertEquals(1, SqlRecorder.statements.size());
+    assertFalse(SqlRecorder.statements.get(0).toUpperCase().contains("OFFSET"));
+  }
+
+  private void assertPagedOnDatabase(String environment, String dialect) throws Exception {
+    SqlSessionFactory sqlSessionFactory = build(environment, dialect);
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      assertEquals(Arrays.asList("User3", "User4"), mapper.selectNames(new RowBounds(2, 2)));
+      assertEquals(Arrays.asList("User5", "User6"), mapper.selectNames(new RowBounds(4, RowBounds.NO_ROW_LIMIT)));
+      assertEquals(Arrays.asList("User1", "User2", "User3"), mapper.selectNames(new RowBounds(0, 3)));
+      assertEquals(6, mapper.selectNames(RowBounds.DEFAULT).size());
+    }
+    assertEquals(4, SqlRecorder.statements.size());
+    assertTrue(SqlRecorder.statements.get(0).toUpperCase().contains("OFFSET 2"));
+    assertEquals("select name from users order by id", SqlRecorder.statements.get(3));
+  }
+
+  private void assertCursorPagedOnDatabase(String environment, String dialect) throws Exception {
+    SqlSessionFactory sqlSessionFactory = build(environment, dialect);
+    try (SqlSession sqlSession = sqlSessionFactory.openSession();
+        Cursor<String> cursor = sqlSession.getMapper(Mapper.class).selectNamesCursor(new RowBounds(1, 3))) {
+      List<String> names = new ArrayList<>();
+      cursor.forEach(names::add);
+      assertEquals(Arrays.asList("User2", "User3", "User4"), names);
+    }
+  }
+
+  private static SqlSessionFactory build(String environment, String dialect) throws Exception {
+    Properties properties = new Properties();
+    properties.setProperty("dialect", dialect);
+    SqlSessionFactory sqlSessionFactory;
+    try (Reader reader = Resources.getResourceAsReader("org/apache/ibatis/submitted/row_bounds_pagination/mybatis-config.xml")) {
+      sqlSessionFactory = new SqlSessionFactoryBuilder().build(reader, environment, properties);
+    }
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      sqlSession.getConnection().createStatement().execute("drop table users");
+      sqlSession.getConnection().createStatement().execute("drop table orders");
+    } catch (Exception e) {
+      // the tables do not exist yet
+    }
+    BaseDataTest.runScript(sqlSessionFactory.getConfiguration().getEnvironment().getDataSource(),
+        "org/apache/ibatis/submitted/row_bounds_pagination/CreateDB.sql");
+    return sqlSessionFactory;
+  }
+
+}
@@ -0,0 +1,116 @@
+/*
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.single_flight;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.ibatis.BaseDataTest;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class SingleFlightTest {
+
+  private SqlSessionFactory sqlSessionFactory;
+
+  @BeforeEach
+  void setUp() throws Exception {
+    try (Reader reader = Resources.getResourceAsReader("org/apache/ibatis/submitted/single_flight/mybatis-config.xml")) {
+      sqlSessionFactory = new SqlSessionFactoryBuilder().build(reader);
+    }
+    BaseDataTest.runScript(sqlSessionFactory.getConfiguration().getEnvironment().getDataSource(),
+        "org/apache/ibatis/submitted/single_flight/CreateDB.sql");
+    SlowQuery.queries.set(0);
+  }
+
+  @Test
+  void shouldShareOneQueryBetweenSessions() throws Exception {
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      List<Future<String>> names = new ArrayList<>();
+      for (int i = 0; i < 4; i++) {
+        names.add(executor.submit(() -> {
+          try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+            return sqlSession.getMapper(Mapper.class).selectName(1);
+          }
+        }));
+      }
+      for (Future<String> name : names) {
+        assertEquals("User1", name.get(10, TimeUnit.SECONDS));
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+    assertEquals(1, SlowQuery.queries.get());
+  }
+
+  @Test
+  void shouldNotShareUncommittedChanges() throws Exception {
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    try (SqlSession writer = sqlSessionFactory.openSession()) {
+      Mapper mapper = writer.getMapper(Mapper.class);
+      mapper.rename(1, "Uncommitted");
+      Future<String> reader = executor.submit(() -> {
+        try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+          return sqlSession.getMapper(Mapper.class).selectName(1);
+        }
+      });
+      assertEquals("Uncommitted", mapper.selectName(1));
+      assertEquals("User1", reader.get(10, TimeUnit.SECONDS));
+      assertEquals(2, SlowQuery.queries.get());
+      writer.rollback();
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  void shouldNotShareReadsOfTransactionThatRollsBack() throws Exception {
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    try (SqlSession writer = sqlSessionFactory.openSession()) {
+      Mapper mapper = writer.getMapper(Mapper.class);
+      // does not clear the cache, only the write itself keeps the writer out of the shared query
+      mapper.renameWithoutFlush(1, "RolledBack");
+      Future<String> reader = executor.submit(() -> {
+        // starts while the writer is reading
+        Thread.sleep(50);
+        try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+          return sqlSession.getMapper(Mapper.class).selectName(1);
+        }
+      });
+      assertEquals("RolledBack", mapper.selectName(1));
+      assertEquals("User1", reader.get(10, TimeUnit.SECONDS));
+      writer.rollback();
+    } finally {
+      executor.shutdownNow();
+    }
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      assertEquals("User1", sqlSession.getMapper(Mapper.class).selectName(1));
+    }
+  }
+
+}
@@ -0,0 +1,39 @@
+/*
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.statement_chunking;
+
+import java.util.List;
+
+import org.apache.ibatis.annotations.Options;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+
+public interface Mapper {
+
+  List<String> selectNames(@Param("ids") List<Integer> ids, @Param("prefix") String prefix);
+
+  List<String> selectNamesOfList(List<Integer> ids);
+
+  int deleteUsers(@Param("ids") Integer[] ids);
+
+  @Select({"<script>",
+      "select count(*) from users where id in",
+      "<foreach collection='ids' item='id' open='(' separator=',' close=')'>#{id}</foreach>",
+      "</script>"})
+  @Options(chunkParameter = "ids", chunkSize = 3)
+  List<Integer> countUsers(@Param("ids") List<Integer> ids);
+
+}
@@ -0,0 +1,121 @@
+/*
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.statement_chunking;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import org.apache.ibatis.BaseDataTest;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.session.RowBounds;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class StatementChunkingTest {
+
+  private static SqlSessionFactory sqlSessionFactory;
+
+  @BeforeAll
+  static void setUp() throws Exception {
+    try (Reader reader = Resources.getResourceAsReader("org/apache/ibatis/submitted/statement_chunking/mybatis-config.xml")) {
+      sqlSessionFactory = new SqlSessionFactoryBuilder().build(reader);
+    }
+  }
+
+  @BeforeEach
+  void resetData() throws Exception {
+    BaseDataTest.runScript(sqlSessionFactory.getConfiguration().getEnvironment().getDataSource(),
+        "org/apache/ibatis/submitted/statement_chunking/CreateDB.sql");
+    ExecutionCounter.executions.set(0);
+  }
+
+  @Test
+  void shouldReadChunkAttributes() {
+    MappedStatement ms = sqlSessionFactory.getConfiguration()
+        .getMappedStatement("org.apache.ibatis.submitted.statement_chunking.Mapper.selectNames");
+    assertEquals("ids", ms.getChunkParameter());
+    assertEquals(2, ms.getChunkSize());
+    ms = sqlSessionFactory.getConfiguration()
+        .getMappedStatement("org.apache.ibatis.submitted.statement_chunking.Mapper.countUsers");
+    assertEquals("ids", ms.getChunkParameter());
+    assertEquals(3, ms.getChunkSize());
+  }
+
+  @Test
+  void shouldConcatenateSelectResults() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      assertEquals(Arrays.asList("User1", "User3", "User2", "User5", "User4"),
+          mapper.selectNames(new ArrayList<>(Arrays.asList(1, 3, 2, 5, 4)), "User"));
+      assertEquals(3, ExecutionCounter.executions.get());
+    }
+  }
+
+  @Test
+  void shouldNotChunkSmallCollections() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      assertEquals(Arrays.asList("User2", "User4"), mapper.selectNames(new ArrayList<>(Arrays.asList(2, 4)), "User"));
+      assertEquals(1, ExecutionCounter.executions.get());
+    }
+  }
+
+  @Test
+  void shouldChunkSingleCollectionParameter() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      assertEquals(Arrays.asList("User1", "User2", "User4"), mapper.selectNamesOfList(new ArrayList<>(Arrays.asList(1, 2, 4))));
+      assertEquals(2, ExecutionCounter.executions.get());
+    }
+  }
+
+  @Test
+  void shouldChunkAnnotatedStatement() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      assertEquals(Arrays.asList(3, 2), mapper.countUsers(new ArrayList<>(Arrays.asList(1, 2, 3, 4, 5))));
+    }
+  }
+
+  @Test
+  void shouldSumUpdateCounts() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      assertEquals(4, mapper.deleteUsers(new Integer[] { 1, 2, 4, 5, 9 }));
+      assertEquals(3, ExecutionCounter.executions.get());
+      assertEquals(Arrays.asList("User3"), mapper.selectNames(new ArrayList<>(Arrays.asList(1, 2, 3, 4, 5)), "User"));
+    }
+  }
+
+  @Test
+  void shouldNotChunkWithRowBounds() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      assertEquals(Arrays.asList("User2", "User3"), sqlSession.selectList(
+          "org.apache.ibatis.submitted.statement_chunking.Mapper.selectNamesOfList",
+          new ArrayList<>(Arrays.asList(1, 2, 3, 4)), new RowBounds(1, 2)));
+      assertEquals(1, ExecutionCounter.executions.get());
+    }
+  }
+
+}